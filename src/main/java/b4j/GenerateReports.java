@@ -17,7 +17,16 @@
  */
 package b4j;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -29,11 +38,13 @@ import org.apache.commons.cli.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import b4j.core.DefaultIssue;
 import b4j.core.DefaultMetaInformation;
 import b4j.core.Issue;
 import b4j.core.MetaInformation;
 import b4j.core.Session;
 import b4j.report.BugzillaReportGenerator;
+import b4j.report.ThreadSafeReportGenerator;
 import rs.baselib.util.CommonUtils;
 
 /**
@@ -59,6 +70,9 @@ public class GenerateReports implements Runnable {
 
 	private static Logger log = LoggerFactory.getLogger(GenerateReports.class);
 
+	/** Default capacity of the issue queue of each report */
+	public static final int DEFAULT_QUEUE_SIZE = 100;
+
 	/** The meta information */
 	private MetaInformation metaInformation;
 
@@ -68,11 +82,23 @@ public class GenerateReports implements Runnable {
 	 */
 	private boolean closeSessionWhenDone;
 
+	/** Capacity of the issue queue of each report */
+	private int queueSize;
+
+	/** Number of workers for thread-safe reports */
+	private int threadCount;
+
+	/** Errors of the last run */
+	private Map<BugzillaReportGenerator, List<Throwable>> errors;
+
 	/**
 	 * Default Constructor.
 	 */
 	public GenerateReports() {
 		setCloseSessionWhenDone(false);
+		setQueueSize(DEFAULT_QUEUE_SIZE);
+		setThreadCount(Runtime.getRuntime().availableProcessors());
+		errors = new LinkedHashMap<BugzillaReportGenerator, List<Throwable>>();
 	}
 
 	/**
@@ -167,15 +193,77 @@ public class GenerateReports implements Runnable {
 	}
 
 
+	/**
+	 * Returns the capacity of the queue that buffers issues for each report.
+	 * @return the queue size
+	 * @since 3.0.2
+	 */
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	/**
+	 * Sets the capacity of the queue that buffers issues for each report.
+	 * The search will block when a report's queue is full. Default is {@link #DEFAULT_QUEUE_SIZE}.
+	 * @param queueSize the queue size to set
+	 * @since 3.0.2
+	 */
+	public void setQueueSize(int queueSize) {
+		this.queueSize = Math.max(1, queueSize);
+	}
+
+	/**
+	 * Returns the number of workers that feed a {@link ThreadSafeReportGenerator}.
+	 * @return the number of workers per thread-safe report
+	 * @since 3.0.2
+	 */
+	public int getThreadCount() {
+		return threadCount;
+	}
+
+	/**
+	 * Sets the number of workers that feed a {@link ThreadSafeReportGenerator}.
+	 * Other reports are always fed by a single worker. Default is the number of available processors.
+	 * @param threadCount the number of workers per thread-safe report
+	 * @since 3.0.2
+	 */
+	public void setThreadCount(int threadCount) {
+		this.threadCount = Math.max(1, threadCount);
+	}
+
+	/**
+	 * Returns the errors of the last run.
+	 * Reports that failed are not closed, i.e. they did not produce any output.
+	 * @return the errors of each failed report (empty when all reports succeeded)
+	 * @since 3.0.2
+	 */
+	public Map<BugzillaReportGenerator, List<Throwable>> getErrors() {
+		return Collections.unmodifiableMap(errors);
+	}
+
+	/**
+	 * Returns whether any report failed in the last run.
+	 * @return true when at least one report failed
+	 * @since 3.0.2
+	 */
+	public boolean hasErrors() {
+		return !errors.isEmpty();
+	}
+
 	/**
 	 * Actually runs the report.
 	 * The method opens the Bugzilla session, performs a search and forwards all
 	 * found bug records for registering to all reports configured.
 	 * It then closes the reports and the Bugzilla Session if required (see 
 	 * {@link #closeSessionWhenDone}.
+	 * <p>Since V3.0.2 each report receives the bugs through its own queue and worker
+	 * thread so that a slow report does not delay the others. Errors are collected
+	 * per report (see {@link #getErrors()}).</p>
 	 */
 	@Override
 	public void run() {
+		errors = new LinkedHashMap<BugzillaReportGenerator, List<Throwable>>();
+
 		// Create session object
 		Session session = getMetaInformation().getBugzillaSession();
 
@@ -186,18 +274,20 @@ public class GenerateReports implements Runnable {
 			Iterable<Issue> bugs = session.searchBugs(getMetaInformation().getBugzillaSearchData(), null);
 			if (bugs != null) {
 
-				// Prepare all reports
-				boolean hasReport = false;
-				Iterable<BugzillaReportGenerator> reports = getMetaInformation().getReports();
-				for (BugzillaReportGenerator report : reports) {
+				// Prepare all compatible reports
+				String bugzillaVersion = session.getBugzillaVersion();
+				List<ReportWorker> workers = new ArrayList<ReportWorker>();
+				for (BugzillaReportGenerator report : getMetaInformation().getReports()) {
 
 					// Check compatibility of reports
-					if (CommonUtils.isCompatibleVersion(report.getMinimumBugzillaVersion(), report.getMaximumBugzillaVersion(), session.getBugzillaVersion())) {
-						report.prepareReport();
-						hasReport = true;
+					if (CommonUtils.isCompatibleVersion(report.getMinimumBugzillaVersion(), report.getMaximumBugzillaVersion(), bugzillaVersion)) {
+						int count = report instanceof ThreadSafeReportGenerator ? getThreadCount() : 1;
+						ReportWorker worker = new ReportWorker(report, getQueueSize(), count);
+						if (worker.prepare()) workers.add(worker);
+						else errors.put(report, worker.getErrors());
 					} else {
 						log.error("Report incompatible with found Bugzilla version:");
-						log.error("   Bugzilla Version:     "+session.getBugzillaVersion());
+						log.error("   Bugzilla Version:     "+bugzillaVersion);
 						log.error("   Report Class:    cc   "+report.getClass().getSimpleName());
 						log.error("   Report's min Version: "+report.getMinimumBugzillaVersion());
 						log.error("   Report's max Version: "+report.getMaximumBugzillaVersion());
@@ -205,24 +295,34 @@ public class GenerateReports implements Runnable {
 				}
 
 				// Iterate on all bugs
-				if (hasReport) {
-					for (Issue issue : bugs) {
-						log.debug("issue found: "+issue.toString());
-
-						// call all reports to register the bug
-						for (BugzillaReportGenerator report : reports) {
-							if (CommonUtils.isCompatibleVersion(report.getMinimumBugzillaVersion(), report.getMaximumBugzillaVersion(), session.getBugzillaVersion())) {
-								report.registerBug(issue);
-							}
+				if (!workers.isEmpty()) {
+					for (ReportWorker worker : workers) worker.start();
+					boolean complete = false;
+					try {
+						for (Issue issue : bugs) {
+							if (log.isDebugEnabled()) log.debug("issue found: "+issue.toString());
+
+							// deliver the bug to all reports
+							for (ReportWorker worker : workers) worker.put(issue);
+						}
+						complete = true;
+					} finally {
+						for (ReportWorker worker : workers) worker.finish(!complete);
+						// Release the search result when the iteration was aborted
+						if (!complete && (bugs instanceof Closeable)) try {
+							((Closeable)bugs).close();
+						} catch (IOException e) {
+							log.debug("Cannot close search result", e);
 						}
 					}
-				}
 
-				// Ask all reports to finish their work
-				for (BugzillaReportGenerator report : reports) {
-					if (CommonUtils.isCompatibleVersion(report.getMinimumBugzillaVersion(), report.getMaximumBugzillaVersion(), session.getBugzillaVersion())) {
-						log.info("Generating "+report.getClass().getSimpleName()+"...");
-						report.closeReport();
+					// Ask all reports to finish their work
+					for (ReportWorker worker : workers) {
+						if (worker.close()) {
+							log.info("Generated "+worker.getReport().getClass().getSimpleName());
+						} else {
+							errors.put(worker.getReport(), worker.getErrors());
+						}
 					}
 				}
 			}
@@ -234,4 +334,165 @@ public class GenerateReports implements Runnable {
 		}
 
 	}
+
+	/**
+	 * Feeds a single report from its own queue.
+	 * <p>The issue is locked while the report registers it as multiple reports
+	 * may access the same issue and issues load their data lazily.</p>
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	protected static class ReportWorker implements Runnable {
+
+		/** Marks the end of the issue stream */
+		private static final Issue END = new DefaultIssue();
+
+		private BugzillaReportGenerator report;
+		private BlockingQueue<Issue> queue;
+		private Thread threads[];
+		private List<Throwable> errors;
+		private volatile boolean failed;
+		private volatile boolean aborted;
+
+		/**
+		 * Constructor.
+		 * @param report - the report to be fed
+		 * @param queueSize - the capacity of the queue
+		 * @param threadCount - the number of threads feeding the report
+		 */
+		public ReportWorker(BugzillaReportGenerator report, int queueSize, int threadCount) {
+			this.report = report;
+			this.queue = new ArrayBlockingQueue<Issue>(queueSize);
+			this.threads = new Thread[threadCount];
+			this.errors = Collections.synchronizedList(new ArrayList<Throwable>());
+			this.failed = false;
+			this.aborted = false;
+		}
+
+		/**
+		 * Returns the report.
+		 * @return the report
+		 */
+		public BugzillaReportGenerator getReport() {
+			return report;
+		}
+
+		/**
+		 * Returns the errors that occurred.
+		 * @return the errors
+		 */
+		public List<Throwable> getErrors() {
+			return errors;
+		}
+
+		/**
+		 * Prepares the report.
+		 * @return <code>true</code> when the report was prepared successfully
+		 */
+		public boolean prepare() {
+			try {
+				report.prepareReport();
+			} catch (Throwable t) {
+				fail("Cannot prepare report", t);
+			}
+			return !failed;
+		}
+
+		/**
+		 * Starts the threads feeding the report.
+		 */
+		public void start() {
+			String name = "b4j-report-"+report.getClass().getSimpleName();
+			for (int i=0; i<threads.length; i++) {
+				threads[i] = new Thread(this, threads.length > 1 ? name+"-"+(i+1) : name);
+				threads[i].setDaemon(true);
+				threads[i].start();
+			}
+		}
+
+		/**
+		 * Delivers an issue to the report.
+		 * Blocks when the queue is full.
+		 * @param issue - the issue
+		 */
+		public void put(Issue issue) {
+			if (failed) return;
+			try {
+				queue.put(issue);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while delivering issues", e);
+			}
+		}
+
+		/**
+		 * Signals the end of the issue stream and waits for the threads to terminate.
+		 * @param abort - <code>true</code> when the remaining issues shall be discarded
+		 */
+		public void finish(boolean abort) {
+			if (abort) {
+				aborted = true;
+				queue.clear();
+			}
+			try {
+				for (int i=0; i<threads.length; i++) queue.put(END);
+				for (Thread thread : threads) thread.join();
+			} catch (InterruptedException e) {
+				aborted = true;
+				for (Thread thread : threads) thread.interrupt();
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Closes the report unless it failed or the delivery was aborted.
+		 * @return <code>true</code> when the report was closed successfully
+		 */
+		public boolean close() {
+			if (aborted) return false;
+			if (!failed) {
+				try {
+					report.closeReport();
+				} catch (Throwable t) {
+					fail("Cannot close report", t);
+				}
+			}
+			return !failed;
+		}
+
+		/**
+		 * Consumes the issues from the queue.
+		 */
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					Issue issue = queue.take();
+					if (issue == END) break;
+					if (failed || aborted) continue;
+					try {
+						synchronized (issue) {
+							report.registerBug(issue);
+						}
+					} catch (Throwable t) {
+						fail("Cannot register issue "+issue.getId(), t);
+					}
+				}
+			} catch (InterruptedException e) {
+				aborted = true;
+			}
+		}
+
+		/**
+		 * Records an error.
+		 * The report will not receive further issues.
+		 * @param message - the message to log
+		 * @param t - the error
+		 */
+		protected void fail(String message, Throwable t) {
+			log.error(report.getClass().getSimpleName()+": "+message, t);
+			errors.add(t);
+			failed = true;
+		}
+	}
 }
@@ -18,24 +18,32 @@
 
 package b4j.core;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collections;
 
 /**
  * Provides the possibility to store custom values.
+ * <p>Since V3.0.2 the values are kept in two compact arrays instead of a hash map.
+ * Field names are interned so that thousands of objects share the same key instances
+ * and lookups can compare by identity first. Objects without custom fields do not
+ * allocate any storage.</p>
  * @author ralph
  * @since 2.0
  *
  */
 public abstract class AbstractBugzillaObject implements BugzillaObject {
 
-	private Map<String,Object> customFields;
+	private String fieldNames[];
+	private Object fieldValues[];
+	private int fieldCount;
 
 	/**
 	 * Constructor.
 	 */
 	public AbstractBugzillaObject() {
-		customFields = new HashMap<String, Object>();
+		fieldNames = null;
+		fieldValues = null;
+		fieldCount = 0;
 	}
 
 	/**
@@ -43,7 +51,31 @@ public abstract class AbstractBugzillaObject implements BugzillaObject {
 	 */
 	@Override
 	public void set(String key, Object value) {
-		customFields.put(key, value);
+		int index = indexOf(key);
+		if (index >= 0) {
+			if (value != null) {
+				fieldValues[index] = value;
+			} else {
+				// Remove field
+				fieldCount--;
+				System.arraycopy(fieldNames, index+1, fieldNames, index, fieldCount-index);
+				System.arraycopy(fieldValues, index+1, fieldValues, index, fieldCount-index);
+				fieldNames[fieldCount] = null;
+				fieldValues[fieldCount] = null;
+			}
+		} else if (value != null) {
+			if (fieldNames == null) {
+				fieldNames = new String[4];
+				fieldValues = new Object[4];
+			} else if (fieldCount == fieldNames.length) {
+				int capacity = fieldCount + (fieldCount >> 1) + 1;
+				fieldNames = Arrays.copyOf(fieldNames, capacity);
+				fieldValues = Arrays.copyOf(fieldValues, capacity);
+			}
+			fieldNames[fieldCount] = key != null ? key.intern() : null;
+			fieldValues[fieldCount] = value;
+			fieldCount++;
+		}
 	}
 
 	/**
@@ -51,7 +83,25 @@ public abstract class AbstractBugzillaObject implements BugzillaObject {
 	 */
 	@Override
 	public Object get(String key) {
-		return customFields.get(key);
+		int index = indexOf(key);
+		return index >= 0 ? fieldValues[index] : null;
+	}
+
+	/**
+	 * Returns the index of the given field.
+	 * @param key - name of field
+	 * @return index in storage or -1 if not set
+	 */
+	private int indexOf(String key) {
+		// Keys are interned, so most lookups succeed by identity
+		for (int i=0; i<fieldCount; i++) {
+			if (fieldNames[i] == key) return i;
+		}
+		if (key == null) return -1;
+		for (int i=0; i<fieldCount; i++) {
+			if (key.equals(fieldNames[i])) return i;
+		}
+		return -1;
 	}
 
 	/**
@@ -59,7 +109,8 @@ public abstract class AbstractBugzillaObject implements BugzillaObject {
 	 */
 	@Override
 	public Iterable<String> getCustomFieldNames() {
-		return customFields.keySet();
+		if (fieldCount == 0) return Collections.emptyList();
+		return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(fieldNames, fieldCount)));
 	}
 
 	/**
@@ -67,7 +118,7 @@ public abstract class AbstractBugzillaObject implements BugzillaObject {
 	 */
 	@Override
 	public int getCustomFieldCount() {
-		return customFields.size();
+		return fieldCount;
 	}
 
 }
@@ -180,7 +180,7 @@ public class DefaultAttachment extends AbstractBugzillaObject implements Attachm
 	/**
 	 * Sets the content of the attachment.
 	 * @param length the length
-	 * @param bytes the bytes
+	 * @param bytes the Base64 encoded bytes
 	 */
 	public void setContent(int length, String bytes) {
 		this.length = length;
@@ -195,9 +195,19 @@ public class DefaultAttachment extends AbstractBugzillaObject implements Attachm
 		return length;
 	}
 
+	/**
+	 * Sets the content length without content.
+	 * The content needs to be retrieved from the session then.
+	 * @param length the length
+	 * @since 3.0.2
+	 */
+	public void setLength(int length) {
+		this.length = length;
+	}
+
 	/**
 	 * Returns the content.
-	 * @return the content
+	 * @return the content or {@code null} when the content was not loaded
 	 */
 	public byte[] getContent() {
 		return content;
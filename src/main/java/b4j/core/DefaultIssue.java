@@ -17,7 +17,6 @@
  */
 package b4j.core;
 
-import java.lang.reflect.Method;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -25,8 +24,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import b4j.util.LazyResolver;
 import b4j.util.LazyRetriever;
 import rs.baselib.util.CommonUtils;
 import rs.baselib.util.RsDate;
@@ -39,6 +40,8 @@ import rs.baselib.util.RsDate;
  */
 public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 
+	private static Logger log = LoggerFactory.getLogger(DefaultIssue.class);
+
 	/**
 	 * Formatter and Parser for XML-retrieved dates from Bugzilla.
 	 * Format is yyyy-MM-dd HH:mm:ss Z
@@ -126,23 +129,64 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	private boolean attachmentsRetrieved = false;
 	private List<IssueLink> links;
 	private List<Issue> children;
+	private LazyRetriever lazyRetriever;
 
 	/**
 	 * Default Constructor.
 	 */
 	public DefaultIssue() {
-		affectedVersions = new ArrayList<Version>();
-		plannedVersions = new ArrayList<Version>();
-		fixVersions = new ArrayList<Version>();
-		components = new ArrayList<Component>();
-		comments = new ArrayList<Comment>();
-		//cc = new ArrayList<String>();
-		attachments = new ArrayList<Attachment>();
-		creationTimestamp = new RsDate(0);
-		updateTimestamp = new RsDate(0);
-		//deadline = new Date(0);
-		links = new ArrayList<IssueLink>();
-		children = new ArrayList<Issue>();
+		// Collections and timestamps are created on first use
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The {@link LazyRetriever} is kept in a dedicated field.</p>
+	 */
+	@Override
+	public void set(String key, Object value) {
+		if (LAZY_RETRIEVER.equals(key)) {
+			lazyRetriever = (LazyRetriever)value;
+		} else {
+			super.set(key, value);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object get(String key) {
+		if (LAZY_RETRIEVER.equals(key)) return lazyRetriever;
+		return super.get(key);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterable<String> getCustomFieldNames() {
+		if (lazyRetriever == null) return super.getCustomFieldNames();
+		List<String> rc = new ArrayList<String>(getCustomFieldCount());
+		rc.add(LAZY_RETRIEVER);
+		for (String key : super.getCustomFieldNames()) rc.add(key);
+		return Collections.unmodifiableList(rc);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getCustomFieldCount() {
+		return super.getCustomFieldCount() + (lazyRetriever != null ? 1 : 0);
+	}
+
+	/**
+	 * Returns the lazy retriever.
+	 * @return the lazy retriever or <code>null</code>
+	 * @since 3.0.2
+	 */
+	protected LazyRetriever getLazyRetriever() {
+		return lazyRetriever;
 	}
 
 	/**
@@ -230,6 +274,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public RsDate getCreationTimestamp() {
+		if (creationTimestamp == null) creationTimestamp = new RsDate(0);
 		return creationTimestamp;
 	}
 
@@ -249,6 +294,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public RsDate getUpdateTimestamp() {
+		if (updateTimestamp == null) updateTimestamp = new RsDate(0);
 		return updateTimestamp;
 	}
 
@@ -303,7 +349,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public IssueType getType() {
-		type = check(type, "issueType");
+		type = check(type, "issueType", LazyResolver.ISSUE_TYPE);
 		return type;
 	}
 
@@ -320,7 +366,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public Classification getClassification() {
-		classification = check(classification, "classification");
+		classification = check(classification, "classification", LazyResolver.CLASSIFICATION);
 		return classification;
 	}
 
@@ -337,7 +383,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public Project getProject() {
-		project = check(project, "project");
+		project = check(project, "project", LazyResolver.PROJECT);
 		return project;
 	}
 
@@ -355,7 +401,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public Collection<Component> getComponents() {
 		checkComponents();
-		return Collections.unmodifiableList(components);
+		return unmodifiable(components);
 	}
 
 	/**
@@ -372,7 +418,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void addComponents(Collection<? extends Component> components) {
-		if (components != null) this.components.addAll(components);
+		if (components != null) this.components = addAll(this.components, components);
 	}
 
 	/**
@@ -381,7 +427,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public void addComponents(Component... components) {
 		for (Component item : components) {
-			this.components.add(item);
+			this.components = add(this.components, item);
 		}
 	}
 
@@ -390,7 +436,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeComponents(Collection<? extends Component> components) {
-		if (components != null) this.components.removeAll(components);
+		if ((components != null) && (this.components != null)) this.components.removeAll(components);
 	}
 
 	/**
@@ -398,6 +444,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeComponents(Component... components) {
+		if (this.components == null) return;
 		for (Component item : components) {
 			this.components.remove(item);
 		}
@@ -408,7 +455,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAllComponents() {
-		components.clear();
+		components = null;
 	}
 
 	/**
@@ -425,7 +472,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public Collection<Version> getAffectedVersions() {
 		checkAffectedVersions();
-		return Collections.unmodifiableList(affectedVersions);
+		return unmodifiable(affectedVersions);
 	}
 
 	/**
@@ -442,7 +489,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void addAffectedVersions(Collection<? extends Version> versions) {
-		if (versions != null) affectedVersions.addAll(versions);
+		if (versions != null) this.affectedVersions = addAll(this.affectedVersions, versions);
 	}
 
 	/**
@@ -451,7 +498,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public void addAffectedVersions(Version... versions) {
 		for (Version item : versions) {
-			affectedVersions.add(item);
+			this.affectedVersions = add(this.affectedVersions, item);
 		}
 	}
 
@@ -460,7 +507,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAffectedVersions(Collection<? extends Version> versions) {
-		if (versions != null) affectedVersions.removeAll(versions);
+		if ((versions != null) && (this.affectedVersions != null)) this.affectedVersions.removeAll(versions);
 	}
 
 	/**
@@ -468,8 +515,9 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAffectedVersions(Version... versions) {
+		if (this.affectedVersions == null) return;
 		for (Version item : versions) {
-			affectedVersions.remove(item);
+			this.affectedVersions.remove(item);
 		}
 	}
 
@@ -478,7 +526,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAllAffectedVersions() {
-		affectedVersions.clear();
+		affectedVersions = null;
 	}
 
 	/**
@@ -495,7 +543,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public Collection<Version> getPlannedVersions() {
 		checkPlannedVersions();
-		return Collections.unmodifiableList(plannedVersions);
+		return unmodifiable(plannedVersions);
 	}
 
 	/**
@@ -512,7 +560,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void addPlannedVersions(Collection<? extends Version> versions) {
-		if (versions != null) plannedVersions.addAll(versions);
+		if (versions != null) this.plannedVersions = addAll(this.plannedVersions, versions);
 	}
 
 	/**
@@ -521,7 +569,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public void addPlannedVersions(Version... versions) {
 		for (Version item : versions) {
-			plannedVersions.add(item);
+			this.plannedVersions = add(this.plannedVersions, item);
 		}
 	}
 
@@ -530,7 +578,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removePlannedVersions(Collection<? extends Version> versions) {
-		if (versions != null) plannedVersions.removeAll(versions);
+		if ((versions != null) && (this.plannedVersions != null)) this.plannedVersions.removeAll(versions);
 	}
 
 	/**
@@ -538,8 +586,9 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removePlannedVersions(Version... versions) {
+		if (this.plannedVersions == null) return;
 		for (Version item : versions) {
-			plannedVersions.remove(item);
+			this.plannedVersions.remove(item);
 		}
 	}
 
@@ -548,7 +597,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAllPlannedVersions() {
-		plannedVersions.clear();
+		plannedVersions = null;
 	}
 
 	/**
@@ -565,7 +614,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public Collection<Version> getFixVersions() {
 		checkFixVersions();
-		return Collections.unmodifiableList(fixVersions);
+		return unmodifiable(fixVersions);
 	}
 
 	/**
@@ -582,7 +631,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void addFixVersions(Collection<? extends Version> versions) {
-		if (versions != null) fixVersions.addAll(versions);
+		if (versions != null) this.fixVersions = addAll(this.fixVersions, versions);
 	}
 
 	/**
@@ -591,7 +640,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public void addFixVersions(Version... versions) {
 		for (Version item : versions) {
-			fixVersions.add(item);
+			this.fixVersions = add(this.fixVersions, item);
 		}
 	}
 
@@ -600,7 +649,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeFixVersions(Collection<? extends Version> versions) {
-		if (versions != null) fixVersions.removeAll(versions);
+		if ((versions != null) && (this.fixVersions != null)) this.fixVersions.removeAll(versions);
 	}
 
 	/**
@@ -608,8 +657,9 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeFixVersions(Version... versions) {
+		if (this.fixVersions == null) return;
 		for (Version item : versions) {
-			fixVersions.remove(item);
+			this.fixVersions.remove(item);
 		}
 	}
 
@@ -618,7 +668,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAllFixVersions() {
-		fixVersions.clear();
+		fixVersions = null;
 	}
 
 	/**
@@ -634,7 +684,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public Status getStatus() {
-		status = check(status, "status");
+		status = check(status, "status", LazyResolver.STATUS);
 		return status;
 	}
 
@@ -651,7 +701,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public Resolution getResolution() {
-		resolution = check(resolution, "resolution");
+		resolution = check(resolution, "resolution", LazyResolver.RESOLUTION);
 		return resolution;
 	}
 
@@ -668,7 +718,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public Priority getPriority() {
-		priority = check(priority, "priority");
+		priority = check(priority, "priority", LazyResolver.PRIORITY);
 		return priority;
 	}
 
@@ -685,7 +735,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public Severity getSeverity() {
-		severity = check(severity, "severity");
+		severity = check(severity, "severity", LazyResolver.SEVERITY);
 		return severity;
 	}
 
@@ -702,7 +752,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public User getReporter() {
-		reporter = check(reporter, "reporter", "user");
+		reporter = check(reporter, "reporter", LazyResolver.USER);
 		return reporter;
 	}
 
@@ -718,7 +768,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 * {@inheritDoc}
 	 */
 	public User getAssignee() {
-		assignee = check(assignee, "assignee", "user");
+		assignee = check(assignee, "assignee", LazyResolver.USER);
 		return assignee;
 	}
 
@@ -824,22 +874,23 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	public Collection<Comment> getComments() {
 		if (!commentsRetrieved) {
 			commentsRetrieved = true;
-			LazyRetriever retriever = (LazyRetriever)get(LAZY_RETRIEVER);
+			LazyRetriever retriever = getLazyRetriever();
 			if (retriever != null) {
-				comments.addAll(retriever.getComments(getId()));
+				comments = addAll(comments, retriever.getComments(getId()));
 				if (description == null) {
 					setDescription(getFirstComment());
 				}
 				
 			}
 		}
-		return Collections.unmodifiableList(comments);
+		return unmodifiable(comments);
 	}
 
 	/** Return the first comment */
 	private String getFirstComment() {
 		String s = null;
 		RsDate minDate = null;
+		if (comments == null) return s;
 		for (Comment c : comments) {
 			RsDate d = c.getCreationTimestamp();
 			if (d == null) continue; // Weird! Unknown comment date
@@ -875,7 +926,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void addComments(Collection<? extends Comment> comments) {
-		if (comments != null) this.comments.addAll(comments);
+		if (comments != null) this.comments = addAll(this.comments, comments);
 	}
 
 	/**
@@ -884,7 +935,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public void addComments(Comment... comments) {
 		for (Comment item : comments) {
-			this.comments.add(item);
+			this.comments = add(this.comments, item);
 		}
 	}
 
@@ -893,7 +944,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeComments(Collection<? extends Comment> comments) {
-		if (comments != null) this.comments.removeAll(comments);
+		if ((comments != null) && (this.comments != null)) this.comments.removeAll(comments);
 	}
 
 	/**
@@ -901,6 +952,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeComments(Comment... comments) {
+		if (this.comments == null) return;
 		for (Comment item : comments) {
 			this.comments.remove(item);
 		}
@@ -911,7 +963,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAllComments() {
-		comments.clear();
+		comments = null;
 	}
 
 	/**
@@ -929,12 +981,12 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	public Collection<Attachment> getAttachments() {
 		if (!attachmentsRetrieved) {
 			attachmentsRetrieved = true;
-			LazyRetriever retriever = (LazyRetriever)get(LAZY_RETRIEVER);
+			LazyRetriever retriever = getLazyRetriever();
 			if (retriever != null) {
-				attachments.addAll(retriever.getAttachments(getId()));
+				attachments = addAll(attachments, retriever.getAttachments(getId()));
 			}
 		}
-		return Collections.unmodifiableList(attachments);
+		return unmodifiable(attachments);
 	}
 
 	/**
@@ -951,7 +1003,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void addAttachments(Collection<? extends Attachment> attachments) {
-		if (attachments != null) this.attachments.addAll(attachments);
+		if (attachments != null) this.attachments = addAll(this.attachments, attachments);
 	}
 
 	/**
@@ -960,7 +1012,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public void addAttachments(Attachment... attachments) {
 		for (Attachment item : attachments) {
-			this.attachments.add(item);
+			this.attachments = add(this.attachments, item);
 		}
 	}
 
@@ -969,7 +1021,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAttachments(Collection<? extends Attachment> attachments) {
-		if (attachments != null) this.attachments.removeAll(attachments);
+		if ((attachments != null) && (this.attachments != null)) this.attachments.removeAll(attachments);
 	}
 
 	/**
@@ -977,6 +1029,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAttachments(Attachment... attachments) {
+		if (this.attachments == null) return;
 		for (Attachment item : attachments) {
 			this.attachments.remove(item);
 		}
@@ -987,7 +1040,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAllAttachments() {
-		attachments.clear();
+		attachments = null;
 	}
 
 	/**
@@ -1003,7 +1056,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public Collection<Issue> getChildren() {
-		return Collections.unmodifiableList(children);
+		return unmodifiable(children);
 	}
 
 	/**
@@ -1020,7 +1073,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void addChildren(Collection<? extends Issue> children) {
-		if (children != null) this.children.addAll(children);
+		if (children != null) this.children = addAll(this.children, children);
 	}
 
 	/**
@@ -1029,7 +1082,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public void addChildren(Issue... children) {
 		for (Issue item : children) {
-			this.children.add(item);
+			this.children = add(this.children, item);
 		}
 	}
 
@@ -1038,7 +1091,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeChildren(Collection<? extends Issue> children) {
-		if (children != null) this.children.removeAll(children);
+		if ((children != null) && (this.children != null)) this.children.removeAll(children);
 	}
 
 	/**
@@ -1046,6 +1099,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeChildren(Issue... children) {
+		if (this.children == null) return;
 		for (Issue item : children) {
 			this.children.remove(item);
 		}
@@ -1056,7 +1110,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAllChildren() {
-		children.clear();
+		children = null;
 	}
 
 	/**
@@ -1064,7 +1118,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public int getChildCount() {
-		return children.size();
+		return children != null ? children.size() : 0;
 	}
 
 	/**
@@ -1072,7 +1126,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public Collection<IssueLink> getLinks() {
-		return Collections.unmodifiableList(links);
+		return unmodifiable(links);
 	}
 
 	/**
@@ -1089,7 +1143,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void addLinks(Collection<? extends IssueLink> links) {
-		if (links != null) this.links.addAll(links);
+		if (links != null) this.links = addAll(this.links, links);
 	}
 
 	/**
@@ -1098,7 +1152,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	@Override
 	public void addLinks(IssueLink... links) {
 		for (IssueLink item : links) {
-			this.links.add(item);
+			this.links = add(this.links, item);
 		}
 	}
 
@@ -1107,7 +1161,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeLinks(Collection<? extends IssueLink> links) {
-		if (links != null) this.links.removeAll(links);
+		if ((links != null) && (this.links != null)) this.links.removeAll(links);
 	}
 
 	/**
@@ -1115,6 +1169,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeLinks(IssueLink... links) {
+		if (this.links == null) return;
 		for (IssueLink item : links) {
 			this.links.remove(item);
 		}
@@ -1125,7 +1180,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public void removeAllLinks() {
-		links.clear();
+		links = null;
 	}
 
 	/**
@@ -1133,7 +1188,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@Override
 	public int getLinkCount() {
-		return links.size();
+		return links != null ? links.size() : 0;
 	}
 
 	/**
@@ -1173,16 +1228,36 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	protected <T> T check(T originalValue, String propertyPrefix, String typeProperty) {
 		if (originalValue != null) return originalValue;
-		LazyRetriever retriever = (LazyRetriever)get(LAZY_RETRIEVER);
+		LazyResolver<T> resolver = getResolver(typeProperty);
+		if (resolver == null) return null;
+		return check(originalValue, propertyPrefix, resolver);
+	}
+
+	/**
+	 * Checks the lazy retrieval of the given value.
+	 * <p>The method checks whether <code>originalValue</code> is already set and returns this. Otherwise
+	 * it will check for a {@link LazyRetriever} instance and the <code>${propertyPrefix}_name</code> and
+	 * <code>${propertyPrefix}_id</code> custom fields. If either of them is set, the resolver
+	 * is asked for an actual value to be returned.</p>
+	 * @param <T> The class type of the original value 
+	 * @param originalValue the value currently stored
+	 * @param propertyPrefix the property to be checked
+	 * @param resolver resolves the value from the {@link LazyRetriever}
+	 * @return the value (either originalValue or the lazily retrieved value or <code>null</code>)
+	 * @since 3.0.2
+	 */
+	protected <T> T check(T originalValue, String propertyPrefix, LazyResolver<T> resolver) {
+		if (originalValue != null) return originalValue;
+		LazyRetriever retriever = getLazyRetriever();
 		if (retriever == null) return null;
 		String name = (String)get(propertyPrefix+"_name");
 		if (name != null) {
-			T obj = retrieve(retriever, typeProperty, name);
+			T obj = resolve(retriever, resolver, name);
 			if (obj != null) return obj;
 		}
 		Long id = (Long)get(propertyPrefix+"_id");
 		if (id != null) {
-			T obj = retrieve(retriever, typeProperty, id);
+			T obj = resolve(retriever, resolver, id);
 			return obj;
 		}
 		return null;
@@ -1213,9 +1288,27 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 * @param typeProperty name of property at {@link LazyRetriever}
 	 * @return <code>true</code> when lazy loading took place
 	 */
-	@SuppressWarnings("unchecked")
 	protected <T> boolean check(Collection<T> collection, String propertyPrefix, String typeProperty) {
-		LazyRetriever retriever = (LazyRetriever)get("lazyRetriever");
+		LazyResolver<T> resolver = getResolver(typeProperty);
+		if (resolver == null) return false;
+		return check(collection, propertyPrefix, resolver);
+	}
+
+	/**
+	 * Checks the lazy retrieval of the given collection values.
+	 * <p>The method checks for a {@link LazyRetriever} instance and the <code>${propertyPrefix}_name</code> and
+	 * <code>${propertyPrefix}_id</code> custom fields (can be collections or single values. If either of them is set, 
+	 * the resolver is asked for actual values to be returned.</p>
+	 * @param <T> The class type of the collection 
+	 * @param collection the value currently stored and enhanced with found values.
+	 * @param propertyPrefix the property to be checked
+	 * @param resolver resolves the values from the {@link LazyRetriever}
+	 * @return <code>true</code> when lazy loading took place
+	 * @since 3.0.2
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> boolean check(Collection<T> collection, String propertyPrefix, LazyResolver<T> resolver) {
+		LazyRetriever retriever = getLazyRetriever();
 		boolean rc = false;
 		if ((retriever != null) && collection.isEmpty()){
 			Object o = get(propertyPrefix+"_name");
@@ -1229,7 +1322,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 					names = (Collection<String>)o;
 				}
 				for (String name : names) {
-					T obj = retrieve(retriever, typeProperty, name);
+					T obj = resolve(retriever, resolver, name);
 					if (obj != null) collection.add(obj);
 				}
 				set(propertyPrefix+"_name", null);
@@ -1246,7 +1339,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 					ids = (Collection<Long>)o;
 				}
 				for (Long id : ids) {
-					T obj = retrieve(retriever, typeProperty, id);
+					T obj = resolve(retriever, resolver, id);
 					if (obj != null) collection.add(obj);
 				}
 				set(propertyPrefix+"_id", null);
@@ -1264,7 +1357,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 */
 	@SuppressWarnings("unchecked")
 	protected void checkComponents() {
-		LazyRetriever retriever = (LazyRetriever)get("lazyRetriever");
+		LazyRetriever retriever = getLazyRetriever();
 		if (retriever != null) {
 			Object o = get("component_name");
 			Collection<String> names = null;
@@ -1279,7 +1372,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 				if (p != null) {
 					String projectName = p.getName();
 					Component c = retriever.getComponent(projectName, name);
-					if (c != null) components.add(c);
+					if (c != null) components = add(components, c);
 				}
 			}
 		}
@@ -1294,7 +1387,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 * <p>This method is separate due to the nature of versions within projects.</p> 
 	 */
 	protected void checkAffectedVersions() {
-		checkVersions(affectedVersions, "affectedVersion_name");
+		affectedVersions = checkVersions(affectedVersions, "affectedVersion_name");
 	}
 
 	/**
@@ -1305,7 +1398,7 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 * <p>This method is separate due to the nature of versions within projects.</p> 
 	 */
 	protected void checkFixVersions() {
-		checkVersions(fixVersions, "fixVersion_name");
+		fixVersions = checkVersions(fixVersions, "fixVersion_name");
 	}
 
 	/**
@@ -1316,12 +1409,18 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 	 * <p>This method is separate due to the nature of versions within projects.</p> 
 	 */
 	protected void checkPlannedVersions() {
-		checkVersions(plannedVersions, "plannedVersion_name");
+		plannedVersions = checkVersions(plannedVersions, "plannedVersion_name");
 	}
 
+	/**
+	 * Checks the lazy retrieval of versions.
+	 * @param versions the versions currently stored (can be <code>null</code>)
+	 * @param propertyName name of custom field holding the version names
+	 * @return the versions enhanced with found values (can be <code>null</code> when no version is known)
+	 */
 	@SuppressWarnings("unchecked")
-	protected void checkVersions(Collection<Version> versions, String propertyName) {
-		LazyRetriever retriever = (LazyRetriever)get("lazyRetriever");
+	protected List<Version> checkVersions(List<Version> versions, String propertyName) {
+		LazyRetriever retriever = getLazyRetriever();
 		if (retriever != null) {
 			Object o = get(propertyName);
 			Collection<String> names = null;
@@ -1336,33 +1435,75 @@ public class DefaultIssue extends AbstractBugzillaObject implements Issue {
 				if (p != null) {
 					String projectName = p.getName();
 					Version v = retriever.getVersion(projectName, name);
-					if (v != null) versions.add(v);
+					if (v != null) versions = add(versions, v);
 				}
 			}
 		}
+		return versions;
+	}
+
+	/**
+	 * Adds a value to a list that is created on demand.
+	 * @param list the list (can be <code>null</code>)
+	 * @param value the value to add
+	 * @return the list containing the value
+	 */
+	private static <T> List<T> add(List<T> list, T value) {
+		if (list == null) list = new ArrayList<T>(4);
+		list.add(value);
+		return list;
+	}
 
+	/**
+	 * Adds values to a list that is created on demand.
+	 * @param list the list (can be <code>null</code>)
+	 * @param values the values to add (can be <code>null</code>)
+	 * @return the list containing the values (<code>null</code> when list was <code>null</code> and no values were given)
+	 */
+	private static <T> List<T> addAll(List<T> list, Collection<? extends T> values) {
+		if ((values == null) || values.isEmpty()) return list;
+		if (list == null) list = new ArrayList<T>(values.size());
+		list.addAll(values);
+		return list;
 	}
 
+	/**
+	 * Returns a read-only view of a list that is created on demand.
+	 * @param list the list (can be <code>null</code>)
+	 * @return the read-only view
+	 */
+	private static <T> List<T> unmodifiable(List<T> list) {
+		if (list == null) return Collections.emptyList();
+		return Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * Returns the resolver for the given property name at {@link LazyRetriever}.
+	 * @param <T> The class type of resolved objects
+	 * @param typeProperty name of property at {@link LazyRetriever}
+	 * @return the resolver or <code>null</code> if no such resolver exists
+	 */
 	@SuppressWarnings("unchecked")
-	private <T> T retrieve(LazyRetriever retriever, String property, String name) {
+	private <T> LazyResolver<T> getResolver(String typeProperty) {
+		LazyResolver<T> rc = (LazyResolver<T>)LazyResolver.forProperty(typeProperty);
+		if (rc == null) log.error("No resolver available for property: "+typeProperty);
+		return rc;
+	}
+
+	private <T> T resolve(LazyRetriever retriever, LazyResolver<T> resolver, String name) {
 		try {
-			String methodName = "get"+StringUtils.capitalize(property);
-			Method m = retriever.getClass().getMethod(methodName, String.class);
-			return (T)m.invoke(retriever, name);
-		} catch (Exception e) {
-			e.printStackTrace();
+			return resolver.resolve(retriever, name);
+		} catch (RuntimeException e) {
+			log.error("Cannot resolve "+resolver.getProperty()+" \""+name+"\" for issue "+getId(), e);
 		}
 		return null;
 	}
 
-	@SuppressWarnings("unchecked")
-	private <T> T retrieve(LazyRetriever retriever, String property, Long id) {
+	private <T> T resolve(LazyRetriever retriever, LazyResolver<T> resolver, Long id) {
 		try {
-			String methodName = "get"+StringUtils.capitalize(property);
-			Method m = retriever.getClass().getMethod(methodName, Long.TYPE);
-			return (T)m.invoke(retriever, id);
-		} catch (Exception e) {
-			e.printStackTrace();
+			return resolver.resolve(retriever, id.longValue());
+		} catch (RuntimeException e) {
+			log.error("Cannot resolve "+resolver.getProperty()+" #"+id+" for issue "+getId(), e);
 		}
 		return null;
 	}
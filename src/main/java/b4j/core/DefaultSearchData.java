@@ -45,6 +45,22 @@ public class DefaultSearchData implements SearchData {
 		parameters = new HashMap<String,List<String>>();
 	}
 
+	/**
+	 * Copy constructor.
+	 * @param searchData - the search data to be copied, can be <code>null</code>
+	 * @since 3.0.2
+	 */
+	public DefaultSearchData(SearchData searchData) {
+		this();
+		if (searchData != null) {
+			for (String key : searchData.getParameterNames()) {
+				for (String value : searchData.get(key)) {
+					add(key, value);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Configures the search data from configuration.
 	 * All elements of the configuration are taken as search parameters.
@@ -18,6 +18,7 @@
 package b4j.core.session;
 
 import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
@@ -185,6 +186,17 @@ public abstract class AbstractHttpSession implements Session {
 	public void setHttpSessionParams(HttpSessionParams httpSessionParams) {
 		this.httpSessionParams = httpSessionParams;
 	}
+
+	/**
+	 * Returns the base URL of the server.
+	 * <p>This implementation returns <code>null</code>. Subclasses that know their
+	 * server override this method.</p>
+	 * @return the base URL or <code>null</code> if not known
+	 * @since 3.0.2
+	 */
+	public URL getBaseUrl() {
+		return null;
+	}
 	
 	
 }
@@ -18,7 +18,9 @@
 package b4j.core.session;
 
 import java.io.BufferedReader;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
@@ -28,11 +30,17 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.configuration.Configuration;
@@ -66,8 +74,18 @@ import rs.baselib.security.AuthorizationCallback;
  *       ...
  *    &lt;/ProxyAuthorizationCallback&gt;
  *
+ *    &lt;!-- Optional: Connection settings (since V3.0.2) --&gt;
+ *    &lt;connect-timeout&gt;30000&lt;/connect-timeout&gt;
+ *    &lt;read-timeout&gt;300000&lt;/read-timeout&gt;
+ *    &lt;max-connections&gt;8&lt;/max-connections&gt;
+ *    &lt;compression&gt;true&lt;/compression&gt;
+ *
  * &lt;/bugzilla-session&gt;
  * </pre>
+ * <p>Since V3.0.2 the number of concurrent connections is limited. A connection is counted
+ * until its response stream (see {@link #getInputStream(HttpURLConnection)}) was closed
+ * or the connection was released (see {@link #release(HttpURLConnection)}). Closing
+ * the streams also allows the JDK to reuse the underlying keep-alive connection.</p>
  * @author Ralph Schuster
  * @see AuthorizationCallback
  * @see b4j.core.Issue
@@ -75,8 +93,14 @@ import rs.baselib.security.AuthorizationCallback;
  */
 public abstract class AbstractPlainHttpSession extends AbstractHttpSession {
 
+	/** Time to wait for a free connection before exceeding the limit */
+	private static final long CONNECTION_WAIT = 60000L;
+
 	private boolean loggedIn;
 	private Set<HttpCookie> cookies;
+	private volatile String cookieHeader;
+	private Semaphore connections;
+	private Set<HttpURLConnection> openConnections;
 	private URL baseUrl;
 	private String bugzillaVersion;
 	
@@ -85,6 +109,8 @@ public abstract class AbstractPlainHttpSession extends AbstractHttpSession {
 	 */
 	public AbstractPlainHttpSession() {
 		cookies = new HashSet<HttpCookie>();
+		cookieHeader = null;
+		openConnections = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<HttpURLConnection, Boolean>()));
 	}
 
 	/**
@@ -124,7 +150,10 @@ public abstract class AbstractPlainHttpSession extends AbstractHttpSession {
 	 */
 	@Override
 	public void close() {
-		cookies.clear();
+		synchronized (cookies) {
+			cookies.clear();
+			cookieHeader = null;
+		}
 		baseUrl = null;
 		setLoggedIn(false);
 		if (getLog().isInfoEnabled()) getLog().info("Session closed");
@@ -193,7 +222,10 @@ public abstract class AbstractPlainHttpSession extends AbstractHttpSession {
 	 * @param cookie - the cookie to add
 	 */
 	protected void addCookie(HttpCookie cookie) {
-		cookies.add(cookie);
+		synchronized (cookies) {
+			cookies.add(cookie);
+			cookieHeader = null;
+		}
 		if (getLog().isDebugEnabled()) getLog().debug("new cookie found: "+cookie.toString());
 	}
 
@@ -233,6 +265,9 @@ public abstract class AbstractPlainHttpSession extends AbstractHttpSession {
 	 * @return HTTP connection object
 	 */
 	protected HttpURLConnection getConnection(String urlPath, String params, Map<String,String> requestProperties, boolean isGet) {
+		boolean counted = acquireConnection();
+		HttpURLConnection con = null;
+		boolean ok = false;
 		try {
 			URL url = null;
 			if (isGet) {
@@ -245,7 +280,6 @@ public abstract class AbstractPlainHttpSession extends AbstractHttpSession {
 			if (getLog().isDebugEnabled()) getLog().debug(url.toString());
 			
 			// apply proxy
-			HttpURLConnection con = null;
 			if (getHttpSessionParams().hasProxy()) {
 				getLog().debug("Using proxy: "+getHttpSessionParams().getProxy());
 				con = (HttpURLConnection)url.openConnection(getHttpSessionParams().getProxy());
@@ -264,6 +298,12 @@ public abstract class AbstractPlainHttpSession extends AbstractHttpSession {
 			} else {
 				con = (HttpURLConnection)url.openConnection();
 			}
+			if (counted) openConnections.add(con);
+			
+			// Apply connection settings
+			con.setConnectTimeout(getHttpSessionParams().getConnectTimeout());
+			con.setReadTimeout(getHttpSessionParams().getReadTimeout());
+			if (getHttpSessionParams().isCompression()) con.setRequestProperty("Accept-Encoding", "gzip, deflate");
 			
 			// Apply all cookies if available
 			applyCookies(con);
@@ -289,14 +329,143 @@ public abstract class AbstractPlainHttpSession extends AbstractHttpSession {
 				out.close();
 			}
 			
+			ok = true;
 			return con;
 		} catch (MalformedURLException e) {
 			getLog().error("Invalid URL: ", e);
 		} catch (IOException e) {
 			getLog().error("Error when making request", e);
+		} finally {
+			if (!ok) {
+				if (con != null) con.disconnect();
+				if (counted) releaseConnection(con);
+			}
 		}
 		return null;
 	}
+
+	/**
+	 * Returns the response stream of the connection.
+	 * <p>The stream is decoded according to the content encoding of the response.
+	 * The connection is released when the stream is closed.</p>
+	 * @param con - the HTTP connection
+	 * @return the (decoded) response stream
+	 * @throws IOException - when the response cannot be read
+	 * @since 3.0.2
+	 */
+	protected InputStream getInputStream(HttpURLConnection con) throws IOException {
+		InputStream in = null;
+		try {
+			in = con.getInputStream();
+			String encoding = con.getContentEncoding();
+			if (encoding != null) {
+				encoding = encoding.trim().toLowerCase();
+				if (encoding.equals("gzip") || encoding.equals("x-gzip")) in = new GZIPInputStream(in);
+				else if (encoding.equals("deflate")) in = new InflaterInputStream(in);
+			}
+			return new ConnectionInputStream(con, in);
+		} catch (IOException e) {
+			if (in != null) try { in.close(); } catch (IOException e2) { }
+			release(con);
+			throw e;
+		}
+	}
+
+	/**
+	 * Releases a connection whose response is not needed (anymore).
+	 * <p>The request must have been sent already. Open response streams are closed
+	 * so that the connection can be reused. Releasing a connection twice has no effect.</p>
+	 * @param con - the HTTP connection
+	 * @since 3.0.2
+	 */
+	protected void release(HttpURLConnection con) {
+		if (con == null) return;
+		try {
+			con.getInputStream().close();
+		} catch (IOException e) {
+			// Error responses must be consumed from the error stream
+			InputStream err = con.getErrorStream();
+			if (err != null) try { err.close(); } catch (IOException e2) { }
+		} finally {
+			releaseConnection(con);
+		}
+	}
+
+	/**
+	 * Returns the number of connections that can be opened without waiting.
+	 * @return the number of free connections
+	 * @since 3.0.2
+	 */
+	protected int getFreeConnections() {
+		return getConnections().availablePermits();
+	}
+
+	/**
+	 * Waits for a free connection.
+	 * The limit is exceeded when no connection gets free in time.
+	 * @return <code>true</code> when the connection is counted, <code>false</code> when the limit was exceeded
+	 */
+	private boolean acquireConnection() {
+		try {
+			if (getConnections().tryAcquire(CONNECTION_WAIT, TimeUnit.MILLISECONDS)) return true;
+			getLog().warn("No free connection after "+(CONNECTION_WAIT/1000)+"s, exceeding limit of "+getHttpSessionParams().getMaxConnections());
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for a connection", e);
+		}
+	}
+
+	/**
+	 * Counts a connection as free.
+	 * @param con - the connection
+	 */
+	private void releaseConnection(HttpURLConnection con) {
+		if ((con == null) || openConnections.remove(con)) getConnections().release();
+	}
+
+	/**
+	 * Returns the connection limit.
+	 * @return the semaphore for connections
+	 */
+	private synchronized Semaphore getConnections() {
+		if (connections == null) connections = new Semaphore(getHttpSessionParams().getMaxConnections());
+		return connections;
+	}
+
+	/**
+	 * Releases the connection when the response stream is closed.
+	 */
+	private class ConnectionInputStream extends FilterInputStream {
+
+		private HttpURLConnection con;
+		private boolean closed;
+
+		/**
+		 * Constructor.
+		 * @param con - the connection
+		 * @param in - the response stream
+		 */
+		public ConnectionInputStream(HttpURLConnection con, InputStream in) {
+			super(in);
+			this.con = con;
+			this.closed = false;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void close() throws IOException {
+			if (closed) return;
+			closed = true;
+			try {
+				super.close();
+			} finally {
+				releaseConnection(con);
+			}
+		}
+	}
 	
 	/**
 	 * Retrieves and saves the cookies from the URL connection.
@@ -337,16 +506,33 @@ public abstract class AbstractPlainHttpSession extends AbstractHttpSession {
 	 * @param con - HTTP connection object
 	 */
 	protected void applyCookies(HttpURLConnection con) {
-		StringBuffer rc = new StringBuffer();
-		Iterator<HttpCookie> cookies = getCookies();
-		while (cookies.hasNext()) {
-			if (rc.length() > 0) rc.append(";");
-			rc.append(cookies.next().toString());
-		}
-		if (rc.length() > 0) con.setRequestProperty("Cookie", rc.toString());
-		if (getLog().isTraceEnabled()) getLog().trace("applied cookie: "+rc.toString());
+		String header = getCookieHeader();
+		if (header.length() > 0) con.setRequestProperty("Cookie", header);
+		if (getLog().isTraceEnabled()) getLog().trace("applied cookie: "+header);
 
 	}
+
+	/**
+	 * Returns the Cookie header value for the registered cookies.
+	 * The value is computed again only when the cookies changed.
+	 * @return the header value (empty when no cookies are registered)
+	 * @since 3.0.2
+	 */
+	protected String getCookieHeader() {
+		String rc = cookieHeader;
+		if (rc == null) {
+			synchronized (cookies) {
+				StringBuilder s = new StringBuilder();
+				for (HttpCookie cookie : cookies) {
+					if (s.length() > 0) s.append(";");
+					s.append(cookie.toString());
+				}
+				rc = s.toString();
+				cookieHeader = rc;
+			}
+		}
+		return rc;
+	}
 	
 	/**
 	 * Debugs the response from a connection.
@@ -363,10 +549,14 @@ public abstract class AbstractPlainHttpSession extends AbstractHttpSession {
 					getLog().debug(key+": "+value);
 				}
 			}
-			BufferedReader r = new BufferedReader(new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8));
-			String line;
-			while ((line = r.readLine()) != null) {
-				getLog().debug(line);
+			BufferedReader r = new BufferedReader(new InputStreamReader(getInputStream(con), StandardCharsets.UTF_8));
+			try {
+				String line;
+				while ((line = r.readLine()) != null) {
+					getLog().debug(line);
+				}
+			} finally {
+				r.close();
 			}
 		} catch (IOException e) {
 			getLog().error("Error while debugging connection", e);
@@ -22,18 +22,37 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,6 +60,9 @@ import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.lang.time.DateUtils;
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -55,6 +77,7 @@ import b4j.core.DefaultAttachment;
 import b4j.core.DefaultClassification;
 import b4j.core.DefaultComment;
 import b4j.core.DefaultLink;
+import b4j.core.DefaultSearchData;
 import b4j.core.Issue;
 import b4j.core.IssueLink.Type;
 import b4j.core.IssueType;
@@ -66,12 +89,12 @@ import b4j.core.SearchResultCountCallback;
 import b4j.core.Severity;
 import b4j.core.Status;
 import b4j.core.session.bugzilla.BugzillaComponent;
-import b4j.core.session.bugzilla.BugzillaProject;
 import b4j.core.session.bugzilla.BugzillaTransformer;
 import b4j.core.session.bugzilla.BugzillaUser;
 import b4j.core.session.bugzilla.BugzillaVersion;
 import b4j.util.BugzillaUtils;
 import b4j.util.HttpSessionParams;
+import b4j.util.LongList;
 import b4j.util.MetaData;
 import b4j.util.UrlParameters;
 import rs.baselib.io.XmlReaderFilter;
@@ -80,12 +103,40 @@ import rs.baselib.lang.LangUtils;
 
 /**
  * Implements Bugzilla access via HTTP.
- * <p>There is no additional configuration required. See
- * {@link AbstractPlainHttpSession} for configuration description.</p>
+ * <p>See {@link AbstractPlainHttpSession} for basic configuration description.
+ * Bug details are retrieved in chunks which can be tuned by optional elements:</p>
+ * <pre>
+ * &lt;bugzilla-session class="b4j.core.session.BugzillaHttpSession"&gt;
+ *    ...
+ *    &lt;!-- Optional: Number of bugs requested with a single XML request --&gt;
+ *    &lt;xml-chunk-size&gt;200&lt;/xml-chunk-size&gt;
+ *    
+ *    &lt;!-- Optional: Number of XML requests retrieved and parsed in parallel --&gt;
+ *    &lt;xml-threads&gt;4&lt;/xml-threads&gt;
+ *    
+ *    &lt;!-- Optional: Whether bugs are delivered in search order --&gt;
+ *    &lt;xml-preserve-order&gt;true&lt;/xml-preserve-order&gt;
+ *    
+ *    &lt;!-- Optional: Number of retries for a failed XML request --&gt;
+ *    &lt;xml-retries&gt;2&lt;/xml-retries&gt;
+ *    
+ *    &lt;!-- Optional: Number of parsed bugs buffered for the consumer --&gt;
+ *    &lt;xml-queue-capacity&gt;100&lt;/xml-queue-capacity&gt;
+ *    
+ *    &lt;!-- Optional: Milliseconds to wait for the next bug, 0 waits forever --&gt;
+ *    &lt;xml-timeout&gt;0&lt;/xml-timeout&gt;
+ *    
+ *    &lt;!-- Optional: Whether bug IDs are searched as CSV list (HTML is used as fallback) --&gt;
+ *    &lt;csv-search&gt;true&lt;/csv-search&gt;
+ *    
+ *    &lt;!-- Optional: Whether bug details are retrieved while search result is still read --&gt;
+ *    &lt;streaming-search&gt;false&lt;/streaming-search&gt;
+ * &lt;/bugzilla-session&gt;
+ * </pre>
  * @author Ralph Schuster
  *
  */
-public class BugzillaHttpSession extends AbstractPlainHttpSession {
+public class BugzillaHttpSession extends AbstractPlainHttpSession implements ChangeTrackingSession {
 
 	/** Constant for requesting URL connection to login page */
 	public static final int BUGZILLA_LOGIN = 0;
@@ -98,6 +149,18 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 	/** Constant for requesting URL connection to get attachment content */
 	public static final int BUGZILLA_GET_ATTACHMENT = 4;
 
+	/** Default number of bugs requested with a single XML request */
+	public static final int DEFAULT_XML_CHUNK_SIZE = 200;
+	/** Default number of XML requests running in parallel */
+	public static final int DEFAULT_XML_THREADS = 4;
+	/** Default number of retries for a failed XML request */
+	public static final int DEFAULT_XML_RETRIES = 2;
+	/** Default number of parsed bugs buffered for the consumer */
+	public static final int DEFAULT_XML_QUEUE_CAPACITY = 100;
+
+	/** Marks the end of the bug list in the iterator queue */
+	private static final Object END_OF_BUGS = new Object();
+
 	private static final String MINIMUM_BUGZILLA_VERSION = "2.20";
 	private static final String MAXIMUM_BUGZILLA_VERSION = null;
 
@@ -119,6 +182,17 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 	private MetaData<String, Project> projects = new MetaData<String, Project>(new BugzillaTransformer.Project());
 	private MetaData<String, Component> components = new MetaData<String, Component>(new BugzillaTransformer.Component());
 	private MetaData<String, Classification> classifications = new MetaData<String, Classification>(new BugzillaTransformer.Classification());
+	private MetaData<String, BugzillaUser> users = new MetaData<String, BugzillaUser>(new BugzillaTransformer.User());
+	private MetaData<List<String>, BugzillaComponent> projectComponents = new MetaData<List<String>, BugzillaComponent>(new BugzillaTransformer.ProjectComponent());
+	private MetaData<List<String>, BugzillaVersion> versions = new MetaData<List<String>, BugzillaVersion>(new BugzillaTransformer.Version());
+	private int xmlChunkSize = DEFAULT_XML_CHUNK_SIZE;
+	private int xmlThreads = DEFAULT_XML_THREADS;
+	private boolean xmlPreserveOrder = true;
+	private int xmlRetries = DEFAULT_XML_RETRIES;
+	private int xmlQueueCapacity = DEFAULT_XML_QUEUE_CAPACITY;
+	private long xmlTimeout = 0;
+	private boolean csvSearch = true;
+	private boolean streamingSearch = false;
 
 	/**
 	 * Default constructor.
@@ -126,6 +200,172 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 	public BugzillaHttpSession() {
 	}
 
+	/**
+	 * Configures the session.
+	 * In addition to {@link AbstractPlainHttpSession#configure(Configuration)} the XML
+	 * retrieval can be tuned (see class description).
+	 * @param config - configuration object
+	 * @throws ConfigurationException - when configuration fails
+	 */
+	@Override
+	public void configure(Configuration config) throws ConfigurationException {
+		super.configure(config);
+		setXmlChunkSize(config.getInt("xml-chunk-size", DEFAULT_XML_CHUNK_SIZE));
+		setXmlThreads(config.getInt("xml-threads", DEFAULT_XML_THREADS));
+		setXmlPreserveOrder(config.getBoolean("xml-preserve-order", true));
+		setXmlRetries(config.getInt("xml-retries", DEFAULT_XML_RETRIES));
+		setXmlQueueCapacity(config.getInt("xml-queue-capacity", DEFAULT_XML_QUEUE_CAPACITY));
+		setXmlTimeout(config.getLong("xml-timeout", 0));
+		setCsvSearch(config.getBoolean("csv-search", true));
+		setStreamingSearch(config.getBoolean("streaming-search", false));
+	}
+
+	/**
+	 * Returns the number of bugs requested with a single XML request.
+	 * @return the chunk size
+	 * @since 3.0.2
+	 */
+	public int getXmlChunkSize() {
+		return xmlChunkSize;
+	}
+
+	/**
+	 * Sets the number of bugs requested with a single XML request.
+	 * @param xmlChunkSize the chunk size to set
+	 * @since 3.0.2
+	 */
+	public void setXmlChunkSize(int xmlChunkSize) {
+		this.xmlChunkSize = xmlChunkSize;
+	}
+
+	/**
+	 * Returns the number of XML requests retrieved and parsed in parallel.
+	 * @return the number of threads
+	 * @since 3.0.2
+	 */
+	public int getXmlThreads() {
+		return xmlThreads;
+	}
+
+	/**
+	 * Sets the number of XML requests retrieved and parsed in parallel.
+	 * @param xmlThreads the number of threads to set
+	 * @since 3.0.2
+	 */
+	public void setXmlThreads(int xmlThreads) {
+		this.xmlThreads = xmlThreads;
+	}
+
+	/**
+	 * Returns whether bugs will be delivered in order of the search result.
+	 * @return true when order is preserved, false when bugs are delivered as soon as they were parsed
+	 * @since 3.0.2
+	 */
+	public boolean isXmlPreserveOrder() {
+		return xmlPreserveOrder;
+	}
+
+	/**
+	 * Sets whether bugs will be delivered in order of the search result.
+	 * @param xmlPreserveOrder true when order shall be preserved
+	 * @since 3.0.2
+	 */
+	public void setXmlPreserveOrder(boolean xmlPreserveOrder) {
+		this.xmlPreserveOrder = xmlPreserveOrder;
+	}
+
+	/**
+	 * Returns the number of retries for a failed XML request.
+	 * @return the number of retries
+	 * @since 3.0.2
+	 */
+	public int getXmlRetries() {
+		return xmlRetries;
+	}
+
+	/**
+	 * Sets the number of retries for a failed XML request.
+	 * @param xmlRetries the number of retries to set
+	 * @since 3.0.2
+	 */
+	public void setXmlRetries(int xmlRetries) {
+		this.xmlRetries = xmlRetries;
+	}
+
+	/**
+	 * Returns the number of parsed bugs buffered for the consumer.
+	 * @return the queue capacity
+	 * @since 3.0.2
+	 */
+	public int getXmlQueueCapacity() {
+		return xmlQueueCapacity;
+	}
+
+	/**
+	 * Sets the number of parsed bugs buffered for the consumer.
+	 * @param xmlQueueCapacity the queue capacity to set
+	 * @since 3.0.2
+	 */
+	public void setXmlQueueCapacity(int xmlQueueCapacity) {
+		this.xmlQueueCapacity = xmlQueueCapacity;
+	}
+
+	/**
+	 * Returns the milliseconds an iterator waits for the next bug.
+	 * @return the timeout, 0 or less means to wait forever
+	 * @since 3.0.2
+	 */
+	public long getXmlTimeout() {
+		return xmlTimeout;
+	}
+
+	/**
+	 * Sets the milliseconds an iterator waits for the next bug.
+	 * @param xmlTimeout the timeout to set, 0 or less means to wait forever
+	 * @since 3.0.2
+	 */
+	public void setXmlTimeout(long xmlTimeout) {
+		this.xmlTimeout = xmlTimeout;
+	}
+
+	/**
+	 * Returns whether bug IDs are searched as CSV list.
+	 * @return true when CSV list is requested first, false when HTML search result is scraped only
+	 * @since 3.0.2
+	 */
+	public boolean isCsvSearch() {
+		return csvSearch;
+	}
+
+	/**
+	 * Sets whether bug IDs are searched as CSV list.
+	 * @param csvSearch true when CSV list shall be requested first
+	 * @since 3.0.2
+	 */
+	public void setCsvSearch(boolean csvSearch) {
+		this.csvSearch = csvSearch;
+	}
+
+	/**
+	 * Returns whether bug details are retrieved while the search result is still read.
+	 * @return true when search result is streamed into the bug iterator
+	 * @since 3.0.2
+	 */
+	public boolean isStreamingSearch() {
+		return streamingSearch;
+	}
+
+	/**
+	 * Sets whether bug details are retrieved while the search result is still read.
+	 * Search errors will then be reported by the bug iterator and the search result count
+	 * is reported as soon as the search result was read completely.
+	 * @param streamingSearch true when search result shall be streamed into the bug iterator
+	 * @since 3.0.2
+	 */
+	public void setStreamingSearch(boolean streamingSearch) {
+		this.streamingSearch = streamingSearch;
+	}
+
 	/**
 	 * Returns the minimum Bugzilla version this session class supports.
 	 * @see #MINIMUM_BUGZILLA_VERSION
@@ -146,6 +386,67 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 		return MAXIMUM_BUGZILLA_VERSION;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>The search is restricted by the <code>chfieldfrom</code> parameter. As the time zone of
+	 * Bugzilla is unknown, the search starts one day before the given time.</p>
+	 */
+	@Override
+	public SearchData getChangedSearchData(SearchData searchData, Date since) {
+		if ((searchData != null) && (searchData.hasParameter("chfieldfrom") || searchData.hasParameter("chfieldto"))) return null;
+		DefaultSearchData rc = new DefaultSearchData(searchData);
+		addChangeRestriction(rc, since);
+		return rc;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The IDs are requested by a CSV search (or HTML search as fallback) that is restricted
+	 * to the given IDs and the same change time as {@link #getChangedSearchData(SearchData, Date)}.</p>
+	 */
+	@Override
+	public Collection<String> getChangedIds(Collection<String> ids, Date since) {
+		checkLoggedIn();
+		StringBuilder idList = new StringBuilder();
+		for (String id : ids) {
+			if (idList.length() > 0) idList.append(',');
+			idList.append(id);
+		}
+		DefaultSearchData searchData = new DefaultSearchData();
+		searchData.add("bug_id", idList.toString());
+		searchData.add("bug_id_type", "anyexact");
+		addChangeRestriction(searchData, since);
+		try {
+			final LongList rc = new LongList(ids.size());
+			BugIdCollector collector = new BugIdCollector() {
+				@Override
+				public void add(long id) {
+					rc.add(id);
+				}
+			};
+			boolean found = isCsvSearch() && searchCsv(searchData, collector);
+			if (!found) found = searchHtml(searchData, collector);
+			if (found) return rc.asStrings();
+		} catch (IOException e) {
+			getLog().error("Cannot perform search", e);
+		} catch (InterruptedException e) {
+			getLog().error("Search was interrupted", e);
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+	/**
+	 * Restricts the search to issues changed since the given time.
+	 * <p>As the time zone of Bugzilla is unknown, the search starts one day before the given time.</p>
+	 * @param searchData - the search to be restricted
+	 * @param since - the time of the last synchronization
+	 */
+	private static void addChangeRestriction(DefaultSearchData searchData, Date since) {
+		searchData.add("chfieldfrom", new SimpleDateFormat("yyyy-MM-dd").format(new Date(since.getTime()-DateUtils.MILLIS_PER_DAY)));
+		searchData.add("chfieldto", "Now");
+	}
+
 	/**
 	 * Opens the session with configured Bugzilla instance.
 	 * @return true when session could be established successfully, false otherwise
@@ -165,6 +466,7 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 			return true;
 		}
 
+		HttpURLConnection con = null;
 		try {
 			// Bugzilla_login = xxx
 			// Bugzilla_password = xxx
@@ -177,49 +479,57 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 
 
 			// make a connection
-			HttpURLConnection con = getConnection(BUGZILLA_LOGIN);
+			con = getConnection(BUGZILLA_LOGIN);
 			if (con == null) throw new IOException("Cannot open connection for login");
-			con.setRequestMethod("POST");
-			con.setRequestProperty("Content-type", "application/x-www-form-urlencoded");
-			con.setRequestProperty("Content-Length", "" + paramString.length());
-			con.setDoOutput(true);
-			Writer out = new OutputStreamWriter(con.getOutputStream(), StandardCharsets.UTF_8);
-			out.write(paramString);
-			out.flush();
-			out.close();
+			try {
+				con.setRequestMethod("POST");
+				con.setRequestProperty("Content-type", "application/x-www-form-urlencoded");
+				con.setRequestProperty("Content-Length", "" + paramString.length());
+				con.setDoOutput(true);
+				Writer out = new OutputStreamWriter(con.getOutputStream(), StandardCharsets.UTF_8);
+				out.write(paramString);
+				out.flush();
+				out.close();
 
-			// Read the response;
-			if (con.getResponseCode() == 200) {
-				//debugResponse(con);
-				boolean rc = retrieveCookies(con);
-
-				// Get Bugzilla version and test for compatibility
-				BufferedReader r = new BufferedReader(new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8));
-				Pattern p = Pattern.compile(".*version\\s+([\\d\\.]+).*", Pattern.CASE_INSENSITIVE);
-
-				String line;
-				while ((line = r.readLine()) != null) {
-					// Search for: version 3.0.5
-					Matcher m = p.matcher(line);
-					if (m.matches()) {
-						setBugzillaVersion(m.group(1));
-						break;
+				// Read the response;
+				if (con.getResponseCode() == 200) {
+					//debugResponse(con);
+					boolean rc = retrieveCookies(con);
+
+					// Get Bugzilla version and test for compatibility
+					BufferedReader r = new BufferedReader(new InputStreamReader(getInputStream(con), StandardCharsets.UTF_8));
+					Pattern p = Pattern.compile(".*version\\s+([\\d\\.]+).*", Pattern.CASE_INSENSITIVE);
+
+					try {
+						String line;
+						while ((line = r.readLine()) != null) {
+							// Search for: version 3.0.5
+							Matcher m = p.matcher(line);
+							if (m.matches()) {
+								setBugzillaVersion(m.group(1));
+								break;
+							}
+						}
+					} finally {
+						r.close();
 					}
-				}
 
-				setLoggedIn(rc);
-				if (getLog().isInfoEnabled()) {
-					if (rc) {
-						getLog().info("Session opened:   "+getBaseUrl());
-						if (getLog().isDebugEnabled()) getLog().debug("Bugzilla-Version: "+getBugzillaVersion());
-					} else getLog().info("Bugzilla did not sent Cookie");
-				}
+					setLoggedIn(rc);
+					if (getLog().isInfoEnabled()) {
+						if (rc) {
+							getLog().info("Session opened:   "+getBaseUrl());
+							if (getLog().isDebugEnabled()) getLog().debug("Bugzilla-Version: "+getBugzillaVersion());
+						} else getLog().info("Bugzilla did not sent Cookie");
+					}
 
-				if (rc) checkBugzillaVersion();
+					if (rc) checkBugzillaVersion();
 
-				return rc;
-			} else {
-				getLog().error("Cannot open session: Response was \""+con.getResponseMessage()+"\"");
+					return rc;
+				} else {
+					getLog().error("Cannot open session: Response was \""+con.getResponseMessage()+"\"");
+				}
+			} finally {
+				release(con);
 			}
 		} catch (IOException e) {
 			getLog().error("Cannot open session:", e);
@@ -239,7 +549,11 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 			try {
 				// make a connection
 				HttpURLConnection con = getConnection(BUGZILLA_LOGOUT);
-				con.getResponseCode();
+				if (con != null) try {
+					con.getResponseCode();
+				} finally {
+					release(con);
+				}
 			} catch (IOException e) {
 
 			}
@@ -305,7 +619,9 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 	 * Returns the {@link Component} mappings.
 	 * @return the mappings
 	 * @since 2.0.3
+	 * @deprecated component names are not unique across projects, use {@link #getProjectComponents()}
 	 */
+	@Deprecated
 	protected MetaData<String, Component> getComponents() {
 		return components;
 	}
@@ -319,6 +635,49 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 		return classifications;
 	}
 
+	/**
+	 * Returns the {@link BugzillaUser} mappings.
+	 * <p>Issues parsed by this session share one user object per login.</p>
+	 * @return the mappings
+	 * @since 3.0.2
+	 */
+	protected MetaData<String, BugzillaUser> getUsers() {
+		return users;
+	}
+
+	/**
+	 * Returns the {@link BugzillaComponent} mappings.
+	 * <p>Issues parsed by this session share one component object per project and component name.</p>
+	 * @return the mappings
+	 * @since 3.0.2
+	 * @see #getProjectKey(Project, String)
+	 */
+	protected MetaData<List<String>, BugzillaComponent> getProjectComponents() {
+		return projectComponents;
+	}
+
+	/**
+	 * Returns the {@link BugzillaVersion} mappings.
+	 * <p>Issues parsed by this session share one version object per project and version name.</p>
+	 * @return the mappings
+	 * @since 3.0.2
+	 * @see #getProjectKey(Project, String)
+	 */
+	protected MetaData<List<String>, BugzillaVersion> getVersions() {
+		return versions;
+	}
+
+	/**
+	 * Returns the key of a project's component or version in the mappings.
+	 * @param project - the project (can be null)
+	 * @param name - the name of the component or version
+	 * @return the key
+	 * @since 3.0.2
+	 */
+	protected static List<String> getProjectKey(Project project, String name) {
+		return Arrays.asList(project != null ? project.getName() : null, name);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -337,15 +696,19 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 	@Override
 	public InputStream getAttachment(Attachment attachment) throws IOException {
 		HttpURLConnection con = getConnection(BUGZILLA_GET_ATTACHMENT, "id="+attachment.getId());
-		return con != null ? con.getInputStream() : null;
+		return con != null ? getInputStream(con) : null;
 	}
 
 	/**
 	 * Performs a search for Bugzilla bugs.
 	 * This method returns an iterator over all bug records found. The returned
 	 * iterator will query its data when the first call to its {@link Iterator#next()}
-	 * method is made. A separate thread will then be spawned to retrieve the
-	 * required details.
+	 * method is made. Separate threads will then be spawned to retrieve the
+	 * required details in chunks.
+	 * <p>When {@link #isStreamingSearch()} is set, the search itself is performed by
+	 * the iterator and details of the first chunks are retrieved while the search result
+	 * is still being read. The callback will then be informed from a separate thread
+	 * as soon as the search result was read completely.</p>
 	 * @param searchData - all search parameters
 	 * @param callback - a callback object that will retrieve the number of bugs 
 	 * found for this search
@@ -355,47 +718,222 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 	public Iterable<Issue> searchBugs(SearchData searchData, SearchResultCountCallback callback) {
 		checkLoggedIn();
 
+		if (isStreamingSearch()) {
+			return new BugzillaBugIterator(new SearchChunkProducer(searchData, callback));
+		}
+
 		// Perform the search
 		try {
-			UrlParameters params = UrlParameters.createUrlParameters(searchData);
-			params.addDefaultParameters(getDefaultSearchParameters());
-			String paramString = params.getUrlEncodedString();
+			final LongList ids = new LongList(1024);
+			BugIdCollector collector = new BugIdCollector() {
+				@Override
+				public void add(long id) {
+					ids.add(id);
+				}
+			};
+			boolean found = isCsvSearch() && searchCsv(searchData, collector);
+			if (!found) found = searchHtml(searchData, collector);
 
-			// make a connection
-			HttpURLConnection con = getConnection(BUGZILLA_SEARCH, paramString);
+			if (found) {
+				if (callback != null) callback.setResultCount(ids.size());
+				if (getLog().isDebugEnabled()) getLog().debug("Found "+ids.size()+" bugs");
 
-			// Read the response;
+				// Return the bug iterator
+				return new BugzillaBugIterator(ids.asStrings());
+			}
+		} catch (IOException e) {
+			getLog().error("Cannot perform search", e);
+		} catch (InterruptedException e) {
+			getLog().error("Search was interrupted", e);
+			Thread.currentThread().interrupt();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Performs the search by requesting the bug IDs as CSV list.
+	 * @param searchData - all search parameters
+	 * @param collector - receives the IDs found
+	 * @return true when search was performed, false when Bugzilla did not deliver the expected CSV list
+	 * @throws IOException - when the search request fails
+	 * @throws InterruptedException - when the collector was interrupted
+	 * @since 3.0.2
+	 */
+	protected boolean searchCsv(SearchData searchData, BugIdCollector collector) throws IOException, InterruptedException {
+		UrlParameters params = UrlParameters.createUrlParameters(searchData);
+		params.addDefaultParameters(getDefaultSearchParameters());
+		params.removeParameter("ctype");
+		params.removeParameter("columnlist");
+		params.setParameter("ctype", "csv");
+		params.setParameter("columnlist", "bug_id");
+		String paramString = params.getUrlEncodedString();
+
+		// make a connection
+		HttpURLConnection con = getConnection(BUGZILLA_SEARCH, paramString);
+
+		// Read the response;
+		if (con == null) throw new IOException("Cannot open connection for search");
+		try {
+			if (con.getResponseCode() == 200) {
+				Reader r = new BufferedReader(new InputStreamReader(getInputStream(con), StandardCharsets.UTF_8));
+				try {
+					if (parseCsvIds(r, collector)) return true;
+					getLog().debug("No CSV search result, falling back to HTML search");
+				} finally {
+					r.close();
+				}
+			} else {
+				getLog().debug("CSV search response invalid: "+con.getResponseCode());
+			}
+		} finally {
+			release(con);
+		}
+		return false;
+	}
+
+	/**
+	 * Parses a CSV list that contains a single ID column.
+	 * The first line must contain the column name <code>bug_id</code>.
+	 * IDs are handed over to the collector as soon as they were read.
+	 * <p>Content that does not match this layout is not an error as long as no ID was
+	 * handed over yet. The caller is then expected to fall back to another search method.</p>
+	 * @param r - the reader delivering the CSV
+	 * @param collector - receives the IDs
+	 * @return true when the content is a CSV ID list, false when the header line or the first row
+	 * does not match the expected layout
+	 * @throws IOException - when reading fails or the CSV list contains unexpected content after IDs were handed over
+	 * @throws InterruptedException - when the collector was interrupted
+	 * @since 3.0.2
+	 */
+	protected static boolean parseCsvIds(Reader r, BugIdCollector collector) throws IOException, InterruptedException {
+		// Check the header line
+		StringBuilder header = new StringBuilder();
+		int c;
+		while (((c = r.read()) >= 0) && (c != '\n')) {
+			if ((c != '"') && (c != '\r') && (c != '\uFEFF')) header.append((char)c);
+			if (header.length() > 20) return false;
+		}
+		if (!header.toString().trim().equalsIgnoreCase("bug_id")) return false;
+
+		// Read the IDs
+		long id = 0;
+		boolean hasDigits = false;
+		boolean found = false;
+		while ((c = r.read()) >= 0) {
+			if ((c >= '0') && (c <= '9')) {
+				id = id * 10 + (c - '0');
+				hasDigits = true;
+			} else if (c == '\n') {
+				if (hasDigits) {
+					collector.add(id);
+					found = true;
+				}
+				id = 0;
+				hasDigits = false;
+			} else if ((c != '"') && (c != '\r') && (c != ' ')) {
+				// Falling back is not possible anymore when IDs were handed over already
+				if (found) throw new IOException("Unexpected character in CSV ID list: "+(char)c);
+				return false;
+			}
+		}
+		if (hasDigits) collector.add(id);
+		return true;
+	}
+
+	/**
+	 * Performs the search by scraping the bug IDs from the HTML result page.
+	 * @param searchData - all search parameters
+	 * @param collector - receives the IDs found
+	 * @return true when search was performed, false when the search failed
+	 * @throws IOException - when the search request fails
+	 * @throws InterruptedException - when the collector was interrupted
+	 * @since 3.0.2
+	 */
+	protected boolean searchHtml(SearchData searchData, BugIdCollector collector) throws IOException, InterruptedException {
+		UrlParameters params = UrlParameters.createUrlParameters(searchData);
+		params.addDefaultParameters(getDefaultSearchParameters());
+		String paramString = params.getUrlEncodedString();
+
+		// make a connection
+		HttpURLConnection con = getConnection(BUGZILLA_SEARCH, paramString);
+
+		// Read the response;
+		if (con == null) throw new IOException("Cannot open connection for search");
+		try {
 			if (con.getResponseCode() == 200) {
 				//debugResponse(con);
 				//if (true) return null;
 
-				List<String> idList = new ArrayList<String>();
-
 				// Parse the data for all bugs found
-				BufferedReader r = new BufferedReader(new InputStreamReader(con.getInputStream(), StandardCharsets.UTF_8));
+				BufferedReader r = new BufferedReader(new InputStreamReader(getInputStream(con), StandardCharsets.UTF_8));
 				Pattern p = Pattern.compile(".*href=\"show_bug\\.cgi\\?id=(\\d+)\">\\d+</a>.*");
 
-				String line;
-				while ((line = r.readLine()) != null) {
-					// Search for: <a href="show_bug.cgi?id=2349">2349</a>
-					Matcher m = p.matcher(line);
-					if (m.matches()) {
-						idList.add(m.group(1));
-					} //else if (line.indexOf("show_bug.cgi") >= 0) log.info(line);
+				try {
+					String line;
+					while ((line = r.readLine()) != null) {
+						// Search for: <a href="show_bug.cgi?id=2349">2349</a>
+						Matcher m = p.matcher(line);
+						if (m.matches()) {
+							collector.add(Long.parseLong(m.group(1)));
+						} //else if (line.indexOf("show_bug.cgi") >= 0) log.info(line);
+					}
+				} finally {
+					r.close();
 				}
-				if (callback != null) callback.setResultCount(idList.size());
-				if (getLog().isDebugEnabled()) getLog().debug("Found "+idList.size()+" bugs");
-
-				// Return the bug iterator
-				return new BugzillaBugIterator(idList);
+				return true;
 			} else {
 				getLog().debug("Response invalid: "+con.getResponseCode());
 			}
-		} catch (IOException e) {
-			getLog().error("Cannot perform search", e);
+		} finally {
+			release(con);
 		}
+		return false;
+	}
 
-		return null;
+	/**
+	 * Requests the XML details of the given bugs.
+	 * @param ids - the IDs of the bugs
+	 * @return the XML stream
+	 * @throws IOException - when the request fails
+	 * @since 3.0.2
+	 */
+	protected InputStream requestXml(List<String> ids) throws IOException {
+		// Build parameters
+		UrlParameters parameters = new UrlParameters();
+		parameters.addAll("id", ids);
+		parameters.setParameter("ctype", "xml");
+		parameters.setParameter("excludefield", "attachmentdata");
+		parameters.setParameter("submit", "XML");
+		String paramString = parameters.getUrlEncodedString();
+
+		// make a connection
+		HttpURLConnection con = getConnection(BUGZILLA_SHOW_BUG);
+		if (con == null) throw new IOException("Cannot open connection");
+		boolean ok = false;
+		try {
+			con.setRequestMethod("POST");
+			con.setRequestProperty("Content-type", "application/x-www-form-urlencoded");
+			con.setRequestProperty("Content-Length", "" + paramString.length());
+			con.setDoOutput(true);
+			Writer out = new OutputStreamWriter(con.getOutputStream(), StandardCharsets.UTF_8);
+			out.write(paramString);
+			out.flush();
+			out.close();
+
+			if (getLog().isTraceEnabled()) getLog().trace("Awaiting XML file...");
+			// Read the response
+			if (con.getResponseCode() != 200) {
+				throw new IOException("Bugzilla responded with: "+con.getResponseCode()+" "+con.getResponseMessage());
+			}
+			if (getLog().isTraceEnabled()) getLog().trace("Receiving XML file...");
+			InputStream rc = getInputStream(con);
+			ok = true;
+			return rc;
+		} finally {
+			// The stream releases the connection when it is closed
+			if (!ok) release(con);
+		}
 	}
 
 	/**
@@ -480,84 +1018,146 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 
 	/**
 	 * Implementation of a bug iterator.
-	 * This implementation is based on Silberschatz' proposal
-	 * for synchronizing a reader and a writer thread.
-	 * The first call to {@link BugzillaBugIterator#next()} will spawn
-	 * the writer thread that actually retrieves bug data from Bugzilla.
+	 * The iterator is the consumer side of a bounded queue (see {@link #getXmlQueueCapacity()}).
+	 * The first call to {@link BugzillaBugIterator#hasNext()} or {@link BugzillaBugIterator#next()} 
+	 * will spawn the writer thread that actually retrieves bug data from Bugzilla.
+	 * The writer thread itself splits the bug list into chunks that are
+	 * retrieved and parsed in parallel (see {@link XmlChunkDispatcher}).
+	 * The writer thread blocks when the queue is full. Errors of the writer thread
+	 * are reported by {@link #next()} at the position of the failed chunk. The bugs of
+	 * further chunks can still be retrieved afterwards.
 	 * @author Ralph Schuster
 	 *
 	 */
 	protected class BugzillaBugIterator implements Iterable<Issue>, Iterator<Issue> {
 
-		private List<String> bugList;
-		private int delivered;
-		private List<Issue> availableBugs;
-		private XmlParser xmlParser;
+		private ChunkProducer producer;
+		private BlockingQueue<Object> availableBugs;
+		private Object nextElement;
+		private boolean finished;
+		private Thread dispatcher;
 
 		/**
 		 * Default constructor.
 		 * @param bugList - bug ID list to retrieve
 		 */
 		public BugzillaBugIterator(List<String> bugList) {
-			delivered = 0;
-			this.bugList = bugList;
-			availableBugs = new ArrayList<Issue>();
+			this(new ListChunkProducer(bugList));
+			finished = bugList.isEmpty();
 		}
 
 		/**
-		 * Returns true while number of delivered bugs (calls
-		 * to {@link #next()} are less than number of bugs in
-		 * request list.
+		 * Constructor.
+		 * @param producer - produces the bug IDs to retrieve
+		 * @since 3.0.2
+		 */
+		public BugzillaBugIterator(ChunkProducer producer) {
+			this.producer = producer;
+			availableBugs = new ArrayBlockingQueue<Object>(Math.max(1, getXmlQueueCapacity()));
+			finished = false;
+		}
+
+		/**
+		 * Returns true while the writer thread did not signal the end of the bug list.
+		 * The call will wait until the next bug is available if required.
 		 * @return true if there are still bugs in the queue to read.
 		 */
 		@Override
 		public boolean hasNext() {
-			return delivered < bugList.size();
+			if (finished) return false;
+			if (nextElement == null) {
+				nextElement = take(getXmlTimeout());
+			}
+			if (nextElement == END_OF_BUGS) {
+				finished = true;
+				nextElement = null;
+				return false;
+			}
+			return true;
 		}
 
 		/**
 		 * Delivers the next bug.
-		 * The first call will trigger spawning of the writer thread. This implementation
-		 * is based on Silberschatz' synchronization solution for
-		 * reader and writer threads (reader's part here). That means, the
+		 * The first call will trigger spawning of the writer thread. The
 		 * call will wait until the next bug is available if required.
 		 * @return next bug in queue
 		 */
 		@Override
-		public synchronized Issue next() {
-			Issue rc;
-			if (xmlParser == null) startXmlParser();
-			if (delivered >= bugList.size()) 
-				throw new IllegalStateException("Empty queue");
-
-			while (availableBugs.isEmpty()) {
-				try {
-					wait();
-				} catch (InterruptedException e) { }
+		public Issue next() {
+			if (!hasNext()) throw new NoSuchElementException("Empty queue");
+			Object rc = nextElement;
+			nextElement = null;
+			if (rc instanceof Throwable) {
+				throw new RuntimeException("Cannot retrieve bugs", (Throwable)rc);
 			}
-			rc = availableBugs.remove(0);
-			delivered++;
-
-			notify();
+			return (Issue)rc;
+		}
 
-			return rc;
+		/**
+		 * Takes the next element from the queue.
+		 * @param timeout - timeout in milliseconds, 0 or less will wait forever
+		 * @return the next element
+		 */
+		protected Object take(long timeout) {
+			if (dispatcher == null) startXmlParser();
+			try {
+				Object rc = null;
+				if (timeout > 0) {
+					rc = availableBugs.poll(timeout, TimeUnit.MILLISECONDS);
+					if (rc == null) {
+						// Stop the writer threads, they would block forever otherwise
+						cancel();
+						throw new RuntimeException("Timeout while waiting for next bug");
+					}
+				} else {
+					rc = availableBugs.take();
+				}
+				return rc;
+			} catch (InterruptedException e) {
+				cancel();
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while waiting for next bug", e);
+			}
 		}
 
 		/**
 		 * Adds a new bug to the list of available bugs.
-		 * This implementation is based on Silberschatz' synchronization
-		 * solution for reader and writer threads (writer's part here).
+		 * The call blocks while the queue is full.
 		 * @param bug - bug to add to queue
+		 * @throws InterruptedException - when the writer thread was interrupted
 		 */
-		protected synchronized void addBug(Issue bug) {
-			while (availableBugs.size() >= 20) {
-				try {
-					wait();
-				} catch (InterruptedException e) {}
-			}
-			availableBugs.add(bug);
+		protected void addBug(Issue bug) throws InterruptedException {
+			availableBugs.put(bug);
+		}
+
+		/**
+		 * Signals an error to the consumer.
+		 * The writer thread calls this method when bugs could not be retrieved at all.
+		 * @param t - the error
+		 * @throws InterruptedException - when the writer thread was interrupted
+		 * @since 3.0.2
+		 */
+		protected void addError(Throwable t) throws InterruptedException {
+			availableBugs.put(t);
+		}
+
+		/**
+		 * Signals the end of the bug list to the consumer.
+		 * @throws InterruptedException - when the writer thread was interrupted
+		 * @since 3.0.2
+		 */
+		protected void addEnd() throws InterruptedException {
+			availableBugs.put(END_OF_BUGS);
+		}
 
-			notify();
+		/**
+		 * Stops the retrieval of further bugs.
+		 * Consumers shall call this method when they are not interested in further bugs.
+		 * @since 3.0.2
+		 */
+		public void cancel() {
+			finished = true;
+			if (dispatcher != null) dispatcher.interrupt();
 		}
 
 		/**
@@ -570,78 +1170,466 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 
 		/**
 		 * Starts the writer's thread.
-		 * This method will create the appropriate POST request to the Bugzilla
-		 * instance and hand over the connection to the new thread. Internal
-		 * variables are set to indicate that the writer thread is running. 
+		 * The thread will distribute the XML requests for the bug list to
+		 * the worker threads and hand over the parsed bugs to this iterator. 
 		 */
 		protected void startXmlParser() {
-			try {
-				if (getLog().isTraceEnabled()) getLog().trace("Requesting XML file...");
+			if (getLog().isTraceEnabled()) getLog().trace("Requesting XML files...");
+			dispatcher = new Thread(new XmlChunkDispatcher(producer, this), "b4j-xml-dispatcher");
+			dispatcher.setDaemon(true);
+			dispatcher.start();
+		}
 
-				// Build parameters
-				UrlParameters parameters = new UrlParameters();
-				parameters.addAll("id", bugList);
-				parameters.setParameter("ctype", "xml");
-				parameters.setParameter("excludefield", "attachmentdata");
-				parameters.setParameter("submit", "XML");
-				String paramString = parameters.getUrlEncodedString();
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Iterator<Issue> iterator() {
+			return this;
+		}
 
-				// make a connection
-				HttpURLConnection con = getConnection(BUGZILLA_SHOW_BUG);
-				if (con == null) throw new RuntimeException("Cannot open connection");
-				con.setRequestMethod("POST");
-				con.setRequestProperty("Content-type", "application/x-www-form-urlencoded");
-				con.setRequestProperty("Content-Length", "" + paramString.length());
-				con.setDoOutput(true);
-				Writer out = new OutputStreamWriter(con.getOutputStream(), StandardCharsets.UTF_8);
-				out.write(paramString);
-				out.flush();
-				out.close();
 
-				if (getLog().isTraceEnabled()) getLog().trace("Awaiting XML file...");
-				// Read the response
-				if (con.getResponseCode() == 200) {
-					if (getLog().isTraceEnabled()) getLog().trace("Receiving XML file...");
-					xmlParser = new XmlParser(con.getInputStream(), this);
-					Thread t = new Thread(xmlParser);
-					t.start();
-				}
-			} catch (IOException e) {
+	}
 
+	/**
+	 * Receives bug IDs while a search result is read.
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	protected interface BugIdCollector {
+		
+		/**
+		 * Adds a bug ID.
+		 * @param id - the ID found
+		 * @throws InterruptedException - when the collector was interrupted while waiting
+		 */
+		public void add(long id) throws InterruptedException;
+	}
+	
+	/**
+	 * Produces the chunks of bug IDs to be retrieved.
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	protected abstract class ChunkProducer {
+		
+		/**
+		 * Returns the number of chunks if known in advance.
+		 * @return number of chunks or -1 if not known
+		 */
+		public int getChunkCount() {
+			return -1;
+		}
+		
+		/**
+		 * Hands over all chunks to the dispatcher.
+		 * @param dispatcher - the dispatcher receiving the chunks
+		 * @throws Exception - when producing fails
+		 */
+		public abstract void produce(XmlChunkDispatcher dispatcher) throws Exception;
+	}
+
+	/**
+	 * Produces the chunks from a given bug list.
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	protected class ListChunkProducer extends ChunkProducer {
+		
+		private List<String> bugList;
+
+		/**
+		 * Constructor.
+		 * @param bugList - the IDs of the bugs to be retrieved
+		 */
+		public ListChunkProducer(List<String> bugList) {
+			this.bugList = bugList;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int getChunkCount() {
+			int chunkSize = Math.max(1, getXmlChunkSize());
+			return (bugList.size() + chunkSize - 1) / chunkSize;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void produce(XmlChunkDispatcher dispatcher) throws Exception {
+			int chunkSize = Math.max(1, getXmlChunkSize());
+			for (int start=0; start<bugList.size(); start += chunkSize) {
+				dispatcher.submit(bugList.subList(start, Math.min(bugList.size(), start+chunkSize)));
 			}
 		}
+	}
+	
+	/**
+	 * Performs the search and produces the chunks while the search result is read.
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	protected class SearchChunkProducer extends ChunkProducer implements BugIdCollector {
+		
+		private SearchData searchData;
+		private SearchResultCountCallback callback;
+		private XmlChunkDispatcher dispatcher;
+		private List<String> chunk;
+		private int count;
+
+		/**
+		 * Constructor.
+		 * @param searchData - all search parameters
+		 * @param callback - a callback object that will retrieve the number of bugs found
+		 */
+		public SearchChunkProducer(SearchData searchData, SearchResultCountCallback callback) {
+			this.searchData = searchData;
+			this.callback = callback;
+		}
 
 		/**
 		 * {@inheritDoc}
 		 */
 		@Override
-		public Iterator<Issue> iterator() {
-			return this;
+		public void produce(XmlChunkDispatcher dispatcher) throws Exception {
+			this.dispatcher = dispatcher;
+			this.chunk = new ArrayList<String>();
+			this.count = 0;
+			
+			boolean found = isCsvSearch() && searchCsv(searchData, this);
+			if (!found) found = searchHtml(searchData, this);
+			if (!found) throw new IOException("Cannot perform search");
+			
+			if (!chunk.isEmpty()) dispatcher.submit(chunk);
+			if (callback != null) callback.setResultCount(count);
+			if (getLog().isDebugEnabled()) getLog().debug("Found "+count+" bugs");
 		}
 
+		/**
+		 * Collects the ID and submits a chunk when it is complete.
+		 * @param id - the ID found
+		 * @throws InterruptedException - when the dispatcher was interrupted
+		 */
+		@Override
+		public void add(long id) throws InterruptedException {
+			count++;
+			chunk.add(Long.toString(id));
+			if (chunk.size() >= Math.max(1, getXmlChunkSize())) {
+				dispatcher.submit(chunk);
+				chunk = new ArrayList<String>();
+			}
+		}
+	}
+	
+	/**
+	 * Distributes the XML retrieval of a bug list.
+	 * The bug list is split into chunks of {@link #getXmlChunkSize()} bugs by a {@link ChunkProducer}. 
+	 * The chunks are retrieved and parsed in parallel by at most {@link #getXmlThreads()} threads. Parsed bugs are handed 
+	 * over to the iterator in order of the bug list unless {@link #isXmlPreserveOrder()} is false.
+	 * Chunks that fail are retried on their own. When all retries fail, the error is handed over
+	 * in place of the chunk's bugs and the following chunks are still delivered.
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	protected class XmlChunkDispatcher implements Runnable {
 
+		private ChunkProducer producer;
+		private BugzillaBugIterator iterator;
+		private ExecutorService executor;
+		private BlockingQueue<Object> results;
+		private Semaphore window;
+		private volatile int submitted;
+		private boolean preserveOrder;
+		
+		/**
+		 * Constructor.
+		 * @param producer - produces the chunks of IDs of the bugs to be retrieved
+		 * @param iterator - the iterator that receives the results
+		 */
+		public XmlChunkDispatcher(ChunkProducer producer, BugzillaBugIterator iterator) {
+			this.producer = producer;
+			this.iterator = iterator;
+		}
+		
+		/**
+		 * Runs the distribution.
+		 */
+		@Override
+		public void run() {
+			int threads = Math.max(1, getXmlThreads());
+			int chunkCount = producer.getChunkCount();
+			if (chunkCount > 0) threads = Math.min(threads, chunkCount);
+			
+			executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "b4j-xml-worker");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			results = new LinkedBlockingQueue<Object>();
+			// Do not buffer more chunks than the workers can process in two rounds
+			window = new Semaphore(2 * threads);
+			preserveOrder = isXmlPreserveOrder();
+			submitted = 0;
+			
+			Thread producerThread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						producer.produce(XmlChunkDispatcher.this);
+						results.add(END_OF_BUGS);
+					} catch (InterruptedException e) {
+						// Dispatcher was stopped
+					} catch (Exception e) {
+						results.add(e);
+					}
+				}
+			}, "b4j-xml-producer");
+			producerThread.setDaemon(true);
+			producerThread.start();
+			
+			try {
+				int delivered = 0;
+				boolean ended = false;
+				while (!ended || (delivered < submitted)) {
+					Object o = results.take();
+					if (o == END_OF_BUGS) {
+						ended = true;
+						continue;
+					}
+					if (o instanceof Throwable) {
+						// The producer failed, deliver the chunks submitted so far
+						getLog().error("Cannot retrieve bugs from Bugzilla", (Throwable)o);
+						iterator.addError((Throwable)o);
+						ended = true;
+						continue;
+					}
+					@SuppressWarnings("unchecked")
+					Future<List<Issue>> future = (Future<List<Issue>>)o;
+					delivered++;
+					try {
+						for (Issue issue : future.get()) {
+							iterator.addBug(issue);
+						}
+					} catch (ExecutionException e) {
+						// Report the error in place of the chunk's bugs
+						getLog().error("Cannot retrieve bugs from Bugzilla", e.getCause());
+						iterator.addError(e.getCause());
+					}
+					window.release();
+				}
+				iterator.addEnd();
+				if (getLog().isTraceEnabled()) getLog().trace("XML files completed");
+			} catch (InterruptedException e) {
+				if (getLog().isDebugEnabled()) getLog().debug("XML retrieval was cancelled");
+			} finally {
+				producerThread.interrupt();
+				executor.shutdownNow();
+			}
+		}
+		
+		/**
+		 * Submits the given chunk for retrieval.
+		 * The call blocks when too many chunks are waiting for delivery.
+		 * @param ids - the IDs of the chunk
+		 * @throws InterruptedException - when the dispatcher was stopped
+		 */
+		public void submit(List<String> ids) throws InterruptedException {
+			window.acquire();
+			XmlChunk task = new XmlChunk(ids);
+			if (preserveOrder) {
+				results.put(executor.submit(task));
+			} else {
+				executor.execute(new FutureTask<List<Issue>>(task) {
+					@Override
+					protected void done() {
+						results.add(this);
+					}
+				});
+			}
+			submitted++;
+		}
+	}
+	
+	/**
+	 * Retrieves and parses the XML for a single chunk of bugs.
+	 * The retrieval will be retried {@link #getXmlRetries()} times before it fails.
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	protected class XmlChunk implements Callable<List<Issue>> {
+		
+		private List<String> ids;
+		
+		/**
+		 * Constructor.
+		 * @param ids - the IDs of the bugs in this chunk
+		 */
+		public XmlChunk(List<String> ids) {
+			this.ids = ids;
+		}
+		
+		/**
+		 * Retrieves the bugs.
+		 * @return the bugs in order of XML response
+		 * @throws Exception - when all retries failed
+		 */
+		@Override
+		public List<Issue> call() throws Exception {
+			Exception lastError = null;
+			for (int attempt=0; attempt<=getXmlRetries(); attempt++) {
+				if (attempt > 0) getLog().warn("Retrying XML retrieval of "+ids.size()+" bugs (attempt "+(attempt+1)+"): "+lastError.getMessage());
+				try {
+					List<Issue> rc = new ArrayList<Issue>(ids.size());
+					InputStream in = requestXml(ids);
+					try {
+						new XmlParser(in, rc).parse();
+					} finally {
+						in.close();
+					}
+					return rc;
+				} catch (IOException e) {
+					lastError = e;
+				} catch (SAXException e) {
+					lastError = e;
+				}
+			}
+			throw lastError;
+		}
+	}
+	
+	/**
+	 * The elements of a Bugzilla XML response that are known to {@link XmlParser}.
+	 * <p>The parser looks up each element once in a precomputed table instead of comparing
+	 * the name with all known elements. Any element not listed is treated as a custom field.</p>
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	protected static enum XmlElement {
+
+		BUGZILLA(false),
+		BUG(false),
+		BUG_ID(true),
+		CREATION_TS(true),
+		SHORT_DESC(true),
+		DELTA_TS(true),
+		REPORTER_ACCESSIBLE(true),
+		CCLIST_ACCESSIBLE(true),
+		CLASSIFICATION_ID(true),
+		CLASSIFICATION(true),
+		PRODUCT(true),
+		COMPONENT(true),
+		VERSION(true),
+		REP_PLATFORM(true),
+		OP_SYS(true),
+		BUG_STATUS(true),
+		RESOLUTION(true),
+		PRIORITY(true),
+		BUG_SEVERITY(true),
+		TARGET_MILESTONE(true),
+		EVERCONFIRMED(true),
+		REPORTER(true),
+		ASSIGNED_TO(true),
+		QA_CONTACT(true),
+		LONG_DESC(false),
+		COMMENTID(true),
+		WHO(true),
+		BUG_WHEN(true),
+		THETEXT(true),
+		BUG_FILE_LOC(true),
+		CC(true),
+		ATTACHMENT(false),
+		ATTACHID(true),
+		DATE(true),
+		DESC(true),
+		FILENAME(true),
+		TYPE(true),
+		BLOCKED(true),
+		DEPENDSON(true),
+		ALIAS(true),
+		STATUS_WHITEBOARD(true),
+		ESTIMATED_TIME(true),
+		REMAINING_TIME(true),
+		ACTUAL_TIME(true),
+		DEADLINE(true),
+		/** Any other element */
+		CUSTOM(true);
+
+		private static final Map<String, XmlElement> ELEMENTS = new HashMap<String, XmlElement>();
+
+		static {
+			for (XmlElement element : values()) {
+				if (element != CUSTOM) ELEMENTS.put(element.getElementName(), element);
+			}
+		}
+
+		private String elementName;
+		private boolean text;
+
+		/**
+		 * Constructor.
+		 * @param text - whether the element collects its text content
+		 */
+		private XmlElement(boolean text) {
+			this.elementName = name().toLowerCase(Locale.ROOT);
+			this.text = text;
+		}
+
+		/**
+		 * Returns the name of the element in the XML response.
+		 * @return the element name
+		 */
+		public String getElementName() {
+			return elementName;
+		}
+
+		/**
+		 * Returns whether the element collects its text content.
+		 * @return <code>true</code> when the text content is required
+		 */
+		public boolean isText() {
+			return text;
+		}
+
+		/**
+		 * Returns the element for the given name.
+		 * @param name - name of the element in the XML response
+		 * @return the element, {@link #CUSTOM} when the element is not known
+		 */
+		public static XmlElement forName(String name) {
+			XmlElement rc = ELEMENTS.get(name);
+			return rc != null ? rc : CUSTOM;
+		}
 	}
 
 	/**
 	 * Does the actual meat by parsing the XML response.
 	 * Implementation of the separate writer thread. The XML will be parsed
 	 * (SAX implementation) and all found bugs will be added to the
-	 * corresponding iterator object ({@link BugzillaBugIterator#addBug(Issue)}).
+	 * corresponding iterator object ({@link BugzillaBugIterator#addBug(Issue)})
+	 * or the given collection.
 	 * @author Ralph Schuster
 	 */
 	protected class XmlParser extends DefaultHandler2 implements Runnable {
 
 		private InputStream xmlStream;
 		private BugzillaBugIterator iterator;
+		private Collection<Issue> issues;
 		private XMLReader xmlReader;
 		private Issue currentIssue;
 		private Comment currentComment;
 		private Attachment currentAttachment;
-		private StringBuffer currentContent;
+		private StringBuilder currentContent = new StringBuilder(256);
+		private boolean collectContent = false;
 		private String currentCustomField;
 		private String bugzillaVersion;
 		private String bugzillaUri;
-		private BugzillaUser currentUser;
+		private String currentRealName;
 
 		/**
 		 * Constructor.
@@ -653,24 +1641,23 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 			this.iterator = iterator;
 		}
 
+		/**
+		 * Constructor.
+		 * @param xmlStream - input stream with XML response from Bugzilla
+		 * @param issues - collection that receives the results 
+		 * @since 3.0.2
+		 */
+		public XmlParser(InputStream xmlStream, Collection<Issue> issues) {
+			this.xmlStream = xmlStream;
+			this.issues = issues;
+		}
+
 		/**
 		 * Runs the extraction.
 		 */
 		public void run() {
 			try {
-				SAXParserFactory factory = SAXParserFactory.newInstance();
-				// Prevent fetching the DTD
-				factory.setValidating(false);
-				factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-
-				// Create the XMLReader
-				SAXParser xmlParser = factory.newSAXParser();
-				xmlReader = xmlParser.getXMLReader();
-
-				// This class itself will take care of the elements
-				xmlReader.setContentHandler(this);
-				xmlReader.parse(new InputSource(new XmlReaderFilter(new InputStreamReader(xmlStream, StandardCharsets.UTF_8))));
-				if (getLog().isTraceEnabled()) getLog().trace("XML file completed");
+				parse();
 			} catch (IOException e) {
 				getLog().error("Error while retrieving Bugzilla XML response:", e);
 			} catch (ParserConfigurationException e) {
@@ -685,126 +1672,66 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 			}
 		}
 
+		/**
+		 * Performs the extraction.
+		 * @throws IOException - when the XML stream cannot be read
+		 * @throws ParserConfigurationException - when the SAX parser cannot be created
+		 * @throws SAXException - when the XML stream cannot be parsed
+		 * @since 3.0.2
+		 */
+		public void parse() throws IOException, ParserConfigurationException, SAXException {
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			// Prevent fetching the DTD
+			factory.setValidating(false);
+			factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+
+			// Create the XMLReader
+			SAXParser xmlParser = factory.newSAXParser();
+			xmlReader = xmlParser.getXMLReader();
+
+			// This class itself will take care of the elements
+			xmlReader.setContentHandler(this);
+			xmlReader.parse(new InputSource(new XmlReaderFilter(new InputStreamReader(xmlStream, StandardCharsets.UTF_8))));
+			if (getLog().isTraceEnabled()) getLog().trace("XML file completed");
+		}
+
 		/**
 		 * @see org.xml.sax.helpers.DefaultHandler#startElement(java.lang.String, java.lang.String, java.lang.String, org.xml.sax.Attributes)
 		 */
 		@Override
 		public void startElement(String uri, String localName, String name,	Attributes attributes) throws SAXException {
 			super.startElement(uri, localName, name, attributes);
-			if (name.equals("bugzilla")) {
+			XmlElement element = XmlElement.forName(name);
+			if (element.isText()) startContent();
+			switch (element) {
+			case BUGZILLA:
 				bugzillaUri = attributes.getValue("urlbase");
 				bugzillaVersion = attributes.getValue("version");
 				setBugzillaVersion(bugzillaVersion);
-			} else if (name.equals("bug")) {
+				break;
+			case BUG:
 				currentIssue = createIssue();
 				currentIssue.setServerUri(bugzillaUri);
 				currentIssue.setServerVersion(bugzillaVersion);
 				currentIssue.setType(issueTypes.get("bug"));
-			} else if (name.equals("bug_id")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("creation_ts")) { // 2008-07-23 12:28
-				currentContent = new StringBuffer();
-			} else if (name.equals("short_desc")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("delta_ts")) { // 2008-07-23 12:28:22
-				currentContent = new StringBuffer();
-			} else if (name.equals("reporter_accessible")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("cclist_accessible")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("classification_id")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("classification")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("product")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("component")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("version")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("rep_platform")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("op_sys")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("bug_status")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("resolution")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("priority")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("bug_severity")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("target_milestone")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("everconfirmed")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("reporter")) {
-				currentUser = new BugzillaUser();
-				currentContent = new StringBuffer();
-				String userName = attributes.getValue("name");
-				if (userName != null) {
-					currentUser.setRealName(userName);
-				}
-			} else if (name.equals("assigned_to")) {
-				currentUser = new BugzillaUser();
-				currentContent = new StringBuffer();
-				String userName = attributes.getValue("name");
-				if (userName != null) {
-					currentUser.setRealName(userName);
-				}
-			} else if (name.equals("qa_contact")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("long_desc")) { // multiple
+				break;
+			case REPORTER:
+			case ASSIGNED_TO:
+			case WHO:
+				currentRealName = attributes.getValue("name");
+				break;
+			case LONG_DESC: // multiple
 				currentComment = new DefaultComment(currentIssue.getId());
-			} else if (name.equals("commentid")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("who")) {
-				currentUser = new BugzillaUser();
-				currentContent = new StringBuffer();
-				String userName = attributes.getValue("name");
-				if (userName != null) {
-					currentUser.setRealName(userName);
-				}
-			} else if (name.equals("bug_when")) { // 2008-07-23 12:28:22
-				currentContent = new StringBuffer();
-			} else if (name.equals("thetext")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("bug_file_loc")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("cc")) { // multiple
-				currentContent = new StringBuffer();
-			} else if (name.equals("attachment")) { // multiple
+				break;
+			case ATTACHMENT: // multiple
 				currentAttachment = new DefaultAttachment(currentIssue.getId());
-			} else if (name.equals("attachid")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("date")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("desc")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("filename")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("type")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("blocked")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("dependson")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("alias")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("status_whiteboard")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("estimated_time")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("remaining_time")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("actual_time")) {
-				currentContent = new StringBuffer();
-			} else if (name.equals("deadline")) {
-				currentContent = new StringBuffer();
-			} else {
+				break;
+			case CUSTOM:
 				currentCustomField = name;
-				currentContent = new StringBuffer();
 				//log.warn("Custom field: "+name);
+				break;
+			default:
+				break;
 			}
 		}
 
@@ -813,205 +1740,252 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 		 */
 		@Override
 		public void endElement(String uri, String localName, String name) throws SAXException {
-			if (name.equals("bug")) {
-				iterator.addBug(currentIssue);
+			switch (XmlElement.forName(name)) {
+			case BUG:
+				if (iterator != null) {
+					try {
+						iterator.addBug(currentIssue);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new SAXException("XML parsing was interrupted", e);
+					}
+				} else issues.add(currentIssue);
 				currentIssue = null;
-			} else if (name.equals("bug_id")) {
-				currentIssue.setId(currentContent.toString());
+				break;
+			case BUG_ID:
+				currentIssue.setId(getContent());
 				currentIssue.setUri(getBaseUrl()+PAGES[BUGZILLA_SHOW_BUG]+"?id="+currentIssue.getId());
-				currentContent = null;
-			} else if (name.equals("creation_ts")) { // 2008-07-23 12:28
+				endContent();
+				break;
+			case CREATION_TS: // 2008-07-23 12:28
 				try {
-					currentIssue.setCreationTimestamp(BugzillaUtils.parseDate(currentContent.toString()));
+					currentIssue.setCreationTimestamp(BugzillaUtils.parseDate(getContent()));
 				} catch (ParseException e) {
-					getLog().error("Cannot parse this time: "+currentContent.toString());
+					getLog().error("Cannot parse this time: "+getContent());
 				}
-				currentContent = null;
-			} else if (name.equals("short_desc")) {
-				currentIssue.setSummary(currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("delta_ts")) { // 2008-07-23 12:28:22
+				endContent();
+				break;
+			case SHORT_DESC:
+				currentIssue.setSummary(getContent());
+				endContent();
+				break;
+			case DELTA_TS: // 2008-07-23 12:28:22
 				try {
 					if (currentAttachment != null) {
-						currentAttachment.set(Attachment.UPDATE_TIMESTAMP, BugzillaUtils.parseDate(currentContent.toString()));
+						currentAttachment.set(Attachment.UPDATE_TIMESTAMP, BugzillaUtils.parseDate(getContent()));
 					} else {
-						currentIssue.setUpdateTimestamp(BugzillaUtils.parseDate(currentContent.toString()));
+						currentIssue.setUpdateTimestamp(BugzillaUtils.parseDate(getContent()));
 					}
 				} catch (ParseException e) {
-					getLog().error("Cannot parse this time: "+currentContent.toString());
+					getLog().error("Cannot parse this time: "+getContent());
 				}
-				currentContent = null;
-			} else if (name.equals("reporter_accessible")) {
-				currentIssue.set(Issue.REPORTER_ACCESSIBLE, LangUtils.getBoolean(currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("cclist_accessible")) {
-				currentIssue.set(Issue.CCLIST_ACCESSIBLE, LangUtils.getBoolean(currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("classification_id")) {
-				currentIssue.setClassification(classifications.get(currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("classification")) {
+				endContent();
+				break;
+			case REPORTER_ACCESSIBLE:
+				currentIssue.set(Issue.REPORTER_ACCESSIBLE, LangUtils.getBoolean(getContent()));
+				endContent();
+				break;
+			case CCLIST_ACCESSIBLE:
+				currentIssue.set(Issue.CCLIST_ACCESSIBLE, LangUtils.getBoolean(getContent()));
+				endContent();
+				break;
+			case CLASSIFICATION_ID:
+				currentIssue.setClassification(classifications.get(getContent()));
+				endContent();
+				break;
+			case CLASSIFICATION:
 				if (currentIssue.getClassification() != null) {
-					((DefaultClassification)currentIssue.getClassification()).setName(currentContent.toString());
+					((DefaultClassification)currentIssue.getClassification()).setName(getContent());
 				}
-				currentContent = null;
-			} else if (name.equals("product")) {
-				currentIssue.setProject(projects.get(currentContent.toString()));
+				endContent();
+				break;
+			case PRODUCT:
+				currentIssue.setProject(projects.get(getContent()));
+				// Components listed before the product are replaced by the project's components
+				List<Component> unassigned = null;
 				for (Component c : currentIssue.getComponents()) {
 					if (c.getProject() == null) {
-						((BugzillaComponent)c).setProject((BugzillaProject)currentIssue.getProject());
+						if (unassigned == null) unassigned = new ArrayList<Component>();
+						unassigned.add(c);
 					}
 				}
-				currentContent = null;
-			} else if (name.equals("component")) {
-				Component c = components.get(currentContent.toString());
-				if ((c.getProject() != null) && (currentIssue.getProject() != null)) {
-					((BugzillaComponent)c).setProject((BugzillaProject)currentIssue.getProject());
-				}
-				currentIssue.addComponents(c);
-				currentContent = null;
-			} else if (name.equals("version")) {
-				currentIssue.addFixVersions(new BugzillaVersion(null, currentIssue.getProject(), currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("rep_platform")) {
-				currentIssue.set(Issue.REP_PLATFORM, currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("op_sys")) {
-				currentIssue.set(Issue.OP_SYS, currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("bug_status")) {
-				currentIssue.setStatus(status.get(currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("resolution")) {
-				currentIssue.setResolution(resolutions.get(currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("priority")) {
-				currentIssue.setPriority(priorities.get(currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("bug_severity")) {
-				currentIssue.setSeverity(severities.get(currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("target_milestone")) {
-				currentIssue.set(Issue.MILESTONE, currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("everconfirmed")) {
-				currentIssue.set(Issue.CONFIRMED, LangUtils.getBoolean(currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("reporter")) {
-				if (currentUser != null) {
-					currentUser.setId(currentContent.toString());
-					currentUser.setName(currentContent.toString());
-					currentIssue.setReporter(currentUser);
-				}
-				currentUser = null;
-				currentContent = null;
-			} else if (name.equals("assigned_to")) {
-				if (currentUser != null) {
-					currentUser.setId(currentContent.toString());
-					currentUser.setName(currentContent.toString());
-					currentIssue.setAssignee(currentUser);
+				if (unassigned != null) {
+					currentIssue.removeComponents(unassigned);
+					for (Component c : unassigned) {
+						currentIssue.addComponents(getComponent(c.getName()));
+					}
 				}
-				currentUser = null;
-				currentContent = null;
-			} else if (name.equals("qa_contact")) {
-				currentIssue.set(Issue.QA_CONTACT, currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("long_desc")) { // multiple
+				endContent();
+				break;
+			case COMPONENT:
+				currentIssue.addComponents(getComponent(getContent()));
+				endContent();
+				break;
+			case VERSION:
+				currentIssue.addFixVersions(versions.get(getProjectKey(currentIssue.getProject(), getContent()), currentIssue.getProject()));
+				endContent();
+				break;
+			case REP_PLATFORM:
+				currentIssue.set(Issue.REP_PLATFORM, getContent());
+				endContent();
+				break;
+			case OP_SYS:
+				currentIssue.set(Issue.OP_SYS, getContent());
+				endContent();
+				break;
+			case BUG_STATUS:
+				currentIssue.setStatus(status.get(getContent()));
+				endContent();
+				break;
+			case RESOLUTION:
+				currentIssue.setResolution(resolutions.get(getContent()));
+				endContent();
+				break;
+			case PRIORITY:
+				currentIssue.setPriority(priorities.get(getContent()));
+				endContent();
+				break;
+			case BUG_SEVERITY:
+				currentIssue.setSeverity(severities.get(getContent()));
+				endContent();
+				break;
+			case TARGET_MILESTONE:
+				currentIssue.set(Issue.MILESTONE, getContent());
+				endContent();
+				break;
+			case EVERCONFIRMED:
+				currentIssue.set(Issue.CONFIRMED, LangUtils.getBoolean(getContent()));
+				endContent();
+				break;
+			case REPORTER:
+				currentIssue.setReporter(getUser(getContent()));
+				endContent();
+				break;
+			case ASSIGNED_TO:
+				currentIssue.setAssignee(getUser(getContent()));
+				endContent();
+				break;
+			case QA_CONTACT:
+				currentIssue.set(Issue.QA_CONTACT, getContent());
+				endContent();
+				break;
+			case LONG_DESC: // multiple
 				currentIssue.addComments(currentComment);
 				if (currentIssue.getDescription() == null) currentIssue.setDescription(currentComment.getTheText());
 				currentComment = null;
-			} else if (name.equals("commentid")) {
-				currentComment.setId(currentContent.toString());
-			} else if (name.equals("who")) {
-				if (currentUser != null) {
-					currentUser.setId(currentContent.toString());
-					currentUser.setName(currentContent.toString());
-					currentComment.setAuthor(currentUser);
-					currentComment.setUpdateAuthor(currentUser);
-				}
-				currentUser = null;
-				currentContent = null;
-			} else if (name.equals("bug_when")) { // 2008-07-23 12:28:22
+				break;
+			case COMMENTID:
+				currentComment.setId(getContent());
+				break;
+			case WHO: {
+				BugzillaUser user = getUser(getContent());
+				currentComment.setAuthor(user);
+				currentComment.setUpdateAuthor(user);
+				endContent();
+				break;
+			}
+			case BUG_WHEN: // 2008-07-23 12:28:22
 				try {
-					currentComment.setCreationTimestamp(BugzillaUtils.parseDate(currentContent.toString()));
-					currentComment.setUpdateTimestamp(BugzillaUtils.parseDate(currentContent.toString()));
+					String when = getContent();
+					currentComment.setCreationTimestamp(BugzillaUtils.parseDate(when));
+					currentComment.setUpdateTimestamp(BugzillaUtils.parseDate(when));
 				} catch (ParseException e) {
-					getLog().error("Cannot parse this time: "+currentContent.toString());
+					getLog().error("Cannot parse this time: "+getContent());
 				}
-				currentContent = null;
-			} else if (name.equals("thetext")) {
-				currentComment.setTheText(currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("bug_file_loc")) {
-				currentIssue.set(Issue.BUG_FILE_LOCATION, currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("attachment")) { // multiple
+				endContent();
+				break;
+			case THETEXT:
+				currentComment.setTheText(getContent());
+				endContent();
+				break;
+			case BUG_FILE_LOC:
+				currentIssue.set(Issue.BUG_FILE_LOCATION, getContent());
+				endContent();
+				break;
+			case ATTACHMENT: // multiple
 				currentAttachment = null;
-			} else if (name.equals("attachid")) {
+				break;
+			case ATTACHID:
 				if (currentAttachment != null) {
-					currentAttachment.setId(currentContent.toString());
+					currentAttachment.setId(getContent());
 					currentAttachment.setUri(URI.create(getBaseUrl()+PAGES[BUGZILLA_GET_ATTACHMENT]+"?id="+currentAttachment.getId()));
 					currentIssue.addAttachments(currentAttachment);
 				} else if (currentComment != null) {
-					currentComment.addAttachments(currentContent.toString());
+					currentComment.addAttachments(getContent());
 				}
-				currentContent = null;
-			} else if (name.equals("date")) {
-				currentContent = null;
-			} else if (name.equals("desc")) {
-				currentAttachment.setDescription(currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("filename")) {
-				currentAttachment.setFilename(currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("type")) {
-				currentAttachment.setType(currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("cc")) { // multiple
+				endContent();
+				break;
+			case DATE:
+				endContent();
+				break;
+			case DESC:
+				currentAttachment.setDescription(getContent());
+				endContent();
+				break;
+			case FILENAME:
+				currentAttachment.setFilename(getContent());
+				endContent();
+				break;
+			case TYPE:
+				currentAttachment.setType(getContent());
+				endContent();
+				break;
+			case CC: { // multiple
 				@SuppressWarnings("unchecked")
 				Set<String> cc = (Set<String>)currentIssue.get(Issue.CC);
 				if (cc == null) {
 					cc = new HashSet<String>();
 					currentIssue.set(Issue.CC, cc);
 				}
-				cc.add(currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("blocked")) {
-				currentIssue.addLinks(new DefaultLink(Type.DEPENDS_ON, Issue.BLOCKED_NAME, true, "Blocks", currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("dependson")) {
-				currentIssue.addLinks(new DefaultLink(Type.DEPENDS_ON, Issue.DEPENDS_ON_NAME, true, "Depends on", currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("alias")) {
-				currentIssue.set(Issue.ALIAS, currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("status_whiteboard")) {
-				currentIssue.set(Issue.WHITEBOARD, currentContent.toString());
-				currentContent = null;
-			} else if (name.equals("estimated_time")) {
-				currentIssue.set(Issue.ESTIMATED_TIME, LangUtils.getDouble(currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("remaining_time")) {
-				currentIssue.set(Issue.REMAINING_TIME, LangUtils.getDouble(currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("actual_time")) {
-				currentIssue.set(Issue.ACTUAL_TIME, LangUtils.getDouble(currentContent.toString()));
-				currentContent = null;
-			} else if (name.equals("deadline")) {
+				cc.add(getContent());
+				endContent();
+				break;
+			}
+			case BLOCKED:
+				currentIssue.addLinks(new DefaultLink(Type.DEPENDS_ON, Issue.BLOCKED_NAME, true, "Blocks", getContent()));
+				endContent();
+				break;
+			case DEPENDSON:
+				currentIssue.addLinks(new DefaultLink(Type.DEPENDS_ON, Issue.DEPENDS_ON_NAME, true, "Depends on", getContent()));
+				endContent();
+				break;
+			case ALIAS:
+				currentIssue.set(Issue.ALIAS, getContent());
+				endContent();
+				break;
+			case STATUS_WHITEBOARD:
+				currentIssue.set(Issue.WHITEBOARD, getContent());
+				endContent();
+				break;
+			case ESTIMATED_TIME:
+				currentIssue.set(Issue.ESTIMATED_TIME, LangUtils.getDouble(getContent()));
+				endContent();
+				break;
+			case REMAINING_TIME:
+				currentIssue.set(Issue.REMAINING_TIME, LangUtils.getDouble(getContent()));
+				endContent();
+				break;
+			case ACTUAL_TIME:
+				currentIssue.set(Issue.ACTUAL_TIME, LangUtils.getDouble(getContent()));
+				endContent();
+				break;
+			case DEADLINE:
 				try {
-					currentIssue.set(Issue.DEADLINE, BugzillaUtils.parseDate(currentContent.toString()));
+					currentIssue.set(Issue.DEADLINE, BugzillaUtils.parseDate(getContent()));
 				} catch (ParseException e) {
-					getLog().error("Cannot parse this date: "+currentContent.toString());
+					getLog().error("Cannot parse this date: "+getContent());
 				}
-				currentContent = null;
-			} else {
-				if ((currentCustomField != null) && (currentContent != null)) {
+				endContent();
+				break;
+			default:
+				if ((currentCustomField != null) && collectContent) {
 					if (currentIssue != null) {
-						currentIssue.set(currentCustomField, currentContent.toString());
+						currentIssue.set(currentCustomField, getContent());
 						currentCustomField = null;
-						currentContent = null;
+						endContent();
 					}
 				}
+				break;
 			}
 			super.endElement(uri, localName, name);
 		}
@@ -1021,10 +1995,57 @@ public class BugzillaHttpSession extends AbstractPlainHttpSession {
 		 */
 		@Override
 		public void characters(char[] ch, int start, int length) throws SAXException {
-			if (currentContent != null) currentContent.append(ch, start, length);
+			if (collectContent) currentContent.append(ch, start, length);
 			super.characters(ch, start, length);
 		}
 
+		/**
+		 * Returns the shared user object for the login.
+		 * The real name of the current element is applied when the user has none yet.
+		 * @param login - the login of the user
+		 * @return the user
+		 */
+		private BugzillaUser getUser(String login) {
+			BugzillaUser rc = users.get(login, currentRealName);
+			if ((rc.getRealName() == null) && (currentRealName != null)) rc.setRealName(currentRealName);
+			currentRealName = null;
+			return rc;
+		}
+
+		/**
+		 * Returns the shared component object for the current project.
+		 * @param name - the name of the component
+		 * @return the component
+		 */
+		private BugzillaComponent getComponent(String name) {
+			Project project = currentIssue.getProject();
+			return projectComponents.get(getProjectKey(project, name), project);
+		}
+
+		/**
+		 * Starts collecting the text content of an element.
+		 * The buffer is reused for all elements of the response.
+		 */
+		private void startContent() {
+			currentContent.setLength(0);
+			collectContent = true;
+		}
+
+		/**
+		 * Stops collecting the text content.
+		 */
+		private void endContent() {
+			collectContent = false;
+		}
+
+		/**
+		 * Returns the text content collected so far.
+		 * @return the text content
+		 */
+		private String getContent() {
+			return currentContent.toString();
+		}
+
 		/**
 		 * @see org.xml.sax.helpers.DefaultHandler#startDocument()
 		 */
@@ -18,31 +18,43 @@
 package b4j.core.session;
 
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.lang.time.DateUtils;
 
 import b4j.core.Attachment;
 import b4j.core.DefaultAttachment;
+import b4j.core.DefaultSearchData;
 import b4j.core.Issue;
 import b4j.core.SearchData;
 import b4j.core.SearchResultCountCallback;
 import b4j.core.ServerInfo;
 import b4j.core.session.bugzilla.BugzillaClient;
+import b4j.core.session.bugzilla.BugzillaLazyRetriever;
 import b4j.core.session.bugzilla.BugzillaRestClientFactory;
+import b4j.core.session.bugzilla.async.AsyncBugzillaRestClient;
 import b4j.core.session.bugzilla.async.AsyncBugzillaRestClientFactory;
+import b4j.core.session.bugzilla.async.JsonRpcBatcher;
 import b4j.util.HttpClients;
 import b4j.util.HttpSessionParams;
+import b4j.util.LazyRetriever;
+import b4j.util.SpoolOutputStream;
 
 import com.atlassian.httpclient.api.HttpClient;
 
@@ -55,13 +67,20 @@ import com.atlassian.httpclient.api.HttpClient;
  * @since 2.0
  *
  */
-public class BugzillaRpcSession extends AbstractHttpSession {
+public class BugzillaRpcSession extends AbstractHttpSession implements ChangeTrackingSession {
 
 	public static final String BUGZILLA_MINIMUM_VERSION = "4.4.0";
+	/** Search criterion for issues changed at or after a given time */
+	public static final String LAST_CHANGE_TIME = "last_change_time";
 
 	private BugzillaClient client = null;
 	private ServerInfo serverInfo = null;
 	private URL baseUrl;
+	private int lazyBatchSize = BugzillaLazyRetriever.DEFAULT_BATCH_SIZE;
+	private int lazyParallelRequests = BugzillaLazyRetriever.DEFAULT_MAX_PARALLEL_REQUESTS;
+	private int attachmentSpoolThreshold = SpoolOutputStream.DEFAULT_THRESHOLD;
+	private int rpcBatchSize = JsonRpcBatcher.DEFAULT_MAX_SIZE;
+	private long rpcBatchWindow = JsonRpcBatcher.DEFAULT_WINDOW;
 
 	/**
 	 * Constructor.
@@ -73,7 +92,12 @@ public class BugzillaRpcSession extends AbstractHttpSession {
 	 * Configuration allows:<br>
 	 * &lt;bugzilla-home&gt;URL&lt;/bugzilla-home&gt; - the Bugzilla base URL<br>
 	 * &lt;proxy-host&gt; - HTTP proxy (optional)<br>
-	 * &lt;ProxyAuthorization&gt; - HTTP proxy authentication (optional)
+	 * &lt;ProxyAuthorization&gt; - HTTP proxy authentication (optional)<br>
+	 * &lt;lazy-batch-size&gt; - maximum number of objects requested at once when loading lazily (optional, since 3.0.2)<br>
+	 * &lt;lazy-parallel-requests&gt; - maximum number of parallel requests when loading lazily (optional, since 3.0.2)<br>
+	 * &lt;attachment-spool-threshold&gt; - size in bytes above which attachment content is kept in temporary files (optional, since 3.0.2)<br>
+	 * &lt;rpc-batch-size&gt; - maximum number of JSON-RPC calls sent in one batch, 1 disables batching (optional, since 3.0.2)<br>
+	 * &lt;rpc-batch-window&gt; - milliseconds that JSON-RPC calls wait for further calls of the batch, 0 disables batching (optional, since 3.0.2)
 	 */
 	@Override
 	public void configure(Configuration config) throws ConfigurationException {
@@ -84,6 +108,11 @@ public class BugzillaRpcSession extends AbstractHttpSession {
 		} catch (MalformedURLException e) {
 			throw new ConfigurationException("Malformed JIRA URL: ", e);
 		}
+		setLazyBatchSize(config.getInt("lazy-batch-size", BugzillaLazyRetriever.DEFAULT_BATCH_SIZE));
+		setLazyParallelRequests(config.getInt("lazy-parallel-requests", BugzillaLazyRetriever.DEFAULT_MAX_PARALLEL_REQUESTS));
+		setAttachmentSpoolThreshold(config.getInt("attachment-spool-threshold", SpoolOutputStream.DEFAULT_THRESHOLD));
+		setRpcBatchSize(config.getInt("rpc-batch-size", JsonRpcBatcher.DEFAULT_MAX_SIZE));
+		setRpcBatchWindow(config.getLong("rpc-batch-window", JsonRpcBatcher.DEFAULT_WINDOW));
 	}
 
 	/**
@@ -102,6 +131,96 @@ public class BugzillaRpcSession extends AbstractHttpSession {
 		this.baseUrl = baseUrl;
 	}
 
+	/**
+	 * Returns the maximum number of objects requested at once when loading lazily.
+	 * @return the lazyBatchSize
+	 * @since 3.0.2
+	 */
+	public int getLazyBatchSize() {
+		return lazyBatchSize;
+	}
+
+	/**
+	 * Sets the maximum number of objects requested at once when loading lazily.
+	 * @param lazyBatchSize the lazyBatchSize to set
+	 * @since 3.0.2
+	 */
+	public void setLazyBatchSize(int lazyBatchSize) {
+		this.lazyBatchSize = lazyBatchSize;
+	}
+
+	/**
+	 * Returns the maximum number of parallel requests when loading lazily.
+	 * @return the lazyParallelRequests
+	 * @since 3.0.2
+	 */
+	public int getLazyParallelRequests() {
+		return lazyParallelRequests;
+	}
+
+	/**
+	 * Sets the maximum number of parallel requests when loading lazily.
+	 * @param lazyParallelRequests the lazyParallelRequests to set
+	 * @since 3.0.2
+	 */
+	public void setLazyParallelRequests(int lazyParallelRequests) {
+		this.lazyParallelRequests = lazyParallelRequests;
+	}
+
+	/**
+	 * Returns the size in bytes above which attachment content is kept in temporary files.
+	 * @return the attachmentSpoolThreshold
+	 * @since 3.0.2
+	 */
+	public int getAttachmentSpoolThreshold() {
+		return attachmentSpoolThreshold;
+	}
+
+	/**
+	 * Sets the size in bytes above which attachment content is kept in temporary files.
+	 * @param attachmentSpoolThreshold the attachmentSpoolThreshold to set
+	 * @since 3.0.2
+	 */
+	public void setAttachmentSpoolThreshold(int attachmentSpoolThreshold) {
+		this.attachmentSpoolThreshold = attachmentSpoolThreshold;
+	}
+
+	/**
+	 * Returns the maximum number of JSON-RPC calls sent in one batch.
+	 * @return the rpcBatchSize
+	 * @since 3.0.2
+	 */
+	public int getRpcBatchSize() {
+		return rpcBatchSize;
+	}
+
+	/**
+	 * Sets the maximum number of JSON-RPC calls sent in one batch.
+	 * @param rpcBatchSize the rpcBatchSize to set, 1 disables batching
+	 * @since 3.0.2
+	 */
+	public void setRpcBatchSize(int rpcBatchSize) {
+		this.rpcBatchSize = rpcBatchSize;
+	}
+
+	/**
+	 * Returns the time that JSON-RPC calls wait for further calls of the batch.
+	 * @return the rpcBatchWindow in milliseconds
+	 * @since 3.0.2
+	 */
+	public long getRpcBatchWindow() {
+		return rpcBatchWindow;
+	}
+
+	/**
+	 * Sets the time that JSON-RPC calls wait for further calls of the batch.
+	 * @param rpcBatchWindow the rpcBatchWindow to set in milliseconds, 0 disables batching
+	 * @since 3.0.2
+	 */
+	public void setRpcBatchWindow(long rpcBatchWindow) {
+		this.rpcBatchWindow = rpcBatchWindow;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -153,7 +272,18 @@ public class BugzillaRpcSession extends AbstractHttpSession {
 		if (sessionParams == null) sessionParams = new HttpSessionParams();
 
 		HttpClient httpClient = HttpClients.createAtlassianClient(uri, sessionParams);
-		return factory.create(uri, httpClient);
+		BugzillaClient rc = factory.create(uri, httpClient);
+		if (rc instanceof AsyncBugzillaRestClient) {
+			((AsyncBugzillaRestClient)rc).setAttachmentSpoolThreshold(getAttachmentSpoolThreshold());
+			((AsyncBugzillaRestClient)rc).getBatcher().setMaxSize(getRpcBatchSize());
+			((AsyncBugzillaRestClient)rc).getBatcher().setWindow(getRpcBatchWindow());
+			LazyRetriever retriever = ((AsyncBugzillaRestClient)rc).getLazyRetriever();
+			if (retriever instanceof BugzillaLazyRetriever) {
+				((BugzillaLazyRetriever)retriever).setBatchSize(getLazyBatchSize());
+				((BugzillaLazyRetriever)retriever).setMaxParallelRequests(getLazyParallelRequests());
+			}
+		}
+		return rc;
 	}
 
 	/**
@@ -165,6 +295,9 @@ public class BugzillaRpcSession extends AbstractHttpSession {
 		if (client.getUser() != null) {
 			client.logout();
 		}
+		if (client instanceof AsyncBugzillaRestClient) {
+			((AsyncBugzillaRestClient)client).getBatcher().close();
+		}
 		client = null;
 		serverInfo = null;
 	}
@@ -176,20 +309,80 @@ public class BugzillaRpcSession extends AbstractHttpSession {
 	public Iterable<Issue> searchBugs(SearchData searchData, SearchResultCountCallback callback) {
 		checkLoggedIn();
 		try {
-			Map<String,Object> criteria = new HashMap<String, Object>();
-			for (String key : searchData.getParameterNames()) {
-				List<String> values = new ArrayList<String>();
-				for (String value : searchData.get(key)) {
-					values.add(value);
-				}
-				criteria.put(key, values);
+			return client.getBugClient().findBugs(getCriteria(searchData)).get();
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot search issues", e);
+		}
+	}
+
+	/**
+	 * Converts the search data into Bugzilla search criteria.
+	 * @param searchData - the search data
+	 * @return the criteria
+	 */
+	private static Map<String,Object> getCriteria(SearchData searchData) {
+		Map<String,Object> rc = new HashMap<String, Object>();
+		for (String key : searchData.getParameterNames()) {
+			List<String> values = new ArrayList<String>();
+			for (String value : searchData.get(key)) {
+				values.add(value);
+			}
+			// Bugzilla expects a single timestamp
+			if (key.equals(LAST_CHANGE_TIME) && (values.size() == 1)) {
+				rc.put(key, values.get(0));
+			} else {
+				rc.put(key, values);
 			}
-			return client.getBugClient().findBugs(criteria).get();
+		}
+		return rc;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Bugzilla delivers all issues changed at or after the {@link #LAST_CHANGE_TIME} criterion.
+	 * An issue might have been changed while the previous synchronization was running and after it was read.
+	 * The search therefore starts one day before the given time.</p>
+	 */
+	@Override
+	public SearchData getChangedSearchData(SearchData searchData, Date since) {
+		if ((searchData != null) && searchData.hasParameter(LAST_CHANGE_TIME)) return null;
+		DefaultSearchData rc = new DefaultSearchData(searchData);
+		addChangeRestriction(rc, since);
+		return rc;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Only the IDs of bugs are requested with the same change time as {@link #getChangedSearchData(SearchData, Date)}.</p>
+	 */
+	@Override
+	public Collection<String> getChangedIds(Collection<String> ids, Date since) {
+		checkLoggedIn();
+		DefaultSearchData searchData = new DefaultSearchData();
+		searchData.add("id", new ArrayList<String>(ids));
+		addChangeRestriction(searchData, since);
+		try {
+			List<String> rc = new ArrayList<String>();
+			for (Long id : client.getBugClient().findBugIds(getCriteria(searchData)).get()) {
+				rc.add(id.toString());
+			}
+			return rc;
 		} catch (Exception e) {
 			throw new RuntimeException("Cannot search issues", e);
 		}
 	}
 
+	/**
+	 * Restricts the search to issues changed since one day before the given time.
+	 * @param searchData - the search to be restricted
+	 * @param since - the time of the last synchronization
+	 */
+	private static void addChangeRestriction(DefaultSearchData searchData, Date since) {
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+		format.setTimeZone(TimeZone.getTimeZone("UTC"));
+		searchData.add(LAST_CHANGE_TIME, format.format(new Date(since.getTime()-DateUtils.MILLIS_PER_DAY)));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -198,8 +391,13 @@ public class BugzillaRpcSession extends AbstractHttpSession {
 		checkLoggedIn();
 		try {
 			Iterable<Issue> i = client.getBugClient().getBugs(Long.parseLong(id)).get();
-			for (Issue rc : i) {
-				return rc;
+			try {
+				for (Issue rc : i) {
+					return rc;
+				}
+			} finally {
+				// Release the response when the stream was not read completely
+				if (i instanceof Closeable) ((Closeable)i).close();
 			}
 		} catch (Exception e) {
 			throw new RuntimeException("Cannot retrieve issue: "+id, e);
@@ -209,14 +407,20 @@ public class BugzillaRpcSession extends AbstractHttpSession {
 
 	/**
 	 * {@inheritDoc}
+	 * <p>The content is requested from Bugzilla unless it was delivered with the attachment already.</p>
 	 */
 	@Override
 	public InputStream getAttachment(Attachment attachment) throws IOException {
 		checkLoggedIn();
 		if (attachment instanceof DefaultAttachment) {
-			return new ByteArrayInputStream(((DefaultAttachment)attachment).getContent());
+			byte content[] = ((DefaultAttachment)attachment).getContent();
+			if (content != null) return new ByteArrayInputStream(content);
+		}
+		try {
+			return client.getBugClient().getAttachmentContent(attachment.getId()).get();
+		} catch (Exception e) {
+			throw new IOException("Cannot retrieve attachment: "+attachment.getId(), e);
 		}
-		return null;
 	}
 
 	/**
@@ -0,0 +1,381 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rs.baselib.configuration.ConfigurationUtils;
+import b4j.core.Attachment;
+import b4j.core.Issue;
+import b4j.core.SearchData;
+import b4j.core.SearchResultCountCallback;
+import b4j.core.Session;
+import b4j.core.session.cache.IssueStore;
+import b4j.core.session.cache.IssueStore.SearchResult;
+
+/**
+ * A session that keeps issues in a local file-based cache.
+ * <p>The session wraps another session that actually talks to the server. The first search
+ * fetches all issues and stores them. Subsequent runs of the same search only fetch the issues
+ * changed since then, provided that the wrapped session is a {@link ChangeTrackingSession}.
+ * Unchanged issues are read from the cache. Other sessions are fully synchronized on each search.</p>
+ * <p>The issues are kept in a sub directory of the cache directory that is derived from the server URL
+ * and the login of the wrapped session. Sessions of different servers or accounts can therefore
+ * share the same cache directory.</p>
+ * <p>Configuration:</p>
+ * <pre>
+ * &lt;bugzilla-session class="b4j.core.session.CachingSession"&gt;
+ *    &lt;cache-dir&gt;/var/cache/b4j&lt;/cache-dir&gt;
+ *    &lt;bugzilla-session class="b4j.core.session.BugzillaRpcSession"&gt;
+ *       ...
+ *    &lt;/bugzilla-session&gt;
+ * &lt;/bugzilla-session&gt;
+ * </pre>
+ * @author ralph
+ * @since 3.0.2
+ */
+public class CachingSession implements Session {
+
+	/** Maximum number of IDs being checked for changes with a single request */
+	public static final int CHANGED_IDS_CHUNK_SIZE = 200;
+
+	private static Logger log = LoggerFactory.getLogger(CachingSession.class);
+
+	private Session session;
+	private IssueStore store;
+
+	/**
+	 * Constructor for configuration.
+	 */
+	public CachingSession() {
+	}
+
+	/**
+	 * Constructor.
+	 * @param session - the session to be wrapped
+	 * @param directory - the cache directory
+	 * @throws IOException - when the cache directory cannot be created
+	 */
+	public CachingSession(Session session, File directory) throws IOException {
+		this.session = session;
+		this.store = new IssueStore(directory, getNamespace(session));
+	}
+
+	/**
+	 * Configuration allows:<br>
+	 * &lt;cache-dir&gt; - the directory of the cache (optional, defaults to b4j-cache in temporary directory)<br>
+	 * &lt;bugzilla-session class="..."&gt; - the configuration of the session to be wrapped
+	 */
+	@Override
+	public void configure(Configuration config) throws ConfigurationException {
+		Configuration sessionCfg = ((HierarchicalConfiguration)config).configurationAt("bugzilla-session(0)");
+		session = (Session)ConfigurationUtils.load(sessionCfg, true);
+		String dir = config.getString("cache-dir", new File(System.getProperty("java.io.tmpdir"), "b4j-cache").getAbsolutePath());
+		try {
+			store = new IssueStore(new File(dir), getNamespace(session));
+		} catch (IOException e) {
+			throw new ConfigurationException("Cannot create issue cache: ", e);
+		}
+	}
+
+	/**
+	 * Returns the namespace of the issues delivered by the session.
+	 * <p>The namespace consists of the session class, the server URL and the login.</p>
+	 * @param session - the session
+	 * @return the namespace
+	 */
+	protected String getNamespace(Session session) {
+		StringBuilder rc = new StringBuilder(session.getClass().getName());
+		if (session instanceof AbstractHttpSession) {
+			AbstractHttpSession httpSession = (AbstractHttpSession)session;
+			rc.append('|').append(httpSession.getBaseUrl());
+			rc.append('|').append(httpSession.getHttpSessionParams().getLogin());
+		}
+		return rc.toString();
+	}
+
+	/**
+	 * Returns the wrapped session.
+	 * @return the session talking to the server
+	 */
+	public Session getSession() {
+		return session;
+	}
+
+	/**
+	 * Returns the issue store.
+	 * @return the store
+	 */
+	public IssueStore getStore() {
+		return store;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isLoggedIn() {
+		return session.isLoggedIn();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean open() {
+		return session.open();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		session.close();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The cache is synchronized with the server before the search result is returned.
+	 * The issues returned are read from the cache while iterating.</p>
+	 */
+	@Override
+	public Iterable<Issue> searchBugs(SearchData searchData, SearchResultCountCallback callback) {
+		SearchResult result = null;
+		synchronized (store) {
+			try {
+				result = store.getSearchResult(searchData);
+				if ((result == null) || !update(searchData, result)) {
+					result = fetch(searchData);
+				}
+				store.setSearchResult(searchData, result);
+			} catch (IOException e) {
+				throw new RuntimeException("Cannot synchronize issue cache", e);
+			}
+		}
+		if (callback != null) callback.setResultCount(result.getIds().size());
+		return new CachedIssues(result.getIdList());
+	}
+
+	/**
+	 * Fetches the complete search result from the server.
+	 * @param searchData - the search
+	 * @return the new search result
+	 * @throws IOException - when an issue cannot be stored
+	 */
+	protected SearchResult fetch(SearchData searchData) throws IOException {
+		if (log.isDebugEnabled()) log.debug("Synchronizing all issues");
+		SearchResult rc = new SearchResult();
+		Iterable<Issue> issues = session.searchBugs(searchData, null);
+		if (issues != null) {
+			for (Issue issue : issues) {
+				store(issue, rc);
+			}
+		}
+		return rc;
+	}
+
+	/**
+	 * Updates the search result with the issues changed on the server.
+	 * @param searchData - the search
+	 * @param result - the search result to be updated
+	 * @return <code>false</code> when the search cannot be updated incrementally
+	 * @throws IOException - when an issue cannot be stored
+	 */
+	protected boolean update(SearchData searchData, SearchResult result) throws IOException {
+		if ((result.getSince() == null) || !(session instanceof ChangeTrackingSession)) return false;
+		ChangeTrackingSession tracker = (ChangeTrackingSession)session;
+		Date since = new Date(result.getSince());
+		SearchData changedSearch = tracker.getChangedSearchData(searchData, since);
+		if (changedSearch == null) return false;
+
+		// Issues that still match the search
+		Set<String> matching = new HashSet<String>();
+		Iterable<Issue> issues = session.searchBugs(changedSearch, null);
+		if (issues != null) {
+			for (Issue issue : issues) {
+				store(issue, result);
+				matching.add(issue.getId());
+			}
+		}
+
+		// Cached issues that changed but do not match the search anymore (IDs only)
+		List<String> candidates = new ArrayList<String>();
+		for (String id : result.getIds()) {
+			if (!matching.contains(id)) candidates.add(id);
+		}
+		for (int i=0; i<candidates.size(); i+=CHANGED_IDS_CHUNK_SIZE) {
+			List<String> chunk = candidates.subList(i, Math.min(candidates.size(), i+CHANGED_IDS_CHUNK_SIZE));
+			Collection<String> changed = tracker.getChangedIds(chunk, since);
+			if (changed == null) {
+				log.warn("Cannot detect issues that do not match the search anymore");
+				break;
+			}
+			result.getIds().removeAll(changed);
+		}
+		if (log.isDebugEnabled()) log.debug("Synchronized "+matching.size()+" changed issues");
+		return true;
+	}
+
+	/**
+	 * Stores the issue and adds it to the search result.
+	 * @param issue - the issue
+	 * @param result - the search result
+	 * @throws IOException - when the issue cannot be stored
+	 */
+	protected void store(Issue issue, SearchResult result) throws IOException {
+		store.store(issue);
+		result.getIds().add(issue.getId());
+		Date updated = issue.getUpdateTimestamp();
+		if ((updated != null) && (updated.getTime() > 0) && ((result.getSince() == null) || (updated.getTime() > result.getSince()))) {
+			result.setSince(updated.getTime());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The issue is always requested from the server and the cache is updated.</p>
+	 */
+	@Override
+	public Issue getIssue(String id) {
+		Issue rc = session.getIssue(id);
+		if (rc != null) {
+			synchronized (store) {
+				try {
+					store.store(rc);
+				} catch (IOException e) {
+					log.error("Cannot cache issue "+id, e);
+				}
+			}
+		}
+		return rc;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Attachment content is not cached.</p>
+	 */
+	@Override
+	public InputStream getAttachment(Attachment attachment) throws IOException {
+		return session.getAttachment(attachment);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void dump() {
+		log.info("Issue cache: "+store.getDirectory().getAbsolutePath());
+		session.dump();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getMinimumBugzillaVersion() {
+		return session.getMinimumBugzillaVersion();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getMaximumBugzillaVersion() {
+		return session.getMaximumBugzillaVersion();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getBugzillaVersion() {
+		return session.getBugzillaVersion();
+	}
+
+	/**
+	 * Reads the issues of a search result from the cache.
+	 */
+	protected class CachedIssues implements Iterable<Issue> {
+
+		private Collection<String> ids;
+
+		/**
+		 * Constructor.
+		 * @param ids - the IDs of the issues
+		 */
+		public CachedIssues(Collection<String> ids) {
+			this.ids = ids;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Iterator<Issue> iterator() {
+			final Iterator<String> i = ids.iterator();
+			return new Iterator<Issue>() {
+
+				private Issue next = null;
+
+				@Override
+				public boolean hasNext() {
+					while ((next == null) && i.hasNext()) {
+						String id = i.next();
+						try {
+							next = store.load(id);
+							if (next == null) log.error("Issue "+id+" is missing in cache");
+						} catch (IOException e) {
+							log.error("Cannot read issue "+id+" from cache", e);
+						}
+					}
+					return next != null;
+				}
+
+				@Override
+				public Issue next() {
+					if (!hasNext()) throw new NoSuchElementException();
+					Issue rc = next;
+					next = null;
+					return rc;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session;
+
+import java.util.Collection;
+import java.util.Date;
+
+import b4j.core.SearchData;
+import b4j.core.Session;
+
+/**
+ * A session that is able to restrict searches to issues changed after a certain time.
+ * <p>This capability is used by {@link CachingSession} to synchronize its local issue store incrementally.</p>
+ * @author ralph
+ * @since 3.0.2
+ */
+public interface ChangeTrackingSession extends Session {
+
+	/**
+	 * Returns the search data that restricts the given search to issues changed since the given time.
+	 * <p>The restricted search may deliver more issues than changed, but never less.</p>
+	 * @param searchData - the original search, <code>null</code> for a search that delivers all issues changed
+	 * @param since - the time of the last synchronization
+	 * @return the restricted search or <code>null</code> when the search cannot be restricted
+	 */
+	public SearchData getChangedSearchData(SearchData searchData, Date since);
+
+	/**
+	 * Returns the IDs of the given issues that changed since the given time.
+	 * <p>Only the IDs are requested from the server, no issue details. The same time restriction
+	 * as in {@link #getChangedSearchData(SearchData, Date)} must be applied as issues delivered here
+	 * but not by the restricted search are considered to not match that search anymore.</p>
+	 * @param ids - the IDs of the issues to be checked
+	 * @param since - the time of the last synchronization
+	 * @return the IDs of the changed issues or <code>null</code> when the changes cannot be detected
+	 */
+	public Collection<String> getChangedIds(Collection<String> ids, Date since);
+
+}
@@ -22,11 +22,19 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.ExecutionException;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.lang.time.DateUtils;
 import org.joda.time.DateTime;
 
 import com.atlassian.httpclient.api.HttpClient;
@@ -48,6 +56,7 @@ import com.atlassian.util.concurrent.Promise;
 import b4j.core.Attachment;
 import b4j.core.DefaultAttachment;
 import b4j.core.DefaultComment;
+import b4j.core.DefaultSearchData;
 import b4j.core.Issue;
 import b4j.core.SearchData;
 import b4j.core.SearchResultCountCallback;
@@ -71,8 +80,15 @@ import rs.baselib.lang.LangUtils;
  * @author ralph
  *
  */
-public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
+public class JiraRpcSession extends AbstractAtlassianHttpClientSession implements ChangeTrackingSession {
 
+	/** Default number of issues being requested concurrently while iterating search results */
+	public static final int DEFAULT_PREFETCH_ISSUES = 10;
+	/** Default number of issues requested with a single search call */
+	public static final int DEFAULT_PAGE_SIZE = 50;
+	/** Default number of search result pages being requested ahead of the consumer */
+	public static final int DEFAULT_PREFETCH_PAGES = 1;
+	
 	private boolean loggedIn;
 	private URL baseUrl;
 	private URI jiraServerUri;
@@ -100,7 +116,9 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 	 * Configuration allows:<br>
 	 * &lt;jira-home&gt;URL&lt;/jira-home&gt; - the JIRA base URL<br>
 	 * &lt;proxy-host&gt; - HTTP proxy (optional)<br>
-	 * &lt;ProxyAuthorization&gt; - HTTP proxy authentication (optional)
+	 * &lt;ProxyAuthorization&gt; - HTTP proxy authentication (optional)<br>
+	 * &lt;metadata-max-size&gt; - maximum number of objects kept per kind of meta data, e.g. users (optional, since 3.0.2)<br>
+	 * &lt;metadata-time-to-live&gt; - seconds after which meta data objects are transformed again (optional, since 3.0.2)
 	 */
 	@Override
 	public void configure(Configuration config) throws ConfigurationException {
@@ -113,6 +131,7 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 		} catch (MalformedURLException e) {
 			throw new ConfigurationException("Malformed JIRA URL: ", e);
 		}
+		configureMetaData(config.getInt("metadata-max-size", 0), config.getLong("metadata-time-to-live", 0L)*1000L);
 	}
 
 	/**
@@ -248,6 +267,28 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 		return versions;
 	}
 
+	/**
+	 * Returns all meta data mappings.
+	 * @return the mappings
+	 * @since 3.0.2
+	 */
+	protected MetaData<?,?>[] getMetaData() {
+		return new MetaData<?,?>[] { issueTypes, status, priorities, severities, resolutions, users, projects, components, versions };
+	}
+
+	/**
+	 * Limits the meta data mappings.
+	 * @param maxSize maximum number of objects per mapping, 0 when unlimited
+	 * @param timeToLive milliseconds after which objects expire, 0 when objects never expire
+	 * @since 3.0.2
+	 */
+	public void configureMetaData(int maxSize, long timeToLive) {
+		for (MetaData<?,?> metaData : getMetaData()) {
+			metaData.setMaxSize(maxSize);
+			metaData.setTimeToLive(timeToLive);
+		}
+	}
+
 	/**
 	 * Closes the JIRA session.
 	 * @see b4j.core.Session#close()
@@ -279,6 +320,78 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 		return null;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>Only JQL searches can be restricted. As the time zone of the JIRA user is unknown,
+	 * the search starts one day before the given time.</p>
+	 */
+	@Override
+	public SearchData getChangedSearchData(SearchData searchData, Date since) {
+		String jql = null;
+		if (searchData != null) {
+			if (searchData.hasParameter("filterId") || searchData.hasParameter("key")) return null;
+			if (searchData.hasParameter("jql")) jql = searchData.get("jql").iterator().next();
+		}
+		String restriction = getChangeRestriction(since);
+		String order = "";
+		if ((jql != null) && (jql.trim().length() > 0)) {
+			int pos = jql.toLowerCase().lastIndexOf("order by");
+			if (pos >= 0) {
+				order = " "+jql.substring(pos);
+				jql = jql.substring(0, pos);
+			}
+			if (jql.trim().length() > 0) restriction = "("+jql.trim()+") AND "+restriction;
+		}
+		DefaultSearchData rc = new DefaultSearchData();
+		if (searchData != null) {
+			for (String key : searchData.getParameterNames()) {
+				if (key.equals("jql")) continue;
+				for (String value : searchData.get(key)) rc.add(key, value);
+			}
+		}
+		rc.add("jql", restriction+order);
+		return rc;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Only the keys of issues are requested with the same change time as {@link #getChangedSearchData(SearchData, Date)}.</p>
+	 */
+	@Override
+	public Collection<String> getChangedIds(Collection<String> ids, Date since) {
+		StringBuilder keys = new StringBuilder();
+		for (String id : ids) {
+			if (keys.length() > 0) keys.append(',');
+			keys.append('"').append(id.replace("\"", "\\\"")).append('"');
+		}
+		DefaultSearchData searchData = new DefaultSearchData();
+		searchData.add("jql", "key in ("+keys+") AND "+getChangeRestriction(since));
+		searchData.add("basicIssueOnly", "true");
+		List<String> rc = new ArrayList<String>();
+		try {
+			Iterable<Issue> issues = searchBugs(searchData, null);
+			if (issues == null) return null;
+			for (Issue issue : issues) {
+				rc.add(issue.getId());
+			}
+		} catch (RuntimeException e) {
+			// JIRA rejects the query when one of the keys was deleted
+			getLog().error("Cannot search changed issues", e);
+			return null;
+		}
+		return rc;
+	}
+
+	/**
+	 * Returns the JQL restriction to issues changed since the given time.
+	 * <p>As the time zone of the JIRA user is unknown, the restriction starts one day before the given time.</p>
+	 * @param since - the time of the last synchronization
+	 * @return the JQL restriction
+	 */
+	private static String getChangeRestriction(Date since) {
+		return "updated >= \""+new SimpleDateFormat("yyyy/MM/dd HH:mm").format(new Date(since.getTime()-DateUtils.MILLIS_PER_DAY))+"\"";
+	}
+
 	/**
 	 * Returns the minimum JIRA version supported.
 	 * @see b4j.core.Session#getMinimumBugzillaVersion()
@@ -438,9 +551,18 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 	 * <li><code>maxResults</code> - return at most that number of issues</li>
 	 * <li><code>basicIssueOnly</code> - when present, returns issues that have Key and URI set only (for performance reasons)</li>
 	 * </ul>
+	 * Following parameters were added in V3.0.2:
+	 * <ul>
+	 * <li><code>prefetchIssues</code> - number of full issues requested concurrently ahead of the consumer 
+	 *     (default is {@value #DEFAULT_PREFETCH_ISSUES}, <code>1</code> retrieves issues one by one)</li>
+	 * <li><code>pageSize</code> - number of issues requested with a single search call (default is {@value #DEFAULT_PAGE_SIZE})</li>
+	 * <li><code>prefetchPages</code> - number of search result pages requested ahead while the current page is being consumed
+	 *     (default is {@value #DEFAULT_PREFETCH_PAGES}, <code>0</code> requests the next page when the current one was consumed)</li>
+	 * </ul>
 	 * Search queries take quite some time when used in default configuration. Jira returns key and URI in a search result which
-	 * requires B4J to make separate calls for each individual issue found. You can control this by parameter {@code basicIssueOnly}
-	 * which boosts performance a lot in case you are only interested in Issue keys.
+	 * requires B4J to make separate calls for each individual issue found. These calls are issued in parallel 
+	 * (see {@code prefetchIssues}) but the order of the search result is preserved. You can control this by parameter {@code basicIssueOnly}
+	 * which boosts performance a lot in case you are only interested in Issue keys.
 	 */
 	@Override
 	public Iterable<Issue> searchBugs(SearchData searchData, SearchResultCountCallback callback) {
@@ -492,12 +614,29 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 		private int startAt = 0;
 		private int total = 0;
 		private boolean basicOnly = false;
-		
+		private int prefetchIssues = DEFAULT_PREFETCH_ISSUES;
+		private LinkedList<String> pendingKeys = new LinkedList<String>();
+		private LinkedList<Promise<com.atlassian.jira.rest.client.domain.Issue>> pendingIssues = new LinkedList<Promise<com.atlassian.jira.rest.client.domain.Issue>>();
+		private int pageSize = DEFAULT_PAGE_SIZE;
+		private int prefetchPages = DEFAULT_PREFETCH_PAGES;
+		private int nextPageStart = 0;
+		private LinkedList<Integer> pendingPageStarts = new LinkedList<Integer>();
+		private LinkedList<Promise<SearchResult>> pendingPages = new LinkedList<Promise<SearchResult>>();
+		
 		public SearchIterator(SearchData searchData, SearchResultCountCallback callback) throws InterruptedException, ExecutionException {
 			this.searchData = searchData;
 			this.callback = callback;
-			this.basicOnly = searchData.hasParameter("basicIssueOnly");
-		}
+			this.basicOnly = searchData.hasParameter("basicIssueOnly");
+			if (searchData.hasParameter("prefetchIssues")) {
+				prefetchIssues = Math.max(1, LangUtils.getInt(searchData.get("prefetchIssues").iterator().next()));
+			}
+			if (searchData.hasParameter("pageSize")) {
+				pageSize = Math.max(1, LangUtils.getInt(searchData.get("pageSize").iterator().next()));
+			}
+			if (searchData.hasParameter("prefetchPages")) {
+				prefetchPages = Math.max(0, LangUtils.getInt(searchData.get("prefetchPages").iterator().next()));
+			}
+		}
 
 		protected void retrieveNext() {
 			try {
@@ -509,7 +648,7 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 					if (searchData.hasParameter("maxResults")) {
 						maxResults = LangUtils.getInt(searchData.get("maxResults").iterator().next());
 					}
-					int max = maxResults > 0 ? maxResults : 50;
+					int max = maxResults > 0 ? Math.min(maxResults, pageSize) : pageSize;
 					startAt = 0;
 					if (searchData.hasParameter("startAt")) {
 						startAt = LangUtils.getInt(searchData.get("startAt").iterator().next());
@@ -525,21 +664,47 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 					}
 
 					// Get issues
+					int received = 0;
+					for (Iterator<BasicIssue> i = result.getIssues().iterator(); i.hasNext(); i.next()) received++;
 					issues = result.getIssues().iterator();
 					resultCount = 0;
+
+					// Jira might limit the page size on server side
+					if ((received > 0) && (received < max)) pageSize = received;
+					nextPageStart = startAt + received;
+					requestPages();
 				} else if (issues != null) {
 					// Make the next call when no more issues in the current batch result
 					if (!issues.hasNext()) {
 						if (((maxResults < 0) || (resultCount < maxResults)) && (resultCount+startAt < total)) {
 							int start = resultCount + startAt;
-							int max   = maxResults < 0 ? 50 : maxResults - resultCount;
+							int max   = Math.min(pageSize, getResultLimit() - start);
 
 							if (max > 0) {
-								// Create the promise
-								result = getResult(start, max);
+								// Take the page requested ahead if it starts at the right position
+								Promise<SearchResult> promise = null;
+								if (!pendingPages.isEmpty()) {
+									int pageStart = pendingPageStarts.removeFirst();
+									promise = pendingPages.removeFirst();
+									if (pageStart != start) {
+										// Previous page was shorter than expected, re-request
+										promise.cancel(true);
+										promise = null;
+										cancelPages();
+									}
+								}
+								if (promise != null) {
+									result = promise.get();
+								} else {
+									result = getResult(start, max);
+									nextPageStart = start + max;
+								}
 
 								// Get issues
 								issues = result.getIssues().iterator();
+								
+								// Request the following pages while this one is consumed
+								requestPages();
 							} else {
 								// No more results
 								issues = null;
@@ -561,6 +726,44 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 			}
 		}
 		
+		/**
+		 * Returns the absolute index of the search result that will not be retrieved anymore.
+		 * @return the index after the last issue to be retrieved
+		 * @since 3.0.2
+		 */
+		protected int getResultLimit() {
+			if (maxResults > 0) return Math.min(total, startAt + maxResults);
+			return total;
+		}
+		
+		/**
+		 * Requests further search result pages until the read-ahead limit is reached.
+		 * The requests are not waited for.
+		 * @throws Exception when REST call fails
+		 * @since 3.0.2
+		 */
+		protected void requestPages() throws Exception {
+			int limit = getResultLimit();
+			while ((pendingPages.size() < prefetchPages) && (nextPageStart < limit)) {
+				int max = Math.min(pageSize, limit - nextPageStart);
+				pendingPageStarts.add(nextPageStart);
+				pendingPages.add(requestResult(nextPageStart, max));
+				nextPageStart += max;
+			}
+		}
+		
+		/**
+		 * Cancels all search result pages requested ahead.
+		 * @since 3.0.2
+		 */
+		protected void cancelPages() {
+			for (Promise<SearchResult> promise : pendingPages) {
+				promise.cancel(true);
+			}
+			pendingPages.clear();
+			pendingPageStarts.clear();
+		}
+		
 		/**
 		 * Create the Jira REST call and get the result.
 		 * @param startAt parameter for search
@@ -570,6 +773,18 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 		 * @since 2.0.3
 		 */
 		protected SearchResult getResult(int startAt, int maxResults) throws Exception {
+			return requestResult(startAt, maxResults).get();
+		}
+		
+		/**
+		 * Create the Jira REST call without waiting for the result.
+		 * @param startAt parameter for search
+		 * @param maxResults parameter for search
+		 * @return the promise of the search result
+		 * @throws Exception when no search parameters were given
+		 * @since 3.0.2
+		 */
+		protected Promise<SearchResult> requestResult(int startAt, int maxResults) throws Exception {
 			// Create the promise
 			Promise<SearchResult> promise = null;
 			if (searchData.hasParameter("filterId")) {
@@ -580,17 +795,38 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 			} else if (searchData.hasParameter("key")) {
 				promise = jiraClient.getSearchClient().searchJql("key in ("+join(searchData.get("key"))+")", maxResults, startAt);
 			}
-			if (promise != null) return promise.get();
+			if (promise != null) return promise;
 			throw new Exception("No JQL parameters given in searchData (key, filzterId or jql");
 		}
 		
+		/**
+		 * Requests full issues from the search result until the prefetch window is filled.
+		 * The requests are not waited for. They will be consumed in search result order by {@link #next()}.
+		 * @since 3.0.2
+		 */
+		protected void prefetch() {
+			while ((pendingIssues.size() < prefetchIssues) && (issues != null) && issues.hasNext()) {
+				if ((maxResults > 0) && (resultCount >= maxResults)) break;
+				resultCount++;
+				String key = issues.next().getKey();
+				pendingKeys.add(key);
+				pendingIssues.add(jiraClient.getIssueClient().getIssue(key));
+				// Next search page might be required to fill the window
+				if (!issues.hasNext()) retrieveNext();
+			}
+		}
+		
 		/**
 		 * {@inheritDoc}
 		 */
 		@Override
-		public boolean hasNext() {
-			retrieveNext();
-			if (issues != null) return issues.hasNext();
+		public boolean hasNext() {
+			retrieveNext();
+			if (!basicOnly) {
+				prefetch();
+				return !pendingIssues.isEmpty();
+			}
+			if (issues != null) return issues.hasNext();
 			return false;
 		}
 
@@ -598,13 +834,21 @@ public class JiraRpcSession extends AbstractAtlassianHttpClientSession {
 		 * {@inheritDoc}
 		 */
 		@Override
-		public Issue next() {
-			resultCount++;
-			BasicIssue issue = issues.next();
-			if (!basicOnly) {
-				String rc = issue.getKey();
-				return getIssue(rc);
-			}
+		public Issue next() {
+			if (!basicOnly) {
+				if (!hasNext()) throw new NoSuchElementException();
+				String key = pendingKeys.removeFirst();
+				Promise<com.atlassian.jira.rest.client.domain.Issue> promise = pendingIssues.removeFirst();
+				// Keep the window filled while we are waiting for the result
+				prefetch();
+				try {
+					return createIssue(promise.get());
+				} catch (Exception e) {
+					throw new RuntimeException("Cannot retrieve issue: "+key, e);
+				}
+			}
+			resultCount++;
+			BasicIssue issue = issues.next();
 			return createIssue(issue);
 		}
 
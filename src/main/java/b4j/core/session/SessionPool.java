@@ -0,0 +1,617 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationException;
+import org.apache.commons.configuration.HierarchicalConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rs.baselib.configuration.ConfigurationUtils;
+import rs.baselib.configuration.IConfigurable;
+import b4j.core.Session;
+
+/**
+ * Keeps a number of authenticated sessions to the same server for parallel use.
+ * <p>{@link Session} implementations hold state that is not synchronized, e.g. cookies, login tokens
+ * and meta data. A session therefore must be used by one thread at a time. The pool hands out
+ * sessions exclusively by {@link #borrow()} and takes them back by {@link #release(Session)}. Results
+ * of a borrowed session, e.g. the issues of {@link Session#searchBugs(b4j.core.SearchData, b4j.core.SearchResultCountCallback) searchBugs()},
+ * must be consumed before the session is released.</p>
+ * <p>Sessions are opened on demand up to the configured maximum. Idle sessions that were logged out
+ * or whose login is older than the login time-to-live are re-opened in the background, so that
+ * a borrower receives a session with a valid login.</p>
+ * <p>Configuration:</p>
+ * <pre>
+ * &lt;session-pool class="b4j.core.session.SessionPool"&gt;
+ *    &lt;max-sessions&gt;4&lt;/max-sessions&gt;
+ *    &lt;borrow-timeout&gt;60000&lt;/borrow-timeout&gt;
+ *    &lt;login-ttl&gt;1800000&lt;/login-ttl&gt;
+ *    &lt;revalidate-interval&gt;60000&lt;/revalidate-interval&gt;
+ *    &lt;bugzilla-session class="b4j.core.session.BugzillaRpcSession"&gt;
+ *       ...
+ *    &lt;/bugzilla-session&gt;
+ * &lt;/session-pool&gt;
+ * </pre>
+ * @author ralph
+ * @since 3.0.2
+ */
+public class SessionPool implements IConfigurable {
+
+	/** Default maximum number of sessions */
+	public static final int DEFAULT_MAX_SESSIONS = 4;
+	/** Default time in milliseconds to wait for a free session */
+	public static final long DEFAULT_BORROW_TIMEOUT = 60000L;
+	/** Default time in milliseconds after which a login is renewed */
+	public static final long DEFAULT_LOGIN_TTL = 1800000L;
+	/** Default time in milliseconds between two revalidations of idle sessions */
+	public static final long DEFAULT_REVALIDATE_INTERVAL = 60000L;
+
+	private static Logger log = LoggerFactory.getLogger(SessionPool.class);
+
+	private Configuration sessionConfig;
+	private int maxSessions = DEFAULT_MAX_SESSIONS;
+	private long borrowTimeout = DEFAULT_BORROW_TIMEOUT;
+	private long loginTtl = DEFAULT_LOGIN_TTL;
+	private long revalidateInterval = DEFAULT_REVALIDATE_INTERVAL;
+	private Deque<PooledSession> idle = new LinkedList<PooledSession>();
+	private Map<Session,PooledSession> borrowed = new IdentityHashMap<Session,PooledSession>();
+	private int size = 0;
+	private boolean closed = false;
+	private ScheduledExecutorService timer;
+	private Statistics statistics = new Statistics();
+
+	/**
+	 * Constructor for configuration.
+	 */
+	public SessionPool() {
+	}
+
+	/**
+	 * Constructor.
+	 * @param sessionConfig - the configuration of the pooled sessions
+	 * @param maxSessions - the maximum number of sessions
+	 */
+	public SessionPool(Configuration sessionConfig, int maxSessions) {
+		this.sessionConfig = sessionConfig;
+		setMaxSessions(maxSessions);
+	}
+
+	/**
+	 * Configuration allows:<br>
+	 * &lt;max-sessions&gt; - the maximum number of sessions (optional, defaults to 4)<br>
+	 * &lt;borrow-timeout&gt; - milliseconds to wait for a free session (optional, defaults to 60s)<br>
+	 * &lt;login-ttl&gt; - milliseconds after which the login of an idle session is renewed, 0 to disable (optional, defaults to 30min)<br>
+	 * &lt;revalidate-interval&gt; - milliseconds between two revalidations of idle sessions, 0 to disable (optional, defaults to 60s)<br>
+	 * &lt;bugzilla-session class="..."&gt; - the configuration of the sessions to be pooled
+	 */
+	@Override
+	public void configure(Configuration config) throws ConfigurationException {
+		setMaxSessions(config.getInt("max-sessions", DEFAULT_MAX_SESSIONS));
+		setBorrowTimeout(config.getLong("borrow-timeout", DEFAULT_BORROW_TIMEOUT));
+		setLoginTtl(config.getLong("login-ttl", DEFAULT_LOGIN_TTL));
+		setRevalidateInterval(config.getLong("revalidate-interval", DEFAULT_REVALIDATE_INTERVAL));
+		sessionConfig = ((HierarchicalConfiguration)config).configurationAt("bugzilla-session(0)");
+	}
+
+	/**
+	 * Returns the maximum number of sessions.
+	 * @return the maximum number of sessions
+	 */
+	public synchronized int getMaxSessions() {
+		return maxSessions;
+	}
+
+	/**
+	 * Sets the maximum number of sessions.
+	 * @param maxSessions the maximum number of sessions (values lower than 1 will be ignored)
+	 */
+	public synchronized void setMaxSessions(int maxSessions) {
+		if (maxSessions > 0) {
+			this.maxSessions = maxSessions;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Returns the time to wait for a free session.
+	 * @return the timeout in milliseconds
+	 */
+	public synchronized long getBorrowTimeout() {
+		return borrowTimeout;
+	}
+
+	/**
+	 * Sets the time to wait for a free session.
+	 * @param borrowTimeout the timeout in milliseconds
+	 */
+	public synchronized void setBorrowTimeout(long borrowTimeout) {
+		this.borrowTimeout = borrowTimeout;
+	}
+
+	/**
+	 * Returns the time after which the login of an idle session is renewed.
+	 * @return the time-to-live in milliseconds, 0 when logins are not renewed
+	 */
+	public synchronized long getLoginTtl() {
+		return loginTtl;
+	}
+
+	/**
+	 * Sets the time after which the login of an idle session is renewed.
+	 * @param loginTtl the time-to-live in milliseconds, 0 when logins shall not be renewed
+	 */
+	public synchronized void setLoginTtl(long loginTtl) {
+		this.loginTtl = loginTtl;
+	}
+
+	/**
+	 * Returns the time between two revalidations of idle sessions.
+	 * @return the interval in milliseconds, 0 when sessions are revalidated only when borrowed
+	 */
+	public synchronized long getRevalidateInterval() {
+		return revalidateInterval;
+	}
+
+	/**
+	 * Sets the time between two revalidations of idle sessions.
+	 * Must be set before the first session is borrowed.
+	 * @param revalidateInterval the interval in milliseconds, 0 to revalidate sessions only when borrowed
+	 */
+	public synchronized void setRevalidateInterval(long revalidateInterval) {
+		this.revalidateInterval = revalidateInterval;
+	}
+
+	/**
+	 * Creates a new session.
+	 * @return the session, not yet opened
+	 * @throws ConfigurationException when the session cannot be created
+	 */
+	protected Session createSession() throws ConfigurationException {
+		return (Session)ConfigurationUtils.load(sessionConfig, true);
+	}
+
+	/**
+	 * Borrows a session.
+	 * <p>The method waits for a free session when all sessions are in use.</p>
+	 * @return the session, opened and exclusively available to the caller until released
+	 * @throws RuntimeException when no session is available within the timeout or the session cannot be opened
+	 */
+	public Session borrow() {
+		long start = System.currentTimeMillis();
+		PooledSession rc = null;
+		synchronized (this) {
+			if (closed) throw new IllegalStateException("Session pool is closed");
+			long deadline = start + borrowTimeout;
+			boolean waited = false;
+			while (rc == null) {
+				rc = idle.pollFirst();
+				if ((rc == null) && (size < maxSessions)) {
+					size++;
+					statistics.created++;
+					rc = new PooledSession();
+				}
+				if (rc == null) {
+					long remaining = deadline - System.currentTimeMillis();
+					if (remaining <= 0) {
+						statistics.timeouts++;
+						throw new RuntimeException("Cannot borrow session: all "+maxSessions+" sessions are in use");
+					}
+					waited = true;
+					try {
+						wait(remaining);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new RuntimeException("Cannot borrow session", e);
+					}
+					if (closed) throw new IllegalStateException("Session pool is closed");
+				}
+			}
+			if (waited) statistics.waits++;
+			startTimer();
+		}
+
+		try {
+			if (rc.session == null) rc.session = createSession();
+			if (!rc.isValid()) validate(rc);
+		} catch (Exception e) {
+			discard(rc);
+			throw new RuntimeException("Cannot open session", e);
+		}
+
+		synchronized (this) {
+			borrowed.put(rc.session, rc);
+			statistics.borrows++;
+			statistics.waitTime += System.currentTimeMillis() - start;
+			if (borrowed.size() > statistics.peakBorrowed) statistics.peakBorrowed = borrowed.size();
+		}
+		return rc.session;
+	}
+
+	/**
+	 * Returns a borrowed session to the pool.
+	 * <p>A session that was closed by the borrower will be re-opened when borrowed again.</p>
+	 * @param session - the session borrowed from this pool
+	 */
+	public void release(Session session) {
+		boolean close = false;
+		synchronized (this) {
+			PooledSession pooled = borrowed.remove(session);
+			if (pooled == null) throw new IllegalArgumentException("Session was not borrowed from this pool");
+			if (closed || (size > maxSessions)) {
+				size--;
+				close = true;
+			} else {
+				idle.addFirst(pooled);
+			}
+			notifyAll();
+		}
+		if (close) session.close();
+	}
+
+	/**
+	 * Removes a borrowed session from the pool, e.g. after a failure.
+	 * The session will be closed.
+	 * @param session - the session borrowed from this pool
+	 */
+	public void invalidate(Session session) {
+		PooledSession pooled = null;
+		synchronized (this) {
+			pooled = borrowed.remove(session);
+			if (pooled == null) throw new IllegalArgumentException("Session was not borrowed from this pool");
+		}
+		discard(pooled);
+	}
+
+	/**
+	 * Re-opens all idle sessions that were logged out or whose login expired.
+	 * <p>This is called periodically in the background. Sessions being revalidated
+	 * are not available for borrowing.</p>
+	 */
+	public void revalidate() {
+		List<PooledSession> sessions = new ArrayList<PooledSession>();
+		synchronized (this) {
+			Iterator<PooledSession> i = idle.iterator();
+			while (i.hasNext()) {
+				PooledSession pooled = i.next();
+				if (!pooled.isValid()) {
+					i.remove();
+					sessions.add(pooled);
+				}
+			}
+		}
+		for (PooledSession pooled : sessions) {
+			try {
+				validate(pooled);
+			} catch (Exception e) {
+				log.warn("Cannot revalidate session, session will be removed from pool", e);
+				discard(pooled);
+				continue;
+			}
+			boolean close = false;
+			synchronized (this) {
+				if (closed) {
+					size--;
+					close = true;
+				} else {
+					idle.addLast(pooled);
+				}
+				notifyAll();
+			}
+			if (close) pooled.session.close();
+		}
+	}
+
+	/**
+	 * Closes all idle sessions.
+	 * Borrowed sessions are closed when they are released.
+	 */
+	public void close() {
+		List<PooledSession> sessions;
+		synchronized (this) {
+			closed = true;
+			if (timer != null) timer.shutdown();
+			timer = null;
+			sessions = new ArrayList<PooledSession>(idle);
+			idle.clear();
+			size -= sessions.size();
+			notifyAll();
+		}
+		for (PooledSession pooled : sessions) {
+			pooled.session.close();
+		}
+	}
+
+	/**
+	 * Returns whether the pool was closed.
+	 * @return {@code true} when closed
+	 */
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Returns the current utilisation of the pool.
+	 * @return a snapshot of the statistics
+	 */
+	public synchronized Statistics getStatistics() {
+		Statistics rc = new Statistics(statistics);
+		rc.maxSessions = maxSessions;
+		rc.sessions = size;
+		rc.idle = idle.size();
+		rc.borrowed = borrowed.size();
+		return rc;
+	}
+
+	/**
+	 * Debug information into log.
+	 */
+	public void dump() {
+		log.info(getStatistics().toString());
+	}
+
+	/**
+	 * Opens the session, re-opening it when it was logged in before.
+	 * @param pooled - the session
+	 */
+	private void validate(PooledSession pooled) {
+		if (pooled.loggedIn > 0) {
+			pooled.session.close();
+			synchronized (this) {
+				statistics.revalidated++;
+			}
+		}
+		if (!pooled.session.open()) throw new RuntimeException("Cannot login");
+		pooled.loggedIn = System.currentTimeMillis();
+	}
+
+	/**
+	 * Removes the session from the pool and closes it.
+	 * @param pooled - the session
+	 */
+	private void discard(PooledSession pooled) {
+		synchronized (this) {
+			size--;
+			statistics.failures++;
+			notifyAll();
+		}
+		if (pooled.session != null) {
+			try {
+				pooled.session.close();
+			} catch (RuntimeException e) {
+				log.debug("Cannot close session", e);
+			}
+		}
+	}
+
+	/**
+	 * Starts the background revalidation.
+	 * Must be called while holding the lock.
+	 */
+	private void startTimer() {
+		if ((timer != null) || (revalidateInterval <= 0)) return;
+		timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "b4j-session-pool");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		timer.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					revalidate();
+				} catch (RuntimeException e) {
+					log.error("Cannot revalidate sessions", e);
+				}
+			}
+		}, revalidateInterval, revalidateInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * A session in the pool.
+	 */
+	private class PooledSession {
+
+		private Session session;
+		private long loggedIn = 0;
+
+		/**
+		 * Returns whether the session is logged in and the login did not expire.
+		 * @return {@code true} when the session can be borrowed as is
+		 */
+		public boolean isValid() {
+			if ((session == null) || (loggedIn == 0) || !session.isLoggedIn()) return false;
+			long ttl = getLoginTtl();
+			return (ttl <= 0) || (System.currentTimeMillis() - loggedIn < ttl);
+		}
+	}
+
+	/**
+	 * Utilisation of a {@link SessionPool}.
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	public static class Statistics {
+
+		private int maxSessions;
+		private int sessions;
+		private int idle;
+		private int borrowed;
+		private int peakBorrowed;
+		private long borrows;
+		private long waits;
+		private long waitTime;
+		private long timeouts;
+		private long created;
+		private long revalidated;
+		private long failures;
+
+		/**
+		 * Constructor.
+		 */
+		private Statistics() {
+		}
+
+		/**
+		 * Copy constructor.
+		 * @param other - the statistics to be copied
+		 */
+		private Statistics(Statistics other) {
+			this.peakBorrowed = other.peakBorrowed;
+			this.borrows = other.borrows;
+			this.waits = other.waits;
+			this.waitTime = other.waitTime;
+			this.timeouts = other.timeouts;
+			this.created = other.created;
+			this.revalidated = other.revalidated;
+			this.failures = other.failures;
+		}
+
+		/**
+		 * Returns the maximum number of sessions.
+		 * @return the maximum number of sessions
+		 */
+		public int getMaxSessions() {
+			return maxSessions;
+		}
+
+		/**
+		 * Returns the number of sessions in the pool, whether idle or borrowed.
+		 * @return the number of sessions
+		 */
+		public int getSessions() {
+			return sessions;
+		}
+
+		/**
+		 * Returns the number of idle sessions.
+		 * @return the number of idle sessions
+		 */
+		public int getIdle() {
+			return idle;
+		}
+
+		/**
+		 * Returns the number of borrowed sessions.
+		 * @return the number of borrowed sessions
+		 */
+		public int getBorrowed() {
+			return borrowed;
+		}
+
+		/**
+		 * Returns the highest number of sessions borrowed at the same time.
+		 * @return the peak number of borrowed sessions
+		 */
+		public int getPeakBorrowed() {
+			return peakBorrowed;
+		}
+
+		/**
+		 * Returns the ratio of borrowed sessions to the maximum number of sessions.
+		 * @return the utilisation between 0 and 1
+		 */
+		public double getUtilisation() {
+			if (maxSessions == 0) return 0d;
+			return (double)borrowed / (double)maxSessions;
+		}
+
+		/**
+		 * Returns the number of sessions borrowed so far.
+		 * @return the number of borrows
+		 */
+		public long getBorrows() {
+			return borrows;
+		}
+
+		/**
+		 * Returns the number of borrows that had to wait for a free session.
+		 * @return the number of waits
+		 */
+		public long getWaits() {
+			return waits;
+		}
+
+		/**
+		 * Returns the average time a borrow took, including opening the session.
+		 * @return the average time in milliseconds
+		 */
+		public double getAverageBorrowTime() {
+			if (borrows == 0) return 0d;
+			return (double)waitTime / (double)borrows;
+		}
+
+		/**
+		 * Returns the number of borrows that failed because no session was available in time.
+		 * @return the number of timeouts
+		 */
+		public long getTimeouts() {
+			return timeouts;
+		}
+
+		/**
+		 * Returns the number of sessions created.
+		 * @return the number of sessions created
+		 */
+		public long getCreated() {
+			return created;
+		}
+
+		/**
+		 * Returns the number of logins renewed.
+		 * @return the number of revalidations
+		 */
+		public long getRevalidated() {
+			return revalidated;
+		}
+
+		/**
+		 * Returns the number of sessions removed from the pool due to failures.
+		 * @return the number of failures
+		 */
+		public long getFailures() {
+			return failures;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String toString() {
+			return "SessionPool[sessions="+sessions+"/"+maxSessions+", idle="+idle+", borrowed="+borrowed+
+					", peak="+peakBorrowed+", borrows="+borrows+", waits="+waits+", avgBorrowTime="+getAverageBorrowTime()+"ms"+
+					", timeouts="+timeouts+", created="+created+", revalidated="+revalidated+", failures="+failures+"]";
+		}
+	}
+}
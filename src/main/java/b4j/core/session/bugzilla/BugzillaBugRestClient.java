@@ -17,6 +17,7 @@
  */
 package b4j.core.session.bugzilla;
 
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.Map;
 
@@ -63,6 +64,16 @@ public interface BugzillaBugRestClient {
 	 */
 	public Promise<Iterable<Issue>> findBugs(Map<String,Object> criteria);
 
+	/**
+	 * Retrieves the IDs of bugs only.
+	 *
+	 * @param criteria Map of field matching criteria according to 
+	 * <a href="http://www.bugzilla.org/docs/4.4/en/html/api/Bugzilla/WebService/Bug.html#search">Bugzilla Search API</a>.
+	 * @return IDs of bugs found
+	 * @since 3.0.2
+	 */
+	public Promise<Iterable<Long>> findBugIds(Map<String,Object> criteria);
+
 	/**
 	 * Retrieves information about attachments of issues.
 	 *
@@ -81,6 +92,16 @@ public interface BugzillaBugRestClient {
 	 */
 	public Promise<Iterable<Attachment>> getAttachments(Collection<String> issueIds);
 
+	/**
+	 * Retrieves the content of an attachment.
+	 * <p>{@link #getAttachments(Collection)} does not deliver the content of attachments.</p>
+	 *
+	 * @param attachmentId ID of attachment
+	 * @return the content (to be closed by caller) or {@code null} if the attachment has no content
+	 * @since 3.0.2
+	 */
+	public Promise<InputStream> getAttachmentContent(String attachmentId);
+
 	/**
 	 * Retrieves information about comments.
 	 *
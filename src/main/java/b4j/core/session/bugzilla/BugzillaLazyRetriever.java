@@ -17,8 +17,13 @@
  */
 package b4j.core.session.bugzilla;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -29,14 +34,35 @@ import b4j.core.Project;
 import b4j.core.User;
 import b4j.util.AbstractLazyRetriever;
 
+import com.atlassian.util.concurrent.Promise;
+
 /**
  * Retrieves registered objects lazily from Bugzilla.
+ * <p>Queued objects are requested in chunks of at most {@link #getBatchSize()} keys
+ * with at most {@link #getMaxParallelRequests()} chunks being requested at the same time.
+ * Comments and attachments of the issue being accessed are requested first. Chunks that
+ * are still in flight when this issue was loaded will be registered with the next access.</p>
  * @author ralph
  *
  */
 public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 
+	/** Default maximum number of keys in a single request */
+	public static final int DEFAULT_BATCH_SIZE = 100;
+	/** Default maximum number of requests being sent in parallel */
+	public static final int DEFAULT_MAX_PARALLEL_REQUESTS = 4;
+
 	private BugzillaClient client;
+	private int batchSize;
+	private int maxParallelRequests;
+	private BatchLoader<Long,Classification> classificationIdLoader;
+	private BatchLoader<String,Classification> classificationNameLoader;
+	private BatchLoader<Long,Project> projectIdLoader;
+	private BatchLoader<String,Project> projectNameLoader;
+	private BatchLoader<Long,User> userIdLoader;
+	private BatchLoader<String,User> userNameLoader;
+	private BatchLoader<String,Comment> commentLoader;
+	private BatchLoader<String,Attachment> attachmentLoader;
 	
 	/**
 	 * Constructor.
@@ -44,6 +70,193 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 	 */
 	public BugzillaLazyRetriever(BugzillaClient client) {
 		this.client = client;
+		this.batchSize = DEFAULT_BATCH_SIZE;
+		this.maxParallelRequests = DEFAULT_MAX_PARALLEL_REQUESTS;
+		createLoaders();
+	}
+
+	/**
+	 * Creates the loaders for all chunked requests.
+	 */
+	private void createLoaders() {
+		classificationIdLoader = new BatchLoader<Long,Classification>() {
+			@Override
+			protected Collection<Long> getQueue() {
+				return getClassificationIds();
+			}
+			@Override
+			protected Promise<Iterable<Classification>> request(Collection<Long> keys) {
+				return client.getClassificationClient().getClassifications(keys);
+			}
+			@Override
+			protected void register(Collection<Long> keys, Iterable<Classification> result) {
+				for (Classification c : result) registerClassification(c);
+			}
+		};
+		classificationNameLoader = new BatchLoader<String,Classification>() {
+			@Override
+			protected Collection<String> getQueue() {
+				return getClassificationNames();
+			}
+			@Override
+			protected Promise<Iterable<Classification>> request(Collection<String> keys) {
+				return client.getClassificationClient().getClassificationsByName(keys);
+			}
+			@Override
+			protected void register(Collection<String> keys, Iterable<Classification> result) {
+				for (Classification c : result) registerClassification(c);
+			}
+		};
+		projectIdLoader = new BatchLoader<Long,Project>() {
+			@Override
+			protected Collection<Long> getQueue() {
+				return getProjectIds();
+			}
+			@Override
+			protected Promise<Iterable<Project>> request(Collection<Long> keys) {
+				return client.getProductClient().getProducts(keys);
+			}
+			@Override
+			protected void register(Collection<Long> keys, Iterable<Project> result) {
+				for (Project p : result) registerProject(p);
+			}
+		};
+		projectNameLoader = new BatchLoader<String,Project>() {
+			@Override
+			protected Collection<String> getQueue() {
+				return getProjectNames();
+			}
+			@Override
+			protected Promise<Iterable<Project>> request(Collection<String> keys) {
+				return client.getProductClient().getProductsByName(keys);
+			}
+			@Override
+			protected void register(Collection<String> keys, Iterable<Project> result) {
+				for (Project p : result) registerProject(p);
+			}
+		};
+		userIdLoader = new BatchLoader<Long,User>() {
+			@Override
+			protected Collection<Long> getQueue() {
+				return getUserIds();
+			}
+			@Override
+			protected Promise<Iterable<User>> request(Collection<Long> keys) {
+				return client.getUserClient().getUsers(keys);
+			}
+			@Override
+			protected void register(Collection<Long> keys, Iterable<User> result) {
+				for (User u : result) registerUser(u);
+			}
+		};
+		userNameLoader = new BatchLoader<String,User>() {
+			@Override
+			protected Collection<String> getQueue() {
+				return getUserNames();
+			}
+			@Override
+			protected Promise<Iterable<User>> request(Collection<String> keys) {
+				return client.getUserClient().getUsersByName(keys);
+			}
+			@Override
+			protected void register(Collection<String> keys, Iterable<User> result) {
+				for (User u : result) registerUser(u);
+			}
+		};
+		commentLoader = new BatchLoader<String,Comment>() {
+			@Override
+			protected Collection<String> getQueue() {
+				return getCommentIssues();
+			}
+			@Override
+			protected Promise<Iterable<Comment>> request(Collection<String> keys) {
+				return client.getBugClient().getComments(keys);
+			}
+			@Override
+			protected void register(Collection<String> keys, Iterable<Comment> result) {
+				Map<String,Set<Comment>> loaded = new HashMap<String, Set<Comment>>();
+				for (String issueId : keys) {
+					loaded.put(issueId, new HashSet<Comment>());
+				}
+				for (Comment c : result) {
+					String issueId = c.getIssueId();
+					Set<Comment> comments = loaded.get(issueId);
+					if (comments == null) {
+						comments = new HashSet<Comment>();
+						loaded.put(issueId, comments);
+					}
+					comments.add(c);
+				}
+				for (Map.Entry<String,Set<Comment>> entry : loaded.entrySet()) {
+					registerComments(entry.getKey(), entry.getValue());
+				}
+			}
+		};
+		attachmentLoader = new BatchLoader<String,Attachment>() {
+			@Override
+			protected Collection<String> getQueue() {
+				return getAttachmentIssues();
+			}
+			@Override
+			protected Promise<Iterable<Attachment>> request(Collection<String> keys) {
+				return client.getBugClient().getAttachments(keys);
+			}
+			@Override
+			protected void register(Collection<String> keys, Iterable<Attachment> result) {
+				Map<String,Set<Attachment>> loaded = new HashMap<String, Set<Attachment>>();
+				for (String issueId : keys) {
+					loaded.put(issueId, new HashSet<Attachment>());
+				}
+				for (Attachment a : result) {
+					String issueId = a.getIssueId();
+					Set<Attachment> attachments = loaded.get(issueId);
+					if (attachments == null) {
+						attachments = new HashSet<Attachment>();
+						loaded.put(issueId, attachments);
+					}
+					attachments.add(a);
+				}
+				for (Map.Entry<String,Set<Attachment>> entry : loaded.entrySet()) {
+					registerAttachments(entry.getKey(), entry.getValue());
+				}
+			}
+		};
+	}
+
+	/**
+	 * Returns the maximum number of keys in a single request.
+	 * @return the batchSize
+	 * @since 3.0.2
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the maximum number of keys in a single request.
+	 * @param batchSize the batchSize to set (values lower than 1 will be ignored)
+	 * @since 3.0.2
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize > 0) this.batchSize = batchSize;
+	}
+
+	/**
+	 * Returns the maximum number of requests being sent in parallel.
+	 * @return the maxParallelRequests
+	 * @since 3.0.2
+	 */
+	public int getMaxParallelRequests() {
+		return maxParallelRequests;
+	}
+
+	/**
+	 * Sets the maximum number of requests being sent in parallel.
+	 * @param maxParallelRequests the maxParallelRequests to set (values lower than 1 will be ignored)
+	 * @since 3.0.2
+	 */
+	public void setMaxParallelRequests(int maxParallelRequests) {
+		if (maxParallelRequests > 0) this.maxParallelRequests = maxParallelRequests;
 	}
 
 	/**
@@ -51,12 +264,8 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 	 */
 	@Override
 	protected void loadClassifications() throws Exception {
-		for (Classification c : client.getClassificationClient().getClassifications(getClassificationIds()).get()) {
-			registerClassification(c);
-		}
-		for (Classification c : client.getClassificationClient().getClassificationsByName(getClassificationNames()).get()) {
-			registerClassification(c);
-		}
+		classificationIdLoader.load();
+		classificationNameLoader.load();
 	}
 
 	/**
@@ -64,12 +273,8 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 	 */
 	@Override
 	protected void loadProjects() throws Exception {
-		for (Project p : client.getProductClient().getProducts(getProjectIds()).get()) {
-			registerProject(p);
-		}
-		for (Project p : client.getProductClient().getProductsByName(getProjectNames()).get()) {
-			registerProject(p);
-		}
+		projectIdLoader.load();
+		projectNameLoader.load();
 	}
 
 	/**
@@ -85,12 +290,8 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 	 */
 	@Override
 	protected void loadUsers() throws Exception {
-		for (User u : client.getUserClient().getUsers(getUserIds()).get()) {
-			registerUser(u);
-		}
-		for (User u : client.getUserClient().getUsersByName(getUserNames()).get()) {
-			registerUser(u);
-		}
+		userIdLoader.load();
+		userNameLoader.load();
 	}
 
 	/**
@@ -98,20 +299,15 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 	 */
 	@Override
 	protected void loadComments() throws Exception {
-		Map<String,Set<Comment>> loaded = new HashMap<String, Set<Comment>>();
-		Iterable<Comment> i = client.getBugClient().getComments(getCommentIssues()).get();
-		for (Comment c : i) {
-			String issueId = c.getIssueId();
-			Set<Comment> comments = loaded.get(issueId);
-			if (comments == null) {
-				comments = new HashSet<Comment>();
-				loaded.put(issueId, comments);
-			}
-			comments.add(c);
-		}
-		for (Map.Entry<String,Set<Comment>> entry : loaded.entrySet()) {
-			registerComments(entry.getKey(), entry.getValue());
-		}
+		commentLoader.load();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void loadComments(String issueId) throws Exception {
+		commentLoader.load(issueId);
 	}
 
 	/**
@@ -119,20 +315,15 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 	 */
 	@Override
 	protected void loadAttachments() throws Exception {
-		Map<String,Set<Attachment>> loaded = new HashMap<String, Set<Attachment>>();
-		Iterable<Attachment> i = client.getBugClient().getAttachments(getAttachmentIssues()).get();
-		for (Attachment a : i) {
-			String issueId = a.getIssueId();
-			Set<Attachment> attachments = loaded.get(issueId);
-			if (attachments == null) {
-				attachments = new HashSet<Attachment>();
-				loaded.put(issueId, attachments);
-			}
-			attachments.add(a);
-		}
-		for (Map.Entry<String,Set<Attachment>> entry : loaded.entrySet()) {
-			registerAttachments(entry.getKey(), entry.getValue());
-		}
+		attachmentLoader.load();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void loadAttachments(String issueId) throws Exception {
+		attachmentLoader.load(issueId);
 	}
 
 	/**
@@ -145,7 +336,7 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 		registerPriority(new BugzillaPriority("P3"));
 		registerPriority(new BugzillaPriority("P4"));
 		registerPriority(new BugzillaPriority("P5"));
-		for (String s : getPriorityNames()) {
+		for (String s : drain(getPriorityNames())) {
 			registerPriority(new BugzillaPriority(s));
 		}
 	}
@@ -163,7 +354,7 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 		registerSeverity(new BugzillaSeverity("minor"));
 		registerSeverity(new BugzillaSeverity("trivial"));
 		registerSeverity(new BugzillaSeverity("enhancement"));
-		for (String s : getSeverityNames()) {
+		for (String s : drain(getSeverityNames())) {
 			registerSeverity(new BugzillaSeverity(s));
 		}
 	}
@@ -181,7 +372,7 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 		registerStatus(new BugzillaStatus("IN_PROGRESS"));
 		registerStatus(new BugzillaStatus("RESOLVED"));
 		registerStatus(new BugzillaStatus("CLOSED"));		
-		for (String s : getStatusNames()) {
+		for (String s : drain(getStatusNames())) {
 			registerStatus(new BugzillaStatus(s));
 		}
 	}
@@ -196,7 +387,7 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 		registerResolution(new BugzillaResolution("WONTFIX"));
 		registerResolution(new BugzillaResolution("DUPLICATE"));
 		registerResolution(new BugzillaResolution("WORKSFORME"));
-		for (String s : getResolutionNames()) {
+		for (String s : drain(getResolutionNames())) {
 			registerResolution(new BugzillaResolution(s));
 		}
 	}
@@ -207,7 +398,7 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 	@Override
 	protected void loadIssueTypes() throws Exception {
 		registerIssueType(new BugzillaIssueType("bug"));
-		for (String s : getIssueTypeNames()) {
+		for (String s : drain(getIssueTypeNames())) {
 			registerIssueType(new BugzillaIssueType(s));
 		}
 	}
@@ -220,5 +411,164 @@ public class BugzillaLazyRetriever extends AbstractLazyRetriever {
 		loadProjects();
 	}
 
-	
+	/**
+	 * A chunk of keys being requested.
+	 * @param <K> type of keys
+	 * @param <T> type of objects loaded
+	 */
+	private static class Batch<K,T> {
+
+		private Collection<K> keys;
+		private Promise<Iterable<T>> promise;
+
+		/**
+		 * Constructor.
+		 * @param keys - the keys requested
+		 * @param promise - the pending result
+		 */
+		public Batch(Collection<K> keys, Promise<Iterable<T>> promise) {
+			this.keys = keys;
+			this.promise = promise;
+		}
+	}
+
+	/**
+	 * Loads queued keys in chunks.
+	 * <p>A full load requests all queued keys and waits for all chunks. A prioritised load
+	 * puts the given key into the first chunk, fills the parallel requests with further chunks
+	 * and returns as soon as the first chunk was registered. Keys are taken from the queue by
+	 * {@link AbstractLazyRetriever#drain(Collection)}. Keys that were not requested or whose
+	 * request failed are put back into the queue.</p>
+	 * @param <K> type of keys
+	 * @param <T> type of objects loaded
+	 */
+	protected abstract class BatchLoader<K,T> {
+
+		private LinkedList<Batch<K,T>> pending = new LinkedList<Batch<K,T>>();
+
+		/**
+		 * Returns the queue of keys to be loaded.
+		 * @return the queue
+		 */
+		protected abstract Collection<K> getQueue();
+
+		/**
+		 * Requests a chunk of keys.
+		 * @param keys - the keys to be requested
+		 * @return the pending result
+		 */
+		protected abstract Promise<Iterable<T>> request(Collection<K> keys);
+
+		/**
+		 * Registers the objects loaded for a chunk.
+		 * @param keys - the keys that were requested
+		 * @param result - the objects loaded
+		 */
+		protected abstract void register(Collection<K> keys, Iterable<T> result);
+
+		/**
+		 * Loads all queued keys.
+		 * @throws Exception when an error occurs
+		 */
+		public synchronized void load() throws Exception {
+			load(null);
+		}
+
+		/**
+		 * Loads the queued keys with priority for the given key.
+		 * @param priority - the key to be loaded first, {@code null} to load all queued keys
+		 * @throws Exception when an error occurs
+		 */
+		public synchronized void load(K priority) throws Exception {
+			// Register chunks from previous calls that were answered meanwhile
+			Iterator<Batch<K,T>> i = pending.iterator();
+			while (i.hasNext()) {
+				Batch<K,T> batch = i.next();
+				if (batch.promise.isDone()) {
+					i.remove();
+					complete(batch);
+				}
+			}
+
+			Batch<K,T> target = null;
+			if (priority != null) {
+				for (Batch<K,T> batch : pending) {
+					if (batch.keys.contains(priority)) {
+						target = batch;
+						break;
+					}
+				}
+			}
+
+			if (target == null) {
+				List<K> keys = getKeys(priority);
+				int index = 0;
+				try {
+					while (index < keys.size()) {
+						if (pending.size() >= getMaxParallelRequests()) {
+							// Prioritised loads do not wait for a free slot once the key was requested
+							if ((priority != null) && (target != null)) break;
+							complete(pending.removeFirst());
+							continue;
+						}
+						int end = Math.min(keys.size(), index+getBatchSize());
+						List<K> chunk = new ArrayList<K>(keys.subList(index, end));
+						Batch<K,T> batch = new Batch<K,T>(chunk, request(chunk));
+						pending.add(batch);
+						if (target == null) target = batch;
+						index = end;
+					}
+				} finally {
+					// Keys not requested are left for the next load
+					if (index < keys.size()) getQueue().addAll(keys.subList(index, keys.size()));
+				}
+			}
+
+			if (priority != null) {
+				if (target != null) {
+					pending.remove(target);
+					complete(target);
+				}
+			} else {
+				while (!pending.isEmpty()) {
+					complete(pending.removeFirst());
+				}
+			}
+		}
+
+		/**
+		 * Drains the keys that need to be requested from the queue.
+		 * @param priority - the key to be put first (can be {@code null})
+		 * @return the keys not yet requested
+		 */
+		private List<K> getKeys(K priority) {
+			Set<K> requested = new HashSet<K>();
+			for (Batch<K,T> batch : pending) {
+				requested.addAll(batch.keys);
+			}
+			List<K> rc = new ArrayList<K>();
+			if (priority != null) rc.add(priority);
+			for (K key : drain(getQueue())) {
+				if (!requested.contains(key) && !key.equals(priority)) rc.add(key);
+			}
+			return rc;
+		}
+
+		/**
+		 * Waits for the chunk and registers its result.
+		 * <p>The keys of the chunk are put back into the queue when the request failed.</p>
+		 * @param batch - the chunk
+		 * @throws Exception when the request failed
+		 */
+		private void complete(Batch<K,T> batch) throws Exception {
+			Iterable<T> result = null;
+			try {
+				result = batch.promise.get();
+			} catch (Exception e) {
+				getQueue().addAll(batch.keys);
+				throw e;
+			}
+			register(batch.keys, result);
+		}
+	}
 }
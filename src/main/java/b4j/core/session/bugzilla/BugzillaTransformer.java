@@ -17,9 +17,12 @@
  */
 package b4j.core.session.bugzilla;
 
+import java.util.List;
+
 import org.apache.commons.collections.Transformer;
 
 import b4j.core.DefaultClassification;
+import b4j.util.TypedTransformer;
 
 /**
  * The transformations required for Bugzilla.
@@ -93,4 +96,46 @@ public class BugzillaTransformer {
 		}
 	}
 
+	/**
+	 * Transformer for users.
+	 * <p>The login name becomes ID and name of the user. The optional argument is the real name.</p>
+	 * @since 3.0.2
+	 */
+	public static class User implements TypedTransformer<String,BugzillaUser> {
+		@Override
+		public BugzillaUser transform(String login, Object... args) {
+			BugzillaUser rc = new BugzillaUser();
+			rc.setId(login);
+			rc.setName(login);
+			if (args.length > 0) rc.setRealName((String)args[0]);
+			return rc;
+		}
+	}
+
+	/**
+	 * Transformer for components of a project.
+	 * <p>The key is the list of project name and component name. The optional argument is the project.</p>
+	 * @since 3.0.2
+	 */
+	public static class ProjectComponent implements TypedTransformer<List<String>,BugzillaComponent> {
+		@Override
+		public BugzillaComponent transform(List<String> key, Object... args) {
+			BugzillaComponent rc = new BugzillaComponent(key.get(1));
+			if (args.length > 0) rc.setProject((BugzillaProject)args[0]);
+			return rc;
+		}
+	}
+
+	/**
+	 * Transformer for versions of a project.
+	 * <p>The key is the list of project name and version name. The optional argument is the project.</p>
+	 * @since 3.0.2
+	 */
+	public static class Version implements TypedTransformer<List<String>,BugzillaVersion> {
+		@Override
+		public BugzillaVersion transform(List<String> key, Object... args) {
+			return new BugzillaVersion(null, args.length > 0 ? (b4j.core.Project)args[0] : null, key.get(1));
+		}
+	}
+
 }
@@ -17,11 +17,12 @@
  */
 package b4j.core.session.bugzilla.async;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URI;
+import java.util.List;
 import java.util.Map;
 
-import javax.ws.rs.core.UriBuilder;
-
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
@@ -32,9 +33,13 @@ import com.atlassian.jira.rest.client.RestClientException;
 import com.atlassian.jira.rest.client.internal.async.AbstractAsynchronousRestClient;
 import com.atlassian.jira.rest.client.internal.json.JsonObjectParser;
 import com.atlassian.util.concurrent.Promise;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import b4j.core.session.bugzilla.async.AsyncBugzillaUserRestClient.LoginToken;
 import b4j.core.session.bugzilla.json.JSONUtils;
+import b4j.core.session.bugzilla.json.JsonStreamParser;
+import b4j.core.session.bugzilla.json.JsonStreamReader;
 import b4j.util.LazyRetriever;
 
 /**
@@ -77,6 +82,8 @@ public abstract class AbstractAsyncRestClient extends AbstractAsynchronousRestCl
 
 	/**
 	 * Performs a POST call wit givebn parameters.
+	 * <p>Since V3.0.2 the call is queued in the {@link JsonRpcBatcher} of the main client
+	 * when batching is enabled.</p>
 	 * @param method method to be called
 	 * @param params parameters
 	 * @param parser the response parser 
@@ -84,27 +91,125 @@ public abstract class AbstractAsyncRestClient extends AbstractAsynchronousRestCl
 	 */
 	protected <T> Promise<T> postAndParse(String method, JSONObject params, JsonObjectParser<T> parser) {
 		try {
-			JSONObject entity = new JSONObject();
-			entity.put("method", webService+"."+method);
-			entity.put("id", 1);
-			JSONArray pArray = new JSONArray();
-			String loginToken = getLoginToken();
-			if (loginToken != null) {
-				if (params == null) params = new JSONObject();
-				params.put("token", loginToken);
-				pArray.put(params);
-			} else {
-				if ((params != null) && (params.length() > 0)) pArray.put(params);
+			JSONObject entity = createEntity(method, params);
+			JsonRpcBatcher batcher = getMainClient().getBatcher();
+			if (parser == null) {
+				// Calls without a result (e.g. logout) must not overtake queued calls
+				batcher.flush();
+			} else if (batcher.isEnabled()) {
+				return batcher.add(this, entity, parser);
 			}
-			entity.put("params", pArray);
-			URI uri = UriBuilder.fromUri(getBaseUri()).build();
-			//LoggerFactory.getLogger(getClass()).debug("POST "+uri.toString()+" - "+params);
-			return postAndParse(uri, entity, parser);
+			//LoggerFactory.getLogger(getClass()).debug("POST "+getBaseUri().toString()+" - "+params);
+			return postAndParse(getBaseUri(), entity, parser);
 		} catch (JSONException e) {
 			throw new RestClientException("Cannot post", e);
 		}
 	}
 
+	/**
+	 * Sends a queued call in a separate request.
+	 * @param call - the call
+	 * @since 3.0.2
+	 */
+	protected <T> void postSingle(JsonRpcBatcher.Call<T> call) {
+		Futures.addCallback(postAndParse(getBaseUri(), call.getEntity(), call.getParser()), call);
+	}
+
+	/**
+	 * Sends queued calls as one JSON-RPC batch.
+	 * <p>The responses are handed back to the batcher which assigns them to the calls.</p>
+	 * @param batcher - the batcher that queued the calls
+	 * @param calls - the calls
+	 * @since 3.0.2
+	 */
+	protected void postBatch(final JsonRpcBatcher batcher, final List<JsonRpcBatcher.Call<?>> calls) {
+		JSONArray entity = new JSONArray();
+		for (JsonRpcBatcher.Call<?> call : calls) {
+			entity.put(call.getEntity());
+		}
+		ResponsePromise responsePromise = client().newRequest(getBaseUri())
+				.setEntity(entity.toString())
+				.setContentType("application/json")
+				.post();
+		Promise<JSONArray> promise = callAndParse(responsePromise, new ResponseHandler<JSONArray>() {
+			@Override
+			public JSONArray handle(Response response) throws JSONException, IOException {
+				// Servers without batch support answer with a single error object
+				String body = response.getEntity();
+				if ((body != null) && body.trim().startsWith("[")) return new JSONArray(body);
+				return null;
+			}
+		});
+		Futures.addCallback(promise, new FutureCallback<JSONArray>() {
+			@Override
+			public void onSuccess(JSONArray result) {
+				batcher.dispatch(calls, result);
+			}
+
+			@Override
+			public void onFailure(Throwable t) {
+				batcher.failed(calls, t);
+			}
+		});
+	}
+
+	/**
+	 * Performs a POST call with given parameters and parses the response from a token stream.
+	 * <p>The response is not materialized as JSON object. The parser reads it directly
+	 * from the response body.</p>
+	 * <p>The call is not queued in the {@link JsonRpcBatcher} but sent immediately. A batch
+	 * response would have to be read completely before it can be assigned to its calls,
+	 * which defeats streaming.</p>
+	 * @param method method to be called
+	 * @param params parameters
+	 * @param parser the response parser 
+	 * @return the response promise
+	 * @since 3.0.2
+	 */
+	protected <T> Promise<T> postAndStream(String method, Map<String,Object> params, final JsonStreamParser<T> parser) {
+		try {
+			JSONObject entity = createEntity(method, JSONUtils.convert(params));
+			ResponsePromise responsePromise = client().newRequest(getBaseUri())
+					.setEntity(entity.toString())
+					.setContentType("application/json")
+					.post();
+			return callAndParse(responsePromise, new ResponseHandler<T>() {
+				@Override
+				public T handle(Response response) throws JSONException, IOException {
+					return parser.parse(new JsonStreamReader(new InputStreamReader(response.getEntityStream(), "UTF-8")));
+				}
+			});
+		} catch (JSONException e) {
+			throw new RestClientException("Cannot post", e);
+		}
+	}
+
+	/**
+	 * Creates the JSON-RPC request entity.
+	 * <p>Each entity gets a unique ID so that responses of a batch can be assigned.</p>
+	 * @param method method to be called
+	 * @param params parameters (can be {@code null})
+	 * @return the request entity
+	 * @throws JSONException when the entity cannot be created
+	 * @since 3.0.2
+	 */
+	protected JSONObject createEntity(String method, JSONObject params) throws JSONException {
+		JSONObject entity = new JSONObject();
+		entity.put("method", webService+"."+method);
+		entity.put("id", getMainClient().nextRequestId());
+		JSONArray pArray = new JSONArray();
+		String loginToken = getLoginToken();
+		if (loginToken != null) {
+			if (params == null) params = new JSONObject();
+			params.put("token", loginToken);
+			pArray.put(params);
+		} else {
+			if ((params != null) && (params.length() > 0)) pArray.put(params);
+		}
+		entity.put("params", pArray);
+		return entity;
+	}
+
 	/**
 	 * Retrieves the current login token.
 	 * @return the token or {@code null} if not present
@@ -17,6 +17,7 @@
  */
 package b4j.core.session.bugzilla.async;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -27,7 +28,9 @@ import b4j.core.Attachment;
 import b4j.core.Comment;
 import b4j.core.Issue;
 import b4j.core.session.bugzilla.BugzillaBugRestClient;
+import b4j.core.session.bugzilla.json.BugzillaAttachmentContentParser;
 import b4j.core.session.bugzilla.json.BugzillaAttachmentParser;
+import b4j.core.session.bugzilla.json.BugzillaBugIdListParser;
 import b4j.core.session.bugzilla.json.BugzillaBugParser;
 import b4j.core.session.bugzilla.json.BugzillaCommentParser;
 
@@ -35,6 +38,9 @@ import com.atlassian.util.concurrent.Promise;
 
 /**
  * The client responsible for getting metadata information.
+ * <p>Since V3.0.2 responses are parsed from the token stream. Bugs are returned while
+ * the response is still being parsed. Attachments are retrieved without their content
+ * which needs to be requested by {@link #getAttachmentContent(String)}.</p>
  * @author ralph
  * @since 2.0
  *
@@ -42,8 +48,10 @@ import com.atlassian.util.concurrent.Promise;
 public class AsyncBugzillaBugRestClient extends AbstractAsyncRestClient implements BugzillaBugRestClient {
 
 	private BugzillaBugParser bugParser;
+	private BugzillaBugIdListParser bugIdParser;
 	private BugzillaCommentParser commentParser;
 	private BugzillaAttachmentParser attachmentParser;
+	private BugzillaAttachmentContentParser attachmentContentParser;
 	
 	/**
 	 * Constructor.
@@ -52,8 +60,10 @@ public class AsyncBugzillaBugRestClient extends AbstractAsyncRestClient implemen
 	public AsyncBugzillaBugRestClient(AsyncBugzillaRestClient mainClient) {
 		super(mainClient, "Bug");
 		bugParser = new BugzillaBugParser(mainClient);
+		bugIdParser = new BugzillaBugIdListParser(getLazyRetriever());
 		commentParser = new BugzillaCommentParser(mainClient);
 		attachmentParser = new BugzillaAttachmentParser(mainClient);
+		attachmentContentParser = new BugzillaAttachmentContentParser(mainClient);
 	}
 
 	/**
@@ -73,7 +83,7 @@ public class AsyncBugzillaBugRestClient extends AbstractAsyncRestClient implemen
 	public Promise<Iterable<Issue>> getBugs(Collection<Long> ids) {
 		Map<String,Object> params = new HashMap<String, Object>();
 		params.put("ids", ids);
-		return postAndParse("get", params, bugParser);
+		return postAndStream("get", params, bugParser);
 	}
 
 	/**
@@ -81,7 +91,17 @@ public class AsyncBugzillaBugRestClient extends AbstractAsyncRestClient implemen
 	 */
 	@Override
 	public Promise<Iterable<Issue>> findBugs(Map<String, Object> criteria) {
-		return postAndParse("search", criteria, bugParser);
+		return postAndStream("search", criteria, bugParser);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Promise<Iterable<Long>> findBugIds(Map<String, Object> criteria) {
+		Map<String,Object> params = new HashMap<String, Object>(criteria);
+		params.put("include_fields", new String[] { "id" });
+		return postAndParse("search", params, bugIdParser);
 	}
 
 	/**
@@ -101,7 +121,19 @@ public class AsyncBugzillaBugRestClient extends AbstractAsyncRestClient implemen
 	public Promise<Iterable<Attachment>> getAttachments(Collection<String> issueIds) {
 		Map<String,Object> params = new HashMap<String, Object>();
 		params.put("ids", issueIds);
-		return postAndParse("attachments", params, attachmentParser);
+		params.put("exclude_fields", new String[] { "data" });
+		return postAndStream("attachments", params, attachmentParser);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Promise<InputStream> getAttachmentContent(String attachmentId) {
+		Map<String,Object> params = new HashMap<String, Object>();
+		params.put("attachment_ids", new String[] { attachmentId });
+		params.put("include_fields", new String[] { "data" });
+		return postAndStream("attachments", params, attachmentContentParser);
 	}
 
 	/**
@@ -121,7 +153,7 @@ public class AsyncBugzillaBugRestClient extends AbstractAsyncRestClient implemen
 	public Promise<Iterable<Comment>> getComments(Collection<String> issueIds) {
 		Map<String,Object> params = new HashMap<String, Object>();
 		params.put("ids", issueIds);
-		return postAndParse("comments", params, commentParser);
+		return postAndStream("comments", params, commentParser);
 	}
 
 	protected Collection<Long> getIds(Collection<Issue> issues) {
@@ -18,6 +18,7 @@
 package b4j.core.session.bugzilla.async;
 
 import java.net.URI;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ws.rs.core.UriBuilder;
 
@@ -31,6 +32,7 @@ import b4j.core.session.bugzilla.BugzillaProductRestClient;
 import b4j.core.session.bugzilla.BugzillaUserRestClient;
 import b4j.core.session.bugzilla.async.AsyncBugzillaUserRestClient.LoginToken;
 import b4j.util.LazyRetriever;
+import b4j.util.SpoolOutputStream;
 
 import com.atlassian.httpclient.api.HttpClient;
 import com.atlassian.jira.rest.client.AuthenticationHandler;
@@ -55,6 +57,9 @@ public class AsyncBugzillaRestClient implements BugzillaClient {
 	private HttpClient httpClient;
 	private URI serverUri;
 	private URI baseUri;
+	private int attachmentSpoolThreshold = SpoolOutputStream.DEFAULT_THRESHOLD;
+	private AtomicLong requestId = new AtomicLong();
+	private JsonRpcBatcher batcher = new JsonRpcBatcher();
 	
 	/**
 	 * Constructor.
@@ -150,6 +155,42 @@ public class AsyncBugzillaRestClient implements BugzillaClient {
 		return lazyRetriever;
 	}
 
+	/**
+	 * Returns the size in bytes above which attachment content is kept in temporary files.
+	 * @return the attachmentSpoolThreshold
+	 * @since 3.0.2
+	 */
+	public int getAttachmentSpoolThreshold() {
+		return attachmentSpoolThreshold;
+	}
+
+	/**
+	 * Sets the size in bytes above which attachment content is kept in temporary files.
+	 * @param attachmentSpoolThreshold the attachmentSpoolThreshold to set
+	 * @since 3.0.2
+	 */
+	public void setAttachmentSpoolThreshold(int attachmentSpoolThreshold) {
+		this.attachmentSpoolThreshold = attachmentSpoolThreshold;
+	}
+
+	/**
+	 * Returns the next ID for a JSON-RPC call.
+	 * @return a unique ID
+	 * @since 3.0.2
+	 */
+	public long nextRequestId() {
+		return requestId.incrementAndGet();
+	}
+
+	/**
+	 * Returns the batcher that coalesces JSON-RPC calls.
+	 * @return the batcher
+	 * @since 3.0.2
+	 */
+	public JsonRpcBatcher getBatcher() {
+		return batcher;
+	}
+
 	/**
 	 * Returns the serverUri.
 	 * @return the serverUri
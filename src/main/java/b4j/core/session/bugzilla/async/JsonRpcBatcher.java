@@ -0,0 +1,433 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.bugzilla.async;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.atlassian.jira.rest.client.RestClientException;
+import com.atlassian.jira.rest.client.internal.json.JsonObjectParser;
+import com.atlassian.util.concurrent.Promise;
+import com.atlassian.util.concurrent.Promises;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.FutureCallback;
+
+/**
+ * Coalesces JSON-RPC calls into batch requests.
+ * <p>Calls are queued and sent as one JSON-RPC batch (an array of calls) when the batch is full,
+ * when the batch window elapsed since the first call was queued, when a caller waits for the
+ * result of a queued call or when {@link #flush()} is called. Callers can therefore group calls
+ * explicitly by issuing them before waiting for any of the results.</p>
+ * <p>The responses are assigned to the calls by their IDs. Calls without a response are sent again
+ * separately. Servers that answer a batch with anything but an array of responses, or that reject
+ * it as an invalid JSON-RPC request, are assumed to not support batches. The calls are then sent
+ * separately and batching is disabled for the rest of the session. Other failures of a batch
+ * (e.g. a broken connection) are reported to each of its calls and do not disable batching.</p>
+ * <p>Only calls that parse a JSON object are queued. Calls whose response is streamed (see
+ * {@link AbstractAsyncRestClient#postAndStream(String, Map, b4j.core.session.bugzilla.json.JsonStreamParser)})
+ * are sent immediately as the response of a batch would have to be materialized before it
+ * can be assigned to the calls.</p>
+ * @author ralph
+ * @since 3.0.2
+ *
+ */
+public class JsonRpcBatcher {
+
+	/** Default maximum number of calls in a batch */
+	public static final int DEFAULT_MAX_SIZE = 20;
+	/** Default time in milliseconds that calls wait for further calls */
+	public static final long DEFAULT_WINDOW = 10L;
+	/** JSON-RPC error code of an invalid request */
+	public static final int INVALID_REQUEST = -32600;
+
+	private static Logger log = LoggerFactory.getLogger(JsonRpcBatcher.class);
+
+	private int maxSize = DEFAULT_MAX_SIZE;
+	private long window = DEFAULT_WINDOW;
+	private volatile boolean supported = true;
+	private List<Call<?>> queue = new ArrayList<Call<?>>();
+	private ScheduledExecutorService timer;
+	private ScheduledFuture<?> scheduled;
+
+	/**
+	 * Constructor.
+	 */
+	public JsonRpcBatcher() {
+	}
+
+	/**
+	 * Returns whether calls are batched.
+	 * @return {@code true} when batching is configured and supported by the server
+	 */
+	public boolean isEnabled() {
+		return supported && (getMaxSize() > 1) && (getWindow() > 0);
+	}
+
+	/**
+	 * Returns whether the server supports batches.
+	 * @return {@code false} when a batch was not answered correctly
+	 */
+	public boolean isSupported() {
+		return supported;
+	}
+
+	/**
+	 * Returns the maximum number of calls in a batch.
+	 * @return the maximum size
+	 */
+	public synchronized int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the maximum number of calls in a batch.
+	 * @param maxSize the maximum size, 1 or less disables batching
+	 */
+	public synchronized void setMaxSize(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the time that calls wait for further calls.
+	 * @return the window in milliseconds
+	 */
+	public synchronized long getWindow() {
+		return window;
+	}
+
+	/**
+	 * Sets the time that calls wait for further calls.
+	 * @param window the window in milliseconds, 0 disables batching
+	 */
+	public synchronized void setWindow(long window) {
+		this.window = window;
+	}
+
+	/**
+	 * Queues a call.
+	 * @param client - the client that issues the call and sends the batch
+	 * @param entity - the JSON-RPC call
+	 * @param parser - the parser of the response
+	 * @return the promise of the parsed response
+	 */
+	public <T> Promise<T> add(AbstractAsyncRestClient client, JSONObject entity, JsonObjectParser<T> parser) {
+		Call<T> call = new Call<T>(client, entity, parser);
+		List<Call<?>> full = null;
+		synchronized (this) {
+			queue.add(call);
+			if (queue.size() >= maxSize) {
+				full = takeQueue();
+			} else if (queue.size() == 1) {
+				schedule();
+			}
+		}
+		if (full != null) send(full);
+		return Promises.forListenableFuture(call);
+	}
+
+	/**
+	 * Sends all queued calls.
+	 */
+	public void flush() {
+		List<Call<?>> calls;
+		synchronized (this) {
+			calls = takeQueue();
+		}
+		send(calls);
+	}
+
+	/**
+	 * Sends all queued calls and stops the timer.
+	 */
+	public void close() {
+		flush();
+		synchronized (this) {
+			if (timer != null) timer.shutdown();
+			timer = null;
+		}
+	}
+
+	/**
+	 * Removes all calls from the queue.
+	 * Must be called while holding the lock.
+	 * @return the calls
+	 */
+	private List<Call<?>> takeQueue() {
+		if (scheduled != null) scheduled.cancel(false);
+		scheduled = null;
+		List<Call<?>> rc = queue;
+		queue = new ArrayList<Call<?>>();
+		return rc;
+	}
+
+	/**
+	 * Schedules sending the queue after the window.
+	 * Must be called while holding the lock.
+	 */
+	private void schedule() {
+		if (timer == null) {
+			timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "b4j-jsonrpc-batch");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		scheduled = timer.schedule(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, window, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sends the calls.
+	 * @param calls - the calls to be sent
+	 */
+	protected void send(List<Call<?>> calls) {
+		if (calls.isEmpty()) return;
+		for (Call<?> call : calls) call.sent = true;
+		if ((calls.size() == 1) || !supported) {
+			sendSeparately(calls);
+		} else {
+			try {
+				postBatch(calls);
+			} catch (RuntimeException e) {
+				failed(calls, e);
+			}
+		}
+	}
+
+	/**
+	 * Sends each call in a separate request.
+	 * @param calls - the calls to be sent
+	 */
+	protected void sendSeparately(List<Call<?>> calls) {
+		for (Call<?> call : calls) {
+			try {
+				postSingle(call);
+			} catch (RuntimeException e) {
+				call.onFailure(e);
+			}
+		}
+	}
+
+	/**
+	 * Posts the calls as one batch request.
+	 * The client hands the responses to {@link #dispatch(List, JSONArray)} or {@link #failed(List, Throwable)}.
+	 * @param calls - the calls to be sent
+	 */
+	protected void postBatch(List<Call<?>> calls) {
+		calls.get(0).getClient().postBatch(this, calls);
+	}
+
+	/**
+	 * Posts a call in a separate request.
+	 * @param call - the call to be sent
+	 */
+	protected void postSingle(Call<?> call) {
+		call.getClient().postSingle(call);
+	}
+
+	/**
+	 * Assigns the responses of a batch to the calls.
+	 * @param calls - the calls that were sent
+	 * @param responses - the responses, {@code null} when the server did not answer with an array
+	 */
+	protected void dispatch(List<Call<?>> calls, JSONArray responses) {
+		if (responses == null) {
+			unsupported();
+			sendSeparately(calls);
+			return;
+		}
+		Map<String, JSONObject> responsesById = new HashMap<String, JSONObject>();
+		for (int i=0; i<responses.length(); i++) {
+			JSONObject response = responses.optJSONObject(i);
+			if (response != null) responsesById.put(response.optString("id"), response);
+		}
+		List<Call<?>> unanswered = new ArrayList<Call<?>>();
+		for (Call<?> call : calls) {
+			JSONObject response = responsesById.get(call.getId());
+			if (response != null) call.parse(response);
+			else unanswered.add(call);
+		}
+		if (!unanswered.isEmpty()) sendSeparately(unanswered);
+	}
+
+	/**
+	 * Handles a failed batch.
+	 * <p>The calls are sent separately when the server rejected the batch as an invalid request.
+	 * Otherwise all calls fail with the given reason.</p>
+	 * @param calls - the calls that were sent
+	 * @param t - the reason
+	 */
+	protected void failed(List<Call<?>> calls, Throwable t) {
+		if (log.isDebugEnabled()) log.debug("JSON-RPC batch failed", t);
+		if (isInvalidRequest(t)) {
+			unsupported();
+			sendSeparately(calls);
+		} else {
+			for (Call<?> call : calls) call.onFailure(t);
+		}
+	}
+
+	/**
+	 * Returns whether the failure is a JSON-RPC "invalid request" error.
+	 * @param t - the failure
+	 * @return {@code true} when the failure or one of its causes reports an invalid request
+	 */
+	protected static boolean isInvalidRequest(Throwable t) {
+		while (t != null) {
+			String message = t.getMessage();
+			if ((message != null) && (message.contains(Integer.toString(INVALID_REQUEST)) || message.toLowerCase().contains("invalid request"))) return true;
+			t = t.getCause();
+		}
+		return false;
+	}
+
+	/**
+	 * Disables batching.
+	 */
+	private void unsupported() {
+		if (supported) log.info("Server does not support JSON-RPC batches. Calls will be sent separately.");
+		supported = false;
+	}
+
+	/**
+	 * A queued JSON-RPC call.
+	 * <p>Waiting for the result sends the call when it is still queued.</p>
+	 * @param <T> type of result
+	 */
+	public class Call<T> extends AbstractFuture<T> implements FutureCallback<T> {
+
+		private AbstractAsyncRestClient client;
+		private JSONObject entity;
+		private JsonObjectParser<T> parser;
+		private volatile boolean sent = false;
+
+		/**
+		 * Constructor.
+		 * @param client - the client that issued the call
+		 * @param entity - the JSON-RPC call
+		 * @param parser - the parser of the response
+		 */
+		protected Call(AbstractAsyncRestClient client, JSONObject entity, JsonObjectParser<T> parser) {
+			this.client = client;
+			this.entity = entity;
+			this.parser = parser;
+		}
+
+		/**
+		 * Returns the client that issued the call.
+		 * @return the client
+		 */
+		public AbstractAsyncRestClient getClient() {
+			return client;
+		}
+
+		/**
+		 * Returns the JSON-RPC call.
+		 * @return the entity
+		 */
+		public JSONObject getEntity() {
+			return entity;
+		}
+
+		/**
+		 * Returns the parser of the response.
+		 * @return the parser
+		 */
+		public JsonObjectParser<T> getParser() {
+			return parser;
+		}
+
+		/**
+		 * Returns the ID of the call.
+		 * @return the ID
+		 */
+		public String getId() {
+			return entity.optString("id");
+		}
+
+		/**
+		 * Parses the response and completes the call.
+		 * @param response - the response of this call
+		 */
+		protected void parse(JSONObject response) {
+			try {
+				set(parser.parse(response));
+			} catch (JSONException e) {
+				setException(new RestClientException("Cannot parse response", e));
+			} catch (RuntimeException e) {
+				setException(e);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void onSuccess(T result) {
+			set(result);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void onFailure(Throwable t) {
+			setException(t);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public T get() throws InterruptedException, ExecutionException {
+			if (!sent) flush();
+			return super.get();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public T get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException, ExecutionException {
+			if (!sent) flush();
+			return super.get(timeout, unit);
+		}
+	}
+}
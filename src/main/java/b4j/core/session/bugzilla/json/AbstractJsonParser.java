@@ -17,6 +17,7 @@
  */
 package b4j.core.session.bugzilla.json;
 
+import java.io.IOException;
 import java.util.Iterator;
 
 import org.codehaus.jettison.json.JSONArray;
@@ -90,6 +91,49 @@ public abstract class AbstractJsonParser {
 		return json.getJSONArray("result");
 	}
 	
+	/**
+	 * Moves the reader to the result of the response.
+	 * <p>The response object is read until the <code>result</code> member. An error
+	 * found on the way will be thrown.</p>
+	 * @param reader - the reader positioned at the beginning of the response
+	 * @return {@code true} when the reader is positioned at the result, {@code false} when there is no result
+	 * @throws JSONException when the response has errors
+	 * @throws IOException when the response cannot be read
+	 * @since 3.0.2
+	 */
+	public boolean moveToResult(JsonStreamReader reader) throws JSONException, IOException {
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if ("result".equals(name) && (reader.peek() != JsonStreamReader.Token.NULL)) {
+				return true;
+			} else if ("error".equals(name) && (reader.peek() != JsonStreamReader.Token.NULL)) {
+				JSONObject err = reader.readObject();
+				throw new JSONException("Error: "+new BugzillaJsonError(err.getString("code"), err.getString("message")));
+			} else {
+				reader.skipValue();
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Moves the reader to the value of the given member of the current object.
+	 * @param reader - the reader positioned inside an object
+	 * @param name - name of member
+	 * @return {@code true} when the reader is positioned at the value, {@code false} when the member does not exist
+	 * @throws JSONException when the response is malformed
+	 * @throws IOException when the response cannot be read
+	 * @since 3.0.2
+	 */
+	public boolean moveToMember(JsonStreamReader reader, String name) throws JSONException, IOException {
+		while (reader.hasNext()) {
+			if (name.equals(reader.nextName())) return true;
+			reader.skipValue();
+		}
+		return false;
+	}
+
 	/** Debugs the JSON object */
 	public void debug(JSONObject json) throws JSONException {
 		Iterator<?> i = json.keys();
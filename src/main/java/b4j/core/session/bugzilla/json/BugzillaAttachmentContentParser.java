@@ -0,0 +1,101 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.bugzilla.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
+import org.codehaus.jettison.json.JSONException;
+
+import b4j.core.session.bugzilla.async.AsyncBugzillaRestClient;
+import b4j.util.Base64DecodingWriter;
+import b4j.util.SpoolOutputStream;
+
+/**
+ * Parses the content of a single attachment for Bugzilla REST API.
+ * <p>The Base64 data is decoded while it is being read. Content exceeding the
+ * {@link AsyncBugzillaRestClient#getAttachmentSpoolThreshold() spool threshold}
+ * is kept in a temporary file that will be deleted when the returned stream is closed.</p>
+ * @author ralph
+ * @since 3.0.2
+ *
+ */
+public class BugzillaAttachmentContentParser extends AbstractJsonParser implements JsonStreamParser<InputStream> {
+
+	private AsyncBugzillaRestClient mainClient;
+
+	/**
+	 * Constructor.
+	 */
+	public BugzillaAttachmentContentParser(AsyncBugzillaRestClient mainClient) {
+		super(mainClient.getLazyRetriever());
+		this.mainClient = mainClient;
+	}
+
+	/**
+	 * Parses the content of the first attachment in the response.
+	 * @param reader - the reader positioned at the beginning of the response
+	 * @return the content or {@code null} if the response has no attachment data
+	 */
+	@Override
+	public InputStream parse(JsonStreamReader reader) throws JSONException, IOException {
+		try {
+			if (moveToResult(reader)) {
+				reader.beginObject();
+				if (moveToMember(reader, "attachments")) {
+					reader.beginObject();
+					while (reader.hasNext()) {
+						reader.nextName(); // attachment ID
+						reader.beginObject();
+						if (moveToMember(reader, "data")) {
+							return decode(reader);
+						}
+						reader.endObject();
+					}
+				}
+			}
+			return null;
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Decodes the data value the reader is positioned at.
+	 * @param reader - the reader
+	 * @return the decoded content
+	 * @throws JSONException when the value is not a string
+	 * @throws IOException when the value cannot be decoded
+	 */
+	protected InputStream decode(JsonStreamReader reader) throws JSONException, IOException {
+		SpoolOutputStream spool = new SpoolOutputStream(mainClient.getAttachmentSpoolThreshold());
+		try {
+			Writer out = new Base64DecodingWriter(spool);
+			reader.nextString(out);
+			out.close();
+			return spool.getInputStream();
+		} catch (IOException e) {
+			spool.discard();
+			throw e;
+		} catch (JSONException e) {
+			spool.discard();
+			throw e;
+		}
+	}
+}
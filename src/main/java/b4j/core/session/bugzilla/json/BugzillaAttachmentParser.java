@@ -17,6 +17,7 @@
  */
 package b4j.core.session.bugzilla.json;
 
+import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -39,7 +40,7 @@ import b4j.util.BugzillaUtils;
  * @since 2.0
  *
  */
-public class BugzillaAttachmentParser extends AbstractJsonParser implements JsonObjectParser<Iterable<Attachment>> {
+public class BugzillaAttachmentParser extends AbstractJsonParser implements JsonObjectParser<Iterable<Attachment>>, JsonStreamParser<Iterable<Attachment>> {
 
 	/**
 	 * Constructor.
@@ -66,6 +67,37 @@ public class BugzillaAttachmentParser extends AbstractJsonParser implements Json
 		return rc;
 	}
 
+	/**
+	 * Parses the attachments from the token stream.
+	 * Only a single attachment is held as JSON object at any time.
+	 * @param reader - the reader positioned at the beginning of the response
+	 * @return the attachments
+	 * @since 3.0.2
+	 */
+	@Override
+	public Iterable<Attachment> parse(JsonStreamReader reader) throws JSONException, IOException {
+		List<Attachment> rc = new ArrayList<Attachment>();
+		try {
+			if (moveToResult(reader)) {
+				reader.beginObject();
+				if (moveToMember(reader, "bugs")) {
+					reader.beginObject();
+					while (reader.hasNext()) {
+						reader.nextName(); // issue ID
+						reader.beginArray();
+						while (reader.hasNext()) {
+							rc.add(parseSingleAttachment(reader.readObject()));
+						}
+						reader.endArray();
+					}
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return rc;
+	}
+
 	public Attachment parseSingleAttachment(JSONObject json) throws JSONException {
 		DefaultAttachment rc = new DefaultAttachment(json.getString("bug_id"));
 		rc.setId(json.getString("id"));
@@ -77,7 +109,11 @@ public class BugzillaAttachmentParser extends AbstractJsonParser implements Json
 		}
 		rc.setDescription(description);
 		rc.setFilename(json.getString("file_name"));
-		rc.setContent(json.getInt("size"), json.getString("data"));
+		if (json.has("data")) {
+			rc.setContent(json.getInt("size"), json.getString("data"));
+		} else {
+			rc.setLength(json.getInt("size"));
+		}
 		rc.setType(json.getString("content_type"));
 		try {
 			rc.setDate(BugzillaUtils.parseDate(json.getString("last_change_time")));
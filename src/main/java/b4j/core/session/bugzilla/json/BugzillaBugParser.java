@@ -17,10 +17,15 @@
  */
 package b4j.core.session.bugzilla.json;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
@@ -40,11 +45,13 @@ import com.atlassian.jira.rest.client.internal.json.JsonObjectParser;
 
 /**
  * Parses the product for Bugzilla REST API.
+ * <p>Since V3.0.2 the parser can read bugs from a token stream. The bugs are then parsed
+ * one by one while the result is being iterated.</p>
  * @author ralph
  * @since 2.0
  *
  */
-public class BugzillaBugParser extends AbstractJsonParser implements JsonObjectParser<Iterable<Issue>> {
+public class BugzillaBugParser extends AbstractJsonParser implements JsonObjectParser<Iterable<Issue>>, JsonStreamParser<Iterable<Issue>> {
 
 	private AsyncBugzillaRestClient mainClient;
 	private ServerInfo serverInfo = null;
@@ -60,12 +67,7 @@ public class BugzillaBugParser extends AbstractJsonParser implements JsonObjectP
 
 	@Override
 	public Iterable<Issue> parse(JSONObject json) throws JSONException {
-		if ((serverInfo == null) && !serverInfoError) try {
-			serverInfo = mainClient.getMetadataClient().getServerInfo().get();
-		} catch (Exception e) {
-			LoggerFactory.getLogger(getClass()).error("Cannot retrieve server info. Issues will omit this information", e);
-			serverInfoError = true;
-		}
+		retrieveServerInfo();
 		
 		List<Issue> rc = new ArrayList<Issue>();
 		checkError(json); // Throws exception when error occurred
@@ -82,6 +84,45 @@ public class BugzillaBugParser extends AbstractJsonParser implements JsonObjectP
 		return rc;
 	}
 
+	/**
+	 * Parses the bugs from the token stream.
+	 * <p>The bugs are parsed while the result is being iterated. The result can be
+	 * iterated multiple times as parsed bugs are kept.</p>
+	 * @param reader - the reader positioned at the beginning of the response
+	 * @return the bugs
+	 * @since 3.0.2
+	 */
+	@Override
+	public Iterable<Issue> parse(JsonStreamReader reader) throws JSONException, IOException {
+		retrieveServerInfo();
+		boolean found = false;
+		try {
+			if (moveToResult(reader)) {
+				reader.beginObject();
+				if (moveToMember(reader, "bugs")) {
+					reader.beginArray();
+					found = true;
+					return new IssueStream(reader);
+				}
+			}
+			return Collections.<Issue>emptyList();
+		} finally {
+			if (!found) reader.close();
+		}
+	}
+
+	/**
+	 * Retrieves the server info once.
+	 */
+	private void retrieveServerInfo() {
+		if ((serverInfo == null) && !serverInfoError) try {
+			serverInfo = mainClient.getMetadataClient().getServerInfo().get();
+		} catch (Exception e) {
+			LoggerFactory.getLogger(getClass()).error("Cannot retrieve server info. Issues will omit this information", e);
+			serverInfoError = true;
+		}
+	}
+
 	public Issue parseSingleBug(JSONObject json) throws JSONException, ParseException {
 		DefaultIssue rc = new DefaultIssue();
 		LazyRetriever retriever = getLazyRetriever();
@@ -155,4 +196,99 @@ public class BugzillaBugParser extends AbstractJsonParser implements JsonObjectP
 		}
 		return rc;
 	}
+
+	/**
+	 * Parses bugs from a token stream on demand.
+	 * <p>The stream is closed when the last bug was parsed. Consumers that stop
+	 * iterating before shall {@link #close()} the stream to release the response.</p>
+	 * @author ralph
+	 * @since 3.0.2
+	 *
+	 */
+	protected class IssueStream implements Iterable<Issue>, Closeable {
+
+		private JsonStreamReader reader;
+		private List<Issue> issues = new ArrayList<Issue>();
+
+		/**
+		 * Constructor.
+		 * @param reader - the reader positioned inside the bugs array
+		 */
+		public IssueStream(JsonStreamReader reader) {
+			this.reader = reader;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Iterator<Issue> iterator() {
+			return new Iterator<Issue>() {
+
+				private int index = 0;
+
+				@Override
+				public boolean hasNext() {
+					return isAvailable(index);
+				}
+
+				@Override
+				public Issue next() {
+					if (!hasNext()) throw new NoSuchElementException();
+					return get(index++);
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		/**
+		 * Parses bugs until the given index is available or the stream ended.
+		 * @param index - the index required
+		 * @return {@code true} when the bug at given index exists
+		 */
+		protected synchronized boolean isAvailable(int index) {
+			while ((index >= issues.size()) && (reader != null)) {
+				try {
+					if (reader.hasNext()) {
+						Issue issue = parseSingleBug(reader.readObject());
+						if (issue != null) issues.add(issue);
+					} else {
+						close();
+					}
+				} catch (Exception e) {
+					close();
+					throw new RuntimeException("Cannot parse issues", e);
+				}
+			}
+			return index < issues.size();
+		}
+
+		/**
+		 * Returns the bug at the given index.
+		 * @param index - the index
+		 * @return the bug
+		 */
+		protected synchronized Issue get(int index) {
+			return issues.get(index);
+		}
+
+		/**
+		 * Closes the stream.
+		 * Bugs not yet parsed will not be available anymore.
+		 */
+		@Override
+		public synchronized void close() {
+			if (reader == null) return;
+			try {
+				reader.close();
+			} catch (IOException e) {
+				LoggerFactory.getLogger(getClass()).debug("Cannot close stream", e);
+			}
+			reader = null;
+		}
+	}
 }
@@ -17,6 +17,7 @@
  */
 package b4j.core.session.bugzilla.json;
 
+import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -39,7 +40,7 @@ import com.atlassian.jira.rest.client.internal.json.JsonObjectParser;
  * @since 2.0
  *
  */
-public class BugzillaCommentParser extends AbstractJsonParser implements JsonObjectParser<Iterable<Comment>> {
+public class BugzillaCommentParser extends AbstractJsonParser implements JsonObjectParser<Iterable<Comment>>, JsonStreamParser<Iterable<Comment>> {
 
 	/**
 	 * Constructor.
@@ -66,6 +67,41 @@ public class BugzillaCommentParser extends AbstractJsonParser implements JsonObj
 		return rc;
 	}
 
+	/**
+	 * Parses the comments from the token stream.
+	 * Only a single comment is held as JSON object at any time.
+	 * @param reader - the reader positioned at the beginning of the response
+	 * @return the comments
+	 * @since 3.0.2
+	 */
+	@Override
+	public Iterable<Comment> parse(JsonStreamReader reader) throws JSONException, IOException {
+		List<Comment> rc = new ArrayList<Comment>();
+		try {
+			if (moveToResult(reader)) {
+				reader.beginObject();
+				if (moveToMember(reader, "bugs")) {
+					reader.beginObject();
+					while (reader.hasNext()) {
+						reader.nextName(); // issue ID
+						reader.beginObject();
+						while (moveToMember(reader, "comments")) {
+							reader.beginArray();
+							while (reader.hasNext()) {
+								rc.add(parseSingleComment(reader.readObject()));
+							}
+							reader.endArray();
+						}
+						reader.endObject();
+					}
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return rc;
+	}
+
 	public Comment parseSingleComment(JSONObject json) throws JSONException {
 		DefaultComment rc = new DefaultComment(json.getString("bug_id"));
 		rc.setId(json.getString("id"));
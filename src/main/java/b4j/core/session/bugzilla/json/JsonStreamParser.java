@@ -0,0 +1,44 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.bugzilla.json;
+
+import java.io.IOException;
+
+import org.codehaus.jettison.json.JSONException;
+
+/**
+ * Parses a JSON response from a token stream.
+ * @author ralph
+ * @since 3.0.2
+ *
+ * @param <T> type of result
+ */
+public interface JsonStreamParser<T> {
+
+	/**
+	 * Parses the response.
+	 * <p>The parser is responsible for closing the reader. It may keep the reader
+	 * open when the result is consumed lazily.</p>
+	 * @param reader - the reader positioned at the beginning of the response
+	 * @return the result
+	 * @throws JSONException when the response is malformed or contains an error
+	 * @throws IOException when the response cannot be read
+	 */
+	public T parse(JsonStreamReader reader) throws JSONException, IOException;
+
+}
@@ -0,0 +1,594 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.bugzilla.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+/**
+ * Reads a JSON document token by token.
+ * <p>The reader does not build a tree of the document. Single values can be materialized
+ * by {@link #readObject()} or {@link #readValue()} when needed.</p>
+ * @author ralph
+ * @since 3.0.2
+ *
+ */
+public class JsonStreamReader implements Closeable {
+
+	/** The tokens of a JSON document */
+	public static enum Token {
+		BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+	}
+
+	private static final int EMPTY_DOCUMENT    = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_OBJECT      = 2;
+	private static final int NONEMPTY_OBJECT   = 3;
+	private static final int DANGLING_NAME     = 4;
+	private static final int EMPTY_ARRAY       = 5;
+	private static final int NONEMPTY_ARRAY    = 6;
+
+	private Reader reader;
+	private char buffer[] = new char[8192];
+	private int pos = 0;
+	private int limit = 0;
+	private long offset = 0;
+	private int stack[] = new int[32];
+	private int stackSize = 0;
+	private Token peeked = null;
+	private String value = null;
+	private boolean pendingString = false;
+	private StringBuilder builder = new StringBuilder();
+
+	/**
+	 * Constructor.
+	 * @param reader - the reader to read the document from
+	 */
+	public JsonStreamReader(Reader reader) {
+		this.reader = reader;
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * Returns the type of the next token without consuming it.
+	 * @return the next token
+	 * @throws JSONException when the document is malformed
+	 * @throws IOException when the document cannot be read
+	 */
+	public Token peek() throws JSONException, IOException {
+		if (peeked != null) return peeked;
+		int c;
+		switch (stack[stackSize-1]) {
+		case EMPTY_DOCUMENT:
+			stack[stackSize-1] = NONEMPTY_DOCUMENT;
+			return readValueToken(nextNonWhitespace());
+		case NONEMPTY_DOCUMENT:
+			c = nextNonWhitespace();
+			if (c != -1) throw syntaxError("Unexpected data after document");
+			peeked = Token.END_DOCUMENT;
+			return peeked;
+		case EMPTY_ARRAY:
+			stack[stackSize-1] = NONEMPTY_ARRAY;
+			c = nextNonWhitespace();
+			if (c == ']') {
+				stackSize--;
+				peeked = Token.END_ARRAY;
+				return peeked;
+			}
+			return readValueToken(c);
+		case NONEMPTY_ARRAY:
+			c = nextNonWhitespace();
+			if (c == ']') {
+				stackSize--;
+				peeked = Token.END_ARRAY;
+				return peeked;
+			}
+			if (c != ',') throw syntaxError("Expected , or ]");
+			return readValueToken(nextNonWhitespace());
+		case EMPTY_OBJECT:
+		case NONEMPTY_OBJECT:
+			c = nextNonWhitespace();
+			if (c == '}') {
+				stackSize--;
+				peeked = Token.END_OBJECT;
+				return peeked;
+			}
+			if (stack[stackSize-1] == NONEMPTY_OBJECT) {
+				if (c != ',') throw syntaxError("Expected , or }");
+				c = nextNonWhitespace();
+			}
+			if (c != '"') throw syntaxError("Expected name");
+			value = readString();
+			if (nextNonWhitespace() != ':') throw syntaxError("Expected :");
+			stack[stackSize-1] = DANGLING_NAME;
+			peeked = Token.NAME;
+			return peeked;
+		case DANGLING_NAME:
+			stack[stackSize-1] = NONEMPTY_OBJECT;
+			return readValueToken(nextNonWhitespace());
+		default:
+			throw new IllegalStateException("Illegal reader state");
+		}
+	}
+
+	/**
+	 * Returns whether the current object or array has more elements.
+	 * @return {@code true} when another element follows
+	 * @throws JSONException when the document is malformed
+	 * @throws IOException when the document cannot be read
+	 */
+	public boolean hasNext() throws JSONException, IOException {
+		Token t = peek();
+		return (t != Token.END_OBJECT) && (t != Token.END_ARRAY) && (t != Token.END_DOCUMENT);
+	}
+
+	/**
+	 * Consumes the beginning of an object.
+	 * @throws JSONException when the next token is not the beginning of an object
+	 * @throws IOException when the document cannot be read
+	 */
+	public void beginObject() throws JSONException, IOException {
+		consume(Token.BEGIN_OBJECT);
+		push(EMPTY_OBJECT);
+	}
+
+	/**
+	 * Consumes the end of an object.
+	 * @throws JSONException when the next token is not the end of an object
+	 * @throws IOException when the document cannot be read
+	 */
+	public void endObject() throws JSONException, IOException {
+		consume(Token.END_OBJECT);
+	}
+
+	/**
+	 * Consumes the beginning of an array.
+	 * @throws JSONException when the next token is not the beginning of an array
+	 * @throws IOException when the document cannot be read
+	 */
+	public void beginArray() throws JSONException, IOException {
+		consume(Token.BEGIN_ARRAY);
+		push(EMPTY_ARRAY);
+	}
+
+	/**
+	 * Consumes the end of an array.
+	 * @throws JSONException when the next token is not the end of an array
+	 * @throws IOException when the document cannot be read
+	 */
+	public void endArray() throws JSONException, IOException {
+		consume(Token.END_ARRAY);
+	}
+
+	/**
+	 * Consumes the next member name.
+	 * @return the name
+	 * @throws JSONException when the next token is not a name
+	 * @throws IOException when the document cannot be read
+	 */
+	public String nextName() throws JSONException, IOException {
+		consume(Token.NAME);
+		return value;
+	}
+
+	/**
+	 * Consumes the next string, number or boolean value.
+	 * @return the value as string
+	 * @throws JSONException when the next token is no such value
+	 * @throws IOException when the document cannot be read
+	 */
+	public String nextString() throws JSONException, IOException {
+		Token t = peek();
+		if ((t != Token.STRING) && (t != Token.NUMBER) && (t != Token.BOOLEAN)) throw syntaxError("Expected string but was "+t);
+		if (pendingString) {
+			value = readString();
+			pendingString = false;
+		}
+		peeked = null;
+		return value;
+	}
+
+	/**
+	 * Consumes the next string, number or boolean value and copies it into the writer.
+	 * <p>Strings are copied without being materialized which allows large values
+	 * to be processed as a stream.</p>
+	 * @param out - the writer receiving the value
+	 * @throws JSONException when the next token is no such value
+	 * @throws IOException when the document cannot be read or the value cannot be written
+	 * @since 3.0.2
+	 */
+	public void nextString(Writer out) throws JSONException, IOException {
+		if (peek() == Token.STRING) {
+			copyString(out);
+			pendingString = false;
+			peeked = null;
+		} else {
+			out.write(nextString());
+		}
+	}
+
+	/**
+	 * Consumes the next boolean value.
+	 * @return the value
+	 * @throws JSONException when the next token is not a boolean
+	 * @throws IOException when the document cannot be read
+	 */
+	public boolean nextBoolean() throws JSONException, IOException {
+		consume(Token.BOOLEAN);
+		return "true".equals(value);
+	}
+
+	/**
+	 * Consumes the next number (or numeric string) as long.
+	 * @return the value
+	 * @throws JSONException when the next token is not a number
+	 * @throws IOException when the document cannot be read
+	 */
+	public long nextLong() throws JSONException, IOException {
+		String s = nextString();
+		try {
+			return Long.parseLong(s);
+		} catch (NumberFormatException e) {
+			throw syntaxError("Expected long but was "+s);
+		}
+	}
+
+	/**
+	 * Consumes the next {@code null} value.
+	 * @throws JSONException when the next token is not {@code null}
+	 * @throws IOException when the document cannot be read
+	 */
+	public void nextNull() throws JSONException, IOException {
+		consume(Token.NULL);
+	}
+
+	/**
+	 * Skips the next value including all nested values.
+	 * A member name will be skipped along with its value.
+	 * @throws JSONException when the document is malformed
+	 * @throws IOException when the document cannot be read
+	 */
+	public void skipValue() throws JSONException, IOException {
+		if (peek() == Token.NAME) nextName();
+		int depth = 0;
+		do {
+			Token t = peek();
+			switch (t) {
+			case BEGIN_OBJECT: beginObject(); depth++; break;
+			case BEGIN_ARRAY:  beginArray(); depth++; break;
+			case END_OBJECT:   endObject(); depth--; break;
+			case END_ARRAY:    endArray(); depth--; break;
+			case END_DOCUMENT: throw syntaxError("Unexpected end of document");
+			default:
+				if (pendingString) {
+					copyString(null);
+					pendingString = false;
+				}
+				peeked = null;
+				break;
+			}
+		} while (depth > 0);
+	}
+
+	/**
+	 * Reads the next object completely.
+	 * @return the object
+	 * @throws JSONException when the next token is not the beginning of an object
+	 * @throws IOException when the document cannot be read
+	 */
+	public JSONObject readObject() throws JSONException, IOException {
+		JSONObject rc = new JSONObject();
+		beginObject();
+		while (hasNext()) {
+			String name = nextName();
+			rc.put(name, readValue());
+		}
+		endObject();
+		return rc;
+	}
+
+	/**
+	 * Reads the next value completely.
+	 * <p>Objects and arrays are returned as {@link JSONObject} and {@link JSONArray},
+	 * {@code null} is returned as {@link JSONObject#NULL}.</p>
+	 * @return the value
+	 * @throws JSONException when the document is malformed
+	 * @throws IOException when the document cannot be read
+	 */
+	public Object readValue() throws JSONException, IOException {
+		switch (peek()) {
+		case BEGIN_OBJECT:
+			return readObject();
+		case BEGIN_ARRAY:
+			JSONArray rc = new JSONArray();
+			beginArray();
+			while (hasNext()) rc.put(readValue());
+			endArray();
+			return rc;
+		case STRING:
+			return nextString();
+		case NUMBER:
+			String s = nextString();
+			if ((s.indexOf('.') < 0) && (s.indexOf('e') < 0) && (s.indexOf('E') < 0)) try {
+				return Long.valueOf(s);
+			} catch (NumberFormatException e) {
+				// Fall through to double
+			}
+			return Double.valueOf(s);
+		case BOOLEAN:
+			return Boolean.valueOf(nextBoolean());
+		case NULL:
+			nextNull();
+			return JSONObject.NULL;
+		default:
+			throw syntaxError("Expected value but was "+peek());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException {
+		peeked = Token.END_DOCUMENT;
+		pendingString = false;
+		stackSize = 1;
+		stack[0] = NONEMPTY_DOCUMENT;
+		reader.close();
+	}
+
+	/**
+	 * Consumes the expected token.
+	 * @param expected - the expected token
+	 * @throws JSONException when another token is found
+	 * @throws IOException when the document cannot be read
+	 */
+	private void consume(Token expected) throws JSONException, IOException {
+		Token t = peek();
+		if (t != expected) throw syntaxError("Expected "+expected+" but was "+t);
+		peeked = null;
+	}
+
+	/**
+	 * Reads the token of the value starting with given character.
+	 * @param c - the first character of the value
+	 * @return the token
+	 * @throws JSONException when no value starts here
+	 * @throws IOException when the document cannot be read
+	 */
+	private Token readValueToken(int c) throws JSONException, IOException {
+		switch (c) {
+		case '{':
+			peeked = Token.BEGIN_OBJECT;
+			break;
+		case '[':
+			peeked = Token.BEGIN_ARRAY;
+			break;
+		case '"':
+			// Strings are read when consumed
+			value = null;
+			pendingString = true;
+			peeked = Token.STRING;
+			break;
+		case 't':
+			readLiteral("rue");
+			value = "true";
+			peeked = Token.BOOLEAN;
+			break;
+		case 'f':
+			readLiteral("alse");
+			value = "false";
+			peeked = Token.BOOLEAN;
+			break;
+		case 'n':
+			readLiteral("ull");
+			value = null;
+			peeked = Token.NULL;
+			break;
+		case -1:
+			throw syntaxError("Unexpected end of document");
+		default:
+			if ((c == '-') || ((c >= '0') && (c <= '9'))) {
+				value = readNumber((char)c);
+				peeked = Token.NUMBER;
+			} else {
+				throw syntaxError("Unexpected character "+(char)c);
+			}
+		}
+		return peeked;
+	}
+
+	/**
+	 * Reads the remainder of a literal.
+	 * @param rest - the expected characters
+	 * @throws JSONException when the literal does not match
+	 * @throws IOException when the document cannot be read
+	 */
+	private void readLiteral(String rest) throws JSONException, IOException {
+		for (int i=0; i<rest.length(); i++) {
+			if (read() != rest.charAt(i)) throw syntaxError("Invalid literal");
+		}
+	}
+
+	/**
+	 * Reads a number.
+	 * @param first - the first character of the number
+	 * @return the number as string
+	 * @throws IOException when the document cannot be read
+	 */
+	private String readNumber(char first) throws IOException {
+		builder.setLength(0);
+		builder.append(first);
+		while (true) {
+			if ((pos == limit) && !fill()) break;
+			char c = buffer[pos];
+			if (((c >= '0') && (c <= '9')) || (c == '-') || (c == '+') || (c == '.') || (c == 'e') || (c == 'E')) {
+				builder.append(c);
+				pos++;
+			} else {
+				break;
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Reads a string whose opening quote was consumed already.
+	 * @return the unescaped string
+	 * @throws JSONException when the string is malformed
+	 * @throws IOException when the document cannot be read
+	 */
+	private String readString() throws JSONException, IOException {
+		builder.setLength(0);
+		while (true) {
+			if ((pos == limit) && !fill()) throw syntaxError("Unterminated string");
+			int start = pos;
+			while (pos < limit) {
+				char c = buffer[pos++];
+				if (c == '"') {
+					builder.append(buffer, start, pos-start-1);
+					return builder.toString();
+				} else if (c == '\\') {
+					builder.append(buffer, start, pos-start-1);
+					builder.append(readEscape());
+					start = pos;
+				}
+			}
+			builder.append(buffer, start, pos-start);
+		}
+	}
+
+	/**
+	 * Copies a string whose opening quote was consumed already.
+	 * @param out - the writer receiving the unescaped string, {@code null} to skip the string
+	 * @throws JSONException when the string is malformed
+	 * @throws IOException when the document cannot be read or the string cannot be written
+	 */
+	private void copyString(Writer out) throws JSONException, IOException {
+		while (true) {
+			if ((pos == limit) && !fill()) throw syntaxError("Unterminated string");
+			int start = pos;
+			while (pos < limit) {
+				char c = buffer[pos++];
+				if (c == '"') {
+					if (out != null) out.write(buffer, start, pos-start-1);
+					return;
+				} else if (c == '\\') {
+					if (out != null) out.write(buffer, start, pos-start-1);
+					char e = readEscape();
+					if (out != null) out.write(e);
+					start = pos;
+				}
+			}
+			if (out != null) out.write(buffer, start, pos-start);
+		}
+	}
+
+	/**
+	 * Reads an escape sequence whose backslash was consumed already.
+	 * @return the character
+	 * @throws JSONException when the sequence is invalid
+	 * @throws IOException when the document cannot be read
+	 */
+	private char readEscape() throws JSONException, IOException {
+		int c = read();
+		switch (c) {
+		case 'b': return '\b';
+		case 'f': return '\f';
+		case 'n': return '\n';
+		case 'r': return '\r';
+		case 't': return '\t';
+		case '"':
+		case '\\':
+		case '/':
+			return (char)c;
+		case 'u':
+			int rc = 0;
+			for (int i=0; i<4; i++) {
+				int d = Character.digit(read(), 16);
+				if (d < 0) throw syntaxError("Invalid unicode escape");
+				rc = (rc << 4) + d;
+			}
+			return (char)rc;
+		default:
+			throw syntaxError("Invalid escape sequence");
+		}
+	}
+
+	/**
+	 * Returns the next character that is not whitespace.
+	 * @return the character or -1 at end of document
+	 * @throws IOException when the document cannot be read
+	 */
+	private int nextNonWhitespace() throws IOException {
+		while (true) {
+			int c = read();
+			if ((c != ' ') && (c != '\t') && (c != '\n') && (c != '\r')) return c;
+		}
+	}
+
+	/**
+	 * Reads the next character.
+	 * @return the character or -1 at end of document
+	 * @throws IOException when the document cannot be read
+	 */
+	private int read() throws IOException {
+		if ((pos == limit) && !fill()) return -1;
+		return buffer[pos++];
+	}
+
+	/**
+	 * Fills the buffer.
+	 * @return {@code false} when the end of document was reached
+	 * @throws IOException when the document cannot be read
+	 */
+	private boolean fill() throws IOException {
+		offset += limit;
+		pos = 0;
+		limit = 0;
+		int n = reader.read(buffer, 0, buffer.length);
+		if (n <= 0) return false;
+		limit = n;
+		return true;
+	}
+
+	/**
+	 * Pushes a new state onto the stack.
+	 * @param state - the state
+	 */
+	private void push(int state) {
+		if (stackSize == stack.length) stack = Arrays.copyOf(stack, stackSize*2);
+		stack[stackSize++] = state;
+	}
+
+	/**
+	 * Creates an exception with current position.
+	 * @param message - the message
+	 * @return the exception
+	 */
+	private JSONException syntaxError(String message) {
+		return new JSONException(message+" at position "+(offset+pos));
+	}
+}
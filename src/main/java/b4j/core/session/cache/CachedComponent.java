@@ -0,0 +1,118 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.cache;
+
+import b4j.core.AbstractBugzillaObject;
+import b4j.core.Component;
+import b4j.core.Project;
+
+/**
+ * A cached {@link Component}.
+ * @author ralph
+ * @since 3.0.2
+ */
+public class CachedComponent extends AbstractBugzillaObject implements Component {
+
+	private Project project;
+	private String id;
+	private String name;
+	private String description;
+
+	/**
+	 * Constructor.
+	 * @param project - the project
+	 * @param id - the ID
+	 * @param name - the name
+	 * @param description - the description
+	 */
+	public CachedComponent(Project project, String id, String name, String description) {
+		this.project = project;
+		this.id = id;
+		this.name = name;
+		this.description = description;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Project getProject() {
+		return project;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((getName() == null) ? 0 : getName().hashCode());
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		CachedComponent other = (CachedComponent) obj;
+		if (getName() == null) {
+			if (other.getName() != null) return false;
+		} else if (!getName().equals(other.getName())) return false;
+		if (getProject() == null) {
+			if (other.getProject() != null) return false;
+		} else if (!getProject().equals(other.getProject())) return false;
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.cache;
+
+import b4j.core.AbstractBugzillaObject;
+import b4j.core.IssueType;
+import b4j.core.Priority;
+import b4j.core.Severity;
+
+/**
+ * A cached object that is identified by its name only.
+ * <p>Used for {@link IssueType}s, {@link Priority}s and {@link Severity}s restored from the issue cache.</p>
+ * @author ralph
+ * @since 3.0.2
+ */
+public class CachedNamedObject extends AbstractBugzillaObject implements IssueType, Priority, Severity {
+
+	private String name;
+
+	/**
+	 * Constructor.
+	 * @param name - the name
+	 */
+	public CachedNamedObject(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((getName() == null) ? 0 : getName().hashCode());
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		CachedNamedObject other = (CachedNamedObject) obj;
+		if (getName() == null) {
+			if (other.getName() != null) return false;
+		} else if (!getName().equals(other.getName())) return false;
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
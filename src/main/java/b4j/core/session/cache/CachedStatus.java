@@ -0,0 +1,173 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.cache;
+
+import b4j.core.AbstractBugzillaObject;
+import b4j.core.Resolution;
+import b4j.core.Status;
+
+/**
+ * A cached {@link Status} or {@link Resolution}.
+ * <p>The state flags are taken from the original object when the issue was stored.</p>
+ * @author ralph
+ * @since 3.0.2
+ */
+public class CachedStatus extends AbstractBugzillaObject implements Status, Resolution {
+
+	/** Flag for open status */
+	public static final int OPEN = 1;
+	/** Flag for resolved status */
+	public static final int RESOLVED = 2;
+	/** Flag for cancelled status */
+	public static final int CANCELLED = 4;
+	/** Flag for closed status */
+	public static final int CLOSED = 8;
+	/** Flag for duplicate status */
+	public static final int DUPLICATE = 16;
+
+	private String name;
+	private int flags;
+
+	/**
+	 * Constructor.
+	 * @param name - the name
+	 * @param flags - the state flags
+	 */
+	public CachedStatus(String name, int flags) {
+		this.name = name;
+		this.flags = flags;
+	}
+
+	/**
+	 * Returns the state flags of the given status.
+	 * @param status - the status
+	 * @return the state flags
+	 */
+	public static int getFlags(Status status) {
+		int rc = 0;
+		if (status.isOpen()) rc |= OPEN;
+		if (status.isResolved()) rc |= RESOLVED;
+		if (status.isCancelled()) rc |= CANCELLED;
+		if (status.isClosed()) rc |= CLOSED;
+		if (status.isDuplicate()) rc |= DUPLICATE;
+		return rc;
+	}
+
+	/**
+	 * Returns the state flags of the given resolution.
+	 * @param resolution - the resolution
+	 * @return the state flags
+	 */
+	public static int getFlags(Resolution resolution) {
+		int rc = 0;
+		if (resolution.isResolved()) rc |= RESOLVED;
+		if (resolution.isCancelled()) rc |= CANCELLED;
+		if (resolution.isDuplicate()) rc |= DUPLICATE;
+		return rc;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the state flags.
+	 * @return the state flags
+	 */
+	public int getFlags() {
+		return flags;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isOpen() {
+		return (flags & OPEN) != 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isResolved() {
+		return (flags & RESOLVED) != 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isCancelled() {
+		return (flags & CANCELLED) != 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isClosed() {
+		return (flags & CLOSED) != 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isDuplicate() {
+		return (flags & DUPLICATE) != 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((getName() == null) ? 0 : getName().hashCode());
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		CachedStatus other = (CachedStatus) obj;
+		if (getName() == null) {
+			if (other.getName() != null) return false;
+		} else if (!getName().equals(other.getName())) return false;
+		return flags == other.flags;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
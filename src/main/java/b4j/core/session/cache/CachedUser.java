@@ -0,0 +1,121 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.cache;
+
+import b4j.core.AbstractBugzillaObject;
+import b4j.core.Team;
+import b4j.core.User;
+
+/**
+ * A cached {@link User}.
+ * @author ralph
+ * @since 3.0.2
+ */
+public class CachedUser extends AbstractBugzillaObject implements User {
+
+	private String id;
+	private String name;
+	private String realName;
+	private Team team;
+
+	/**
+	 * Constructor.
+	 * @param id - the ID
+	 * @param name - the name
+	 * @param realName - the real name
+	 */
+	public CachedUser(String id, String name, String realName) {
+		this.id = id;
+		this.name = name;
+		this.realName = realName;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getRealName() {
+		return realName;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Team getTeam() {
+		return team;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setTeam(Team team) {
+		this.team = team;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((getName() == null) ? 0 : getName().hashCode());
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		CachedUser other = (CachedUser) obj;
+		if (getName() == null) {
+			if (other.getName() != null) return false;
+		} else if (!getName().equals(other.getName())) return false;
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
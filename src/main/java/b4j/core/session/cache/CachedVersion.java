@@ -0,0 +1,120 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.cache;
+
+import java.util.Date;
+
+import b4j.core.AbstractBugzillaObject;
+import b4j.core.Project;
+import b4j.core.Version;
+
+/**
+ * A cached {@link Version}.
+ * @author ralph
+ * @since 3.0.2
+ */
+public class CachedVersion extends AbstractBugzillaObject implements Version {
+
+	private Project project;
+	private Long id;
+	private String name;
+	private Date releaseDate;
+
+	/**
+	 * Constructor.
+	 * @param project - the project
+	 * @param id - the ID
+	 * @param name - the name
+	 * @param releaseDate - the release date
+	 */
+	public CachedVersion(Project project, Long id, String name, Date releaseDate) {
+		this.project = project;
+		this.id = id;
+		this.name = name;
+		this.releaseDate = releaseDate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Project getProject() {
+		return project;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Date getReleaseDate() {
+		return releaseDate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((getName() == null) ? 0 : getName().hashCode());
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		CachedVersion other = (CachedVersion) obj;
+		if (getName() == null) {
+			if (other.getName() != null) return false;
+		} else if (!getName().equals(other.getName())) return false;
+		if (getProject() == null) {
+			if (other.getProject() != null) return false;
+		} else if (!getProject().equals(other.getProject())) return false;
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
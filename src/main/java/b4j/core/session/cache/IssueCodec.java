@@ -0,0 +1,531 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import rs.baselib.util.RsDate;
+import b4j.core.Attachment;
+import b4j.core.Classification;
+import b4j.core.Comment;
+import b4j.core.Component;
+import b4j.core.DefaultAttachment;
+import b4j.core.DefaultClassification;
+import b4j.core.DefaultComment;
+import b4j.core.DefaultIssue;
+import b4j.core.DefaultLink;
+import b4j.core.Issue;
+import b4j.core.IssueLink;
+import b4j.core.Project;
+import b4j.core.Resolution;
+import b4j.core.Status;
+import b4j.core.User;
+import b4j.core.Version;
+
+/**
+ * Writes and reads issues in the binary format of the issue cache.
+ * <p>All referenced objects are resolved when an issue is written. Issues being read
+ * are therefore independent of any session. Equal referenced objects, e.g. users and states,
+ * are shared between the issues read by the same codec. The number of objects kept for sharing
+ * is limited, the least recently used objects are dropped first.</p>
+ * <p>Dates keep their time zone. Dates of the first format version are read in UTC
+ * which is the time zone of issues parsed from Bugzilla.</p>
+ * @author ralph
+ * @since 3.0.2
+ */
+public class IssueCodec {
+
+	/** The version of the binary format */
+	public static final int FORMAT_VERSION = 2;
+	/** The default number of objects kept for sharing */
+	public static final int DEFAULT_POOL_SIZE = 10000;
+
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+	private static final int TYPE_NULL    = 0;
+	private static final int TYPE_STRING  = 1;
+	private static final int TYPE_LONG    = 2;
+	private static final int TYPE_INTEGER = 3;
+	private static final int TYPE_BOOLEAN = 4;
+	private static final int TYPE_DOUBLE  = 5;
+	private static final int TYPE_DATE    = 6;
+	private static final int TYPE_LIST    = 7;
+
+	private Map<String,Object> pool;
+	private Map<String,TimeZone> timeZones = new HashMap<String,TimeZone>();
+	private int readVersion = FORMAT_VERSION;
+
+	/**
+	 * Constructor.
+	 */
+	public IssueCodec() {
+		this(DEFAULT_POOL_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 * @param poolSize - the maximum number of objects kept for sharing
+	 */
+	public IssueCodec(final int poolSize) {
+		pool = new LinkedHashMap<String,Object>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String,Object> eldest) {
+				return size() > poolSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of objects kept for sharing.
+	 * @return the number of objects
+	 */
+	public synchronized int getPoolSize() {
+		return pool.size();
+	}
+
+	/**
+	 * Writes the issue.
+	 * @param issue - the issue to be written
+	 * @param out - the output
+	 * @throws IOException - when writing fails
+	 */
+	public void write(Issue issue, DataOutput out) throws IOException {
+		out.writeInt(FORMAT_VERSION);
+		writeString(out, issue.getId());
+		writeString(out, issue.getParentId());
+		writeString(out, issue.getUri());
+		writeString(out, issue.getServerUri());
+		writeString(out, issue.getServerVersion());
+		writeString(out, issue.getSummary());
+		writeString(out, issue.getDescription());
+		writeDate(out, issue.getCreationTimestamp());
+		writeDate(out, issue.getUpdateTimestamp());
+		writeString(out, issue.getType() != null ? issue.getType().getName() : null);
+		Classification classification = issue.getClassification();
+		out.writeBoolean(classification != null);
+		if (classification != null) {
+			writeString(out, classification.getId());
+			writeString(out, classification.getName());
+			writeString(out, classification.getDescription());
+		}
+		Project project = issue.getProject();
+		out.writeBoolean(project != null);
+		if (project != null) {
+			writeString(out, project.getId());
+			writeString(out, project.getName());
+			writeString(out, project.getDescription());
+		}
+		Collection<Component> components = issue.getComponents();
+		out.writeInt(components.size());
+		for (Component c : components) {
+			writeString(out, c.getId());
+			writeString(out, c.getName());
+			writeString(out, c.getDescription());
+		}
+		writeVersions(out, issue.getAffectedVersions());
+		writeVersions(out, issue.getPlannedVersions());
+		writeVersions(out, issue.getFixVersions());
+		Status status = issue.getStatus();
+		writeString(out, status != null ? status.getName() : null);
+		if (status != null) out.writeInt(CachedStatus.getFlags(status));
+		Resolution resolution = issue.getResolution();
+		writeString(out, resolution != null ? resolution.getName() : null);
+		if (resolution != null) out.writeInt(CachedStatus.getFlags(resolution));
+		writeString(out, issue.getPriority() != null ? issue.getPriority().getName() : null);
+		writeString(out, issue.getSeverity() != null ? issue.getSeverity().getName() : null);
+		writeUser(out, issue.getReporter());
+		writeUser(out, issue.getAssignee());
+
+		Collection<Comment> comments = issue.getComments();
+		out.writeInt(comments.size());
+		for (Comment c : comments) {
+			writeString(out, c.getId());
+			writeUser(out, c.getAuthor());
+			writeUser(out, c.getUpdateAuthor());
+			writeDate(out, c.getCreationTimestamp());
+			writeDate(out, c.getUpdateTimestamp());
+			writeString(out, c.getTheText());
+			Collection<String> attachments = c.getAttachments();
+			out.writeInt(attachments != null ? attachments.size() : 0);
+			if (attachments != null) {
+				for (String s : attachments) writeString(out, s);
+			}
+		}
+
+		Collection<Attachment> attachments = issue.getAttachments();
+		out.writeInt(attachments.size());
+		for (Attachment a : attachments) {
+			writeString(out, a.getId());
+			writeDate(out, a.getDate());
+			writeString(out, a.getDescription());
+			writeString(out, a.getFilename());
+			writeString(out, a.getType());
+			writeString(out, a.getUri() != null ? a.getUri().toString() : null);
+			out.writeInt(a instanceof DefaultAttachment ? ((DefaultAttachment)a).getLength() : -1);
+		}
+
+		Collection<IssueLink> links = issue.getLinks();
+		out.writeInt(links.size());
+		for (IssueLink l : links) {
+			writeString(out, l.getLinkType() != null ? l.getLinkType().name() : null);
+			writeString(out, l.getLinkTypeName());
+			out.writeBoolean(l.isInward());
+			writeString(out, l.getLinkTypeDescription());
+			writeString(out, l.getIssueId());
+		}
+
+		Collection<Issue> children = issue.getChildren();
+		out.writeInt(children.size());
+		for (Issue child : children) writeString(out, child.getId());
+
+		// Custom fields, the names of lazily resolved objects are not required anymore
+		List<String> keys = new ArrayList<String>();
+		for (String key : issue.getCustomFieldNames()) {
+			if (key.endsWith("_name") || key.endsWith("_id")) continue;
+			if (isSupported(issue.get(key))) keys.add(key);
+		}
+		out.writeInt(keys.size());
+		for (String key : keys) {
+			writeString(out, key);
+			writeValue(out, issue.get(key));
+		}
+	}
+
+	/**
+	 * Reads an issue.
+	 * @param in - the input
+	 * @param childIds - receives the IDs of child issues
+	 * @return the issue
+	 * @throws IOException - when reading fails or the format is not supported
+	 */
+	public synchronized DefaultIssue read(DataInput in, List<String> childIds) throws IOException {
+		int version = in.readInt();
+		if ((version < 1) || (version > FORMAT_VERSION)) throw new IOException("Unsupported cache format: "+version);
+		readVersion = version;
+		DefaultIssue rc = new DefaultIssue();
+		rc.setId(readString(in));
+		rc.setParentId(readString(in));
+		rc.setUri(readString(in));
+		rc.setServerUri(readString(in));
+		rc.setServerVersion(readString(in));
+		rc.setSummary(readString(in));
+		rc.setDescription(readString(in));
+		rc.setCreationTimestamp(readDate(in));
+		rc.setUpdateTimestamp(readDate(in));
+		String s = readString(in);
+		if (s != null) rc.setType(share(new CachedNamedObject(s), "type", s));
+		if (in.readBoolean()) {
+			String id = readString(in);
+			String name = readString(in);
+			String description = readString(in);
+			rc.setClassification(share(new DefaultClassification(id, name, description), "classification", id, name, description));
+		}
+		Project project = null;
+		if (in.readBoolean()) {
+			String id = readString(in);
+			String name = readString(in);
+			String description = readString(in);
+			project = share(new CachedProject(id, name, description), "project", id, name, description);
+			rc.setProject(project);
+		}
+		int n = in.readInt();
+		for (int i=0; i<n; i++) {
+			String id = readString(in);
+			String name = readString(in);
+			String description = readString(in);
+			rc.addComponents(share(new CachedComponent(project, id, name, description), "component", project != null ? project.getName() : null, id, name, description));
+		}
+		rc.addAffectedVersions(readVersions(in, project));
+		rc.addPlannedVersions(readVersions(in, project));
+		rc.addFixVersions(readVersions(in, project));
+		s = readString(in);
+		if (s != null) {
+			int flags = in.readInt();
+			rc.setStatus(share(new CachedStatus(s, flags), "status", s, Integer.toString(flags)));
+		}
+		s = readString(in);
+		if (s != null) {
+			int flags = in.readInt();
+			rc.setResolution(share(new CachedStatus(s, flags), "resolution", s, Integer.toString(flags)));
+		}
+		s = readString(in);
+		if (s != null) rc.setPriority(share(new CachedNamedObject(s), "priority", s));
+		s = readString(in);
+		if (s != null) rc.setSeverity(share(new CachedNamedObject(s), "severity", s));
+		rc.setReporter(readUser(in));
+		rc.setAssignee(readUser(in));
+
+		n = in.readInt();
+		List<Comment> comments = new ArrayList<Comment>(n);
+		for (int i=0; i<n; i++) {
+			DefaultComment c = new DefaultComment(rc.getId());
+			c.setId(readString(in));
+			c.setAuthor(readUser(in));
+			c.setUpdateAuthor(readUser(in));
+			c.setCreationTimestamp(readDate(in));
+			c.setUpdateTimestamp(readDate(in));
+			c.setTheText(readString(in));
+			int m = in.readInt();
+			for (int j=0; j<m; j++) c.addAttachments(readString(in));
+			comments.add(c);
+		}
+		rc.addComments(comments);
+
+		n = in.readInt();
+		List<Attachment> attachments = new ArrayList<Attachment>(n);
+		for (int i=0; i<n; i++) {
+			DefaultAttachment a = new DefaultAttachment(rc.getId());
+			a.setId(readString(in));
+			a.setDate(readDate(in));
+			a.setDescription(readString(in));
+			a.setFilename(readString(in));
+			a.setType(readString(in));
+			s = readString(in);
+			if (s != null) {
+				try {
+					a.setUri(new URI(s));
+				} catch (URISyntaxException e) {
+					throw new IOException("Invalid attachment URI: "+s, e);
+				}
+			}
+			int length = in.readInt();
+			if (length >= 0) a.setLength(length);
+			attachments.add(a);
+		}
+		rc.addAttachments(attachments);
+
+		n = in.readInt();
+		for (int i=0; i<n; i++) {
+			s = readString(in);
+			IssueLink.Type type = s != null ? IssueLink.Type.valueOf(s) : null;
+			String typeName = readString(in);
+			boolean inward = in.readBoolean();
+			String typeDescription = readString(in);
+			rc.addLinks(new DefaultLink(type, typeName, inward, typeDescription, readString(in)));
+		}
+
+		n = in.readInt();
+		for (int i=0; i<n; i++) {
+			s = readString(in);
+			if (childIds != null) childIds.add(s);
+		}
+
+		n = in.readInt();
+		for (int i=0; i<n; i++) {
+			String key = readString(in);
+			rc.set(key, readValue(in));
+		}
+		return rc;
+	}
+
+	/**
+	 * Returns an equal object that was read before or registers the given object.
+	 * @param o - the object read
+	 * @param keys - the identifying values of the object
+	 * @return the shared object
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T share(T o, String... keys) {
+		StringBuilder key = new StringBuilder();
+		for (String s : keys) key.append(s).append('\u0000');
+		String k = key.toString();
+		Object rc = pool.get(k);
+		if (rc == null) {
+			pool.put(k, o);
+			return o;
+		}
+		return (T)rc;
+	}
+
+	private void writeVersions(DataOutput out, Collection<Version> versions) throws IOException {
+		out.writeInt(versions.size());
+		for (Version v : versions) {
+			out.writeBoolean(v.getId() != null);
+			if (v.getId() != null) out.writeLong(v.getId().longValue());
+			writeString(out, v.getName());
+			writeDate(out, v.getReleaseDate());
+		}
+	}
+
+	private List<Version> readVersions(DataInput in, Project project) throws IOException {
+		int n = in.readInt();
+		List<Version> rc = new ArrayList<Version>(n);
+		for (int i=0; i<n; i++) {
+			Long id = in.readBoolean() ? Long.valueOf(in.readLong()) : null;
+			String name = readString(in);
+			RsDate releaseDate = readDate(in);
+			rc.add(share(new CachedVersion(project, id, name, releaseDate), "version", project != null ? project.getName() : null, name));
+		}
+		return rc;
+	}
+
+	private void writeUser(DataOutput out, User user) throws IOException {
+		out.writeBoolean(user != null);
+		if (user != null) {
+			writeString(out, user.getId());
+			writeString(out, user.getName());
+			writeString(out, user.getRealName());
+		}
+	}
+
+	private User readUser(DataInput in) throws IOException {
+		if (!in.readBoolean()) return null;
+		String id = readString(in);
+		String name = readString(in);
+		String realName = readString(in);
+		return share(new CachedUser(id, name, realName), "user", id, name, realName);
+	}
+
+	private void writeString(DataOutput out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+		} else {
+			byte bytes[] = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private String readString(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) return null;
+		byte bytes[] = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private void writeDate(DataOutput out, Date date) throws IOException {
+		out.writeBoolean(date != null);
+		if (date != null) writeTime(out, date);
+	}
+
+	private RsDate readDate(DataInput in) throws IOException {
+		if (!in.readBoolean()) return null;
+		return readTime(in);
+	}
+
+	private void writeTime(DataOutput out, Date date) throws IOException {
+		out.writeLong(date.getTime());
+		writeString(out, date instanceof RsDate ? ((RsDate)date).getTimeZone().getID() : null);
+	}
+
+	private RsDate readTime(DataInput in) throws IOException {
+		long millis = in.readLong();
+		TimeZone timeZone = UTC;
+		if (readVersion > 1) {
+			String id = readString(in);
+			if (id != null) {
+				timeZone = timeZones.get(id);
+				if (timeZone == null) {
+					timeZone = TimeZone.getTimeZone(id);
+					timeZones.put(id, timeZone);
+				}
+			}
+		}
+		return new RsDate(timeZone, millis);
+	}
+
+	/**
+	 * Returns whether the custom field value can be stored.
+	 * @param value - the value
+	 * @return <code>true</code> when value is supported
+	 */
+	private boolean isSupported(Object value) {
+		if ((value == null) || (value instanceof String) || (value instanceof Long) || (value instanceof Integer)
+				|| (value instanceof Boolean) || (value instanceof Double) || (value instanceof Date)) return true;
+		if (value instanceof Collection) {
+			for (Object o : (Collection<?>)value) {
+				if (!isSupported(o)) return false;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	private void writeValue(DataOutput out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(TYPE_NULL);
+		} else if (value instanceof String) {
+			out.writeByte(TYPE_STRING);
+			writeString(out, (String)value);
+		} else if (value instanceof Long) {
+			out.writeByte(TYPE_LONG);
+			out.writeLong(((Long)value).longValue());
+		} else if (value instanceof Integer) {
+			out.writeByte(TYPE_INTEGER);
+			out.writeInt(((Integer)value).intValue());
+		} else if (value instanceof Boolean) {
+			out.writeByte(TYPE_BOOLEAN);
+			out.writeBoolean(((Boolean)value).booleanValue());
+		} else if (value instanceof Double) {
+			out.writeByte(TYPE_DOUBLE);
+			out.writeDouble(((Double)value).doubleValue());
+		} else if (value instanceof Date) {
+			out.writeByte(TYPE_DATE);
+			writeTime(out, (Date)value);
+		} else {
+			Collection<?> coll = (Collection<?>)value;
+			out.writeByte(TYPE_LIST);
+			out.writeInt(coll.size());
+			for (Object o : coll) writeValue(out, o);
+		}
+	}
+
+	private Object readValue(DataInput in) throws IOException {
+		int type = in.readByte();
+		switch (type) {
+		case TYPE_NULL:
+			return null;
+		case TYPE_STRING:
+			return readString(in);
+		case TYPE_LONG:
+			return Long.valueOf(in.readLong());
+		case TYPE_INTEGER:
+			return Integer.valueOf(in.readInt());
+		case TYPE_BOOLEAN:
+			return Boolean.valueOf(in.readBoolean());
+		case TYPE_DOUBLE:
+			return Double.valueOf(in.readDouble());
+		case TYPE_DATE:
+			return readTime(in);
+		case TYPE_LIST:
+			int n = in.readInt();
+			List<Object> rc = new ArrayList<Object>(n);
+			for (int i=0; i<n; i++) rc.add(readValue(in));
+			return rc;
+		default:
+			throw new IOException("Unknown value type: "+type);
+		}
+	}
+}
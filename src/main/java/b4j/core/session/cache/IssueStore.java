@@ -0,0 +1,338 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.lang.StringUtils;
+
+import b4j.core.DefaultIssue;
+import b4j.core.Issue;
+import b4j.core.SearchData;
+
+/**
+ * A file-based store of issues and search results.
+ * <p>Each issue is kept in its own file below <code>issues/</code>. The result of each search
+ * is kept below <code>searches/</code> as the list of matching issue IDs together with the
+ * time of the most recent change seen.</p>
+ * <p>Stores of different servers or accounts must not share a directory. A namespace,
+ * e.g. the server URL and login, can be given to derive a separate directory for each.</p>
+ * @author ralph
+ * @since 3.0.2
+ */
+public class IssueStore {
+
+	private File directory;
+	private File issueDirectory;
+	private File searchDirectory;
+	private IssueCodec codec;
+
+	/**
+	 * Constructor.
+	 * @param directory - the directory of the store, will be created if it doesn't exist
+	 * @throws IOException - when the directory cannot be created
+	 */
+	public IssueStore(File directory) throws IOException {
+		this(directory, null);
+	}
+
+	/**
+	 * Constructor.
+	 * @param directory - the base directory, will be created if it doesn't exist
+	 * @param namespace - the namespace of the store (can be <code>null</code>), a sub directory
+	 *        unique to the namespace will be used in this case
+	 * @throws IOException - when the directory cannot be created
+	 */
+	public IssueStore(File directory, String namespace) throws IOException {
+		if (namespace != null) directory = new File(directory, hash(namespace));
+		this.directory = directory;
+		this.issueDirectory = new File(directory, "issues");
+		this.searchDirectory = new File(directory, "searches");
+		this.codec = new IssueCodec();
+		if (!issueDirectory.isDirectory() && !issueDirectory.mkdirs()) throw new IOException("Cannot create directory: "+issueDirectory.getAbsolutePath());
+		if (!searchDirectory.isDirectory() && !searchDirectory.mkdirs()) throw new IOException("Cannot create directory: "+searchDirectory.getAbsolutePath());
+	}
+
+	/**
+	 * Returns the directory of the store.
+	 * @return the directory
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Stores the issue.
+	 * <p>All lazily retrieved information of the issue will be loaded.</p>
+	 * @param issue - the issue
+	 * @throws IOException - when the issue cannot be written
+	 */
+	public void store(Issue issue) throws IOException {
+		File file = getIssueFile(issue.getId());
+		File tmp = new File(file.getParentFile(), file.getName()+".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+		try {
+			codec.write(issue, out);
+		} finally {
+			out.close();
+		}
+		replace(tmp, file);
+	}
+
+	/**
+	 * Loads the issue.
+	 * <p>Child issues are loaded when available in the store.</p>
+	 * @param id - ID of issue
+	 * @return the issue or <code>null</code> if it is not stored
+	 * @throws IOException - when the issue cannot be read
+	 */
+	public DefaultIssue load(String id) throws IOException {
+		return load(id, new HashSet<String>());
+	}
+
+	/**
+	 * Loads the issue.
+	 * @param id - ID of issue
+	 * @param loading - IDs of issues currently being loaded, prevents cycles between parents and children
+	 * @return the issue or <code>null</code> if it is not stored
+	 * @throws IOException - when the issue cannot be read
+	 */
+	private DefaultIssue load(String id, Set<String> loading) throws IOException {
+		if (!loading.add(id)) return null;
+		File file = getIssueFile(id);
+		if (!file.isFile()) return null;
+		List<String> childIds = new ArrayList<String>();
+		DefaultIssue rc = null;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			rc = codec.read(in, childIds);
+		} finally {
+			in.close();
+		}
+		for (String childId : childIds) {
+			Issue child = load(childId, loading);
+			if (child != null) rc.addChildren(child);
+		}
+		return rc;
+	}
+
+	/**
+	 * Returns whether the issue is stored.
+	 * @param id - ID of issue
+	 * @return <code>true</code> when the issue is available
+	 */
+	public boolean contains(String id) {
+		return getIssueFile(id).isFile();
+	}
+
+	/**
+	 * Removes the issue from the store.
+	 * @param id - ID of issue
+	 */
+	public void remove(String id) {
+		getIssueFile(id).delete();
+	}
+
+	/**
+	 * Returns the stored result of the search.
+	 * @param searchData - the search
+	 * @return the search result or <code>null</code> if the search was not performed yet
+	 * @throws IOException - when the result cannot be read
+	 */
+	public SearchResult getSearchResult(SearchData searchData) throws IOException {
+		File file = getSearchFile(searchData);
+		if (!file.isFile()) return null;
+		Properties props = new Properties();
+		InputStream in = new FileInputStream(file);
+		try {
+			props.load(in);
+		} finally {
+			in.close();
+		}
+		SearchResult rc = new SearchResult();
+		String s = props.getProperty("since");
+		if ((s != null) && (s.length() > 0)) rc.setSince(Long.parseLong(s));
+		s = props.getProperty("ids");
+		if ((s != null) && (s.length() > 0)) {
+			for (String id : s.split(",")) rc.getIds().add(id);
+		}
+		return rc;
+	}
+
+	/**
+	 * Stores the result of the search.
+	 * @param searchData - the search
+	 * @param result - the result
+	 * @throws IOException - when the result cannot be written
+	 */
+	public void setSearchResult(SearchData searchData, SearchResult result) throws IOException {
+		File file = getSearchFile(searchData);
+		File tmp = new File(file.getParentFile(), file.getName()+".tmp");
+		Properties props = new Properties();
+		props.setProperty("search", getSearchKey(searchData));
+		props.setProperty("since", result.getSince() != null ? result.getSince().toString() : "");
+		props.setProperty("ids", StringUtils.join(result.getIds(), ','));
+		OutputStream out = new FileOutputStream(tmp);
+		try {
+			props.store(out, "Issue cache search result");
+		} finally {
+			out.close();
+		}
+		replace(tmp, file);
+	}
+
+	/**
+	 * Returns the file of the issue.
+	 * @param id - ID of issue
+	 * @return the file
+	 */
+	protected File getIssueFile(String id) {
+		StringBuilder name = new StringBuilder(id.length()+4);
+		for (int i=0; i<id.length(); i++) {
+			char c = id.charAt(i);
+			if (((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) || (c == '-') || (c == '.')) {
+				name.append(c);
+			} else {
+				name.append('_').append(Integer.toHexString(c)).append('_');
+			}
+		}
+		name.append(".issue");
+		return new File(issueDirectory, name.toString());
+	}
+
+	/**
+	 * Returns the file of the search result.
+	 * @param searchData - the search
+	 * @return the file
+	 */
+	protected File getSearchFile(SearchData searchData) {
+		return new File(searchDirectory, hash(getSearchKey(searchData))+".properties");
+	}
+
+	/**
+	 * Returns a hash of the string that can be used as file name.
+	 * @param s - the string
+	 * @return the hex-encoded SHA-1 hash
+	 */
+	private static String hash(String s) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			byte hash[] = digest.digest(s.getBytes(StandardCharsets.UTF_8));
+			StringBuilder rc = new StringBuilder(hash.length*2);
+			for (byte b : hash) {
+				rc.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return rc.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("Cannot create file name", e);
+		}
+	}
+
+	/**
+	 * Returns a key that identifies the search independent of parameter order.
+	 * @param searchData - the search
+	 * @return the key
+	 */
+	protected String getSearchKey(SearchData searchData) {
+		StringBuilder rc = new StringBuilder();
+		Set<String> names = new TreeSet<String>();
+		for (String name : searchData.getParameterNames()) names.add(name);
+		for (String name : names) {
+			for (String value : searchData.get(name)) {
+				if (rc.length() > 0) rc.append('&');
+				rc.append(name).append('=').append(value);
+			}
+		}
+		return rc.toString();
+	}
+
+	/**
+	 * Replaces the target file by the source file.
+	 * @param source - the new file
+	 * @param target - the file to be replaced
+	 * @throws IOException - when the file cannot be replaced
+	 */
+	private void replace(File source, File target) throws IOException {
+		if (!source.renameTo(target)) {
+			target.delete();
+			if (!source.renameTo(target)) throw new IOException("Cannot write file: "+target.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * The stored result of a search.
+	 */
+	public static class SearchResult {
+
+		private Long since;
+		private Set<String> ids = new LinkedHashSet<String>();
+
+		/**
+		 * Returns the time of the most recent change seen.
+		 * @return the time in milliseconds or <code>null</code> if unknown
+		 */
+		public Long getSince() {
+			return since;
+		}
+
+		/**
+		 * Sets the time of the most recent change seen.
+		 * @param since the time in milliseconds or <code>null</code> if unknown
+		 */
+		public void setSince(Long since) {
+			this.since = since;
+		}
+
+		/**
+		 * Returns the IDs of matching issues.
+		 * @return the IDs in order of the search result
+		 */
+		public Set<String> getIds() {
+			return ids;
+		}
+
+		/**
+		 * Returns a read-only copy of the IDs.
+		 * @return the IDs
+		 */
+		public Collection<String> getIdList() {
+			return Collections.unmodifiableList(new ArrayList<String>(ids));
+		}
+	}
+}
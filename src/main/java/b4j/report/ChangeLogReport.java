@@ -23,10 +23,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
@@ -71,8 +69,12 @@ public class ChangeLogReport extends AbstractFileReport {
 
 	private static Logger log = LoggerFactory.getLogger(ChangeLogReport.class);
 
-	private Map<Release,List<String>> changeLogs;
+	/** The change log entries of each release, same index as {@link #releases} */
+	private List<List<String>> changeLogs;
+	/** The releases, newest first */
 	private List<Release> releases;
+	/** The release times in ascending order, i.e. reverse order of {@link #releases} */
+	private long releaseTimes[];
 	private ReleaseProvider releaseProvider;
 	private List<ChangeLogEntryProvider> entryProviders;
 
@@ -81,8 +83,7 @@ public class ChangeLogReport extends AbstractFileReport {
 	 */
 	public ChangeLogReport() {
 		entryProviders = new ArrayList<ChangeLogEntryProvider>();
-		changeLogs = new HashMap<Release, List<String>>();
-		releases = new ArrayList<Release>();
+		setReleases(new ArrayList<Release>().iterator());
 	}
 
 
@@ -133,9 +134,7 @@ public class ChangeLogReport extends AbstractFileReport {
 		}
 
 		// Get all releases and sort them in time
-		Iterator<Release> rel = releaseProvider.getReleases();
-		while (rel.hasNext()) releases.add(rel.next());
-		Collections.sort(releases, new ReleaseComparator());
+		setReleases(releaseProvider.getReleases());
 
 		// get the entry providers
 		List<Object> classNames = config.getList("ChangeLogEntryProvider[@class]");
@@ -155,6 +154,27 @@ public class ChangeLogReport extends AbstractFileReport {
 	}
 
 
+	/**
+	 * Sets the releases of the change log.
+	 * The releases are sorted in backward order and indexed by their time.
+	 * Registered bugs are discarded.
+	 * @param releases - the releases
+	 * @since 3.0.2
+	 */
+	protected void setReleases(Iterator<Release> releases) {
+		this.releases = new ArrayList<Release>();
+		while (releases.hasNext()) this.releases.add(releases.next());
+		Collections.sort(this.releases, new ReleaseComparator());
+
+		int size = this.releases.size();
+		releaseTimes = new long[size];
+		changeLogs = new ArrayList<List<String>>(size);
+		for (int i=0; i<size; i++) {
+			releaseTimes[size-1-i] = this.releases.get(i).getReleaseTime().getTime();
+			changeLogs.add(null);
+		}
+	}
+
 	/**
 	 * Registers a bug for the report.
 	 * @param bug - the bug to collect data from
@@ -163,15 +183,15 @@ public class ChangeLogReport extends AbstractFileReport {
 	@Override
 	public void registerBug(Issue bug) {
 		if (!bug.isClosed()) return;
-		Release r = getRelease(bug);
-		if (r == null) {
+		int idx = getReleaseIndex(bug.getUpdateTimestamp().getTimeInMillis());
+		if (idx < 0) {
 			return;
 		}
 
-		List<String> l = changeLogs.get(r);
+		List<String> l = changeLogs.get(idx);
 		if (l == null) {
 			l = new ArrayList<String>();
-			changeLogs.put(r, l);
+			changeLogs.set(idx, l);
 		}
 		l.add(getBugText(bug));
 	}
@@ -192,23 +212,31 @@ public class ChangeLogReport extends AbstractFileReport {
 	 * @return release for that bug
 	 */
 	protected Release getRelease(Issue bug) {
-		long closeDate = bug.getUpdateTimestamp().getTimeInMillis();
-		Iterator<Release> ri = releases.iterator();
-		Release lastRelease = null;
-		long lastTimestamp = 0;
-		while (ri.hasNext()) {
-			Release r = ri.next();
-			long t = r.getReleaseTime().getTime();
-			if ((closeDate > t) && (closeDate < lastTimestamp)) {
-				return lastRelease;
-			}
-			lastTimestamp = t;
-			lastRelease = r;
-		}
-		if (closeDate < lastTimestamp) {
-			return lastRelease;
+		int idx = getReleaseIndex(bug.getUpdateTimestamp().getTimeInMillis());
+		return idx >= 0 ? releases.get(idx) : null;
+	}
+
+	/**
+	 * Maps a close date to a release.
+	 * <p>The release is the earliest release after the close date. Releases at the very same
+	 * time are ordered as by {@link ReleaseComparator} and the last one is taken.
+	 * No release is returned when the close date is exactly the time of a release.</p>
+	 * @param closeDate - the time the bug was closed
+	 * @return index of release in the release list, -1 if no release matches
+	 * @since 3.0.2
+	 */
+	protected int getReleaseIndex(long closeDate) {
+		// Find first release after the close date
+		int low = 0;
+		int high = releaseTimes.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (releaseTimes[mid] <= closeDate) low = mid + 1;
+			else high = mid;
 		}
-		return null;
+		if (low == releaseTimes.length) return -1;
+		if ((low > 0) && (releaseTimes[low-1] == closeDate)) return -1;
+		return releaseTimes.length - 1 - low;
 	}
 
 
@@ -221,10 +249,9 @@ public class ChangeLogReport extends AbstractFileReport {
 	public void closeReport() {
 		PrintWriter out = new PrintWriter(new OutputStreamWriter(getOutputStream(), StandardCharsets.UTF_8));
 
-		Iterator<Release> ri = releases.iterator();
-		while (ri.hasNext()) {
-			Release r = ri.next();
-			List<String> log = changeLogs.get(r);
+		for (int idx=0; idx<releases.size(); idx++) {
+			Release r = releases.get(idx);
+			List<String> log = changeLogs.get(idx);
 			if (log == null) log = new ArrayList<String>();
 
 			// Add additional entries from entry providers
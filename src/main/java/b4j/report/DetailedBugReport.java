@@ -20,8 +20,11 @@ package b4j.report;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.configuration.Configuration;
@@ -31,7 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import b4j.core.Comment;
 import b4j.core.Issue;
-import rs.baselib.util.CommonUtils;
+import b4j.core.Project;
 import templating.Templating;
 
 /**
@@ -54,6 +57,9 @@ public class DetailedBugReport extends AbstractFileReport {
 	private PrintWriter writer;
 	private String overallTemplate;
 	private String bugTemplate;
+	private String reportPrefix;
+	private String reportSuffix;
+	private CompiledTemplate compiledBugTemplate;
 	
 	/**
 	 * Constructor.
@@ -71,6 +77,10 @@ public class DetailedBugReport extends AbstractFileReport {
 	 * <p>
 	 * The template file follows the rules by Typo3 templates.
 	 * </p> 
+	 * <p>
+	 * Since V3.0.2 the bug template is compiled once here. Only the markers used
+	 * by the template are evaluated for each bug.
+	 * </p>
 	 * @param config - the configuration object
 	 * @throws ConfigurationException - when a configuration problem occurs
 	 * @see b4j.report.AbstractFileReport#configure(Configuration)
@@ -85,6 +95,9 @@ public class DetailedBugReport extends AbstractFileReport {
 			log.trace("overall="+overallTemplate);
 			bugTemplate = Templating.getSubTemplate(template, "BUG");
 			log.trace("bug="+bugTemplate);
+			reportPrefix = getString(getReportPrefixTemplate());
+			reportSuffix = getString(getReportSuffixTemplate());
+			compiledBugTemplate = new CompiledTemplate(bugTemplate);
 		} catch (IOException e) {
 			throw new ConfigurationException("Cannot load "+filename, e);
 		}
@@ -97,7 +110,7 @@ public class DetailedBugReport extends AbstractFileReport {
 	public void prepareReport() {
 		super.prepareReport();
 		PrintWriter writer = getWriter();
-		writer.println(getString(getReportPrefixTemplate()));
+		writer.println(reportPrefix);
 	}
 
 
@@ -107,7 +120,7 @@ public class DetailedBugReport extends AbstractFileReport {
 	@Override
 	public void closeReport() {
 		PrintWriter writer = getWriter();
-		writer.println(getString(getReportSuffixTemplate()));
+		writer.println(reportSuffix);
 		writer.close();
 	}
 
@@ -120,7 +133,8 @@ public class DetailedBugReport extends AbstractFileReport {
 	@Override
 	public void registerBug(Issue bug) {
 		PrintWriter writer = getWriter();
-		writer.println(getBugString(bugTemplate, bug));
+		compiledBugTemplate.write(bug, writer);
+		writer.println();
 	}
 
 	/**
@@ -163,45 +177,252 @@ public class DetailedBugReport extends AbstractFileReport {
 	}
 	
 	/**
-	 * Replaces all variables for this bug and returns the result.
-	 * @param template - the template to be used
-	 * @param bug - the bug to be used
-	 * @return template with all variables replaced
+	 * Returns the comments of a bug as presented in the report.
+	 * @param bug - the bug
+	 * @return the comments text
 	 */
-	private String getBugString(String template, Issue bug) {
-		Map<String,Object> markers = new HashMap<String, Object>();
-		markers.put("ID", bug.getId());
-		markers.put("ALIAS", bug.get(Issue.ALIAS));
-		markers.put("ASSIGNEDTO", bug.getAssignee());
-		markers.put("CLASSIFICATION", bug.getClassification());
-		markers.put("COMPONENT", bug.getComponents());
-		markers.put("CRDATE", bug.getCreationTimestamp());
-		markers.put("MTIME", bug.getUpdateTimestamp());
-		markers.put("FILELOCATION", bug.get(Issue.BUG_FILE_LOCATION));
-		markers.put("PRIORITY", bug.getPriority());
-		markers.put("OPSYS", bug.get(Issue.OP_SYS));
-		markers.put("SEVERITY", bug.getSeverity());
-		markers.put("PRODUCT", bug.getProject().getName());
-		markers.put("PROJECT", bug.getProject().getName());
-		markers.put("QACONTACT", bug.get(Issue.QA_CONTACT));
-		markers.put("REPORTER", bug.getReporter());
-		markers.put("RESOLUTION", bug.getResolution());
-		markers.put("REPORTER", bug.getReporter());
-		markers.put("SUMMARY", bug.getSummary());
-		markers.put("STATUS", bug.getStatus());
-		markers.put("VERSION", bug.getFixVersions());
+	protected static String getDescriptions(Issue bug) {
 		StringBuilder s = new StringBuilder();
 		for (Comment c : bug.getComments()) {
-			String t = CommonUtils.join("\n   ", c.getTheText().split("\\n"));
 			s.append("\n\n");
 			s.append(c.getAuthor());
 			s.append(" (");
 			s.append(c.getCreationTimestamp());
 			s.append("):\n   ");
-			s.append(t.trim());
+			String text = c.getTheText();
+			if (text != null) {
+				text = text.trim();
+				int start = 0;
+				int pos = text.indexOf('\n');
+				while (pos >= 0) {
+					s.append(text, start, pos).append("\n   ");
+					start = pos+1;
+					pos = text.indexOf('\n', start);
+				}
+				s.append(text, start, text.length());
+			}
+		}
+		return s.toString().trim();
+	}
+
+	/**
+	 * The markers available in bug templates.
+	 * @since 3.0.2
+	 */
+	protected static enum Marker {
+		ID {
+			@Override
+			public Object getValue(Issue bug) { return bug.getId(); }
+		},
+		ALIAS {
+			@Override
+			public Object getValue(Issue bug) { return bug.get(Issue.ALIAS); }
+		},
+		ASSIGNEDTO {
+			@Override
+			public Object getValue(Issue bug) { return bug.getAssignee(); }
+		},
+		CLASSIFICATION {
+			@Override
+			public Object getValue(Issue bug) { return bug.getClassification(); }
+		},
+		COMPONENT {
+			@Override
+			public Object getValue(Issue bug) { return bug.getComponents(); }
+		},
+		CRDATE {
+			@Override
+			public Object getValue(Issue bug) { return bug.getCreationTimestamp(); }
+		},
+		MTIME {
+			@Override
+			public Object getValue(Issue bug) { return bug.getUpdateTimestamp(); }
+		},
+		FILELOCATION {
+			@Override
+			public Object getValue(Issue bug) { return bug.get(Issue.BUG_FILE_LOCATION); }
+		},
+		PRIORITY {
+			@Override
+			public Object getValue(Issue bug) { return bug.getPriority(); }
+		},
+		OPSYS {
+			@Override
+			public Object getValue(Issue bug) { return bug.get(Issue.OP_SYS); }
+		},
+		SEVERITY {
+			@Override
+			public Object getValue(Issue bug) { return bug.getSeverity(); }
+		},
+		PRODUCT {
+			@Override
+			public Object getValue(Issue bug) { return getProjectName(bug); }
+		},
+		PROJECT {
+			@Override
+			public Object getValue(Issue bug) { return getProjectName(bug); }
+		},
+		QACONTACT {
+			@Override
+			public Object getValue(Issue bug) { return bug.get(Issue.QA_CONTACT); }
+		},
+		REPORTER {
+			@Override
+			public Object getValue(Issue bug) { return bug.getReporter(); }
+		},
+		RESOLUTION {
+			@Override
+			public Object getValue(Issue bug) { return bug.getResolution(); }
+		},
+		SUMMARY {
+			@Override
+			public Object getValue(Issue bug) { return bug.getSummary(); }
+		},
+		STATUS {
+			@Override
+			public Object getValue(Issue bug) { return bug.getStatus(); }
+		},
+		VERSION {
+			@Override
+			public Object getValue(Issue bug) { return bug.getFixVersions(); }
+		},
+		DESCRIPTIONS {
+			@Override
+			public Object getValue(Issue bug) { return getDescriptions(bug); }
+		};
+
+		/**
+		 * Returns the value of the marker.
+		 * @param bug - the bug
+		 * @return the value
+		 */
+		public abstract Object getValue(Issue bug);
+
+		private static String getProjectName(Issue bug) {
+			Project project = bug.getProject();
+			return project != null ? project.getName() : null;
+		}
+	}
+
+	/**
+	 * A bug template that was parsed into text and markers.
+	 * <p>The template writes the values of its markers directly to the writer
+	 * with leading and trailing whitespace removed.</p>
+	 * @since 3.0.2
+	 */
+	protected static class CompiledTemplate {
+
+		/** Text parts, a null text is followed by a marker */
+		private String texts[];
+		private Marker markers[];
+
+		/**
+		 * Constructor.
+		 * @param template - the template
+		 */
+		public CompiledTemplate(String template) {
+			Map<String,Marker> names = new HashMap<String, Marker>();
+			for (Marker marker : Marker.values()) names.put(marker.name(), marker);
+
+			List<String> texts = new ArrayList<String>();
+			List<Marker> markers = new ArrayList<Marker>();
+			StringBuilder text = new StringBuilder();
+			int start = 0;
+			int pos = template.indexOf("###");
+			while (pos >= 0) {
+				int end = template.indexOf("###", pos+3);
+				if (end < 0) break;
+				Marker marker = names.get(template.substring(pos+3, end));
+				if (marker != null) {
+					text.append(template, start, pos);
+					texts.add(text.toString());
+					markers.add(marker);
+					text.setLength(0);
+					start = end+3;
+					pos = template.indexOf("###", start);
+				} else {
+					// Not a marker, keep the text and continue with the closing hashes
+					text.append(template, start, end);
+					start = end;
+					pos = end;
+				}
+			}
+			text.append(template, start, template.length());
+			texts.add(text.toString());
+			this.texts = texts.toArray(new String[texts.size()]);
+			this.markers = markers.toArray(new Marker[markers.size()]);
+		}
+
+		/**
+		 * Writes the template for the bug.
+		 * @param bug - the bug
+		 * @param out - the writer
+		 */
+		public void write(Issue bug, Writer out) {
+			TrimmingWriter writer = new TrimmingWriter(out);
+			for (int i=0; i<markers.length; i++) {
+				writer.write(texts[i]);
+				Object value = markers[i].getValue(bug);
+				if (value != null) writer.write(value.toString());
+			}
+			writer.write(texts[markers.length]);
+		}
+	}
+
+	/**
+	 * Forwards text without leading and trailing whitespace (see {@link String#trim()}).
+	 */
+	private static class TrimmingWriter {
+
+		private Writer out;
+		private boolean started;
+		private int pendingStart;
+		private String pending;
+
+		/**
+		 * Constructor.
+		 * @param out - the writer
+		 */
+		public TrimmingWriter(Writer out) {
+			this.out = out;
+			this.started = false;
+			this.pending = null;
+		}
+
+		/**
+		 * Writes the text.
+		 * Trailing whitespace is written when more text follows only.
+		 * @param s - the text
+		 */
+		public void write(String s) {
+			int len = s.length();
+			int start = 0;
+			if (!started) {
+				while ((start < len) && (s.charAt(start) <= ' ')) start++;
+				if (start == len) return;
+				started = true;
+			}
+			int end = len;
+			while ((end > start) && (s.charAt(end-1) <= ' ')) end--;
+			try {
+				if (end > start) {
+					if (pending != null) out.write(pending, pendingStart, pending.length()-pendingStart);
+					out.write(s, start, end-start);
+					pending = null;
+				}
+				if (end < len) {
+					// whitespace at the end, remember it
+					if (pending == null) {
+						pending = s;
+						pendingStart = end;
+					} else {
+						pending = pending.substring(pendingStart)+s.substring(end);
+						pendingStart = 0;
+					}
+				}
+			} catch (IOException e) {
+				throw new RuntimeException("Cannot write report", e);
+			}
 		}
-		markers.put("DESCRIPTIONS", s.toString().trim());
-		template = Templating.replace(template, markers);
-		return template.trim();
 	}
 }
@@ -17,20 +17,24 @@
  */
 package b4j.report;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import b4j.core.Issue;
 
 /**
+ * Logs each bug found.
+ * <p>Since V3.0.2 the report is thread-safe.</p>
  * @author Ralph Schuster
  *
  */
-public class LogReport extends AbstractReportGenerator {
+public class LogReport extends AbstractReportGenerator implements ThreadSafeReportGenerator {
 
 	private static Logger log = LoggerFactory.getLogger(LogReport.class);
 	
-	private int count = 0;
+	private AtomicInteger count = new AtomicInteger(0);
 	/**
 	 * 
 	 */
@@ -51,7 +55,7 @@ public class LogReport extends AbstractReportGenerator {
 	@Override
 	public void registerBug(Issue bug) {
 		log.info(bug.getId()+": "+bug.getStatus()+" "+bug.getPriority()+" "+bug.getResolution()+" "+bug.getSummary());
-		count++;
+		count.incrementAndGet();
 	}
 
 	/**
@@ -59,7 +63,7 @@ public class LogReport extends AbstractReportGenerator {
 	 */
 	@Override
 	public void prepareReport() {
-		count = 0;
+		count.set(0);
 		super.prepareReport();
 	}
 
@@ -19,7 +19,7 @@ package b4j.report;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -34,9 +34,10 @@ import org.slf4j.LoggerFactory;
 
 import b4j.core.DefaultIssue;
 import b4j.core.Issue;
+import b4j.core.Severity;
+import b4j.util.CalendarWeek;
 import csv.CSVFactory;
 import csv.TableWriter;
-import rs.baselib.util.RsDate;
 
 /**
  * Creates a tracking report for management purposes. The CSV file produced
@@ -47,6 +48,10 @@ import rs.baselib.util.RsDate;
  * The report allows configuration of severity groups as too many severities
  * might make a report unreadable.
  * </p>
+ * <p>
+ * Since V3.0.2 the report is thread-safe. Each thread collects its own {@link Aggregate}
+ * and all aggregates are merged when the report is closed.
+ * </p>
  * <p>Configuration:</p>
  * <pre>
  *    &lt;report class="b4j.report.ManagementTrackingReport"&gt;
@@ -67,25 +72,27 @@ import rs.baselib.util.RsDate;
  * @author Ralph Schuster
  *
  */
-public class ManagementTrackingReport extends AbstractFileReport {
+public class ManagementTrackingReport extends AbstractFileReport implements ThreadSafeReportGenerator {
 
 	private static Logger log = LoggerFactory.getLogger(ManagementTrackingReport.class);
 
-	private Map<String,SeverityStats> severityStats;
-	private Map<Integer, WeekStats> weekStats;
-	private int openCount = 0;
-	private int closedCount = 0;
-	private int totalCount = 0;
-	private long totalFixTime = 0;
-	private int minWeek = 0;
-	private int maxWeek = 0;
 	private Map<String,String> severityGroups;
 	private List<String> allSeverities;
+	/** Index of each severity name into {@link #allSeverities} (groups already resolved) */
+	private Map<String,Integer> severityIndex;
+	private CalendarWeek calendarWeek;
+	private ThreadLocal<Aggregate> aggregates;
+	private List<Aggregate> partials;
+	private volatile Result result;
 
 	/**
 	 * Default constructor.
 	 */
 	public ManagementTrackingReport() {
+		severityGroups = new HashMap<String, String>();
+		allSeverities = new ArrayList<String>();
+		severityIndex = new HashMap<String, Integer>();
+		reset();
 	}
 
 	/**
@@ -95,7 +102,7 @@ public class ManagementTrackingReport extends AbstractFileReport {
 	 */
 	@Override
 	public void closeReport() {
-		if (minWeek == 0) {
+		if (getMinWeek() == 0) {
 			log.info("No bug matched criteria. Report is empty.");
 			return;
 		}
@@ -119,7 +126,8 @@ public class ManagementTrackingReport extends AbstractFileReport {
 			out.printRow(values);
 
 			// Iterate over each week
-			for (int i=minWeek; i<=maxWeek; i++) {
+			Map<Integer, WeekStats> weekStats = getWeekStats();
+			for (int i=getMinWeek(); i<=getMaxWeek(); i++) {
 				values.clear();
 				values.add("KW"+getWeek(i)+"/"+getYear(i));
 
@@ -162,6 +170,7 @@ public class ManagementTrackingReport extends AbstractFileReport {
 			// Total line here
 			values.clear();
 			values.add("TOTAL");
+			Map<String, SeverityStats> severityStats = getSeverityStats();
 			for (String sev : allSeverities) {
 				SeverityStats stats = severityStats.get(sev);
 				if (stats != null) {
@@ -217,6 +226,15 @@ public class ManagementTrackingReport extends AbstractFileReport {
 		for (int i=0; i<DefaultIssue.SEVERITIES.length; i++) {
 			if (!severityGroups.containsKey(DefaultIssue.SEVERITIES[i])) allSeverities.add(DefaultIssue.SEVERITIES[i]);
 		}
+
+		// Precompute the index of each severity
+		severityIndex = new HashMap<String, Integer>();
+		for (int i=0; i<allSeverities.size(); i++) {
+			severityIndex.put(allSeverities.get(i), i);
+		}
+		for (Map.Entry<String, String> entry : severityGroups.entrySet()) {
+			severityIndex.put(entry.getKey(), severityIndex.get(entry.getValue()));
+		}
 	}
 
 	/**
@@ -225,54 +243,75 @@ public class ManagementTrackingReport extends AbstractFileReport {
 	 */
 	@Override
 	public void prepareReport() {
-		severityStats = new HashMap<String, SeverityStats>();
-		weekStats = new HashMap<Integer, WeekStats>();
-		openCount = 0;
-		closedCount = 0;
-		totalCount = 0;
-		totalFixTime = 0;
-		minWeek = 0;
-		maxWeek = 0;
+		reset();
+	}
+
+	/**
+	 * Discards all collected statistics.
+	 */
+	private void reset() {
+		calendarWeek = new CalendarWeek();
+		partials = new ArrayList<Aggregate>();
+		aggregates = new ThreadLocal<Aggregate>() {
+			@Override
+			protected Aggregate initialValue() {
+				Aggregate rc = createAggregate();
+				synchronized (partials) {
+					partials.add(rc);
+				}
+				return rc;
+			}
+		};
+		result = null;
 	}
 
 	/**
 	 * Registers a bug for the report.
+	 * The bug is registered at the aggregate of the current thread.
 	 * @param bug - the bug to collect data from
 	 * @see b4j.report.BugzillaReportGenerator#registerBug(b4j.core.Issue)
 	 */
 	@Override
 	public void registerBug(Issue bug) {
-		totalCount++;
-		if (bug.isOpen()) openCount++;
-		if (bug.isClosed()) {
-			closedCount++;
-			totalFixTime += bug.getUpdateTimestamp().getTimeInMillis() - bug.getCreationTimestamp().getTimeInMillis();
-		}
-
-		// forward to severity stats
-		String sev = bug.getSeverity().getName();
-		String group = severityGroups.get(sev);
-		if (group != null) sev = group;
-		SeverityStats stats = severityStats.get(sev);
-		if (stats == null) {
-			stats = new SeverityStats(sev);
-			severityStats.put(sev, stats);
-		}
-		stats.registerBug(bug);
-
-		// Forward to weekly status
-		RsDate cal = new RsDate(bug.getCreationTimestamp());
-		int week = cal.get(Calendar.YEAR)*100 + cal.get(Calendar.WEEK_OF_YEAR);
-		WeekStats wstats = weekStats.get(week);
-		if (wstats == null) {
-			wstats = new WeekStats(week);
-			weekStats.put(week, wstats);
-		}
-		wstats.registerBug(bug);
-
-		// For later memory
-		if (week > maxWeek) maxWeek = week;
-		if ((minWeek == 0) || (week < minWeek)) minWeek = week;
+		aggregates.get().registerBug(bug);
+		if (result != null) result = null;
+	}
+
+	/**
+	 * Creates a new empty aggregate for the configured severities.
+	 * @return the aggregate
+	 * @since 3.0.2
+	 */
+	public Aggregate createAggregate() {
+		return new Aggregate(allSeverities, severityIndex, calendarWeek);
+	}
+
+	/**
+	 * Merges the aggregates of all threads.
+	 * @return the merged aggregate
+	 * @since 3.0.2
+	 */
+	public Aggregate getAggregate() {
+		Aggregate rc = createAggregate();
+		synchronized (partials) {
+			for (Aggregate partial : partials) {
+				rc.merge(partial);
+			}
+		}
+		return rc;
+	}
+
+	/**
+	 * Returns the merged result.
+	 * @return the result
+	 */
+	protected Result getResult() {
+		Result rc = result;
+		if (rc == null) {
+			rc = new Result(getAggregate());
+			result = rc;
+		}
+		return rc;
 	}
 
 	/**
@@ -280,8 +319,7 @@ public class ManagementTrackingReport extends AbstractFileReport {
 	 * @return average fix time in calendar days.
 	 */
 	public long getAverageFixTime() {
-		if (closedCount > 0) return totalFixTime / closedCount;
-		return 0;
+		return getResult().totals.getAverageFixTime();
 	}
 
 	/**
@@ -289,7 +327,7 @@ public class ManagementTrackingReport extends AbstractFileReport {
 	 * @return the severityStats
 	 */
 	public Map<String, SeverityStats> getSeverityStats() {
-		return severityStats;
+		return getResult().severityStats;
 	}
 
 	/**
@@ -297,7 +335,7 @@ public class ManagementTrackingReport extends AbstractFileReport {
 	 * @return the weekStats
 	 */
 	public Map<Integer, WeekStats> getWeekStats() {
-		return weekStats;
+		return getResult().weekStats;
 	}
 
 	/**
@@ -306,7 +344,7 @@ public class ManagementTrackingReport extends AbstractFileReport {
 	 * @return the openCount
 	 */
 	public int getOpenCount() {
-		return openCount;
+		return getResult().totals.getOpenCount();
 	}
 
 	/**
@@ -315,7 +353,7 @@ public class ManagementTrackingReport extends AbstractFileReport {
 	 * @return the closedCount
 	 */
 	public int getClosedCount() {
-		return closedCount;
+		return getResult().totals.getClosedCount();
 	}
 
 	/**
@@ -323,7 +361,7 @@ public class ManagementTrackingReport extends AbstractFileReport {
 	 * @return the totalCount
 	 */
 	public int getTotalCount() {
-		return totalCount;
+		return getResult().totals.getTotalCount();
 	}
 
 	/**
@@ -331,7 +369,7 @@ public class ManagementTrackingReport extends AbstractFileReport {
 	 * @return the minWeek
 	 */
 	public int getMinWeek() {
-		return minWeek;
+		return getResult().minWeek;
 	}
 
 	/**
@@ -339,7 +377,330 @@ public class ManagementTrackingReport extends AbstractFileReport {
 	 * @return the maxWeek
 	 */
 	public int getMaxWeek() {
-		return maxWeek;
+		return getResult().maxWeek;
+	}
+
+	/**
+	 * The merged statistics as presented by the getters.
+	 */
+	protected class Result {
+
+		private SeverityStats totals;
+		private Map<String,SeverityStats> severityStats;
+		private Map<Integer, WeekStats> weekStats;
+		private int minWeek;
+		private int maxWeek;
+
+		/**
+		 * Constructor.
+		 * @param aggregate - the merged aggregate
+		 */
+		public Result(Aggregate aggregate) {
+			Counts counts = aggregate.getTotals();
+			totals = new SeverityStats(null, counts.open, counts.closed, counts.total, counts.fixTime);
+			severityStats = counts.getSeverityStats(aggregate.getSeverities());
+			weekStats = new HashMap<Integer, WeekStats>();
+			for (Map.Entry<Integer, Counts> entry : aggregate.getWeeks().entrySet()) {
+				weekStats.put(entry.getKey(), new WeekStats(entry.getKey(), entry.getValue(), aggregate.getSeverities()));
+			}
+			minWeek = aggregate.getMinWeek();
+			maxWeek = aggregate.getMaxWeek();
+		}
+	}
+
+	/**
+	 * A partial aggregate of the statistics.
+	 * <p>An aggregate is not thread-safe. Each thread builds its own aggregate and
+	 * aggregates are merged by {@link #merge(Aggregate)}. Severities are counted
+	 * at fixed indices so that no map lookups are needed per bug.</p>
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	public static class Aggregate {
+
+		private List<String> severities;
+		private Map<String,Integer> severityIndex;
+		private CalendarWeek calendarWeek;
+		private Counts totals;
+		private Map<Integer,Counts> weeks;
+		private int minWeek;
+		private int maxWeek;
+
+		/** Severity objects seen recently (usually shared by all bugs) */
+		private Severity knownSeverities[];
+		private int knownIndices[];
+		private int knownCount;
+
+		/** The last week used (bugs often arrive in creation order) */
+		private long lastDay;
+		private int lastWeek;
+		private Counts lastWeekCounts;
+
+		/**
+		 * Constructor.
+		 * @param severities - the severities to be tracked
+		 * @param severityIndex - the index of each severity name (including grouped severities)
+		 * @param calendarWeek - the week calculation
+		 */
+		public Aggregate(List<String> severities, Map<String,Integer> severityIndex, CalendarWeek calendarWeek) {
+			this.severities = new ArrayList<String>(severities);
+			this.severityIndex = new HashMap<String, Integer>(severityIndex);
+			this.calendarWeek = calendarWeek;
+			this.totals = new Counts(severities.size());
+			this.weeks = new HashMap<Integer, Counts>();
+			this.minWeek = 0;
+			this.maxWeek = 0;
+			this.knownSeverities = new Severity[8];
+			this.knownIndices = new int[8];
+			this.knownCount = 0;
+			this.lastDay = Long.MIN_VALUE;
+			this.lastWeek = 0;
+			this.lastWeekCounts = null;
+		}
+
+		/**
+		 * Registers the bug.
+		 * @param bug - the bug to collect data from.
+		 */
+		public void registerBug(Issue bug) {
+			int sev = getSeverityIndex(bug.getSeverity());
+			boolean open = bug.isOpen();
+			boolean closed = bug.isClosed();
+			long created = bug.getCreationTimestamp().getTimeInMillis();
+			long fixTime = closed ? bug.getUpdateTimestamp().getTimeInMillis() - created : 0;
+			totals.register(sev, open, closed, fixTime);
+			getWeekCounts(created).register(sev, open, closed, fixTime);
+		}
+
+		/**
+		 * Returns the counters of the week the given time belongs to.
+		 * @param millis - the time
+		 * @return the counters
+		 */
+		protected Counts getWeekCounts(long millis) {
+			long day = calendarWeek.getEpochDay(millis);
+			if ((day != lastDay) || (lastWeekCounts == null)) {
+				int week = calendarWeek.getWeekIdOfDay(day);
+				if ((week != lastWeek) || (lastWeekCounts == null)) {
+					lastWeekCounts = getWeekCounts(week);
+					lastWeek = week;
+				}
+				lastDay = day;
+			}
+			return lastWeekCounts;
+		}
+
+		/**
+		 * Returns the counters of the given week.
+		 * @param week - the week ID
+		 * @return the counters (created if required)
+		 */
+		protected Counts getWeekCounts(int week) {
+			Counts rc = weeks.get(week);
+			if (rc == null) {
+				rc = new Counts(severities.size());
+				weeks.put(week, rc);
+				if (week > maxWeek) maxWeek = week;
+				if ((minWeek == 0) || (week < minWeek)) minWeek = week;
+			}
+			return rc;
+		}
+
+		/**
+		 * Returns the index of the severity.
+		 * Severities that were not configured are appended.
+		 * @param severity - the severity
+		 * @return the index
+		 */
+		protected int getSeverityIndex(Severity severity) {
+			for (int i=0; i<knownCount; i++) {
+				if (knownSeverities[i] == severity) return knownIndices[i];
+			}
+			int rc = getSeverityIndex(severity != null ? severity.getName() : null);
+			if (knownCount < knownSeverities.length) {
+				knownSeverities[knownCount] = severity;
+				knownIndices[knownCount] = rc;
+				knownCount++;
+			}
+			return rc;
+		}
+
+		/**
+		 * Returns the index of the severity name.
+		 * Severities that were not configured are appended.
+		 * @param name - the severity name
+		 * @return the index
+		 */
+		protected int getSeverityIndex(String name) {
+			Integer rc = severityIndex.get(name);
+			if (rc == null) {
+				rc = severities.size();
+				severities.add(name);
+				severityIndex.put(name, rc);
+			}
+			return rc;
+		}
+
+		/**
+		 * Adds the statistics of another aggregate to this aggregate.
+		 * @param other - the other aggregate
+		 */
+		public void merge(Aggregate other) {
+			int mapping[] = new int[other.severities.size()];
+			for (int i=0; i<mapping.length; i++) {
+				mapping[i] = getSeverityIndex(other.severities.get(i));
+			}
+			totals.merge(other.totals, mapping);
+			for (Map.Entry<Integer, Counts> entry : other.weeks.entrySet()) {
+				getWeekCounts(entry.getKey().intValue()).merge(entry.getValue(), mapping);
+			}
+		}
+
+		/**
+		 * Returns the severities in the order of their indices.
+		 * @return the severities
+		 */
+		public List<String> getSeverities() {
+			return Collections.unmodifiableList(severities);
+		}
+
+		/**
+		 * Returns the overall counters.
+		 * @return the counters
+		 */
+		public Counts getTotals() {
+			return totals;
+		}
+
+		/**
+		 * Returns the counters of each week.
+		 * @return the week counters
+		 */
+		public Map<Integer, Counts> getWeeks() {
+			return Collections.unmodifiableMap(weeks);
+		}
+
+		/**
+		 * Returns the minimum week number detected.
+		 * @return the minWeek
+		 */
+		public int getMinWeek() {
+			return minWeek;
+		}
+
+		/**
+		 * Returns the maximum week number detected.
+		 * @return the maxWeek
+		 */
+		public int getMaxWeek() {
+			return maxWeek;
+		}
+	}
+
+	/**
+	 * Counters of bugs overall and per severity index.
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	public static class Counts {
+
+		private int open;
+		private int closed;
+		private int total;
+		private long fixTime;
+		private int sevOpen[];
+		private int sevClosed[];
+		private int sevTotal[];
+		private long sevFixTime[];
+
+		/**
+		 * Constructor.
+		 * @param severityCount - the initial number of severities
+		 */
+		public Counts(int severityCount) {
+			int size = Math.max(1, severityCount);
+			sevOpen = new int[size];
+			sevClosed = new int[size];
+			sevTotal = new int[size];
+			sevFixTime = new long[size];
+		}
+
+		/**
+		 * Counts a bug.
+		 * @param severity - the severity index
+		 * @param isOpen - whether the bug is open
+		 * @param isClosed - whether the bug is closed
+		 * @param fixTime - the time needed to close the bug
+		 */
+		public void register(int severity, boolean isOpen, boolean isClosed, long fixTime) {
+			ensureCapacity(severity+1);
+			total++;
+			sevTotal[severity]++;
+			if (isOpen) {
+				open++;
+				sevOpen[severity]++;
+			}
+			if (isClosed) {
+				closed++;
+				this.fixTime += fixTime;
+				sevClosed[severity]++;
+				sevFixTime[severity] += fixTime;
+			}
+		}
+
+		/**
+		 * Adds other counters.
+		 * @param other - the other counters
+		 * @param mapping - the index in this object for each severity index in the other object
+		 */
+		public void merge(Counts other, int mapping[]) {
+			open += other.open;
+			closed += other.closed;
+			total += other.total;
+			fixTime += other.fixTime;
+			for (int i=0; i<other.sevTotal.length; i++) {
+				if (other.sevTotal[i] == 0) continue;
+				int idx = mapping[i];
+				ensureCapacity(idx+1);
+				sevOpen[idx] += other.sevOpen[i];
+				sevClosed[idx] += other.sevClosed[i];
+				sevTotal[idx] += other.sevTotal[i];
+				sevFixTime[idx] += other.sevFixTime[i];
+			}
+		}
+
+		/**
+		 * Creates the severity statistics.
+		 * @param severities - the severity names by index
+		 * @return the statistics of all severities that have bugs
+		 */
+		public Map<String,SeverityStats> getSeverityStats(List<String> severities) {
+			Map<String,SeverityStats> rc = new HashMap<String, SeverityStats>();
+			for (int i=0; i<sevTotal.length; i++) {
+				if (sevTotal[i] == 0) continue;
+				String name = severities.get(i);
+				rc.put(name, new SeverityStats(name, sevOpen[i], sevClosed[i], sevTotal[i], sevFixTime[i]));
+			}
+			return rc;
+		}
+
+		private void ensureCapacity(int size) {
+			if (sevTotal.length < size) {
+				size = Math.max(size, sevTotal.length * 2);
+				sevOpen = copyOf(sevOpen, size);
+				sevClosed = copyOf(sevClosed, size);
+				sevTotal = copyOf(sevTotal, size);
+				long l[] = new long[size];
+				System.arraycopy(sevFixTime, 0, l, 0, sevFixTime.length);
+				sevFixTime = l;
+			}
+		}
+
+		private static int[] copyOf(int values[], int size) {
+			int rc[] = new int[size];
+			System.arraycopy(values, 0, rc, 0, values.length);
+			return rc;
+		}
 	}
 
 	/**
@@ -363,6 +724,23 @@ public class ManagementTrackingReport extends AbstractFileReport {
 			this.severity = severity;
 		}
 
+		/**
+		 * Constructor with aggregated values.
+		 * @param severity - severity name
+		 * @param openCount - number of open bugs
+		 * @param closedCount - number of closed bugs
+		 * @param totalCount - number of bugs
+		 * @param totalFixTime - sum of fix times of closed bugs
+		 * @since 3.0.2
+		 */
+		public SeverityStats(String severity, int openCount, int closedCount, int totalCount, long totalFixTime) {
+			this.severity = severity;
+			this.openCount = openCount;
+			this.closedCount = closedCount;
+			this.totalCount = totalCount;
+			this.totalFixTime = totalFixTime;
+		}
+
 		/**
 		 * Registers the bug.
 		 * @param bug - the bug to collect data from.
@@ -444,6 +822,22 @@ public class ManagementTrackingReport extends AbstractFileReport {
 			severityWeekStats = new HashMap<String, SeverityStats>();
 		}
 
+		/**
+		 * Constructor with aggregated values.
+		 * @param week - week no
+		 * @param counts - the counters of the week
+		 * @param severities - the severity names by index
+		 * @since 3.0.2
+		 */
+		public WeekStats(int week, Counts counts, List<String> severities) {
+			this.week = week;
+			this.openCount = counts.open;
+			this.closedCount = counts.closed;
+			this.totalCount = counts.total;
+			this.totalFixTime = counts.fixTime;
+			severityWeekStats = counts.getSeverityStats(severities);
+		}
+
 		/**
 		 * Registers the bug.
 		 * @param bug - the bug to collect data from.
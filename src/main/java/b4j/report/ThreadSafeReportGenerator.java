@@ -0,0 +1,30 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.report;
+
+/**
+ * Marks a report generator that can register bugs from multiple threads at once.
+ * <p>{@link b4j.GenerateReports} feeds such reports with several workers in parallel.
+ * All other reports receive their bugs from a single worker in the order of the search result.
+ * {@link #prepareReport()} and {@link #closeReport()} are never called concurrently.</p>
+ * @author ralph
+ * @since 3.0.2
+ */
+public interface ThreadSafeReportGenerator extends BugzillaReportGenerator {
+
+}
@@ -17,12 +17,15 @@
  */
 package b4j.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import rs.baselib.lang.LangUtils;
 import b4j.core.Attachment;
@@ -40,6 +43,11 @@ import b4j.core.Version;
 
 /**
  * Retrieves registered objects lazily (abstract implementation).
+ * <p>Loaded objects are indexed by name, ID and (project, name) respectively. All
+ * registrations and lookups are thread-safe.</p>
+ * <p>Concurrent lookups that miss join a single load per kind of objects instead of each
+ * triggering their own load (see {@link LoadFlight}). Loads shall take their keys from the
+ * queues by {@link #drain(Collection)} so that each queued key is requested only once.</p>
  * @author ralph
  *
  */
@@ -47,63 +55,286 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 
 	private Set<String> classificationNameQueue;
 	private Set<Long> classificationIdQueue;
-	private Set<Classification> classifications;
+	private ConcurrentMap<String,Classification> classificationsByName;
+	private ConcurrentMap<String,Classification> classificationsById;
 	private Set<String> projectNameQueue;
 	private Set<Long> projectIdQueue;
-	private Set<Project> projects;
-	private Map<String,Set<String>> componentNameQueue;
-	private Set<Component> components;
+	private ConcurrentMap<String,Project> projectsByName;
+	private ConcurrentMap<String,Project> projectsById;
+	private ConcurrentMap<String,Set<String>> componentNameQueue;
+	private ConcurrentMap<String,ConcurrentMap<String,Component>> components;
 	private Set<String> userNameQueue;
 	private Set<Long> userIdQueue;
-	private Set<User> users;
+	private ConcurrentMap<String,User> usersByName;
+	private ConcurrentMap<String,User> usersById;
 	private Set<String> commentQueue;
-	private Map<String,Set<Comment>> comments; 
+	private ConcurrentMap<String,Set<Comment>> comments; 
 	private Set<String> attachmentQueue;
-	private Map<String,Set<Attachment>> attachments;
+	private ConcurrentMap<String,Set<Attachment>> attachments;
 	private Set<String> priorityNameQueue;
-	private Set<Priority> priorities;
+	private ConcurrentMap<String,Priority> priorities;
 	private Set<String> severityNameQueue;
-	private Set<Severity> severities;
+	private ConcurrentMap<String,Severity> severities;
 	private Set<String> resolutionNameQueue;
-	private Set<Resolution> resolutions;
+	private ConcurrentMap<String,Resolution> resolutions;
 	private Set<String> statusNameQueue;
-	private Set<Status> status;
+	private ConcurrentMap<String,Status> status;
 	private Set<String> issueTypeNameQueue;
-	private Set<IssueType> issueTypes;
-	private Map<String,Set<String>> versionNameQueue;
-	private Set<Version> versions;
+	private ConcurrentMap<String,IssueType> issueTypes;
+	private ConcurrentMap<String,Set<String>> versionNameQueue;
+	private ConcurrentMap<String,ConcurrentMap<String,Version>> versions;
+	private LoadFlight classificationLoads;
+	private LoadFlight projectLoads;
+	private LoadFlight componentLoads;
+	private LoadFlight userLoads;
+	private LoadFlight commentLoads;
+	private LoadFlight attachmentLoads;
+	private LoadFlight priorityLoads;
+	private LoadFlight severityLoads;
+	private LoadFlight statusLoads;
+	private LoadFlight resolutionLoads;
+	private LoadFlight issueTypeLoads;
+	private LoadFlight versionLoads;
 
 	/**
 	 * Constructor.
 	 */
 	public AbstractLazyRetriever() {
-		classificationNameQueue = new HashSet<String>();
-		classificationIdQueue = new HashSet<Long>();
-		classifications = new HashSet<Classification>();
-		projectNameQueue = new HashSet<String>();
-		projectIdQueue = new HashSet<Long>();
-		projects = new HashSet<Project>();
-		componentNameQueue = new HashMap<String,Set<String>>();
-		components = new HashSet<Component>();
-		userNameQueue = new HashSet<String>();
-		userIdQueue = new HashSet<Long>();
-		users = new HashSet<User>();
-		commentQueue = new HashSet<String>();
-		comments = new HashMap<String,Set<Comment>>();
-		attachmentQueue = new HashSet<String>();
-		attachments = new HashMap<String,Set<Attachment>>();
-		priorityNameQueue = new HashSet<String>();
-		priorities = new HashSet<Priority>();
-		severityNameQueue = new HashSet<String>();
-		severities = new HashSet<Severity>();
-		resolutionNameQueue = new HashSet<String>();
-		resolutions = new HashSet<Resolution>();
-		statusNameQueue = new HashSet<String>();
-		status = new HashSet<Status>();
-		issueTypeNameQueue = new HashSet<String>();
-		issueTypes = new HashSet<IssueType>();
-		versionNameQueue = new HashMap<String,Set<String>>();
-		versions = new HashSet<Version>();
+		classificationNameQueue = newConcurrentSet();
+		classificationIdQueue = newConcurrentSet();
+		classificationsByName = new ConcurrentHashMap<String,Classification>();
+		classificationsById = new ConcurrentHashMap<String,Classification>();
+		projectNameQueue = newConcurrentSet();
+		projectIdQueue = newConcurrentSet();
+		projectsByName = new ConcurrentHashMap<String,Project>();
+		projectsById = new ConcurrentHashMap<String,Project>();
+		componentNameQueue = new ConcurrentHashMap<String,Set<String>>();
+		components = new ConcurrentHashMap<String,ConcurrentMap<String,Component>>();
+		userNameQueue = newConcurrentSet();
+		userIdQueue = newConcurrentSet();
+		usersByName = new ConcurrentHashMap<String,User>();
+		usersById = new ConcurrentHashMap<String,User>();
+		commentQueue = newConcurrentSet();
+		comments = new ConcurrentHashMap<String,Set<Comment>>();
+		attachmentQueue = newConcurrentSet();
+		attachments = new ConcurrentHashMap<String,Set<Attachment>>();
+		priorityNameQueue = newConcurrentSet();
+		priorities = new ConcurrentHashMap<String,Priority>();
+		severityNameQueue = newConcurrentSet();
+		severities = new ConcurrentHashMap<String,Severity>();
+		resolutionNameQueue = newConcurrentSet();
+		resolutions = new ConcurrentHashMap<String,Resolution>();
+		statusNameQueue = newConcurrentSet();
+		status = new ConcurrentHashMap<String,Status>();
+		issueTypeNameQueue = newConcurrentSet();
+		issueTypes = new ConcurrentHashMap<String,IssueType>();
+		versionNameQueue = new ConcurrentHashMap<String,Set<String>>();
+		versions = new ConcurrentHashMap<String,ConcurrentMap<String,Version>>();
+		createFlights();
+	}
+
+	/**
+	 * Creates the single flights for all kinds of objects.
+	 */
+	private void createFlights() {
+		classificationLoads = new LoadFlight("classifications") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadClassifications();
+			}
+		};
+		projectLoads = new LoadFlight("projects") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadProjects();
+			}
+		};
+		componentLoads = new LoadFlight("components") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadComponents();
+			}
+		};
+		userLoads = new LoadFlight("users") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadUsers();
+			}
+		};
+		commentLoads = new LoadFlight("comments") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadComments(key);
+			}
+			@Override
+			protected boolean isLoaded(String key) {
+				return searchComment(key) != null;
+			}
+		};
+		attachmentLoads = new LoadFlight("attachments") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadAttachments(key);
+			}
+			@Override
+			protected boolean isLoaded(String key) {
+				return searchAttachment(key) != null;
+			}
+		};
+		priorityLoads = new LoadFlight("priorities") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadPriorities();
+			}
+		};
+		severityLoads = new LoadFlight("severities") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadSeverities();
+			}
+		};
+		statusLoads = new LoadFlight("status") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadStatus();
+			}
+		};
+		resolutionLoads = new LoadFlight("resolutions") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadResolutions();
+			}
+		};
+		issueTypeLoads = new LoadFlight("issue types") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadIssueTypes();
+			}
+		};
+		versionLoads = new LoadFlight("versions") {
+			@Override
+			protected void load(String key) throws Exception {
+				loadVersions();
+			}
+		};
+	}
+
+	/**
+	 * Creates a thread-safe set.
+	 * @return the new set
+	 * @since 3.0.2
+	 */
+	protected static <T> Set<T> newConcurrentSet() {
+		return Collections.newSetFromMap(new ConcurrentHashMap<T,Boolean>());
+	}
+
+	/**
+	 * Adds the object to the index unless the key is {@code null} or already indexed.
+	 * @param index - the index
+	 * @param key - the key of the object
+	 * @param o - the object
+	 * @since 3.0.2
+	 */
+	protected static <T> void index(ConcurrentMap<String,T> index, String key, T o) {
+		if (key != null) index.putIfAbsent(key, o);
+	}
+
+	/**
+	 * Returns the object from the index.
+	 * @param index - the index
+	 * @param key - the key of the object, can be {@code null}
+	 * @return the object or {@code null} if not indexed
+	 * @since 3.0.2
+	 */
+	protected static <T> T lookup(Map<String,T> index, String key) {
+		if (key == null) return null;
+		return index.get(key);
+	}
+
+	/**
+	 * Returns the per-project index.
+	 * @param index - the index by project names
+	 * @param projectName - the name of the project
+	 * @param create - whether the index shall be created if it does not exist
+	 * @return the per-project index or {@code null} if not available
+	 * @since 3.0.2
+	 */
+	protected static <T> ConcurrentMap<String,T> getProjectIndex(ConcurrentMap<String,ConcurrentMap<String,T>> index, String projectName, boolean create) {
+		if (projectName == null) return null;
+		ConcurrentMap<String,T> rc = index.get(projectName);
+		if ((rc == null) && create) {
+			rc = new ConcurrentHashMap<String,T>();
+			ConcurrentMap<String,T> existing = index.putIfAbsent(projectName, rc);
+			if (existing != null) rc = existing;
+		}
+		return rc;
+	}
+
+	/**
+	 * Adds the name to the per-project name queue.
+	 * @param queue - the queue
+	 * @param projectName - the name of the project
+	 * @param name - the name to be queued
+	 * @since 3.0.2
+	 */
+	protected static void enqueue(ConcurrentMap<String,Set<String>> queue, String projectName, String name) {
+		Set<String> names = null;
+		do {
+			names = queue.get(projectName);
+			if (names == null) {
+				names = newConcurrentSet();
+				Set<String> existing = queue.putIfAbsent(projectName, names);
+				if (existing != null) names = existing;
+			}
+			names.add(name);
+			// Repeat when the set was removed concurrently
+		} while (queue.get(projectName) != names);
+	}
+
+	/**
+	 * Removes all keys from the queue and returns them.
+	 * <p>Each key is returned by one drain only, even when keys are queued or drained concurrently.
+	 * Keys queued while draining are either returned or left for the next drain.</p>
+	 * @param queue - the queue
+	 * @return the keys removed
+	 * @since 3.0.2
+	 */
+	protected static <T> List<T> drain(Collection<T> queue) {
+		List<T> rc = new ArrayList<T>();
+		Iterator<T> i = queue.iterator();
+		while (i.hasNext()) {
+			T key = i.next();
+			if (queue.remove(key)) rc.add(key);
+		}
+		return rc;
+	}
+
+	/**
+	 * Removes the key from the queue unless it is {@code null}.
+	 * @param queue - the queue
+	 * @param key - the key to be removed, can be {@code null}
+	 * @since 3.0.2
+	 */
+	protected static <T> void dequeue(Set<T> queue, T key) {
+		if (key != null) queue.remove(key);
+	}
+
+	/**
+	 * Removes the name from the per-project name queue.
+	 * @param queue - the queue
+	 * @param projectName - the name of the project
+	 * @param name - the name to be removed
+	 * @since 3.0.2
+	 */
+	protected static void dequeue(ConcurrentMap<String,Set<String>> queue, String projectName, String name) {
+		if ((projectName == null) || (name == null)) return;
+		Set<String> names = queue.get(projectName);
+		if (names != null) {
+			names.remove(name);
+			if (names.size() == 0) {
+				queue.remove(projectName, names);
+			}
+		}
 	}
 
 	/**
@@ -131,9 +362,10 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerClassification(Classification classification) {
-		if (!classifications.contains(classification)) classifications.add(classification);
-		classificationNameQueue.remove(classification.getName());
-		classificationIdQueue.remove(LangUtils.getLong(classification.getId()));
+		index(classificationsByName, classification.getName(), classification);
+		index(classificationsById, classification.getId(), classification);
+		dequeue(classificationNameQueue, classification.getName());
+		dequeue(classificationIdQueue, LangUtils.getLong(classification.getId()));
 	}
 
 	/** 
@@ -142,10 +374,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return the classification found or {@code null}
 	 */
 	protected Classification searchClassification(String name) {
-		for (Classification o : classifications) {
-			if (name.equals(o.getName())) return o;
-		}
-		return null;
+		return lookup(classificationsByName, name);
 	}
 
 	/** 
@@ -154,11 +383,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return the classification found or {@code null}
 	 */
 	protected Classification searchClassification(long id) {
-		for (Classification o : classifications) {
-			String oid = o.getId();
-			if ((oid != null) && oid.equals(Long.toString(id))) return o;
-		}
-		return null;
+		return lookup(classificationsById, Long.toString(id));
 	}
 
 	/** 
@@ -203,11 +428,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return project if found or {@code null}
 	 */
 	protected Project searchProject(long id) {
-		for (Project o : projects) {
-			String oid = o.getId();
-			if ((oid != null) && oid.equals(Long.toString(id))) return o;
-		}
-		return null;
+		return lookup(projectsById, Long.toString(id));
 	}
 
 	/** 
@@ -216,11 +437,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return project if found or {@code null}
 	 */
 	protected Project searchProject(String name) {
-		for (Project o : projects) {
-			String oid = o.getName();
-			if ((oid != null) && oid.equals(name)) return o;
-		}
-		return null;
+		return lookup(projectsByName, name);
 	}
 
 	/**
@@ -228,9 +445,10 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerProject(Project project) {
-		if (!projects.contains(project)) projects.add(project);
-		projectIdQueue.remove(LangUtils.getLong(project.getId()));
-		projectNameQueue.remove(project.getName());
+		index(projectsByName, project.getName(), project);
+		index(projectsById, project.getId(), project);
+		dequeue(projectIdQueue, LangUtils.getLong(project.getId()));
+		dequeue(projectNameQueue, project.getName());
 		for (Component c : project.getComponents()) {
 			registerComponent(c);
 		}
@@ -258,12 +476,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	@Override
 	public void registerComponent(String projectName, String name) {
 		if ((name != null) && (projectName != null) && (searchComponent(projectName, name) == null)) {
-			Set<String> names = componentNameQueue.get(projectName);
-			if (names == null) {
-				names = new HashSet<String>();
-				componentNameQueue.put(projectName, names);
-			}
-			names.add(name);
+			enqueue(componentNameQueue, projectName, name);
 		}
 	}
 
@@ -274,10 +487,9 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return the component if loaded, {@code null} otherwise
 	 */
 	protected Component searchComponent(String projectName, String name) {
-		for (Component o : components) {
-			if (name.equals(o.getName()) && projectName.equals(o.getProject().getName())) return o;
-		}
-		return null;
+		ConcurrentMap<String,Component> index = getProjectIndex(components, projectName, false);
+		if (index == null) return null;
+		return lookup(index, name);
 	}
 
 	/**
@@ -285,15 +497,10 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerComponent(Component component) {
-		if (!components.contains(component)) components.add(component);
 		String projectName = component.getProject().getName();
-		Set<String> names = componentNameQueue.get(projectName);
-		if (names != null) {
-			names.remove(component.getName());
-			if (names.size() == 0) {
-				componentNameQueue.remove(projectName);
-			}
-		}
+		ConcurrentMap<String,Component> index = getProjectIndex(components, projectName, true);
+		if (index != null) index(index, component.getName(), component);
+		dequeue(componentNameQueue, projectName, component.getName());
 	}
 
 	/**
@@ -338,10 +545,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return user if found or {@code null}
 	 */
 	protected User searchUser(String name) {
-		for (User o : users) {
-			if (name.equals(o.getName())) return o;
-		}
-		return null;
+		return lookup(usersByName, name);
 	}
 
 	/** 
@@ -350,11 +554,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return user if found or {@code null}
 	 */
 	protected User searchUser(long id) {
-		for (User o : users) {
-			String oid = o.getId();
-			if ((oid != null) && oid.equals(Long.toString(id))) return o;
-		}
-		return null;
+		return lookup(usersById, Long.toString(id));
 	}
 
 	/**
@@ -362,9 +562,10 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerUser(User user) {
-		if (!users.contains(user)) users.add(user);
-		userNameQueue.remove(user.getName());
-		userIdQueue.remove(LangUtils.getLong(user.getId()));
+		index(usersByName, user.getName(), user);
+		index(usersById, user.getId(), user);
+		dequeue(userNameQueue, user.getName());
+		dequeue(userIdQueue, LangUtils.getLong(user.getId()));
 	}
 
 	/**
@@ -372,7 +573,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerComment(String issueId) {
-		if ((searchComment(issueId) == null) && !commentQueue.contains(issueId)) {
+		if ((issueId != null) && (searchComment(issueId) == null)) {
 			commentQueue.add(issueId);
 		}
 	}
@@ -383,8 +584,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return list of collections when loaded, {@code null} otherwise.
 	 */
 	protected Collection<Comment> searchComment(String issueId) {
-		if (comments.containsKey(issueId)) return comments.get(issueId);
-		return null;
+		return lookup(comments, issueId);
 	}
 
 	/**
@@ -392,8 +592,9 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerComments(String issueId, Set<Comment> comments) {
-		commentQueue.remove(issueId);
-		this.comments.put(issueId, comments);
+		dequeue(commentQueue, issueId);
+		if (comments != null) this.comments.put(issueId, comments);
+		else this.comments.remove(issueId);
 	}
 
 	/** 
@@ -409,7 +610,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerAttachment(String issueId) {
-		if (searchAttachment(issueId) == null) {
+		if ((issueId != null) && (searchAttachment(issueId) == null)) {
 			attachmentQueue.add(issueId);
 		}
 	}
@@ -420,7 +621,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return the attachments if loaded, {@code null} otherwise
 	 */
 	protected Set<Attachment> searchAttachment(String issueId) {
-		return attachments.get(issueId);
+		return lookup(attachments, issueId);
 	}
 
 	/**
@@ -428,8 +629,9 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerAttachments(String issueId, Set<Attachment> attachments) {
-		attachmentQueue.remove(issueId);
-		this.attachments.put(issueId, attachments);
+		dequeue(attachmentQueue, issueId);
+		if (attachments != null) this.attachments.put(issueId, attachments);
+		else this.attachments.remove(issueId);
 	}
 
 	/** Returns the attachments */
@@ -453,10 +655,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return the priority if loaded, {@code null} otherwise
 	 */
 	protected Priority searchPriority(String name) {
-		for (Priority o : priorities) {
-			if (name.equals(o.getName())) return o;
-		}
-		return null;
+		return lookup(priorities, name);
 	}
 
 	/**
@@ -464,8 +663,8 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerPriority(Priority priority) {
-		if (!priorities.contains(priority)) priorities.add(priority);
-		priorityNameQueue.remove(priority.getName());
+		index(priorities, priority.getName(), priority);
+		dequeue(priorityNameQueue, priority.getName());
 	}
 
 	/** Returns the priority names.
@@ -491,10 +690,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return the severity if loaded, {@code null} otherwise
 	 */
 	protected Severity searchSeverity(String name) {
-		for (Severity o : severities) {
-			if (name.equals(o.getName())) return o;
-		}
-		return null;
+		return lookup(severities, name);
 	}
 
 	/**
@@ -502,8 +698,8 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerSeverity(Severity severity) {
-		if (!severities.contains(severity)) severities.add(severity);
-		severityNameQueue.remove(severity.getName());
+		index(severities, severity.getName(), severity);
+		dequeue(severityNameQueue, severity.getName());
 	}
 
 	/** 
@@ -530,10 +726,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return the status if loaded, {@code null} otherwise
 	 */
 	protected Status searchStatus(String name) {
-		for (Status o : status) {
-			if (name.equals(o.getName())) return o;
-		}
-		return null;
+		return lookup(status, name);
 	}
 
 	/**
@@ -541,8 +734,8 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerStatus(Status status) {
-		if (!this.status.contains(status)) this.status.add(status);
-		statusNameQueue.remove(status.getName());
+		index(this.status, status.getName(), status);
+		dequeue(statusNameQueue, status.getName());
 	}
 
 	/** 
@@ -569,10 +762,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return the resolution if loaded, {@code null} otherwise
 	 */
 	protected Resolution searchResolution(String name) {
-		for (Resolution o : resolutions) {
-			if (name.equals(o.getName())) return o;
-		}
-		return null;
+		return lookup(resolutions, name);
 	}
 
 	/**
@@ -580,8 +770,8 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerResolution(Resolution resolution) {
-		if (!resolutions.contains(resolution)) resolutions.add(resolution);
-		resolutionNameQueue.remove(resolution.getName());
+		index(resolutions, resolution.getName(), resolution);
+		dequeue(resolutionNameQueue, resolution.getName());
 	}
 
 	/** 
@@ -608,10 +798,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return the issue type if loaded, {@code null} otherwise
 	 */
 	protected IssueType searchIssueType(String name) {
-		for (IssueType o : issueTypes) {
-			if (name.equals(o.getName())) return o;
-		}
-		return null;
+		return lookup(issueTypes, name);
 	}
 
 	/**
@@ -619,8 +806,8 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerIssueType(IssueType issueType) {
-		if (!issueTypes.contains(issueType)) issueTypes.add(issueType);
-		issueTypeNameQueue.remove(issueType.getName());
+		index(issueTypes, issueType.getName(), issueType);
+		dequeue(issueTypeNameQueue, issueType.getName());
 	}
 
 	/** 
@@ -637,12 +824,7 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	@Override
 	public void registerVersion(String projectName, String name) {
 		if ((name != null) && (projectName != null) && (searchVersion(projectName, name) == null)) {
-			Set<String> names = versionNameQueue.get(projectName);
-			if (names == null) {
-				names = new HashSet<String>();
-				versionNameQueue.put(projectName, names);
-			}
-			names.add(name);
+			enqueue(versionNameQueue, projectName, name);
 		}
 	}
 
@@ -653,10 +835,9 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 * @return the version if loaded, {@code null} otherwise
 	 */
 	protected Version searchVersion(String projectName, String name) {
-		for (Version o : versions) {
-			if (name.equals(o.getName()) && projectName.equals(o.getProject().getName())) return o;
-		}
-		return null;
+		ConcurrentMap<String,Version> index = getProjectIndex(versions, projectName, false);
+		if (index == null) return null;
+		return lookup(index, name);
 	}
 
 	/**
@@ -664,15 +845,10 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	@Override
 	public void registerVersion(Version version) {
-		if (!versions.contains(version)) versions.add(version);
 		String projectName = version.getProject().getName();
-		Set<String> names = versionNameQueue.get(projectName);
-		if (names != null) {
-			names.remove(version.getName());
-			if (names.size() == 0) {
-				versionNameQueue.remove(projectName);
-			}
-		}
+		ConcurrentMap<String,Version> index = getProjectIndex(versions, projectName, true);
+		if (index != null) index(index, version.getName(), version);
+		dequeue(versionNameQueue, projectName, version.getName());
 	}
 
 	/**
@@ -682,12 +858,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Classification getClassification(String name) {
 		Classification rc = searchClassification(name);
 		if (rc == null) {
-			try {
-				loadClassifications();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load classifications", e);
-			}
+			long ticket = await(classificationLoads);
 			rc = searchClassification(name);
+			if (rc == null) {
+				load(classificationLoads, null, ticket);
+				rc = searchClassification(name);
+			}
 		}
 		return rc;
 	}
@@ -699,12 +875,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Classification getClassification(long id) {
 		Classification rc = searchClassification(id);
 		if (rc == null) {
-			try {
-				loadClassifications();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load classifications", e);
-			}
+			long ticket = await(classificationLoads);
 			rc = searchClassification(id);
+			if (rc == null) {
+				load(classificationLoads, null, ticket);
+				rc = searchClassification(id);
+			}
 		}
 		return rc;
 	}
@@ -722,12 +898,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Project getProject(String name) {
 		Project rc = searchProject(name);
 		if (rc == null) {
-			try {
-				loadProjects();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load classifications", e);
-			}
+			long ticket = await(projectLoads);
 			rc = searchProject(name);
+			if (rc == null) {
+				load(projectLoads, null, ticket);
+				rc = searchProject(name);
+			}
 		}
 		return rc;
 	}
@@ -739,12 +915,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Project getProject(long id) {
 		Project rc = searchProject(id);
 		if (rc == null) {
-			try {
-				loadProjects();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load projects", e);
-			}
+			long ticket = await(projectLoads);
 			rc = searchProject(id);
+			if (rc == null) {
+				load(projectLoads, null, ticket);
+				rc = searchProject(id);
+			}
 		}
 		return rc;
 	}
@@ -762,12 +938,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Component getComponent(String projectName, String name) {
 		Component rc = searchComponent(projectName, name);
 		if (rc == null) {
-			try {
-				loadComponents();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load components", e);
-			}
+			long ticket = await(componentLoads);
 			rc = searchComponent(projectName, name);
+			if (rc == null) {
+				load(componentLoads, null, ticket);
+				rc = searchComponent(projectName, name);
+			}
 		}
 		return rc;
 	}
@@ -785,12 +961,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public User getUser(String name) {
 		User rc = searchUser(name);
 		if (rc == null) {
-			try {
-				loadUsers();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load users", e);
-			}
+			long ticket = await(userLoads);
 			rc = searchUser(name);
+			if (rc == null) {
+				load(userLoads, null, ticket);
+				rc = searchUser(name);
+			}
 		}
 		return rc;
 	}
@@ -802,12 +978,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public User getUser(long id) {
 		User rc = searchUser(id);
 		if (rc == null) {
-			try {
-				loadUsers();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load users", e);
-			}
+			long ticket = await(userLoads);
 			rc = searchUser(id);
+			if (rc == null) {
+				load(userLoads, null, ticket);
+				rc = searchUser(id);
+			}
 		}
 		return rc;
 	}
@@ -825,12 +1001,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Collection<Comment> getComments(String issue) {
 		Collection<Comment> rc = searchComment(issue);
 		if (rc == null) {
-			try {
-				loadComments();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load comments", e);
-			}
+			long ticket = await(commentLoads);
 			rc = searchComment(issue);
+			if (rc == null) {
+				load(commentLoads, issue, ticket);
+				rc = searchComment(issue);
+			}
 		}
 		return rc;
 	}
@@ -841,6 +1017,18 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	protected abstract void loadComments() throws Exception;
 
+	/** 
+	 * Loads the comments with priority for the given issue.
+	 * <p>The default implementation loads all queued comments. Subclasses may
+	 * load the given issue first and defer the remaining queue.</p>
+	 * @param issueId - ID of issue being accessed
+	 * @throws Exception when an error occurs
+	 * @since 3.0.2
+	 */
+	protected void loadComments(String issueId) throws Exception {
+		loadComments();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -848,12 +1036,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Collection<Attachment> getAttachments(String issueId) {
 		Collection<Attachment> rc = searchAttachment(issueId);
 		if (rc == null) {
-			try {
-				loadAttachments();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load attachments", e);
-			}
+			long ticket = await(attachmentLoads);
 			rc = searchAttachment(issueId);
+			if (rc == null) {
+				load(attachmentLoads, issueId, ticket);
+				rc = searchAttachment(issueId);
+			}
 		}
 		if (rc == null) rc = Collections.emptySet();
 		return rc;
@@ -865,6 +1053,18 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	protected abstract void loadAttachments() throws Exception;
 
+	/** 
+	 * Loads the attachments with priority for the given issue.
+	 * <p>The default implementation loads all queued attachments. Subclasses may
+	 * load the given issue first and defer the remaining queue.</p>
+	 * @param issueId - ID of issue being accessed
+	 * @throws Exception when an error occurs
+	 * @since 3.0.2
+	 */
+	protected void loadAttachments(String issueId) throws Exception {
+		loadAttachments();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -872,12 +1072,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Priority getPriority(String name) {
 		Priority rc = searchPriority(name);
 		if (rc == null) {
-			try {
-				loadPriorities();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load priorities", e);
-			}
+			long ticket = await(priorityLoads);
 			rc = searchPriority(name);
+			if (rc == null) {
+				load(priorityLoads, null, ticket);
+				rc = searchPriority(name);
+			}
 		}
 		return rc;
 	}
@@ -895,12 +1095,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Severity getSeverity(String name) {
 		Severity rc = searchSeverity(name);
 		if (rc == null) {
-			try {
-				loadSeverities();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load severities", e);
-			}
+			long ticket = await(severityLoads);
 			rc = searchSeverity(name);
+			if (rc == null) {
+				load(severityLoads, null, ticket);
+				rc = searchSeverity(name);
+			}
 		}
 		return rc;
 	}
@@ -918,12 +1118,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Status getStatus(String name) {
 		Status rc = searchStatus(name);
 		if (rc == null) {
-			try {
-				loadStatus();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load status", e);
-			}
+			long ticket = await(statusLoads);
 			rc = searchStatus(name);
+			if (rc == null) {
+				load(statusLoads, null, ticket);
+				rc = searchStatus(name);
+			}
 		}
 		return rc;
 	}
@@ -941,12 +1141,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Resolution getResolution(String name) {
 		Resolution rc = searchResolution(name);
 		if (rc == null) {
-			try {
-				loadResolutions();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load resolutions", e);
-			}
+			long ticket = await(resolutionLoads);
 			rc = searchResolution(name);
+			if (rc == null) {
+				load(resolutionLoads, null, ticket);
+				rc = searchResolution(name);
+			}
 		}
 		return rc;
 	}
@@ -964,12 +1164,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public IssueType getIssueType(String name) {
 		IssueType rc = searchIssueType(name);
 		if (rc == null) {
-			try {
-				loadIssueTypes();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load issue types", e);
-			}
+			long ticket = await(issueTypeLoads);
 			rc = searchIssueType(name);
+			if (rc == null) {
+				load(issueTypeLoads, null, ticket);
+				rc = searchIssueType(name);
+			}
 		}
 		return rc;
 	}
@@ -987,12 +1187,12 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	public Version getVersion(String projectName, String name) {
 		Version rc = searchVersion(projectName, name);
 		if (rc == null) {
-			try {
-				loadVersions();
-			} catch (Exception e) {
-				throw new RuntimeException("Cannot load versions", e);
-			}
+			long ticket = await(versionLoads);
 			rc = searchVersion(projectName, name);
+			if (rc == null) {
+				load(versionLoads, null, ticket);
+				rc = searchVersion(projectName, name);
+			}
 		}
 		return rc;
 	}
@@ -1003,4 +1203,145 @@ public abstract class AbstractLazyRetriever implements LazyRetriever {
 	 */
 	protected abstract void loadVersions() throws Exception;
 
+	/**
+	 * Waits for a running load of the flight.
+	 * @param flight - the flight
+	 * @return the ticket to be passed to {@link #load(LoadFlight, String, long)}
+	 * @since 3.0.2
+	 */
+	protected static long await(LoadFlight flight) {
+		try {
+			return flight.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Cannot load "+flight.getName(), e);
+		}
+	}
+
+	/**
+	 * Loads the objects of the flight unless another thread loaded them after the ticket was issued.
+	 * @param flight - the flight
+	 * @param key - the key to be loaded first (can be {@code null})
+	 * @param ticket - the ticket from {@link #await(LoadFlight)}
+	 * @since 3.0.2
+	 */
+	protected static void load(LoadFlight flight, String key, long ticket) {
+		try {
+			flight.load(key, ticket);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Cannot load "+flight.getName(), e);
+		} catch (Exception e) {
+			throw new RuntimeException("Cannot load "+flight.getName(), e);
+		}
+	}
+
+	/**
+	 * Runs at most one load of a kind of objects at a time (single flight).
+	 * <p>A thread that misses an object first waits for a running load and looks up the object again.
+	 * If it is still missing, the thread starts a new load - unless another waiting thread
+	 * already did so. Then it joins that load and receives its failure, if any. A burst of misses
+	 * therefore results in at most one load while another load is running.</p>
+	 * <p>A load that prioritises another key may return before the joining thread's key was
+	 * registered. The joining thread then starts a load for its own key (see {@link #isLoaded(String)}).</p>
+	 * @author ralph
+	 * @since 3.0.2
+	 */
+	protected abstract static class LoadFlight {
+
+		private String name;
+		private boolean running = false;
+		private long started = 0;
+		private long completed = 0;
+		private Exception failure = null;
+
+		/**
+		 * Constructor.
+		 * @param name - the name of the objects loaded
+		 */
+		public LoadFlight(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Returns the name of the objects loaded.
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the number of loads started.
+		 * @return the number of loads
+		 */
+		public synchronized long getLoadCount() {
+			return started;
+		}
+
+		/**
+		 * Waits until no load is running.
+		 * @return the ticket for {@link #load(String, long)}
+		 * @throws InterruptedException when the thread was interrupted
+		 */
+		public synchronized long await() throws InterruptedException {
+			while (running) wait();
+			return started;
+		}
+
+		/**
+		 * Loads the objects unless a load was started after the ticket was issued.
+		 * <p>Such a load is joined when it is still running. When the joined load did not
+		 * register the given key, the key is loaded by another load.</p>
+		 * @param key - the key to be loaded first (can be {@code null})
+		 * @param ticket - the ticket from {@link #await()}
+		 * @throws Exception when the load failed
+		 */
+		public void load(String key, long ticket) throws Exception {
+			long flight = 0;
+			synchronized (this) {
+				while (true) {
+					while (running) wait();
+					if (completed <= ticket) break;
+					if (failure != null) throw failure;
+					if ((key == null) || isLoaded(key)) return;
+					// The joined load did not cover the key
+					ticket = completed;
+				}
+				running = true;
+				flight = ++started;
+			}
+			Exception error = null;
+			try {
+				load(key);
+			} catch (Exception e) {
+				error = e;
+				throw e;
+			} finally {
+				synchronized (this) {
+					running = false;
+					completed = flight;
+					failure = error;
+					notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Performs the actual load.
+		 * @param key - the key to be loaded first (can be {@code null})
+		 * @throws Exception when an error occurs
+		 */
+		protected abstract void load(String key) throws Exception;
+
+		/**
+		 * Tells whether the objects for the given key were registered.
+		 * <p>The default implementation returns {@code true} as all loads request all queued keys.</p>
+		 * @param key - the key to be loaded first
+		 * @return {@code true} when the objects of the key are available
+		 */
+		protected boolean isLoaded(String key) {
+			return true;
+		}
+	}
 }
@@ -0,0 +1,120 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Decodes Base64 characters written into bytes of an output stream.
+ * <p>Whitespace and padding characters are ignored. The underlying stream is closed
+ * when this writer is closed.</p>
+ * @author ralph
+ * @since 3.0.2
+ *
+ */
+public class Base64DecodingWriter extends Writer {
+
+	private static final int DECODE[] = new int[128];
+
+	static {
+		Arrays.fill(DECODE, -1);
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+		for (int i=0; i<alphabet.length(); i++) {
+			DECODE[alphabet.charAt(i)] = i;
+		}
+	}
+
+	private OutputStream out;
+	private byte bytes[] = new byte[3];
+	private int bits = 0;
+	private int count = 0;
+	private boolean closed = false;
+
+	/**
+	 * Constructor.
+	 * @param out - the stream receiving the decoded bytes
+	 */
+	public Base64DecodingWriter(OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		if (closed) throw new IOException("Writer closed");
+		int end = off+len;
+		for (int i=off; i<end; i++) {
+			char c = cbuf[i];
+			int value = c < 128 ? DECODE[c] : -1;
+			if (value < 0) {
+				if ((c == '=') || Character.isWhitespace(c)) continue;
+				throw new IOException("Invalid Base64 character: "+c);
+			}
+			bits = (bits << 6) | value;
+			count++;
+			if (count == 4) {
+				bytes[0] = (byte)(bits >> 16);
+				bytes[1] = (byte)(bits >> 8);
+				bytes[2] = (byte)bits;
+				out.write(bytes, 0, 3);
+				bits = 0;
+				count = 0;
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Writes the remaining bytes and closes the underlying stream.
+	 * @throws IOException when the encoded data was truncated
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) return;
+		closed = true;
+		try {
+			switch (count) {
+			case 0:
+				break;
+			case 2:
+				out.write(bits >> 4);
+				break;
+			case 3:
+				out.write(bits >> 10);
+				out.write(bits >> 2);
+				break;
+			default:
+				throw new IOException("Truncated Base64 data");
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -19,6 +19,7 @@ package b4j.util;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.TimeZone;
@@ -44,6 +45,18 @@ public class BugzillaUtils {
 
 	private static Logger log = LoggerFactory.getLogger(BugzillaUtils.class);
 
+	/** The time zone of all parsed dates */
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+	/** Marks a string that is not in one of the common shapes */
+	private static final long NO_DATE = Long.MIN_VALUE;
+	/** Calendars for dates in local time */
+	private static final ThreadLocal<Calendar> LOCAL_CALENDAR = new ThreadLocal<Calendar>() {
+		@Override
+		protected Calendar initialValue() {
+			return Calendar.getInstance();
+		}
+	};
+
 	/**
 	 * Transforms an {@link Iterable} into a {@link Collection}.
 	 * @param iterable iterable to transform
@@ -161,11 +174,144 @@ public class BugzillaUtils {
 
 	/**
 	 * Parses the date by trying various formats.
+	 * <p>Since V3.0.2 the common shapes are recognized by scanning the digits:</p>
+	 * <ul>
+	 * <li><code>yyyy-MM-ddTHH:mm:ssZ</code> (JSON, UTC)</li>
+	 * <li><code>yyyy-MM-dd HH:mm:ss +hhmm</code>, <code>... UTC</code> and <code>... GMT</code></li>
+	 * <li><code>yyyy-MM-dd HH:mm:ss</code>, <code>yyyy-MM-dd HH:mm</code> and <code>yyyy-MM-dd</code> (local time)</li>
+	 * </ul>
+	 * <p>All other strings are parsed by the date formats in {@link DefaultIssue} as before.
+	 * The method is thread-safe.</p>
 	 * @param s string to parse
 	 * @return date parsed
 	 * @throws ParseException when the date could not be parsed
 	 */
 	public static RsDate parseDate(String s) throws ParseException {
+		long millis = scanDate(s);
+		if (millis != NO_DATE) return new RsDate(UTC, millis);
+		return parseDateByFormats(s);
+	}
+
+	/**
+	 * Scans the common date shapes.
+	 * <p>Only values within their regular ranges are accepted. Anything else is left
+	 * to the lenient date formats.</p>
+	 * @param s string to parse
+	 * @return the milliseconds since epoch or {@link #NO_DATE} when the string has another shape
+	 */
+	private static long scanDate(String s) {
+		int len = s.length();
+		if ((len < 10) || (s.charAt(4) != '-') || (s.charAt(7) != '-')) return NO_DATE;
+		int year = scanDigits(s, 0, 4);
+		int month = scanDigits(s, 5, 2);
+		int day = scanDigits(s, 8, 2);
+		// Julian calendar applies before 1582
+		if ((year < 1600) || (month < 1) || (month > 12) || (day < 1) || (day > getDaysInMonth(year, month))) return NO_DATE;
+		if (len == 10) return getLocalMillis(year, month, day, 0, 0, 0);
+
+		if ((len < 16) || (s.charAt(13) != ':')) return NO_DATE;
+		char separator = s.charAt(10);
+		int hour = scanDigits(s, 11, 2);
+		int minute = scanDigits(s, 14, 2);
+		if ((hour < 0) || (hour > 23) || (minute < 0) || (minute > 59)) return NO_DATE;
+		if ((separator == ' ') && (len == 16)) return getLocalMillis(year, month, day, hour, minute, 0);
+
+		if ((len < 19) || (s.charAt(16) != ':')) return NO_DATE;
+		int second = scanDigits(s, 17, 2);
+		if ((second < 0) || (second > 59)) return NO_DATE;
+		if (separator == 'T') {
+			// JSON format
+			if ((len != 20) || (s.charAt(19) != 'Z')) return NO_DATE;
+			return getUtcMillis(year, month, day, hour, minute, second);
+		}
+		if (separator != ' ') return NO_DATE;
+		if (len == 19) return getLocalMillis(year, month, day, hour, minute, second);
+
+		if ((len < 23) || (s.charAt(19) != ' ')) return NO_DATE;
+		long offset;
+		char sign = s.charAt(20);
+		if ((len == 25) && ((sign == '+') || (sign == '-'))) {
+			int offsetHours = scanDigits(s, 21, 2);
+			int offsetMinutes = scanDigits(s, 23, 2);
+			if ((offsetHours < 0) || (offsetHours > 23) || (offsetMinutes < 0) || (offsetMinutes > 59)) return NO_DATE;
+			offset = (offsetHours*60L + offsetMinutes) * 60000L;
+			if (sign == '-') offset = -offset;
+		} else if ((len == 23) && (s.startsWith("UTC", 20) || s.startsWith("GMT", 20))) {
+			offset = 0;
+		} else {
+			return NO_DATE;
+		}
+		return getUtcMillis(year, month, day, hour, minute, second) - offset;
+	}
+
+	/**
+	 * Scans a number of digits.
+	 * @param s the string
+	 * @param start the index of first digit
+	 * @param count the number of digits
+	 * @return the value or -1 if a character is not a digit
+	 */
+	private static int scanDigits(String s, int start, int count) {
+		int rc = 0;
+		for (int i=start; i<start+count; i++) {
+			char c = s.charAt(i);
+			if ((c < '0') || (c > '9')) return -1;
+			rc = rc*10 + (c-'0');
+		}
+		return rc;
+	}
+
+	/**
+	 * Returns the number of days in the given month.
+	 * @param year the year
+	 * @param month the month (1-12)
+	 * @return the number of days
+	 */
+	private static int getDaysInMonth(int year, int month) {
+		switch (month) {
+		case 2:
+			boolean leap = ((year % 4) == 0) && (((year % 100) != 0) || ((year % 400) == 0));
+			return leap ? 29 : 28;
+		case 4:
+		case 6:
+		case 9:
+		case 11:
+			return 30;
+		default:
+			return 31;
+		}
+	}
+
+	/**
+	 * Computes the time of a UTC date in the Gregorian calendar.
+	 * @return the milliseconds since epoch
+	 */
+	private static long getUtcMillis(int year, int month, int day, int hour, int minute, int second) {
+		long days = CalendarWeek.getEpochDay(year, month, day);
+		return ((days*24L + hour)*60L + minute)*60000L + second*1000L;
+	}
+
+	/**
+	 * Computes the time of a date in the default time zone.
+	 * The computation is identical to parsing with a {@link java.text.SimpleDateFormat}.
+	 * @return the milliseconds since epoch
+	 */
+	private static long getLocalMillis(int year, int month, int day, int hour, int minute, int second) {
+		Calendar cal = LOCAL_CALENDAR.get();
+		cal.setTimeZone(TimeZone.getDefault());
+		cal.clear();
+		cal.set(year, month-1, day, hour, minute, second);
+		return cal.getTimeInMillis();
+	}
+
+	/**
+	 * Parses the date by trying the formats in {@link DefaultIssue}.
+	 * @param s string to parse
+	 * @return date parsed
+	 * @throws ParseException when the date could not be parsed
+	 * @since 3.0.2
+	 */
+	protected static RsDate parseDateByFormats(String s) throws ParseException {
 
 		// JSON format
 		if (s.matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}Z")) {
@@ -0,0 +1,171 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Computes calendar weeks directly from epoch milliseconds.
+ * <p>The result equals the week of year and week year a {@link Calendar} would compute
+ * for the same time zone and week rules, but no calendar objects are allocated.
+ * Instances are immutable and can be shared between threads.</p>
+ * @author ralph
+ * @since 3.0.2
+ */
+public class CalendarWeek {
+
+	private static final long MILLIS_PER_DAY = 24L*60L*60L*1000L;
+
+	private TimeZone timeZone;
+	private int firstDayOfWeek;
+	private int minimalDaysInFirstWeek;
+
+	/**
+	 * Constructor using the rules of the default time zone and locale.
+	 */
+	public CalendarWeek() {
+		this(Calendar.getInstance());
+	}
+
+	/**
+	 * Constructor using the rules of the given calendar.
+	 * @param calendar - the calendar to take time zone and week rules from
+	 */
+	public CalendarWeek(Calendar calendar) {
+		this(calendar.getTimeZone(), calendar.getFirstDayOfWeek(), calendar.getMinimalDaysInFirstWeek());
+	}
+
+	/**
+	 * Constructor.
+	 * @param timeZone - the time zone
+	 * @param firstDayOfWeek - the first day of a week, e.g. {@link Calendar#MONDAY}
+	 * @param minimalDaysInFirstWeek - the minimal number of days in the first week of a year
+	 */
+	public CalendarWeek(TimeZone timeZone, int firstDayOfWeek, int minimalDaysInFirstWeek) {
+		this.timeZone = timeZone;
+		this.firstDayOfWeek = firstDayOfWeek;
+		this.minimalDaysInFirstWeek = minimalDaysInFirstWeek;
+	}
+
+	/**
+	 * Returns the local day since 1970-01-01 for the given time.
+	 * @param millis - the time in milliseconds since epoch
+	 * @return the local epoch day
+	 */
+	public long getEpochDay(long millis) {
+		return floorDiv(millis + timeZone.getOffset(millis), MILLIS_PER_DAY);
+	}
+
+	/**
+	 * Returns the week ID for the given time.
+	 * @param millis - the time in milliseconds since epoch
+	 * @return week year * 100 + week of year
+	 */
+	public int getWeekId(long millis) {
+		return getWeekIdOfDay(getEpochDay(millis));
+	}
+
+	/**
+	 * Returns the week ID for the given local day.
+	 * @param epochDay - the local day since 1970-01-01
+	 * @return week year * 100 + week of year
+	 */
+	public int getWeekIdOfDay(long epochDay) {
+		int year = getYear(epochDay);
+		long start = getFirstWeekStart(year);
+		if (epochDay < start) {
+			year--;
+			start = getFirstWeekStart(year);
+		} else {
+			long next = getFirstWeekStart(year+1);
+			if (epochDay >= next) {
+				year++;
+				start = next;
+			}
+		}
+		return year*100 + (int)((epochDay - start) / 7) + 1;
+	}
+
+	/**
+	 * Returns the day of week for the given local day.
+	 * @param epochDay - the local day since 1970-01-01
+	 * @return the day of week, e.g. {@link Calendar#SUNDAY}
+	 */
+	public static int getDayOfWeek(long epochDay) {
+		// 1970-01-01 was a Thursday
+		return (int)floorMod(epochDay + 4, 7) + Calendar.SUNDAY;
+	}
+
+	/**
+	 * Returns the first day of week 1 of the given year.
+	 * @param year - the year
+	 * @return the local epoch day
+	 */
+	protected long getFirstWeekStart(int year) {
+		long jan1 = getEpochDay(year, 1, 1);
+		int offset = (int)floorMod(getDayOfWeek(jan1) - firstDayOfWeek, 7);
+		long rc = jan1 - offset;
+		if (7 - offset < minimalDaysInFirstWeek) rc += 7;
+		return rc;
+	}
+
+	/**
+	 * Returns the (proleptic Gregorian) year of the given local day.
+	 * @param epochDay - the local day since 1970-01-01
+	 * @return the year
+	 */
+	public static int getYear(long epochDay) {
+		long z = epochDay + 719468;
+		long era = floorDiv(z, 146097);
+		long doe = z - era * 146097;
+		long yoe = (doe - doe/1460 + doe/36524 - doe/146096) / 365;
+		long doy = doe - (365*yoe + yoe/4 - yoe/100);
+		long mp = (5*doy + 2) / 153;
+		long year = yoe + era * 400;
+		if (mp >= 10) year++;
+		return (int)year;
+	}
+
+	/**
+	 * Returns the local day since 1970-01-01 of the given (proleptic Gregorian) date.
+	 * @param year - the year
+	 * @param month - the month (1-12)
+	 * @param day - the day of month
+	 * @return the local epoch day
+	 */
+	public static long getEpochDay(int year, int month, int day) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = floorDiv(y, 400);
+		long yoe = y - era * 400;
+		long mp = month > 2 ? month - 3 : month + 9;
+		long doy = (153*mp + 2)/5 + day - 1;
+		long doe = yoe * 365 + yoe/4 - yoe/100 + doy;
+		return era * 146097 + doe - 719468;
+	}
+
+	private static long floorDiv(long x, long y) {
+		long rc = x / y;
+		if (((x % y) != 0) && ((x < 0) != (y < 0))) rc--;
+		return rc;
+	}
+
+	private static long floorMod(long x, long y) {
+		return x - floorDiv(x, y) * y;
+	}
+}
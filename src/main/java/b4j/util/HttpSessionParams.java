@@ -37,12 +37,19 @@ import rs.baselib.security.DefaultAuthorizationCallback;
  */
 public class HttpSessionParams implements IConfigurable {
 
+	/** Default maximum number of concurrent connections (since V3.0.2) */
+	public static final int DEFAULT_MAX_CONNECTIONS = 8;
+
 	private AuthorizationCallback authorizationCallback;
 	private Proxy proxy = null;
 	private String proxyHost = null;
 	private int proxyPort = -1;
 	private AuthorizationCallback proxyAuthorizationCallback = null;
 	private boolean basicAuthentication = false;
+	private int connectTimeout = 0;
+	private int readTimeout = 0;
+	private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+	private boolean compression = true;
 
 	/**
 	 * Constructor.
@@ -50,10 +57,24 @@ public class HttpSessionParams implements IConfigurable {
 	public HttpSessionParams() {
 	}
 
+	/**
+	 * Configures the parameters.
+	 * <p>Since V3.0.2 the connection can be configured with elements &lt;connect-timeout&gt; and
+	 * &lt;read-timeout&gt; (milliseconds, 0 means no timeout), &lt;max-connections&gt; (maximum number
+	 * of concurrent connections) and &lt;compression&gt; (whether to accept gzip/deflate encoded responses).</p>
+	 * @param config - the configuration
+	 * @throws ConfigurationException - when configuration fails
+	 */
 	@Override
 	public void configure(Configuration config) throws ConfigurationException {
 		String className = null;
 
+		// Connection
+		setConnectTimeout(config.getInt("connect-timeout", 0));
+		setReadTimeout(config.getInt("read-timeout", 0));
+		setMaxConnections(config.getInt("max-connections", DEFAULT_MAX_CONNECTIONS));
+		setCompression(config.getBoolean("compression", true));
+
 		Configuration authCfg = null;
 
 		// Target Authentication
@@ -242,6 +263,78 @@ public class HttpSessionParams implements IConfigurable {
 		this.basicAuthentication = basicAuthentication;
 	}
 
+	/**
+	 * Returns the connect timeout.
+	 * @return the timeout in milliseconds, 0 means no timeout
+	 * @since 3.0.2
+	 */
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * Sets the connect timeout.
+	 * @param connectTimeout the timeout in milliseconds, 0 means no timeout
+	 * @since 3.0.2
+	 */
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = Math.max(0, connectTimeout);
+	}
+
+	/**
+	 * Returns the read timeout.
+	 * @return the timeout in milliseconds, 0 means no timeout
+	 * @since 3.0.2
+	 */
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	/**
+	 * Sets the read timeout.
+	 * @param readTimeout the timeout in milliseconds, 0 means no timeout
+	 * @since 3.0.2
+	 */
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = Math.max(0, readTimeout);
+	}
+
+	/**
+	 * Returns the maximum number of concurrent connections.
+	 * @return the maximum number of connections
+	 * @since 3.0.2
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * Sets the maximum number of concurrent connections.
+	 * @param maxConnections the maximum number of connections
+	 * @since 3.0.2
+	 */
+	public void setMaxConnections(int maxConnections) {
+		this.maxConnections = Math.max(1, maxConnections);
+	}
+
+	/**
+	 * Returns whether compressed responses are accepted.
+	 * @return <code>true</code> when gzip/deflate encoded responses are accepted
+	 * @since 3.0.2
+	 */
+	public boolean isCompression() {
+		return compression;
+	}
+
+	/**
+	 * Sets whether compressed responses are accepted.
+	 * @param compression <code>true</code> when gzip/deflate encoded responses shall be accepted
+	 * @since 3.0.2
+	 */
+	public void setCompression(boolean compression) {
+		this.compression = compression;
+	}
+
 	/**
 	 * Returns the proxy object or <code>null</code> if no proxy is present.
 	 * @return the proxy object
@@ -0,0 +1,178 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import b4j.core.Classification;
+import b4j.core.IssueType;
+import b4j.core.Priority;
+import b4j.core.Project;
+import b4j.core.Resolution;
+import b4j.core.Severity;
+import b4j.core.Status;
+import b4j.core.User;
+
+/**
+ * Resolves referenced objects of a specific kind from a {@link LazyRetriever}.
+ * <p>There is one resolver per kind of object. It calls the typed getter of the retriever
+ * directly so that no reflective method lookup is required.</p>
+ * @param <T> type of objects resolved
+ * @author ralph
+ * @since 3.0.2
+ */
+public abstract class LazyResolver<T> {
+
+	private static final Map<String, LazyResolver<?>> RESOLVERS = new HashMap<String, LazyResolver<?>>();
+
+	/** Resolves {@link Classification}s */
+	public static final LazyResolver<Classification> CLASSIFICATION = new LazyResolver<Classification>("classification") {
+		@Override
+		public Classification resolve(LazyRetriever retriever, String name) {
+			return retriever.getClassification(name);
+		}
+		@Override
+		public Classification resolve(LazyRetriever retriever, long id) {
+			return retriever.getClassification(id);
+		}
+	};
+
+	/** Resolves {@link Project}s */
+	public static final LazyResolver<Project> PROJECT = new LazyResolver<Project>("project") {
+		@Override
+		public Project resolve(LazyRetriever retriever, String name) {
+			return retriever.getProject(name);
+		}
+		@Override
+		public Project resolve(LazyRetriever retriever, long id) {
+			return retriever.getProject(id);
+		}
+	};
+
+	/** Resolves {@link User}s */
+	public static final LazyResolver<User> USER = new LazyResolver<User>("user") {
+		@Override
+		public User resolve(LazyRetriever retriever, String name) {
+			return retriever.getUser(name);
+		}
+		@Override
+		public User resolve(LazyRetriever retriever, long id) {
+			return retriever.getUser(id);
+		}
+	};
+
+	/** Resolves {@link IssueType}s */
+	public static final LazyResolver<IssueType> ISSUE_TYPE = new LazyResolver<IssueType>("issueType") {
+		@Override
+		public IssueType resolve(LazyRetriever retriever, String name) {
+			return retriever.getIssueType(name);
+		}
+	};
+
+	/** Resolves {@link Status}es */
+	public static final LazyResolver<Status> STATUS = new LazyResolver<Status>("status") {
+		@Override
+		public Status resolve(LazyRetriever retriever, String name) {
+			return retriever.getStatus(name);
+		}
+	};
+
+	/** Resolves {@link Resolution}s */
+	public static final LazyResolver<Resolution> RESOLUTION = new LazyResolver<Resolution>("resolution") {
+		@Override
+		public Resolution resolve(LazyRetriever retriever, String name) {
+			return retriever.getResolution(name);
+		}
+	};
+
+	/** Resolves {@link Priority}s */
+	public static final LazyResolver<Priority> PRIORITY = new LazyResolver<Priority>("priority") {
+		@Override
+		public Priority resolve(LazyRetriever retriever, String name) {
+			return retriever.getPriority(name);
+		}
+	};
+
+	/** Resolves {@link Severity}s */
+	public static final LazyResolver<Severity> SEVERITY = new LazyResolver<Severity>("severity") {
+		@Override
+		public Severity resolve(LazyRetriever retriever, String name) {
+			return retriever.getSeverity(name);
+		}
+	};
+
+	private String property;
+
+	/**
+	 * Constructor.
+	 * @param property - the name of the property at {@link LazyRetriever}, e.g. "issueType" for {@link LazyRetriever#getIssueType(String)}
+	 */
+	protected LazyResolver(String property) {
+		this.property = property;
+		synchronized (RESOLVERS) {
+			RESOLVERS.put(property, this);
+		}
+	}
+
+	/**
+	 * Returns the name of the property at {@link LazyRetriever}.
+	 * @return the property name
+	 */
+	public String getProperty() {
+		return property;
+	}
+
+	/**
+	 * Resolves the object with the given name.
+	 * @param retriever - the retriever to be used
+	 * @param name - name of object
+	 * @return the object or <code>null</code> if not found
+	 */
+	public abstract T resolve(LazyRetriever retriever, String name);
+
+	/**
+	 * Resolves the object with the given ID.
+	 * <p>The default implementation returns <code>null</code> as most kinds of objects cannot be retrieved by ID.</p>
+	 * @param retriever - the retriever to be used
+	 * @param id - ID of object
+	 * @return the object or <code>null</code> if not found
+	 */
+	public T resolve(LazyRetriever retriever, long id) {
+		return null;
+	}
+
+	/**
+	 * Returns the resolver for the given property.
+	 * @param property - the name of the property at {@link LazyRetriever}, e.g. "status"
+	 * @return the resolver or <code>null</code> if no such resolver exists
+	 */
+	public static LazyResolver<?> forProperty(String property) {
+		synchronized (RESOLVERS) {
+			return RESOLVERS.get(property);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return "LazyResolver["+property+"]";
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growing list of primitive long values.
+ * <p>The list avoids boxing and is used to collect large numbers of IDs.</p>
+ * @author ralph
+ * @since 3.0.2
+ */
+public class LongList {
+
+	private long values[];
+	private int size;
+
+	/**
+	 * Constructor.
+	 */
+	public LongList() {
+		this(16);
+	}
+
+	/**
+	 * Constructor.
+	 * @param initialCapacity - the initial capacity of the list
+	 */
+	public LongList(int initialCapacity) {
+		values = new long[Math.max(1, initialCapacity)];
+		size = 0;
+	}
+
+	/**
+	 * Adds a value to the list.
+	 * @param value - the value to add
+	 */
+	public void add(long value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+		values[size++] = value;
+	}
+
+	/**
+	 * Returns the value at the given index.
+	 * @param index - the index
+	 * @return the value
+	 */
+	public long get(int index) {
+		if ((index < 0) || (index >= size)) throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+		return values[index];
+	}
+
+	/**
+	 * Returns the size of the list.
+	 * @return the number of values
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns whether the list is empty.
+	 * @return true when the list has no values
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns a copy of the values.
+	 * @return the values
+	 */
+	public long[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+	/**
+	 * Returns a read-only string view of this list.
+	 * The strings are created on access only.
+	 * @return the string view
+	 */
+	public List<String> asStrings() {
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return Long.toString(LongList.this.get(index));
+			}
+
+			@Override
+			public int size() {
+				return LongList.this.size();
+			}
+		};
+	}
+}
@@ -19,7 +19,8 @@ package b4j.util;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,14 +30,26 @@ import org.apache.commons.collections.Transformer;
  * A small repository of some meta data.
  * <p>Idea is to lazily collect data of type T that needs to be transformed into type V so that
  * subsequent calls always return the same object.</p>
+ * <p>Since V3.0.2 the repository can be shared by multiple threads. Each object is transformed only once
+ * even when requested concurrently, while transformations of different objects run in parallel.
+ * The repository can be limited in size (least recently used objects are evicted first) and
+ * objects can expire after a certain time. Both limits are disabled by default.</p>
  * @author ralph
  *
  */
 public class MetaData<T, V> {
 
-	private Map<T, V> map = new HashMap<T, V>();
+	/** Replaces the <code>null</code> key in the map */
+	private static final Object NULL_KEY = new Object();
+
+	private Map<Object, Entry<V>> map = new LinkedHashMap<Object, Entry<V>>(16, 0.75f, true);
 	private Transformer transformer;
 	private TypedTransformer<T,V> typedTransformer;
+	private int maxSize = 0;
+	private long timeToLive = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
 
 	/**
 	 * Constructor.
@@ -59,11 +72,45 @@ public class MetaData<T, V> {
 	 * @return transformed object
 	 */
 	public V get(T t, Object... args) {
-		V rc = map.get(t);
-		if (rc == null) {
+		Object key = t != null ? t : NULL_KEY;
+		Entry<V> entry = null;
+		boolean compute = false;
+		boolean recursive = false;
+		synchronized (map) {
+			entry = map.get(key);
+			if ((entry != null) && entry.isExpired(System.currentTimeMillis())) {
+				map.remove(key);
+				evictionCount++;
+				entry = null;
+			}
+			if (entry == null) {
+				entry = new Entry<V>();
+				map.put(key, entry);
+				missCount++;
+				compute = true;
+				evict();
+			} else if (entry.isOwner()) {
+				// Recursive request for the same object
+				missCount++;
+				recursive = true;
+			} else {
+				hitCount++;
+			}
+		}
+		if (recursive) return transform(t, args);
+		if (!compute) return entry.await();
+
+		V rc = null;
+		try {
 			rc = transform(t, args);
-			map.put(t, rc);
+		} catch (RuntimeException e) {
+			release(key, entry);
+			entry.fail(e);
+			throw e;
 		}
+		// null values are not kept so that the transformation is repeated next time
+		if (rc == null) release(key, entry);
+		entry.complete(rc, timeToLive > 0 ? System.currentTimeMillis()+timeToLive : Long.MAX_VALUE);
 		return rc;
 	}
 
@@ -93,4 +140,213 @@ public class MetaData<T, V> {
 		if (transformer != null) return (V)transformer.transform(t);
 		return typedTransformer.transform(t, args);
 	}
+
+	/**
+	 * Removes the entry from the map unless it was replaced meanwhile.
+	 * @param key the key of the entry
+	 * @param entry the entry
+	 */
+	private void release(Object key, Entry<V> entry) {
+		synchronized (map) {
+			Entry<V> current = map.get(key);
+			if (current == entry) map.remove(key);
+		}
+	}
+
+	/**
+	 * Evicts the least recently used entries when the maximum size is exceeded.
+	 * Must be called while holding the map lock.
+	 */
+	private void evict() {
+		if (maxSize <= 0) return;
+		Iterator<Entry<V>> i = map.values().iterator();
+		while ((map.size() > maxSize) && i.hasNext()) {
+			i.next();
+			i.remove();
+			evictionCount++;
+		}
+	}
+
+	/**
+	 * Removes all transformed objects.
+	 * @since 3.0.2
+	 */
+	public void clear() {
+		synchronized (map) {
+			map.clear();
+		}
+	}
+
+	/**
+	 * Returns the number of transformed objects currently kept.
+	 * @return the number of objects
+	 * @since 3.0.2
+	 */
+	public int size() {
+		synchronized (map) {
+			return map.size();
+		}
+	}
+
+	/**
+	 * Returns the maximum number of objects kept.
+	 * @return the maximum size, 0 when unlimited
+	 * @since 3.0.2
+	 */
+	public int getMaxSize() {
+		synchronized (map) {
+			return maxSize;
+		}
+	}
+
+	/**
+	 * Sets the maximum number of objects kept.
+	 * The least recently used objects are evicted when the size is exceeded.
+	 * @param maxSize the maximum size, 0 when unlimited
+	 * @since 3.0.2
+	 */
+	public void setMaxSize(int maxSize) {
+		synchronized (map) {
+			this.maxSize = maxSize;
+			evict();
+		}
+	}
+
+	/**
+	 * Returns the time after which objects expire.
+	 * @return the time to live in milliseconds, 0 when objects never expire
+	 * @since 3.0.2
+	 */
+	public long getTimeToLive() {
+		synchronized (map) {
+			return timeToLive;
+		}
+	}
+
+	/**
+	 * Sets the time after which objects expire.
+	 * The value applies to objects transformed afterwards.
+	 * @param timeToLive the time to live in milliseconds, 0 when objects never expire
+	 * @since 3.0.2
+	 */
+	public void setTimeToLive(long timeToLive) {
+		synchronized (map) {
+			this.timeToLive = timeToLive;
+		}
+	}
+
+	/**
+	 * Returns the number of requests that were answered from this repository.
+	 * @return the number of hits
+	 * @since 3.0.2
+	 */
+	public long getHitCount() {
+		synchronized (map) {
+			return hitCount;
+		}
+	}
+
+	/**
+	 * Returns the number of requests that required a transformation.
+	 * @return the number of misses
+	 * @since 3.0.2
+	 */
+	public long getMissCount() {
+		synchronized (map) {
+			return missCount;
+		}
+	}
+
+	/**
+	 * Returns the number of objects that were evicted due to size or expiry.
+	 * @return the number of evictions
+	 * @since 3.0.2
+	 */
+	public long getEvictionCount() {
+		synchronized (map) {
+			return evictionCount;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		synchronized (map) {
+			return getClass().getSimpleName()+"[size="+map.size()+";hits="+hitCount+";misses="+missCount+";evictions="+evictionCount+"]";
+		}
+	}
+
+	/**
+	 * A transformed object that might still be in progress.
+	 * @param <V> type of object
+	 */
+	private static class Entry<V> {
+
+		private Thread owner = Thread.currentThread();
+		private boolean done = false;
+		private V value;
+		private RuntimeException error;
+		private long expires = Long.MAX_VALUE;
+
+		/**
+		 * Returns whether the current thread is still transforming the object.
+		 * @return <code>true</code> when current thread computes the value
+		 */
+		public synchronized boolean isOwner() {
+			return !done && (owner == Thread.currentThread());
+		}
+
+		/**
+		 * Returns whether the object has expired.
+		 * @param now current time
+		 * @return <code>true</code> when object expired
+		 */
+		public synchronized boolean isExpired(long now) {
+			return done && (expires < now);
+		}
+
+		/**
+		 * Sets the transformed object and wakes up waiting threads.
+		 * @param value the object
+		 * @param expires time of expiry
+		 */
+		public synchronized void complete(V value, long expires) {
+			this.value = value;
+			this.expires = expires;
+			this.done = true;
+			this.owner = null;
+			notifyAll();
+		}
+
+		/**
+		 * Sets the failure and wakes up waiting threads.
+		 * @param error the failure
+		 */
+		public synchronized void fail(RuntimeException error) {
+			this.error = error;
+			this.done = true;
+			this.owner = null;
+			notifyAll();
+		}
+
+		/**
+		 * Waits for the transformed object.
+		 * @return the object
+		 */
+		public synchronized V await() {
+			boolean interrupted = false;
+			while (!done) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) Thread.currentThread().interrupt();
+			if (error != null) throw new RuntimeException("Cannot transform object", error);
+			return value;
+		}
+	}
 }
@@ -0,0 +1,186 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Collects data in memory and moves it into a temporary file when it exceeds a threshold.
+ * <p>The data can be read by {@link #getInputStream()} after all data was written.
+ * A temporary file will be deleted when the stream returned is closed or the data
+ * is {@link #discard() discarded}. Consumers must therefore always close that stream.</p>
+ * @author ralph
+ * @since 3.0.2
+ *
+ */
+public class SpoolOutputStream extends OutputStream {
+
+	/** Default threshold for spooling into a file (1 MB) */
+	public static final int DEFAULT_THRESHOLD = 1024*1024;
+
+	private int threshold;
+	private ByteArrayOutputStream memory;
+	private File file;
+	private OutputStream out;
+	private long size;
+	private boolean closed;
+
+	/**
+	 * Constructor.
+	 */
+	public SpoolOutputStream() {
+		this(DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Constructor.
+	 * @param threshold - number of bytes that are kept in memory at most
+	 */
+	public SpoolOutputStream(int threshold) {
+		this.threshold = threshold;
+		this.memory = new ByteArrayOutputStream(Math.max(32, Math.min(threshold, 8192)));
+		this.out = memory;
+		this.file = null;
+		this.size = 0;
+		this.closed = false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(int b) throws IOException {
+		checkThreshold(1);
+		out.write(b);
+		size++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		checkThreshold(len);
+		out.write(b, off, len);
+		size += len;
+	}
+
+	/**
+	 * Switches to a temporary file when the threshold would be exceeded.
+	 * @param len - number of bytes to be written
+	 * @throws IOException when the file cannot be created
+	 */
+	private void checkThreshold(int len) throws IOException {
+		if (closed) throw new IOException("Stream closed");
+		if ((file == null) && (size + len > threshold)) {
+			file = File.createTempFile("b4j-", ".tmp");
+			try {
+				out = new BufferedOutputStream(new FileOutputStream(file));
+			} catch (IOException e) {
+				file.delete();
+				file = null;
+				throw e;
+			}
+			memory.writeTo(out);
+			memory = null;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			out.close();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes written.
+	 * @return the size
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns whether the data was spooled into a temporary file.
+	 * @return {@code true} when the data resides in a file
+	 */
+	public boolean isSpooled() {
+		return file != null;
+	}
+
+	/**
+	 * Returns the temporary file.
+	 * @return the file or {@code null} when the data resides in memory
+	 */
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * Closes this stream and returns the data written.
+	 * <p>A temporary file will be deleted when the returned stream is closed.</p>
+	 * @return the stream to read the data from
+	 * @throws IOException when the data cannot be read
+	 */
+	public InputStream getInputStream() throws IOException {
+		close();
+		if (file == null) return new ByteArrayInputStream(memory.toByteArray());
+		final File f = file;
+		return new FileInputStream(f) {
+			@Override
+			public void close() throws IOException {
+				super.close();
+				f.delete();
+			}
+		};
+	}
+
+	/**
+	 * Closes this stream and discards the data written.
+	 */
+	public void discard() {
+		try {
+			close();
+		} catch (IOException e) {
+			// Ignore
+		}
+		if (file != null) file.delete();
+		memory = null;
+	}
+}
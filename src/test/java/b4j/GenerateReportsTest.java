@@ -0,0 +1,371 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationException;
+import org.junit.Test;
+import org.slf4j.Logger;
+
+import b4j.GenerateReports.ReportWorker;
+import b4j.core.AbstractBugzillaObject;
+import b4j.core.Attachment;
+import b4j.core.DefaultIssue;
+import b4j.core.DefaultSearchData;
+import b4j.core.Issue;
+import b4j.core.MetaInformation;
+import b4j.core.SearchData;
+import b4j.core.SearchResultCountCallback;
+import b4j.core.Session;
+import b4j.report.AbstractReportGenerator;
+import b4j.report.BugzillaReportGenerator;
+import b4j.report.ThreadSafeReportGenerator;
+
+/**
+ * Tests the delivery of issues to the reports by {@link GenerateReports}.
+ * @author ralph
+ *
+ */
+public class GenerateReportsTest {
+
+	private static final int ISSUE_COUNT = 50;
+
+	@Test
+	public void testRun() {
+		List<String> closed = Collections.synchronizedList(new ArrayList<String>());
+		StubReport sequential = new StubReport("sequential", closed);
+		StubReport parallel = new ThreadSafeStubReport("parallel", closed);
+		StubReport failing = new StubReport("failing", closed);
+		failing.failOn = "3";
+		StubReport unprepared = new StubReport("unprepared", closed);
+		unprepared.failOnPrepare = true;
+		StubReport unclosed = new StubReport("unclosed", closed);
+		unclosed.failOnClose = true;
+		StubSession session = new StubSession(ISSUE_COUNT, -1);
+
+		GenerateReports generator = new GenerateReports();
+		generator.setMetaInformation(new StubMetaInformation(session, sequential, parallel, failing, unprepared, unclosed));
+		generator.setQueueSize(5);
+		generator.setThreadCount(4);
+		generator.setCloseSessionWhenDone(true);
+		generator.run();
+
+		// All issues were delivered, in order to the sequential report
+		assertEquals(getIds(ISSUE_COUNT), sequential.registered);
+		List<String> ids = new ArrayList<String>(parallel.registered);
+		Collections.sort(ids);
+		List<String> expected = getIds(ISSUE_COUNT);
+		Collections.sort(expected);
+		assertEquals(expected, ids);
+
+		// Failing report did not receive further issues
+		assertEquals(Arrays.asList("0", "1", "2", "3"), failing.registered);
+
+		// Errors are collected per report
+		assertTrue(generator.hasErrors());
+		assertEquals(Arrays.<BugzillaReportGenerator>asList(unprepared, failing, unclosed), new ArrayList<BugzillaReportGenerator>(generator.getErrors().keySet()));
+		for (List<Throwable> errors : generator.getErrors().values()) assertEquals(1, errors.size());
+		assertTrue(unprepared.registered.isEmpty());
+
+		// Successful reports are closed in order of configuration
+		assertEquals(Arrays.asList("sequential", "parallel", "unclosed"), closed);
+		assertTrue(session.closed);
+	}
+
+	@Test
+	public void testAbort() {
+		List<String> closed = Collections.synchronizedList(new ArrayList<String>());
+		StubReport sequential = new StubReport("sequential", closed);
+		StubReport parallel = new ThreadSafeStubReport("parallel", closed);
+		StubSession session = new StubSession(ISSUE_COUNT, 10);
+
+		GenerateReports generator = new GenerateReports();
+		generator.setMetaInformation(new StubMetaInformation(session, sequential, parallel));
+		generator.setThreadCount(4);
+		try {
+			generator.run();
+			fail("Search error was not propagated");
+		} catch (RuntimeException e) {
+			assertEquals("Search failed", e.getMessage());
+		}
+		// No report was closed with partial data
+		assertTrue(closed.isEmpty());
+		assertTrue(sequential.registered.size() <= 10);
+		assertTrue(session.result.closed);
+	}
+
+	@Test
+	public void testWorker() {
+		List<String> closed = new ArrayList<String>();
+		StubReport report = new StubReport("report", closed);
+		ReportWorker worker = new ReportWorker(report, 1, 1);
+		assertTrue(worker.prepare());
+		worker.start();
+		for (String id : getIds(10)) worker.put(createIssue(id));
+		worker.finish(false);
+		assertTrue(worker.close());
+		assertEquals(getIds(10), report.registered);
+		assertEquals(Arrays.asList("report"), closed);
+		assertTrue(worker.getErrors().isEmpty());
+	}
+
+	@Test
+	public void testWorkerAbort() {
+		List<String> closed = new ArrayList<String>();
+		StubReport report = new StubReport("report", closed);
+		ReportWorker worker = new ReportWorker(report, 10, 2);
+		assertTrue(worker.prepare());
+		worker.start();
+		worker.put(createIssue("0"));
+		worker.finish(true);
+		assertFalse(worker.close());
+		assertTrue(closed.isEmpty());
+	}
+
+	@Test
+	public void testWorkerFailure() {
+		List<String> closed = new ArrayList<String>();
+		StubReport report = new StubReport("report", closed);
+		report.failOn = "1";
+		ReportWorker worker = new ReportWorker(report, 2, 1);
+		assertTrue(worker.prepare());
+		worker.start();
+		for (String id : getIds(10)) worker.put(createIssue(id));
+		worker.finish(false);
+		assertFalse(worker.close());
+		assertEquals(Arrays.asList("0", "1"), report.registered);
+		assertEquals(1, worker.getErrors().size());
+		assertTrue(closed.isEmpty());
+	}
+
+	private static List<String> getIds(int count) {
+		List<String> rc = new ArrayList<String>();
+		for (int i=0; i<count; i++) rc.add(Integer.toString(i));
+		return rc;
+	}
+
+	private static Issue createIssue(String id) {
+		DefaultIssue rc = new DefaultIssue();
+		rc.setId(id);
+		return rc;
+	}
+
+	/**
+	 * Records the issues and fails on request.
+	 */
+	private static class StubReport extends AbstractReportGenerator {
+
+		private String name;
+		private List<String> closed;
+		private List<String> registered = Collections.synchronizedList(new ArrayList<String>());
+		private String failOn;
+		private boolean failOnPrepare;
+		private boolean failOnClose;
+
+		public StubReport(String name, List<String> closed) {
+			this.name = name;
+			this.closed = closed;
+		}
+
+		@Override
+		public void prepareReport() {
+			if (failOnPrepare) throw new RuntimeException("Prepare failed");
+		}
+
+		@Override
+		public void registerBug(Issue bug) {
+			registered.add(bug.getId());
+			if (bug.getId().equals(failOn)) throw new RuntimeException("Register failed");
+			// Give the other threads a chance
+			Thread.yield();
+		}
+
+		@Override
+		public void closeReport() {
+			closed.add(name);
+			if (failOnClose) throw new RuntimeException("Close failed");
+		}
+	}
+
+	/**
+	 * A report accepting issues from multiple threads.
+	 */
+	private static class ThreadSafeStubReport extends StubReport implements ThreadSafeReportGenerator {
+
+		public ThreadSafeStubReport(String name, List<String> closed) {
+			super(name, closed);
+		}
+	}
+
+	/**
+	 * A search result that fails on request.
+	 */
+	private static class StubResult implements Iterable<Issue>, Closeable {
+
+		private int count;
+		private int failAt;
+		private boolean closed = false;
+
+		public StubResult(int count, int failAt) {
+			this.count = count;
+			this.failAt = failAt;
+		}
+
+		@Override
+		public Iterator<Issue> iterator() {
+			return new Iterator<Issue>() {
+
+				private int index = 0;
+
+				@Override
+				public boolean hasNext() {
+					return index < count;
+				}
+
+				@Override
+				public Issue next() {
+					if (index == failAt) throw new RuntimeException("Search failed");
+					return createIssue(Integer.toString(index++));
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+		}
+	}
+
+	/**
+	 * A session delivering a fixed number of issues.
+	 */
+	private static class StubSession implements Session {
+
+		private StubResult result;
+		private boolean closed = false;
+
+		public StubSession(int count, int failAt) {
+			result = new StubResult(count, failAt);
+		}
+
+		@Override
+		public void configure(Configuration config) throws ConfigurationException {
+		}
+
+		@Override
+		public boolean isLoggedIn() {
+			return true;
+		}
+
+		@Override
+		public boolean open() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+
+		@Override
+		public Iterable<Issue> searchBugs(SearchData searchData, SearchResultCountCallback callback) {
+			return result;
+		}
+
+		@Override
+		public Issue getIssue(String id) {
+			return null;
+		}
+
+		@Override
+		public InputStream getAttachment(Attachment attachment) throws IOException {
+			return null;
+		}
+
+		@Override
+		public void dump() {
+		}
+
+		@Override
+		public String getMinimumBugzillaVersion() {
+			return null;
+		}
+
+		@Override
+		public String getMaximumBugzillaVersion() {
+			return null;
+		}
+
+		@Override
+		public String getBugzillaVersion() {
+			return "4.4";
+		}
+	}
+
+	/**
+	 * Provides the session and the reports.
+	 */
+	private static class StubMetaInformation extends AbstractBugzillaObject implements MetaInformation {
+
+		private Session session;
+		private List<BugzillaReportGenerator> reports;
+
+		public StubMetaInformation(Session session, BugzillaReportGenerator... reports) {
+			this.session = session;
+			this.reports = Arrays.asList(reports);
+		}
+
+		@Override
+		public Session getBugzillaSession() {
+			return session;
+		}
+
+		@Override
+		public SearchData getBugzillaSearchData() {
+			return new DefaultSearchData();
+		}
+
+		@Override
+		public Iterable<BugzillaReportGenerator> getReports() {
+			return reports;
+		}
+
+		@Override
+		public void dump(Logger log) {
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rs.baselib.util.RsDate;
+
+/**
+ * Benchmarks the memory footprint of the compact field storage in {@link DefaultIssue}.
+ * <p>The benchmark is not part of the unit tests. Remove the {@link Ignore} annotation
+ * to run it manually.</p>
+ * @author ralph
+ *
+ */
+@Ignore("Benchmark")
+public class DefaultIssueMemoryBenchmark {
+
+	private static Logger log = LoggerFactory.getLogger(DefaultIssueMemoryBenchmark.class);
+
+	private static final int ISSUE_COUNT = 50000;
+
+	@Test
+	public void testMemoryFootprint() {
+		Object legacy[] = new Object[ISSUE_COUNT];
+		long before = getUsedMemory();
+		for (int i=0; i<ISSUE_COUNT; i++) legacy[i] = createLegacyStorage();
+		long legacyBytes = (getUsedMemory() - before) / ISSUE_COUNT;
+		Arrays.fill(legacy, null);
+
+		Object compact[] = new Object[ISSUE_COUNT];
+		before = getUsedMemory();
+		for (int i=0; i<ISSUE_COUNT; i++) compact[i] = DefaultIssueMemoryTest.createIssue();
+		long compactBytes = (getUsedMemory() - before) / ISSUE_COUNT;
+
+		log.info("Storage per issue: legacy="+legacyBytes+" bytes, compact="+compactBytes+" bytes (including all other issue fields), saved="+(legacyBytes-compactBytes)+" bytes");
+		assertEquals(ISSUE_COUNT, compact.length);
+		assertTrue("Compact issue must use less memory than the legacy storage alone", compactBytes < legacyBytes);
+	}
+
+	/**
+	 * Creates the storage that a V3.0.1 issue allocated for custom fields, collections and timestamps.
+	 * @return the storage
+	 */
+	private Object createLegacyStorage() {
+		Map<String,Object> customFields = new HashMap<String, Object>();
+		for (int i=0; i<DefaultIssueMemoryTest.FIELDS.length; i++) customFields.put(DefaultIssueMemoryTest.FIELDS[i], Boolean.TRUE);
+		List<Object> rc = new ArrayList<Object>();
+		rc.add(customFields);
+		for (int i=0; i<8; i++) rc.add(new ArrayList<Object>());
+		rc.add(new RsDate(0));
+		rc.add(new RsDate(0));
+		return rc;
+	}
+
+	private static long getUsedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i=0; i<3; i++) {
+			System.gc();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import rs.baselib.util.RsDate;
+
+/**
+ * Tests the compact field storage of {@link DefaultIssue}.
+ * <p>The memory savings are measured by {@link DefaultIssueMemoryBenchmark}.</p>
+ * @author ralph
+ *
+ */
+public class DefaultIssueMemoryTest {
+
+	static final String FIELDS[] = new String[] {
+		"priority_name", "reporter_name", Issue.CCLIST_ACCESSIBLE, Issue.CC, "assignee_name",
+		Issue.WHITEBOARD, Issue.QA_CONTACT, "resolution_name", "classification_name", Issue.ALIAS,
+		Issue.OP_SYS, "status_name", Issue.REP_PLATFORM, "severity_name", "fixVersion_name",
+		"component_name", Issue.REPORTER_ACCESSIBLE, "project_name", Issue.MILESTONE, Issue.CONFIRMED
+	};
+
+	@Test
+	public void testCustomFields() {
+		DefaultIssue issue = new DefaultIssue();
+		assertEquals(0, issue.getCustomFieldCount());
+		assertFalse(issue.getCustomFieldNames().iterator().hasNext());
+		for (int i=0; i<FIELDS.length; i++) {
+			issue.set(new String(FIELDS[i]), Integer.valueOf(i));
+		}
+		assertEquals(FIELDS.length, issue.getCustomFieldCount());
+		int i = 0;
+		for (String key : issue.getCustomFieldNames()) {
+			assertSame("Keys must be interned", FIELDS[i], key);
+			assertEquals(Integer.valueOf(i), issue.get(new String(FIELDS[i])));
+			i++;
+		}
+		issue.set("status_name", "NEW");
+		assertEquals("NEW", issue.get("status_name"));
+		issue.set("status_name", null);
+		assertNull(issue.get("status_name"));
+		assertEquals(FIELDS.length-1, issue.getCustomFieldCount());
+		assertEquals(Integer.valueOf(FIELDS.length-1), issue.get(Issue.CONFIRMED));
+		issue.set(DefaultIssue.LAZY_RETRIEVER, null);
+		assertEquals(FIELDS.length-1, issue.getCustomFieldCount());
+	}
+
+	@Test
+	public void testLazyCollections() {
+		DefaultIssue issue = new DefaultIssue();
+		assertEquals(0, issue.getComponentCount());
+		assertEquals(0, issue.getLinkCount());
+		assertEquals(0, issue.getChildCount());
+		assertTrue(issue.getComments().isEmpty());
+		assertTrue(issue.getAttachments().isEmpty());
+		assertTrue(issue.getFixVersions().isEmpty());
+		assertEquals(new RsDate(0), issue.getCreationTimestamp());
+		assertEquals(new RsDate(0), issue.getUpdateTimestamp());
+		issue.removeAllLinks();
+		issue.removeLinks(new DefaultLink(null, "Blocks", true, "Blocks the other issue", "1"));
+		issue.addLinks(new DefaultLink(null, "Blocks", true, "Blocks the other issue", "1"));
+		assertEquals(1, issue.getLinkCount());
+		issue.removeAllLinks();
+		assertEquals(0, issue.getLinkCount());
+	}
+
+	@Test
+	public void testReadingEmptyIssue() {
+		DefaultIssue issue = new DefaultIssue();
+		assertEquals(0, issue.getComponentCount());
+		assertEquals(0, issue.getLinkCount());
+		assertEquals(0, issue.getChildCount());
+		assertTrue(issue.getComments().isEmpty());
+		assertTrue(issue.getAttachments().isEmpty());
+		assertTrue(issue.getAffectedVersions().isEmpty());
+		assertTrue(issue.getPlannedVersions().isEmpty());
+		assertTrue(issue.getFixVersions().isEmpty());
+		assertNull(issue.get("status_name"));
+		// Reading does not add anything
+		assertEquals(0, issue.getCustomFieldCount());
+		assertEquals(0, issue.getCommentCount());
+		assertEquals(0, issue.getAttachmentCount());
+		assertEquals(0, issue.getAffectedVersionCount());
+		assertEquals(0, issue.getPlannedVersionCount());
+		assertEquals(0, issue.getFixVersionCount());
+		// The lazy retriever is not a custom field
+		issue.set(DefaultIssue.LAZY_RETRIEVER, null);
+		assertEquals(0, issue.getCustomFieldCount());
+	}
+
+	@Test
+	public void testEmptyCollections() {
+		DefaultIssue issue = new DefaultIssue();
+		issue.addLinks(new DefaultLink(null, "Blocks", true, "Blocks the other issue", "1"));
+		issue.addComponents(new ArrayList<Component>());
+		issue.addFixVersions(new ArrayList<Version>());
+		assertEquals(1, issue.getLinkCount());
+		assertEquals(0, issue.getComponentCount());
+		assertEquals(0, issue.getFixVersionCount());
+		assertTrue(issue.getFixVersions().isEmpty());
+	}
+
+	@Test
+	public void testSharedKeys() {
+		DefaultIssue issue1 = createIssue();
+		DefaultIssue issue2 = createIssue();
+		assertEquals(FIELDS.length, issue1.getCustomFieldCount());
+		Iterator<String> names2 = issue2.getCustomFieldNames().iterator();
+		for (String name : issue1.getCustomFieldNames()) {
+			assertSame("Keys must be shared", name, names2.next());
+		}
+		assertFalse(names2.hasNext());
+	}
+
+	/**
+	 * Creates an issue populated like the Bugzilla parser does.
+	 * <p>Keys are copies so that interning is required to share them.</p>
+	 * @return the issue
+	 */
+	static DefaultIssue createIssue() {
+		DefaultIssue rc = new DefaultIssue();
+		for (int i=0; i<FIELDS.length; i++) rc.set(new String(FIELDS[i]), Boolean.TRUE);
+		return rc;
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import b4j.util.LazyRetriever;
+
+/**
+ * Benchmarks the lazy resolution of referenced objects in {@link DefaultIssue}.
+ * <p>The benchmark is not part of the unit tests. Remove the {@link Ignore} annotation
+ * to run it manually.</p>
+ * @author ralph
+ *
+ */
+@Ignore("Benchmark")
+public class DefaultIssueResolverBenchmark {
+
+	private static Logger log = LoggerFactory.getLogger(DefaultIssueResolverBenchmark.class);
+
+	private static final int ISSUE_COUNT = 100000;
+
+	@Test
+	public void testPerformance() throws Exception {
+		LazyRetriever retriever = new DefaultIssueResolverTest.TestRetriever();
+		DefaultIssue issues[] = new DefaultIssue[ISSUE_COUNT];
+		for (int i=0; i<ISSUE_COUNT; i++) issues[i] = DefaultIssueResolverTest.createIssue(retriever, i);
+		// Warm up
+		for (int i=0; i<1000; i++) {
+			readGetters(DefaultIssueResolverTest.createIssue(retriever, i));
+			readReflective(DefaultIssueResolverTest.createIssue(retriever, i), retriever);
+		}
+
+		long start = System.nanoTime();
+		int count = 0;
+		for (DefaultIssue issue : issues) count += readGetters(issue);
+		long typed = System.nanoTime() - start;
+		assertEquals(7*ISSUE_COUNT, count);
+
+		for (int i=0; i<ISSUE_COUNT; i++) issues[i] = DefaultIssueResolverTest.createIssue(retriever, i);
+		start = System.nanoTime();
+		count = 0;
+		for (DefaultIssue issue : issues) count += readReflective(issue, retriever);
+		long reflective = System.nanoTime() - start;
+		assertEquals(7*ISSUE_COUNT, count);
+
+		log.info("Resolving getters: typed="+(typed/ISSUE_COUNT)+" ns/issue, reflective="+(reflective/ISSUE_COUNT)+" ns/issue");
+	}
+
+	/**
+	 * Reads the lazily resolved getters.
+	 * @param issue the issue
+	 * @return number of values resolved
+	 */
+	private int readGetters(DefaultIssue issue) {
+		int rc = 0;
+		if (issue.getStatus() != null) rc++;
+		if (issue.getPriority() != null) rc++;
+		if (issue.getSeverity() != null) rc++;
+		if (issue.getResolution() != null) rc++;
+		if (issue.getType() != null) rc++;
+		if (issue.getReporter() != null) rc++;
+		if (issue.getAssignee() != null) rc++;
+		return rc;
+	}
+
+	/**
+	 * Resolves the same values the way V3.0.1 did.
+	 * @param issue the issue
+	 * @param retriever the retriever
+	 * @return number of values resolved
+	 */
+	private int readReflective(DefaultIssue issue, LazyRetriever retriever) throws Exception {
+		int rc = 0;
+		if (retrieve(retriever, "status", issue.get("status_name")) != null) rc++;
+		if (retrieve(retriever, "priority", issue.get("priority_name")) != null) rc++;
+		if (retrieve(retriever, "severity", issue.get("severity_name")) != null) rc++;
+		if (retrieve(retriever, "resolution", issue.get("resolution_name")) != null) rc++;
+		if (retrieve(retriever, "issueType", issue.get("issueType_name")) != null) rc++;
+		if (retrieve(retriever, "user", issue.get("reporter_name")) != null) rc++;
+		if (retrieve(retriever, "user", issue.get("assignee_name")) != null) rc++;
+		return rc;
+	}
+
+	private Object retrieve(LazyRetriever retriever, String property, Object name) throws Exception {
+		Method m = retriever.getClass().getMethod("get"+Character.toUpperCase(property.charAt(0))+property.substring(1), String.class);
+		return m.invoke(retriever, name);
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import b4j.core.session.bugzilla.BugzillaIssueType;
+import b4j.core.session.bugzilla.BugzillaPriority;
+import b4j.core.session.bugzilla.BugzillaResolution;
+import b4j.core.session.bugzilla.BugzillaSeverity;
+import b4j.core.session.bugzilla.BugzillaStatus;
+import b4j.core.session.bugzilla.BugzillaUser;
+import b4j.util.LazyResolver;
+import b4j.util.LazyRetriever;
+import b4j.util.NoopLazyRetriever;
+
+/**
+ * Tests the lazy resolution of referenced objects in {@link DefaultIssue}.
+ * @author ralph
+ *
+ */
+public class DefaultIssueResolverTest {
+
+	private static final String STATUS[] = new String[] { "NEW", "ASSIGNED", "RESOLVED", "VERIFIED", "CLOSED" };
+	private static final String PRIORITIES[] = new String[] { "P1", "P2", "P3", "P4", "P5" };
+	private static final String SEVERITIES[] = new String[] { "blocker", "critical", "major", "normal", "minor" };
+	private static final String USERS[] = new String[] { "john.doe", "jane.doe", "max.mustermann" };
+
+	@Test
+	public void testResolution() {
+		LazyRetriever retriever = new TestRetriever();
+		DefaultIssue issue = createIssue(retriever, 1);
+		assertEquals("ASSIGNED", issue.getStatus().getName());
+		assertEquals("P2", issue.getPriority().getName());
+		assertEquals("critical", issue.getSeverity().getName());
+		assertEquals("FIXED", issue.getResolution().getName());
+		assertEquals("bug", issue.getType().getName());
+		assertEquals("jane.doe", issue.getReporter().getName());
+		assertEquals("max.mustermann", issue.getAssignee().getName());
+		assertEquals(LazyResolver.STATUS, LazyResolver.forProperty("status"));
+		assertEquals(LazyResolver.USER, LazyResolver.forProperty("user"));
+	}
+
+	@Test
+	public void testFailure() {
+		DefaultIssue issue = createIssue(new TestRetriever() {
+			@Override
+			protected void loadStatus() throws Exception {
+				throw new Exception("Status not available");
+			}
+		}, 1);
+		issue.set("status_name", "UNKNOWN");
+		assertNull(issue.getStatus());
+		assertEquals("P2", issue.getPriority().getName());
+	}
+
+	/**
+	 * Creates an issue referencing objects by name.
+	 * @param retriever the retriever
+	 * @param i number of issue
+	 * @return the issue
+	 */
+	static DefaultIssue createIssue(LazyRetriever retriever, int i) {
+		DefaultIssue rc = new DefaultIssue();
+		rc.setId(Integer.toString(i));
+		rc.set(DefaultIssue.LAZY_RETRIEVER, retriever);
+		rc.set("status_name", STATUS[i % STATUS.length]);
+		rc.set("priority_name", PRIORITIES[i % PRIORITIES.length]);
+		rc.set("severity_name", SEVERITIES[i % SEVERITIES.length]);
+		rc.set("resolution_name", "FIXED");
+		rc.set("issueType_name", "bug");
+		rc.set("reporter_name", USERS[i % USERS.length]);
+		rc.set("assignee_name", USERS[(i+1) % USERS.length]);
+		return rc;
+	}
+
+	/**
+	 * A retriever that knows all objects in advance.
+	 */
+	static class TestRetriever extends NoopLazyRetriever {
+
+		public TestRetriever() {
+			for (String s : STATUS) registerStatus(new BugzillaStatus(s));
+			for (String s : PRIORITIES) registerPriority(new BugzillaPriority(s));
+			for (String s : SEVERITIES) registerSeverity(new BugzillaSeverity(s));
+			registerResolution(new BugzillaResolution("FIXED"));
+			registerIssueType(new BugzillaIssueType("bug"));
+			for (String s : USERS) {
+				BugzillaUser user = new BugzillaUser();
+				user.setName(s);
+				registerUser(user);
+			}
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import b4j.core.Issue;
+import b4j.core.session.BugzillaHttpSession.BugzillaBugIterator;
+
+/**
+ * Tests the error handling of {@link BugzillaBugIterator}.
+ * @author ralph
+ *
+ */
+public class BugzillaBugIteratorTest {
+
+	private XmlSession session;
+
+	@Before
+	public void createSession() throws Exception {
+		session = new XmlSession();
+		session.setBaseUrl(new URL("http://bugzilla.example.org/"));
+		session.setXmlChunkSize(2);
+		session.setXmlThreads(2);
+		session.setXmlRetries(0);
+		session.setXmlQueueCapacity(1);
+	}
+
+	/**
+	 * A failed chunk is reported in place of its bugs, the following chunks are still delivered.
+	 */
+	@Test
+	public void testFailedChunk() throws Exception {
+		session.failing = "3";
+		BugzillaBugIterator i = session.new BugzillaBugIterator(Arrays.asList("1", "2", "3", "4", "5", "6"));
+		List<String> ids = new ArrayList<String>();
+		int errors = 0;
+		while (i.hasNext()) {
+			try {
+				ids.add(i.next().getId());
+			} catch (RuntimeException e) {
+				assertEquals("Chunk failed", e.getCause().getMessage());
+				assertEquals(2, ids.size());
+				errors++;
+			}
+		}
+		assertEquals(1, errors);
+		assertEquals(Arrays.asList("1", "2", "5", "6"), ids);
+	}
+
+	/**
+	 * The timeout stops the retrieval of further bugs.
+	 */
+	@Test
+	public void testTimeout() throws Exception {
+		session.blocking = "3";
+		session.setXmlTimeout(200);
+		BugzillaBugIterator i = session.new BugzillaBugIterator(Arrays.asList("1", "2", "3", "4", "5", "6"));
+		assertEquals("1", i.next().getId());
+		assertEquals("2", i.next().getId());
+		try {
+			i.hasNext();
+			fail("Timeout was not reported");
+		} catch (RuntimeException e) {
+			assertEquals("Timeout while waiting for next bug", e.getMessage());
+		}
+		assertFalse(i.hasNext());
+		// The worker blocked in the request was stopped
+		assertTrue("Retrieval was not cancelled", session.interrupted.await(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Delivers a minimal XML for the requested bugs.
+	 */
+	private static class XmlSession extends BugzillaHttpSession {
+
+		private volatile String failing;
+		private volatile String blocking;
+		private CountDownLatch interrupted = new CountDownLatch(1);
+
+		@Override
+		protected InputStream requestXml(List<String> ids) throws IOException {
+			if (ids.contains(failing)) throw new IOException("Chunk failed");
+			if (ids.contains(blocking)) {
+				try {
+					Thread.sleep(60000L);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+				throw new IOException("Chunk cancelled");
+			}
+			StringBuilder rc = new StringBuilder();
+			rc.append("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n");
+			rc.append("<bugzilla version=\"4.4.2\" urlbase=\"http://bugzilla.example.org/\">\n");
+			for (String id : ids) {
+				rc.append("\t<bug>\n\t\t<bug_id>").append(id).append("</bug_id>\n");
+				rc.append("\t\t<short_desc>Bug ").append(id).append("</short_desc>\n\t</bug>\n");
+			}
+			rc.append("</bugzilla>\n");
+			return new ByteArrayInputStream(rc.toString().getBytes(StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import b4j.core.session.BugzillaHttpSession.BugIdCollector;
+import b4j.util.LongList;
+
+/**
+ * Tests the parsing of CSV search results in {@link BugzillaHttpSession}.
+ * @author ralph
+ *
+ */
+public class BugzillaCsvSearchTest {
+
+	@Test
+	public void testParse() throws Exception {
+		LongList ids = new LongList();
+		assertTrue(parse("bug_id\n1\n22\n333\n", ids));
+		assertArrayEquals(new long[] { 1, 22, 333 }, ids.toArray());
+	}
+
+	@Test
+	public void testParseQuotedWithoutTrailingNewline() throws Exception {
+		LongList ids = new LongList();
+		assertTrue(parse("\uFEFF\"bug_id\"\r\n\"4711\"\r\n\r\n 42", ids));
+		assertArrayEquals(new long[] { 4711, 42 }, ids.toArray());
+	}
+
+	@Test
+	public void testParseEmpty() throws Exception {
+		LongList ids = new LongList();
+		assertTrue(parse("bug_id\n", ids));
+		assertTrue(ids.isEmpty());
+	}
+
+	@Test
+	public void testUnexpectedHeader() throws Exception {
+		LongList ids = new LongList();
+		assertFalse(parse("<!DOCTYPE html>\n<html></html>\n", ids));
+		assertFalse(parse("bug_id,short_desc\n1,Summary\n", ids));
+		assertTrue(ids.isEmpty());
+	}
+
+	@Test
+	public void testUnexpectedLayout() throws Exception {
+		LongList ids = new LongList();
+		assertFalse(parse("bug_id\n1,Summary\n2,Summary\n", ids));
+		assertFalse(parse("bug_id\nBugzilla needs a legal login\n", ids));
+		assertTrue(ids.isEmpty());
+	}
+
+	@Test
+	public void testUnexpectedContentAfterIds() throws Exception {
+		LongList ids = new LongList();
+		try {
+			parse("bug_id\n1\n2\nerror\n", ids);
+			fail("Unexpected content was not reported");
+		} catch (IOException e) {
+			// expected as IDs were handed over already
+		}
+		assertEquals(2, ids.size());
+	}
+
+	private static boolean parse(String csv, final LongList ids) throws Exception {
+		return BugzillaHttpSession.parseCsvIds(new StringReader(csv), new BugIdCollector() {
+			@Override
+			public void add(long id) {
+				ids.add(id);
+			}
+		});
+	}
+}
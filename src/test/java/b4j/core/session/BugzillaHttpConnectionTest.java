@@ -0,0 +1,193 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import b4j.core.DefaultSearchData;
+import b4j.core.session.BugzillaHttpSession.BugIdCollector;
+import b4j.util.HttpSessionParams;
+
+/**
+ * Tests that {@link BugzillaHttpSession} releases its connections on failures.
+ * @author ralph
+ *
+ */
+public class BugzillaHttpConnectionTest {
+
+	private static final int MAX_CONNECTIONS = 2;
+
+	private ServerSocket server;
+	private volatile String response;
+	private BugzillaHttpSession session;
+
+	@Before
+	public void startServer() throws IOException {
+		server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+		Thread t = new Thread() {
+			@Override
+			public void run() {
+				while (!server.isClosed()) {
+					try {
+						Socket socket = server.accept();
+						try {
+							if (response != null) {
+								readRequest(socket.getInputStream());
+								OutputStream out = socket.getOutputStream();
+								out.write(response.getBytes(StandardCharsets.UTF_8));
+								out.flush();
+							}
+						} finally {
+							socket.close();
+						}
+					} catch (IOException e) {
+						// Server was closed or client went away
+					}
+				}
+			}
+		};
+		t.setDaemon(true);
+		t.start();
+
+		HttpSessionParams params = new HttpSessionParams() {
+			@Override
+			public String getLogin() {
+				return "john.doe";
+			}
+
+			@Override
+			public String getPassword() {
+				return "secret";
+			}
+		};
+		params.setMaxConnections(MAX_CONNECTIONS);
+		params.setConnectTimeout(5000);
+		params.setReadTimeout(5000);
+		session = new BugzillaHttpSession();
+		session.setHttpSessionParams(params);
+		session.setBaseUrl(new URL("http://127.0.0.1:"+server.getLocalPort()+"/"));
+	}
+
+	@After
+	public void stopServer() throws IOException {
+		server.close();
+	}
+
+	/**
+	 * The server closes each connection without a response.
+	 */
+	@Test
+	public void testConnectionFailure() throws Exception {
+		response = null;
+		for (int i=0; i<=MAX_CONNECTIONS; i++) {
+			try {
+				session.searchCsv(new DefaultSearchData(), new NoopCollector());
+				fail("Connection failure was not reported");
+			} catch (IOException e) {
+				// Expected
+			}
+			assertEquals(MAX_CONNECTIONS, session.getFreeConnections());
+			try {
+				session.searchHtml(new DefaultSearchData(), new NoopCollector());
+				fail("Connection failure was not reported");
+			} catch (IOException e) {
+				// Expected
+			}
+			assertEquals(MAX_CONNECTIONS, session.getFreeConnections());
+			try {
+				session.requestXml(Arrays.asList("1", "2"));
+				fail("Connection failure was not reported");
+			} catch (IOException e) {
+				// Expected
+			}
+			assertEquals(MAX_CONNECTIONS, session.getFreeConnections());
+			assertFalse(session.open());
+			assertEquals(MAX_CONNECTIONS, session.getFreeConnections());
+		}
+		session.setLoggedIn(true);
+		session.close();
+		assertEquals(MAX_CONNECTIONS, session.getFreeConnections());
+	}
+
+	/**
+	 * The server responds with an error to each request.
+	 */
+	@Test
+	public void testErrorResponse() throws Exception {
+		response = "HTTP/1.1 500 Internal Server Error\r\nContent-Length: 5\r\nConnection: close\r\n\r\nError";
+		for (int i=0; i<=MAX_CONNECTIONS; i++) {
+			assertFalse(session.searchCsv(new DefaultSearchData(), new NoopCollector()));
+			assertEquals(MAX_CONNECTIONS, session.getFreeConnections());
+			assertFalse(session.searchHtml(new DefaultSearchData(), new NoopCollector()));
+			assertEquals(MAX_CONNECTIONS, session.getFreeConnections());
+			try {
+				session.requestXml(Arrays.asList("1", "2"));
+				fail("Error response was not reported");
+			} catch (IOException e) {
+				// Expected
+			}
+			assertEquals(MAX_CONNECTIONS, session.getFreeConnections());
+			assertFalse(session.open());
+			assertEquals(MAX_CONNECTIONS, session.getFreeConnections());
+		}
+		session.setLoggedIn(true);
+		session.close();
+		assertEquals(MAX_CONNECTIONS, session.getFreeConnections());
+	}
+
+	/**
+	 * Reads the request header and body.
+	 */
+	private static void readRequest(InputStream in) throws IOException {
+		StringBuilder header = new StringBuilder();
+		int c;
+		while ((c = in.read()) >= 0) {
+			header.append((char)c);
+			if (header.toString().endsWith("\r\n\r\n")) break;
+		}
+		String s = header.toString().toLowerCase();
+		int pos = s.indexOf("content-length:");
+		if (pos >= 0) {
+			int length = Integer.parseInt(s.substring(pos+15, s.indexOf('\r', pos)).trim());
+			for (int i=0; i<length; i++) in.read();
+		}
+	}
+
+	private static class NoopCollector implements BugIdCollector {
+
+		@Override
+		public void add(long id) {
+		}
+	}
+}
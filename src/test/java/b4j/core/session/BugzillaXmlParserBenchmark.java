@@ -0,0 +1,73 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Benchmarks the throughput of the XML parser of {@link BugzillaHttpSession}.
+ * <p>The benchmark is not part of the unit tests. Remove the {@link Ignore} annotation
+ * to run it manually.</p>
+ * @author ralph
+ *
+ */
+@Ignore("Benchmark")
+public class BugzillaXmlParserBenchmark {
+
+	private static Logger log = LoggerFactory.getLogger(BugzillaXmlParserBenchmark.class);
+
+	/** The number of copies of all issues in the benchmark document */
+	private static final int BENCHMARK_COPIES = 300;
+	/** The number of measured benchmark rounds */
+	private static final int BENCHMARK_ROUNDS = 5;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		BugzillaXmlParserTest.setup();
+	}
+
+	/**
+	 * Measures the throughput of the parser.
+	 */
+	@Test
+	public void testThroughput() throws Exception {
+		byte xml[] = BugzillaXmlParserTest.createXml(BENCHMARK_COPIES).getBytes(StandardCharsets.UTF_8);
+		int expected = BugzillaXmlParserTest.issues.size() * BENCHMARK_COPIES;
+
+		// Warm up
+		assertEquals("Wrong number of issues", expected, BugzillaXmlParserTest.parse(xml).size());
+
+		long time = 0;
+		for (int i=0; i<BENCHMARK_ROUNDS; i++) {
+			long startTime = System.nanoTime();
+			int count = BugzillaXmlParserTest.parse(xml).size();
+			time += System.nanoTime() - startTime;
+			assertEquals("Wrong number of issues", expected, count);
+		}
+		time /= BENCHMARK_ROUNDS;
+		log.info("XML parser: "+expected+" issues ("+(xml.length/1024)+" KB) in "+(time/1000000L)+" ms = "+(expected*1000000000L/Math.max(1L, time))+" issues/s");
+	}
+}
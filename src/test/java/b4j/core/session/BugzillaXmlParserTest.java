@@ -0,0 +1,315 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import b4j.core.Comment;
+import b4j.core.Component;
+import b4j.core.Issue;
+import b4j.core.Version;
+import b4j.core.util.CommentTest;
+import b4j.core.util.IssueTest;
+import rs.baselib.io.FileFinder;
+
+/**
+ * Tests the XML parser of {@link BugzillaHttpSession}.
+ * <p>The Bugzilla XML is synthesized from the expected values in <code>src/test/resources/issue</code>
+ * and <code>src/test/resources/comment</code> so that no Bugzilla server is required.</p>
+ * @author ralph
+ *
+ */
+public class BugzillaXmlParserTest {
+
+	/** The timestamp used for all dates (they are not compared) */
+	private static final String TIMESTAMP = "2011-07-30 23:23:10 +0200";
+
+	private static BugzillaHttpSession session;
+	static List<Properties> issues;
+
+	@BeforeClass
+	public static void setup() throws Exception {
+		session = new BugzillaHttpSession();
+		session.setBaseUrl(new URL("http://bugzilla.example.org/"));
+		issues = new ArrayList<Properties>();
+		for (String id : new IssueTest().getTestables(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.startsWith("bugzilla-");
+			}
+		})) {
+			issues.add(load("issue/"+id+".xml"));
+		}
+		assertTrue("No issues found", issues.size() > 0);
+	}
+
+	/**
+	 * Tests that the parsed issues match the expected values.
+	 */
+	@Test
+	public void testParse() throws Exception {
+		List<Issue> result = parse(createXml(1));
+		assertEquals("Wrong number of issues", issues.size(), result.size());
+		IssueTest issueTest = new IssueTest();
+		CommentTest commentTest = new CommentTest();
+		for (Issue issue : result) {
+			assertTrue("No expected values for issue "+issue.getId(), issueTest.test(issue));
+			for (Comment c : issue.getComments()) {
+				assertTrue("No expected values for comment "+c.getId(), commentTest.test(c));
+			}
+			assertEquals("Custom field not parsed", "cf-"+issue.getId(), issue.get("cf_reference"));
+			assertEquals("Custom field not parsed", "", issue.get("keywords"));
+		}
+	}
+
+	/**
+	 * Tests that users, components and versions are shared between issues.
+	 */
+	@Test
+	public void testSharedObjects() throws Exception {
+		List<Issue> result = parse(createXml(2));
+		Map<String, Object> shared = new HashMap<String, Object>();
+		for (Issue issue : result) {
+			assertShared(shared, "user:"+issue.getReporter().getName(), issue.getReporter());
+			assertShared(shared, "user:"+issue.getAssignee().getName(), issue.getAssignee());
+			for (Comment c : issue.getComments()) {
+				assertShared(shared, "user:"+c.getAuthor().getName(), c.getAuthor());
+			}
+			for (Component c : issue.getComponents()) {
+				assertSame("Wrong project for component "+c.getName(), issue.getProject(), c.getProject());
+				assertShared(shared, "component:"+issue.getProject().getName()+":"+c.getName(), c);
+			}
+			for (Version v : issue.getFixVersions()) {
+				assertShared(shared, "version:"+issue.getProject().getName()+":"+v.getName(), v);
+			}
+		}
+	}
+
+	/**
+	 * Asserts that the object is the same as any object seen before under the key.
+	 * @param shared the objects seen before
+	 * @param key the key of the object
+	 * @param o the object
+	 */
+	private static void assertShared(Map<String, Object> shared, String key, Object o) {
+		Object other = shared.get(key);
+		if (other == null) shared.put(key, o);
+		else assertSame("Object is not shared: "+key, other, o);
+	}
+
+	/**
+	 * Parses the XML.
+	 * @param xml the XML document
+	 * @return the issues parsed
+	 */
+	private static List<Issue> parse(String xml) throws Exception {
+		return parse(xml.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Parses the XML.
+	 * @param xml the XML document
+	 * @return the issues parsed
+	 */
+	static List<Issue> parse(byte xml[]) throws Exception {
+		List<Issue> rc = new ArrayList<Issue>();
+		InputStream in = new ByteArrayInputStream(xml);
+		try {
+			session.new XmlParser(in, rc).parse();
+		} finally {
+			in.close();
+		}
+		return rc;
+	}
+
+	/**
+	 * Loads expected values.
+	 * @param path the path of the resource
+	 * @return the values
+	 */
+	private static Properties load(String path) throws Exception {
+		URL url = FileFinder.find(BugzillaXmlParserTest.class, path);
+		assertNotNull("Cannot find "+path, url);
+		Properties rc = new Properties();
+		InputStream in = url.openStream();
+		try {
+			rc.loadFromXML(in);
+		} finally {
+			in.close();
+		}
+		return rc;
+	}
+
+	/**
+	 * Creates a Bugzilla XML document as returned by <code>show_bug.cgi</code>.
+	 * @param copies how often all issues are repeated
+	 * @return the XML document
+	 */
+	static String createXml(int copies) throws Exception {
+		StringBuilder rc = new StringBuilder();
+		rc.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\" ?>\n");
+		rc.append("<bugzilla version=\"4.4.2\" urlbase=\"http://bugzilla.example.org/\" maintainer=\"admin@example.org\">\n");
+		for (int i=0; i<copies; i++) {
+			for (Properties issue : issues) {
+				appendBug(rc, issue);
+			}
+		}
+		rc.append("</bugzilla>\n");
+		return rc.toString();
+	}
+
+	/**
+	 * Appends a bug.
+	 * @param rc the document
+	 * @param issue the expected values of the issue
+	 */
+	private static void appendBug(StringBuilder rc, Properties issue) throws Exception {
+		String id = issue.getProperty("id");
+		rc.append("\t<bug>\n");
+		append(rc, "bug_id", id);
+		append(rc, "creation_ts", TIMESTAMP);
+		append(rc, "short_desc", issue.getProperty("summary"));
+		append(rc, "delta_ts", TIMESTAMP);
+		append(rc, "reporter_accessible", "1");
+		append(rc, "cclist_accessible", "1");
+		append(rc, "classification_id", "1");
+		append(rc, "classification", issue.getProperty("classification"));
+		append(rc, "product", issue.getProperty("project"));
+		for (String component : getList(issue, "components")) append(rc, "component", component);
+		for (String version : getList(issue, "fixVersions")) append(rc, "version", version);
+		append(rc, "rep_platform", "All");
+		append(rc, "op_sys", "All");
+		append(rc, "bug_status", issue.getProperty("status"));
+		append(rc, "resolution", issue.getProperty("resolution"));
+		append(rc, "bug_file_loc", "");
+		append(rc, "status_whiteboard", "");
+		append(rc, "keywords", "");
+		append(rc, "priority", issue.getProperty("priority"));
+		append(rc, "bug_severity", issue.getProperty("severity"));
+		append(rc, "target_milestone", "---");
+		String links = issue.getProperty("links");
+		if (links.startsWith("Blocks:")) append(rc, "blocked", links.substring(links.lastIndexOf(':')+1));
+		if (links.startsWith("Depends on:")) append(rc, "dependson", links.substring(links.lastIndexOf(':')+1));
+		append(rc, "everconfirmed", "1");
+		appendUser(rc, "reporter", issue.getProperty("reporter"));
+		appendUser(rc, "assigned_to", issue.getProperty("assignee"));
+		append(rc, "cc", "admin");
+		append(rc, "cf_reference", "cf-"+id);
+		for (String commentId : getList(issue, "comments")) {
+			Properties comment = load("comment/bugzilla-"+commentId+".xml");
+			rc.append("\t\t<long_desc isprivate=\"0\">\n");
+			append(rc, "commentid", commentId);
+			for (String attachmentId : getList(comment, "attachments")) append(rc, "attachid", attachmentId);
+			appendUser(rc, "who", comment.getProperty("author"));
+			append(rc, "bug_when", TIMESTAMP);
+			append(rc, "thetext", comment.getProperty("text"));
+			rc.append("\t\t</long_desc>\n");
+		}
+		for (String attachmentId : getList(issue, "attachments")) {
+			rc.append("\t\t<attachment isobsolete=\"0\" ispatch=\"0\" isprivate=\"0\">\n");
+			append(rc, "attachid", attachmentId);
+			append(rc, "date", TIMESTAMP);
+			append(rc, "delta_ts", TIMESTAMP);
+			append(rc, "desc", "Attachment "+attachmentId);
+			append(rc, "filename", "attachment-"+attachmentId+".txt");
+			append(rc, "type", "text/plain");
+			append(rc, "size", "1024");
+			append(rc, "attacher", "admin");
+			rc.append("\t\t</attachment>\n");
+		}
+		rc.append("\t</bug>\n");
+	}
+
+	/**
+	 * Appends a user element.
+	 * @param rc the document
+	 * @param name the name of the element
+	 * @param user the login of the user
+	 */
+	private static void appendUser(StringBuilder rc, String name, String user) {
+		rc.append("\t\t<").append(name).append(" name=\"");
+		escape(rc, user+" (Real Name)");
+		rc.append("\">");
+		escape(rc, user);
+		rc.append("</").append(name).append(">\n");
+	}
+
+	/**
+	 * Appends a text element.
+	 * @param rc the document
+	 * @param name the name of the element
+	 * @param value the text
+	 */
+	private static void append(StringBuilder rc, String name, String value) {
+		rc.append("\t\t<").append(name).append('>');
+		escape(rc, value);
+		rc.append("</").append(name).append(">\n");
+	}
+
+	/**
+	 * Appends the escaped text.
+	 * @param rc the document
+	 * @param value the text
+	 */
+	private static void escape(StringBuilder rc, String value) {
+		for (int i=0; i<value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '&': rc.append("&amp;"); break;
+			case '<': rc.append("&lt;"); break;
+			case '>': rc.append("&gt;"); break;
+			case '"': rc.append("&quot;"); break;
+			default: rc.append(c);
+			}
+		}
+	}
+
+	/**
+	 * Returns the values of a list property.
+	 * @param props the expected values
+	 * @param key the key of the list
+	 * @return the values
+	 */
+	private static Collection<String> getList(Properties props, String key) {
+		List<String> rc = new ArrayList<String>();
+		String value = props.getProperty(key);
+		if ((value != null) && value.startsWith("list:") && !value.equals("list:null")) {
+			for (String s : value.substring(5).split(",")) rc.add(s);
+		}
+		return rc;
+	}
+}
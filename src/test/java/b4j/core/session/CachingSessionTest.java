@@ -0,0 +1,290 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import rs.baselib.util.RsDate;
+import b4j.core.Attachment;
+import b4j.core.DefaultIssue;
+import b4j.core.DefaultSearchData;
+import b4j.core.Issue;
+import b4j.core.SearchData;
+import b4j.core.SearchResultCountCallback;
+import b4j.core.session.cache.IssueStore;
+
+/**
+ * Tests the incremental synchronization of {@link CachingSession}.
+ * @author ralph
+ *
+ */
+public class CachingSessionTest {
+
+	private static final String CHANGED_SINCE = "changed_since";
+
+	private File directory;
+
+	@Before
+	public void createDirectory() throws IOException {
+		directory = File.createTempFile("b4j-test-", "");
+		directory.delete();
+		directory.mkdirs();
+	}
+
+	@After
+	public void deleteDirectory() {
+		delete(directory);
+	}
+
+	@Test
+	public void testUpdate() throws Exception {
+		TrackingSession server = new TrackingSession();
+		server.put("1", "b4j", "First", 1000L);
+		server.put("2", "b4j", "Second", 2000L);
+		server.put("3", "b4j", "Third", 3000L);
+		server.put("4", "other", "Fourth", 3000L);
+		CachingSession session = new CachingSession(server, directory);
+		DefaultSearchData search = new DefaultSearchData();
+		search.add("product", "b4j");
+
+		// First search fetches all issues
+		assertEquals("1,2,3", getIds(session.searchBugs(search, null)));
+		assertEquals(1, server.searches.size());
+		assertNull(server.searches.get(0).get(CHANGED_SINCE));
+
+		// Changes on the server
+		server.put("2", "b4j", "Second changed", 4000L);
+		server.put("3", "other", "Third moved", 4000L);
+		server.put("5", "b4j", "Fifth", 5000L);
+		server.searches.clear();
+		Iterable<Issue> issues = session.searchBugs(search, null);
+		assertEquals("1,2,5", getIds(issues));
+		assertEquals("Second changed", getIssue(issues, "2").getSummary());
+		assertEquals("First", getIssue(issues, "1").getSummary());
+
+		// Only changed issues were requested
+		assertEquals(1, server.searches.size());
+		assertEquals("3000", getFirst(server.searches.get(0), CHANGED_SINCE));
+		assertEquals("b4j", getFirst(server.searches.get(0), "product"));
+
+		// Only cached issues not found by the search were checked by ID
+		assertEquals(1, server.idChecks.size());
+		assertEquals("[1, 3]", server.idChecks.get(0).toString());
+
+		// Nothing changed
+		server.searches.clear();
+		server.idChecks.clear();
+		assertEquals("1,2,5", getIds(session.searchBugs(search, null)));
+		assertEquals("5000", getFirst(server.searches.get(0), CHANGED_SINCE));
+		assertEquals("[1, 2]", server.idChecks.get(0).toString());
+	}
+
+	@Test
+	public void testChangedIdChunks() throws Exception {
+		TrackingSession server = new TrackingSession();
+		int count = CachingSession.CHANGED_IDS_CHUNK_SIZE * 2 + 1;
+		for (int i=1; i<=count; i++) server.put(Integer.toString(i), "b4j", "Issue "+i, i);
+		CachingSession session = new CachingSession(server, directory);
+		DefaultSearchData search = new DefaultSearchData();
+		search.add("product", "b4j");
+		session.searchBugs(search, null);
+
+		// Last issue moves to another product
+		server.put(Integer.toString(count), "other", "Moved", count+1);
+		Iterable<Issue> issues = session.searchBugs(search, null);
+		assertEquals(count-1, getIds(issues).split(",").length);
+		assertEquals(3, server.idChecks.size());
+		assertEquals(1, server.idChecks.get(2).size());
+	}
+
+	@Test
+	public void testFullSynchronization() throws Exception {
+		TrackingSession server = new TrackingSession();
+		server.tracking = false;
+		server.put("1", "b4j", "First", 1000L);
+		CachingSession session = new CachingSession(server, directory);
+		DefaultSearchData search = new DefaultSearchData();
+		search.add("product", "b4j");
+		assertEquals("1", getIds(session.searchBugs(search, null)));
+		server.put("2", "b4j", "Second", 2000L);
+		assertEquals("1,2", getIds(session.searchBugs(search, null)));
+		assertEquals(2, server.searches.size());
+		assertNull(server.searches.get(1).get(CHANGED_SINCE));
+	}
+
+	@Test
+	public void testNamespace() throws Exception {
+		TrackingSession server = new TrackingSession();
+		CachingSession session = new CachingSession(server, directory);
+		File store = session.getStore().getDirectory();
+		assertEquals(directory, store.getParentFile());
+		assertEquals(store, new CachingSession(new TrackingSession(), directory).getStore().getDirectory());
+		assertFalse(store.equals(new IssueStore(directory, "http://localhost/|john.doe").getDirectory()));
+		assertFalse(new IssueStore(directory, "http://localhost/|jane.doe").getDirectory().equals(new IssueStore(directory, "http://localhost/|john.doe").getDirectory()));
+		assertTrue(new IssueStore(directory, "http://localhost/|john.doe").getDirectory().isDirectory());
+	}
+
+	private static String getIds(Iterable<Issue> issues) {
+		StringBuilder rc = new StringBuilder();
+		for (Issue issue : issues) {
+			if (rc.length() > 0) rc.append(',');
+			rc.append(issue.getId());
+		}
+		return rc.toString();
+	}
+
+	private static Issue getIssue(Iterable<Issue> issues, String id) {
+		for (Issue issue : issues) {
+			if (issue.getId().equals(id)) return issue;
+		}
+		return null;
+	}
+
+	private static String getFirst(SearchData searchData, String name) {
+		Iterable<String> values = searchData.get(name);
+		return values != null ? values.iterator().next() : null;
+	}
+
+	private static void delete(File file) {
+		File children[] = file.listFiles();
+		if (children != null) {
+			for (File child : children) delete(child);
+		}
+		file.delete();
+	}
+
+	/**
+	 * A server that keeps its issues in memory and records the searches.
+	 */
+	private static class TrackingSession implements ChangeTrackingSession {
+
+		private Map<String,DefaultIssue> issues = new LinkedHashMap<String,DefaultIssue>();
+		private List<SearchData> searches = new ArrayList<SearchData>();
+		private List<List<String>> idChecks = new ArrayList<List<String>>();
+		private boolean tracking = true;
+
+		public void put(String id, String product, String summary, long updated) {
+			DefaultIssue issue = new DefaultIssue();
+			issue.setId(id);
+			issue.setSummary(summary);
+			issue.setUpdateTimestamp(new RsDate(updated));
+			issue.set("product", product);
+			issues.remove(id);
+			issues.put(id, issue);
+		}
+
+		@Override
+		public SearchData getChangedSearchData(SearchData searchData, Date since) {
+			if (!tracking) return null;
+			DefaultSearchData rc = searchData != null ? new DefaultSearchData(searchData) : new DefaultSearchData();
+			rc.add(CHANGED_SINCE, Long.toString(since.getTime()));
+			return rc;
+		}
+
+		@Override
+		public Collection<String> getChangedIds(Collection<String> ids, Date since) {
+			idChecks.add(new ArrayList<String>(ids));
+			List<String> rc = new ArrayList<String>();
+			for (String id : ids) {
+				DefaultIssue issue = issues.get(id);
+				if ((issue != null) && (issue.getUpdateTimestamp().getTime() >= since.getTime())) rc.add(id);
+			}
+			return rc;
+		}
+
+		@Override
+		public Iterable<Issue> searchBugs(SearchData searchData, SearchResultCountCallback callback) {
+			searches.add(searchData);
+			String product = getFirst(searchData, "product");
+			String since = getFirst(searchData, CHANGED_SINCE);
+			List<Issue> rc = new ArrayList<Issue>();
+			for (DefaultIssue issue : issues.values()) {
+				if ((product != null) && !product.equals(issue.get("product"))) continue;
+				if ((since != null) && (issue.getUpdateTimestamp().getTime() < Long.parseLong(since))) continue;
+				rc.add(issue);
+			}
+			return rc;
+		}
+
+		@Override
+		public Issue getIssue(String id) {
+			return issues.get(id);
+		}
+
+		@Override
+		public void configure(Configuration config) throws ConfigurationException {
+		}
+
+		@Override
+		public boolean isLoggedIn() {
+			return true;
+		}
+
+		@Override
+		public boolean open() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public InputStream getAttachment(Attachment attachment) throws IOException {
+			return null;
+		}
+
+		@Override
+		public void dump() {
+		}
+
+		@Override
+		public String getMinimumBugzillaVersion() {
+			return null;
+		}
+
+		@Override
+		public String getMaximumBugzillaVersion() {
+			return null;
+		}
+
+		@Override
+		public String getBugzillaVersion() {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,277 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.configuration.ConfigurationException;
+import org.junit.Test;
+
+import b4j.core.Attachment;
+import b4j.core.Issue;
+import b4j.core.SearchData;
+import b4j.core.SearchResultCountCallback;
+import b4j.core.Session;
+
+/**
+ * Tests the {@link SessionPool}.
+ * @author ralph
+ *
+ */
+public class SessionPoolTest {
+
+	@Test
+	public void testReuse() {
+		TestPool pool = new TestPool(2);
+		Session s1 = pool.borrow();
+		assertTrue(s1.isLoggedIn());
+		pool.release(s1);
+		Session s2 = pool.borrow();
+		assertSame(s1, s2);
+		pool.release(s2);
+		assertEquals(1, pool.opens.get());
+		SessionPool.Statistics stats = pool.getStatistics();
+		assertEquals(1, stats.getCreated());
+		assertEquals(2, stats.getBorrows());
+		assertEquals(1, stats.getIdle());
+		assertEquals(0, stats.getBorrowed());
+		pool.close();
+		assertFalse(s1.isLoggedIn());
+	}
+
+	@Test
+	public void testConcurrentBorrow() throws Exception {
+		final TestPool pool = new TestPool(3);
+		final AtomicInteger inUse = new AtomicInteger(0);
+		final AtomicInteger maxInUse = new AtomicInteger(0);
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t=0; t<8; t++) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						for (int i=0; i<50; i++) {
+							TestSession session = (TestSession)pool.borrow();
+							int n = inUse.incrementAndGet();
+							synchronized (maxInUse) {
+								if (n > maxInUse.get()) maxInUse.set(n);
+							}
+							assertEquals("Session used concurrently", 1, session.users.incrementAndGet());
+							Thread.sleep(1);
+							session.users.decrementAndGet();
+							inUse.decrementAndGet();
+							pool.release(session);
+						}
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) thread.join();
+		assertEquals("Errors: "+errors, 0, errors.size());
+		assertTrue(maxInUse.get() <= 3);
+		SessionPool.Statistics stats = pool.getStatistics();
+		assertEquals(400, stats.getBorrows());
+		assertTrue(stats.getCreated() <= 3);
+		assertEquals(stats.getCreated(), pool.opens.get());
+		assertTrue(stats.getPeakBorrowed() <= 3);
+		assertTrue(stats.getWaits() > 0);
+		pool.close();
+	}
+
+	@Test
+	public void testTimeout() {
+		TestPool pool = new TestPool(1);
+		pool.setBorrowTimeout(20);
+		Session session = pool.borrow();
+		assertEquals(1.0d, pool.getStatistics().getUtilisation(), 0.001d);
+		try {
+			pool.borrow();
+			fail("Borrow did not time out");
+		} catch (RuntimeException e) {
+			// expected
+		}
+		assertEquals(1, pool.getStatistics().getTimeouts());
+		pool.release(session);
+		assertSame(session, pool.borrow());
+		pool.close();
+	}
+
+	@Test
+	public void testRevalidate() throws Exception {
+		TestPool pool = new TestPool(2);
+		pool.setLoginTtl(10);
+		Session session = pool.borrow();
+		pool.release(session);
+		Thread.sleep(20);
+		pool.revalidate();
+		assertEquals(2, pool.opens.get());
+		assertEquals(1, pool.getStatistics().getRevalidated());
+		assertTrue(session.isLoggedIn());
+
+		// A session closed by the borrower is re-opened when borrowed again
+		pool.setLoginTtl(0);
+		session = pool.borrow();
+		session.close();
+		pool.release(session);
+		assertSame(session, pool.borrow());
+		assertTrue(session.isLoggedIn());
+		assertEquals(3, pool.opens.get());
+		pool.close();
+	}
+
+	@Test
+	public void testBackgroundRevalidation() throws Exception {
+		TestPool pool = new TestPool(2);
+		pool.setLoginTtl(10);
+		pool.setRevalidateInterval(10);
+		pool.release(pool.borrow());
+		long timeout = System.currentTimeMillis() + 5000;
+		while ((pool.getStatistics().getRevalidated() == 0) && (System.currentTimeMillis() < timeout)) {
+			Thread.sleep(10);
+		}
+		assertTrue(pool.getStatistics().getRevalidated() > 0);
+		pool.close();
+	}
+
+	@Test
+	public void testFailure() {
+		TestPool pool = new TestPool(1);
+		pool.loginFails = true;
+		try {
+			pool.borrow();
+			fail("Failed login was not reported");
+		} catch (RuntimeException e) {
+			assertEquals("Cannot open session", e.getMessage());
+		}
+		assertEquals(0, pool.getStatistics().getSessions());
+		assertEquals(1, pool.getStatistics().getFailures());
+		pool.loginFails = false;
+		Session session = pool.borrow();
+		pool.invalidate(session);
+		assertFalse(session.isLoggedIn());
+		assertEquals(0, pool.getStatistics().getSessions());
+		pool.close();
+	}
+
+	/**
+	 * Creates {@link TestSession}s and counts the logins.
+	 */
+	private static class TestPool extends SessionPool {
+
+		private AtomicInteger opens = new AtomicInteger(0);
+		private volatile boolean loginFails = false;
+
+		public TestPool(int maxSessions) {
+			super(null, maxSessions);
+			setRevalidateInterval(0);
+			setBorrowTimeout(5000);
+		}
+
+		@Override
+		protected Session createSession() throws ConfigurationException {
+			return new TestSession(this);
+		}
+	}
+
+	/**
+	 * A session that does not connect anywhere.
+	 */
+	private static class TestSession implements Session {
+
+		private TestPool pool;
+		private AtomicInteger users = new AtomicInteger(0);
+		private volatile boolean loggedIn = false;
+
+		public TestSession(TestPool pool) {
+			this.pool = pool;
+		}
+
+		@Override
+		public void configure(Configuration config) throws ConfigurationException {
+		}
+
+		@Override
+		public boolean isLoggedIn() {
+			return loggedIn;
+		}
+
+		@Override
+		public boolean open() {
+			if (pool.loginFails) return false;
+			pool.opens.incrementAndGet();
+			loggedIn = true;
+			return true;
+		}
+
+		@Override
+		public void close() {
+			loggedIn = false;
+		}
+
+		@Override
+		public Iterable<Issue> searchBugs(SearchData searchData, SearchResultCountCallback callback) {
+			return null;
+		}
+
+		@Override
+		public Issue getIssue(String id) {
+			return null;
+		}
+
+		@Override
+		public InputStream getAttachment(Attachment attachment) throws IOException {
+			return null;
+		}
+
+		@Override
+		public void dump() {
+		}
+
+		@Override
+		public String getMinimumBugzillaVersion() {
+			return null;
+		}
+
+		@Override
+		public String getMaximumBugzillaVersion() {
+			return null;
+		}
+
+		@Override
+		public String getBugzillaVersion() {
+			return null;
+		}
+	}
+}
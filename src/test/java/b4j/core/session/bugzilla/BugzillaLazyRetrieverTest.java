@@ -0,0 +1,318 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.bugzilla;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import b4j.core.Attachment;
+import b4j.core.Comment;
+import b4j.core.DefaultAttachment;
+import b4j.core.DefaultComment;
+import b4j.core.Issue;
+import b4j.core.User;
+
+import com.atlassian.util.concurrent.Promise;
+import com.atlassian.util.concurrent.Promises;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Tests concurrent accesses to the chunked loads of {@link BugzillaLazyRetriever}.
+ * @author ralph
+ *
+ */
+public class BugzillaLazyRetrieverTest {
+
+	private static final int THREADS = 16;
+	private static final int KEYS = 200;
+
+	private ScheduledExecutorService executor;
+	private volatile String failing;
+	private BugzillaLazyRetriever retriever;
+
+	@Before
+	public void createRetriever() {
+		executor = Executors.newScheduledThreadPool(4);
+		retriever = new BugzillaLazyRetriever(new DelayedClient()) {
+			// A pause on misses lets other threads start a load before the missing key is loaded
+			@Override
+			protected Collection<Comment> searchComment(String issueId) {
+				Collection<Comment> rc = super.searchComment(issueId);
+				if (rc == null) pause();
+				return rc;
+			}
+			@Override
+			protected Set<Attachment> searchAttachment(String issueId) {
+				Set<Attachment> rc = super.searchAttachment(issueId);
+				if (rc == null) pause();
+				return rc;
+			}
+		};
+		// Small chunks leave most chunks in flight when a prioritised load returns
+		retriever.setBatchSize(3);
+		retriever.setMaxParallelRequests(4);
+	}
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Each thread must receive the comments of its own issue, even when it joined a load
+	 * that prioritised another issue.
+	 */
+	@Test
+	public void testConcurrentComments() throws Exception {
+		for (int i=0; i<KEYS; i++) retriever.registerComment(key(i));
+		List<Throwable> errors = run(new Worker() {
+			@Override
+			public void run(String key) {
+				Collection<Comment> comments = retriever.getComments(key);
+				assertNotNull("Comments not loaded: "+key, comments);
+				assertEquals(1, comments.size());
+				assertEquals(key, comments.iterator().next().getIssueId());
+			}
+		});
+		assertEquals("Errors: "+errors, 0, errors.size());
+	}
+
+	/**
+	 * Each thread must receive the attachments of its own issue, even when it joined a load
+	 * that prioritised another issue.
+	 */
+	@Test
+	public void testConcurrentAttachments() throws Exception {
+		for (int i=0; i<KEYS; i++) retriever.registerAttachment(key(i));
+		List<Throwable> errors = run(new Worker() {
+			@Override
+			public void run(String key) {
+				Collection<Attachment> attachments = retriever.getAttachments(key);
+				assertEquals("Attachments not loaded: "+key, 1, attachments.size());
+				assertEquals(key, attachments.iterator().next().getIssueId());
+			}
+		});
+		assertEquals("Errors: "+errors, 0, errors.size());
+	}
+
+	/**
+	 * Keys of a failed request must be put back into the queue and loaded by the next call.
+	 */
+	@Test
+	public void testFailedRequest() throws Exception {
+		for (int i=0; i<KEYS; i++) retriever.registerComment(key(i));
+		failing = key(0);
+		try {
+			retriever.getComments(key(0));
+			fail("Failed request was not reported");
+		} catch (RuntimeException e) {
+			Throwable cause = e;
+			while (cause.getCause() != null) cause = cause.getCause();
+			assertEquals("Request failed", cause.getMessage());
+		}
+		for (int i=0; i<KEYS; i++) {
+			Collection<Comment> comments = retriever.getComments(key(i));
+			assertNotNull("Comments not loaded: "+key(i), comments);
+			assertEquals(1, comments.size());
+		}
+	}
+
+	/**
+	 * Runs the worker concurrently in all threads, each thread working on all keys in a different order.
+	 * @param worker - the worker
+	 * @return the errors that occurred
+	 * @throws InterruptedException when interrupted
+	 */
+	private static List<Throwable> run(final Worker worker) throws InterruptedException {
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t=0; t<THREADS; t++) {
+			final int offset = t * KEYS / THREADS;
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int i=0; i<KEYS; i++) {
+							worker.run(key((i+offset) % KEYS));
+						}
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) thread.join();
+		return errors;
+	}
+
+	private static void pause() {
+		try {
+			Thread.sleep(1);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static String key(int i) {
+		return "key"+i;
+	}
+
+	private static interface Worker {
+		public void run(String key);
+	}
+
+	/**
+	 * Answers comment and attachment requests with a delay, failing the request for {@link #failing}.
+	 */
+	private class DelayedClient implements BugzillaClient, BugzillaBugRestClient {
+
+		/**
+		 * Answers the request after a delay.
+		 * @param result - the result
+		 * @return the pending result
+		 */
+		private <T> Promise<Iterable<T>> answer(final Iterable<T> result) {
+			final SettableFuture<Iterable<T>> rc = SettableFuture.create();
+			executor.schedule(new Runnable() {
+				@Override
+				public void run() {
+					rc.set(result);
+				}
+			}, 2, TimeUnit.MILLISECONDS);
+			return Promises.forListenableFuture(rc);
+		}
+
+		@Override
+		public Promise<Iterable<Comment>> getComments(Collection<String> issueIds) {
+			if (issueIds.contains(failing)) {
+				// Fails once only
+				failing = null;
+				SettableFuture<Iterable<Comment>> rc = SettableFuture.create();
+				rc.setException(new IllegalStateException("Request failed"));
+				return Promises.forListenableFuture(rc);
+			}
+			List<Comment> rc = new ArrayList<Comment>();
+			for (String issueId : issueIds) rc.add(new DefaultComment(issueId));
+			return answer(rc);
+		}
+
+		@Override
+		public Promise<Iterable<Comment>> getComments(String... issueIds) {
+			return getComments(Arrays.asList(issueIds));
+		}
+
+		@Override
+		public Promise<Iterable<Attachment>> getAttachments(Collection<String> issueIds) {
+			List<Attachment> rc = new ArrayList<Attachment>();
+			for (String issueId : issueIds) rc.add(new DefaultAttachment(issueId));
+			return answer(rc);
+		}
+
+		@Override
+		public Promise<Iterable<Attachment>> getAttachments(String... issueIds) {
+			return getAttachments(Arrays.asList(issueIds));
+		}
+
+		@Override
+		public Promise<Iterable<Issue>> getBugs(long... ids) {
+			return null;
+		}
+
+		@Override
+		public Promise<Iterable<Issue>> getBugs(Collection<Long> ids) {
+			return null;
+		}
+
+		@Override
+		public Promise<Iterable<Issue>> findBugs(Map<String, Object> criteria) {
+			return null;
+		}
+
+		@Override
+		public Promise<Iterable<Long>> findBugIds(Map<String, Object> criteria) {
+			return null;
+		}
+
+		@Override
+		public Promise<InputStream> getAttachmentContent(String attachmentId) {
+			return null;
+		}
+
+		@Override
+		public User login(String user, String password) {
+			return null;
+		}
+
+		@Override
+		public User getUser() {
+			return null;
+		}
+
+		@Override
+		public void logout() {
+		}
+
+		@Override
+		public BugzillaMetadataRestClient getMetadataClient() {
+			return null;
+		}
+
+		@Override
+		public BugzillaClassificationRestClient getClassificationClient() {
+			return null;
+		}
+
+		@Override
+		public BugzillaProductRestClient getProductClient() {
+			return null;
+		}
+
+		@Override
+		public BugzillaUserRestClient getUserClient() {
+			return null;
+		}
+
+		@Override
+		public BugzillaBugRestClient getBugClient() {
+			return this;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.bugzilla.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.atlassian.jira.rest.client.internal.json.JsonObjectParser;
+import com.atlassian.util.concurrent.Promise;
+
+/**
+ * Tests the {@link JsonRpcBatcher}.
+ * @author ralph
+ *
+ */
+public class JsonRpcBatcherTest {
+
+	private static final JsonObjectParser<String> PARSER = new JsonObjectParser<String>() {
+		@Override
+		public String parse(JSONObject json) throws JSONException {
+			return json.getString("result");
+		}
+	};
+
+	private RecordingBatcher batcher;
+
+	@Before
+	public void createBatcher() {
+		batcher = new RecordingBatcher();
+		// Calls are sent explicitly only
+		batcher.setWindow(60000L);
+	}
+
+	@After
+	public void closeBatcher() {
+		batcher.close();
+	}
+
+	@Test
+	public void testDispatchById() throws Exception {
+		List<Promise<String>> promises = add(1, 2, 3);
+		batcher.flush();
+		assertEquals(1, batcher.batches.size());
+		assertEquals(3, batcher.batches.get(0).size());
+
+		// Responses arrive in any order
+		List<JsonRpcBatcher.Call<?>> calls = batcher.batches.get(0);
+		List<JsonRpcBatcher.Call<?>> reversed = new ArrayList<JsonRpcBatcher.Call<?>>(calls);
+		Collections.reverse(reversed);
+		batcher.dispatch(calls, getResponses(reversed));
+		assertEquals("result 1", promises.get(0).get());
+		assertEquals("result 2", promises.get(1).get());
+		assertEquals("result 3", promises.get(2).get());
+		assertTrue(batcher.singles.isEmpty());
+		assertTrue(batcher.isSupported());
+	}
+
+	@Test
+	public void testMissingIds() throws Exception {
+		List<Promise<String>> promises = add(1, 2, 3);
+		batcher.flush();
+		List<JsonRpcBatcher.Call<?>> calls = batcher.batches.get(0);
+		JSONArray responses = getResponses(calls.subList(0, 1));
+		responses.put(getResponse("42"));
+		responses.put(new JSONObject().put("id", JSONObject.NULL).put("error", new JSONObject().put("code", -32600)));
+		responses.put(getResponse(calls.get(2).getId()));
+		batcher.dispatch(calls, responses);
+
+		// The unanswered call is sent again
+		assertEquals(1, batcher.singles.size());
+		assertSame(calls.get(1), batcher.singles.get(0));
+		assertEquals("result 1", promises.get(0).get());
+		assertEquals("result 3", promises.get(2).get());
+		assertFalse(promises.get(1).isDone());
+		batcher.answer(batcher.singles.get(0));
+		assertEquals("result 2", promises.get(1).get());
+		assertTrue(batcher.isSupported());
+	}
+
+	@Test
+	public void testNonArrayFallback() throws Exception {
+		List<Promise<String>> promises = add(1, 2);
+		batcher.flush();
+		List<JsonRpcBatcher.Call<?>> calls = batcher.batches.get(0);
+		batcher.dispatch(calls, null);
+		assertFalse(batcher.isSupported());
+		assertFalse(batcher.isEnabled());
+		assertEquals(calls, batcher.singles);
+		for (JsonRpcBatcher.Call<?> call : calls) batcher.answer(call);
+		assertEquals("result 1", promises.get(0).get());
+		assertEquals("result 2", promises.get(1).get());
+	}
+
+	@Test
+	public void testInvalidRequestFallback() throws Exception {
+		add(1, 2);
+		batcher.flush();
+		List<JsonRpcBatcher.Call<?>> calls = batcher.batches.get(0);
+		batcher.failed(calls, new RuntimeException("Cannot post", new IOException("{\"error\":{\"code\":-32600,\"message\":\"Invalid Request\"},\"id\":null}")));
+		assertFalse(batcher.isSupported());
+		assertEquals(calls, batcher.singles);
+	}
+
+	@Test
+	public void testTransportFailure() throws Exception {
+		List<Promise<String>> promises = add(1, 2);
+		batcher.flush();
+		IOException failure = new IOException("Connection reset");
+		batcher.failed(batcher.batches.get(0), failure);
+		assertTrue(batcher.isSupported());
+		assertTrue(batcher.singles.isEmpty());
+		for (Promise<String> promise : promises) {
+			try {
+				promise.get();
+				fail("Failure was not reported");
+			} catch (ExecutionException e) {
+				assertSame(failure, e.getCause());
+			}
+		}
+
+		// Next batch is sent as batch again
+		add(3, 4);
+		batcher.flush();
+		assertEquals(2, batcher.batches.size());
+	}
+
+	private List<Promise<String>> add(int... ids) throws JSONException {
+		List<Promise<String>> rc = new ArrayList<Promise<String>>();
+		for (int id : ids) {
+			JSONObject entity = new JSONObject();
+			entity.put("method", "Bug.get");
+			entity.put("id", id);
+			entity.put("params", new JSONArray());
+			rc.add(batcher.add(null, entity, PARSER));
+		}
+		return rc;
+	}
+
+	private static JSONArray getResponses(List<JsonRpcBatcher.Call<?>> calls) throws JSONException {
+		JSONArray rc = new JSONArray();
+		for (JsonRpcBatcher.Call<?> call : calls) rc.put(getResponse(call.getId()));
+		return rc;
+	}
+
+	private static JSONObject getResponse(String id) throws JSONException {
+		JSONObject rc = new JSONObject();
+		rc.put("id", id);
+		rc.put("result", "result "+id);
+		rc.put("error", JSONObject.NULL);
+		return rc;
+	}
+
+	/**
+	 * Records the requests instead of posting them.
+	 */
+	private static class RecordingBatcher extends JsonRpcBatcher {
+
+		private List<List<JsonRpcBatcher.Call<?>>> batches = new ArrayList<List<JsonRpcBatcher.Call<?>>>();
+		private List<JsonRpcBatcher.Call<?>> singles = new ArrayList<JsonRpcBatcher.Call<?>>();
+
+		@Override
+		protected void postBatch(List<JsonRpcBatcher.Call<?>> calls) {
+			batches.add(calls);
+		}
+
+		@Override
+		protected void postSingle(JsonRpcBatcher.Call<?> call) {
+			singles.add(call);
+		}
+
+		public void answer(JsonRpcBatcher.Call<?> call) throws JSONException {
+			call.parse(getResponse(call.getId()));
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.bugzilla.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.StringReader;
+import java.net.URI;
+
+import org.junit.Test;
+
+import b4j.core.session.bugzilla.async.AsyncBugzillaRestClient;
+
+import com.atlassian.httpclient.api.HttpClient;
+
+/**
+ * Tests the {@link BugzillaBugParser}.
+ * @author ralph
+ *
+ */
+public class BugzillaBugParserTest {
+
+	@Test
+	public void testCloseIssueStream() throws Exception {
+		final int closed[] = new int[1];
+		JsonStreamReader reader = new JsonStreamReader(new StringReader("[{\"id\":1},{\"id\":2}]") {
+			@Override
+			public void close() {
+				closed[0]++;
+				super.close();
+			}
+		});
+		reader.beginArray();
+		BugzillaBugParser parser = new BugzillaBugParser(new AsyncBugzillaRestClient(new URI("http://localhost/"), (HttpClient)null));
+		BugzillaBugParser.IssueStream stream = parser.new IssueStream(reader);
+		// Consumer stops before reading the stream
+		stream.close();
+		assertEquals(1, closed[0]);
+		assertFalse(stream.iterator().hasNext());
+		// Closing again has no effect
+		stream.close();
+		assertEquals(1, closed[0]);
+	}
+}
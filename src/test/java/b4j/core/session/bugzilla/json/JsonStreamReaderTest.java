@@ -0,0 +1,216 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.bugzilla.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.Test;
+
+import b4j.core.session.bugzilla.json.JsonStreamReader.Token;
+
+/**
+ * Tests the {@link JsonStreamReader}.
+ * @author ralph
+ *
+ */
+public class JsonStreamReaderTest {
+
+	@Test
+	public void testEscapes() throws Exception {
+		JsonStreamReader reader = getReader("[\"a\\nb\\tc\", \"\\\"\\\\\\/\", \"caf\\u00e9\", \"\\b\\f\\r\"]");
+		reader.beginArray();
+		assertEquals("a\nb\tc", reader.nextString());
+		assertEquals("\"\\/", reader.nextString());
+		assertEquals("caf\u00e9", reader.nextString());
+		assertEquals("\b\f\r", reader.nextString());
+		reader.endArray();
+		assertEquals(Token.END_DOCUMENT, reader.peek());
+	}
+
+	@Test
+	public void testSurrogatePair() throws Exception {
+		JsonStreamReader reader = getReader("[\"\\ud83d\\ude00\", \"x\ud83d\ude00y\"]");
+		reader.beginArray();
+		String s = reader.nextString();
+		assertEquals(2, s.length());
+		assertEquals(0x1F600, s.codePointAt(0));
+		s = reader.nextString();
+		assertEquals(4, s.length());
+		assertEquals(0x1F600, s.codePointAt(1));
+		reader.endArray();
+	}
+
+	@Test
+	public void testNumbers() throws Exception {
+		JsonStreamReader reader = getReader("[-1, 0, 1.5, 1e10, -0.5E-3, 9223372036854775807, \"42\"]");
+		reader.beginArray();
+		assertEquals(Token.NUMBER, reader.peek());
+		assertEquals(Long.valueOf(-1), reader.readValue());
+		assertEquals(0L, reader.nextLong());
+		assertEquals(1.5d, ((Double)reader.readValue()).doubleValue(), 0d);
+		assertEquals(1e10d, ((Double)reader.readValue()).doubleValue(), 0d);
+		assertEquals(-0.5e-3d, ((Double)reader.readValue()).doubleValue(), 0d);
+		assertEquals(Long.MAX_VALUE, reader.nextLong());
+		assertEquals(Token.STRING, reader.peek());
+		assertEquals(42L, reader.nextLong());
+		reader.endArray();
+	}
+
+	@Test
+	public void testInvalidLong() throws Exception {
+		JsonStreamReader reader = getReader("[1.5]");
+		reader.beginArray();
+		try {
+			reader.nextLong();
+			fail("Decimal accepted as long");
+		} catch (JSONException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testLiterals() throws Exception {
+		JsonStreamReader reader = getReader("{\"a\":true,\"b\":false,\"c\":null}");
+		JSONObject obj = reader.readObject();
+		assertEquals(Boolean.TRUE, obj.get("a"));
+		assertEquals(Boolean.FALSE, obj.get("b"));
+		assertSame(JSONObject.NULL, obj.get("c"));
+	}
+
+	@Test
+	public void testSkipNested() throws Exception {
+		JsonStreamReader reader = getReader("{\"skip\":{\"a\":[1,[2,{\"b\":\"]}\"}],{}],\"c\":{}},\"keep\":[[],\"x\"],\"last\":7}");
+		reader.beginObject();
+		assertEquals("skip", reader.nextName());
+		reader.skipValue();
+		assertEquals("keep", reader.nextName());
+		reader.beginArray();
+		reader.skipValue();
+		assertEquals("x", reader.nextString());
+		reader.endArray();
+		// A member name is skipped along with its value
+		assertEquals(Token.NAME, reader.peek());
+		reader.skipValue();
+		assertFalse(reader.hasNext());
+		reader.endObject();
+		assertEquals(Token.END_DOCUMENT, reader.peek());
+	}
+
+	@Test
+	public void testSkipUnterminated() throws Exception {
+		JsonStreamReader reader = getReader("{\"a\":[1,2");
+		reader.beginObject();
+		try {
+			reader.skipValue();
+			fail("Unterminated document accepted");
+		} catch (JSONException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testLazyString() throws Exception {
+		StringBuilder large = new StringBuilder();
+		for (int i=0; i<10000; i++) large.append("0123456789");
+		JsonStreamReader reader = getReader("[\""+large+"\", \"a\\u0041\\n\", \"skipped \\\"value\\\"\", 12, \"end\"]");
+		reader.beginArray();
+		StringWriter out = new StringWriter();
+		reader.nextString(out);
+		assertEquals(large.toString(), out.toString());
+		out = new StringWriter();
+		reader.nextString(out);
+		assertEquals("aA\n", out.toString());
+		// Pending string is not materialized when skipped
+		assertEquals(Token.STRING, reader.peek());
+		reader.skipValue();
+		out = new StringWriter();
+		reader.nextString(out);
+		assertEquals("12", out.toString());
+		assertEquals("end", reader.nextString());
+		reader.endArray();
+	}
+
+	@Test
+	public void testReadObject() throws Exception {
+		JsonStreamReader reader = getReader("{\"id\":1,\"name\":\"x\",\"list\":[1,\"a\",{\"b\":2.5}],\"obj\":{}}");
+		JSONObject obj = reader.readObject();
+		assertEquals(1L, obj.getLong("id"));
+		assertEquals("x", obj.getString("name"));
+		JSONArray list = obj.getJSONArray("list");
+		assertEquals(3, list.length());
+		assertEquals("a", list.getString(1));
+		assertEquals(2.5d, list.getJSONObject(2).getDouble("b"), 0d);
+		assertEquals(0, obj.getJSONObject("obj").length());
+	}
+
+	@Test
+	public void testMoveToResult() throws Exception {
+		JsonStreamReader reader = getReader("{\"id\":\"1\",\"error\":null,\"result\":{\"bugs\":[]}}");
+		AbstractJsonParser parser = new AbstractJsonParser(null) {};
+		assertTrue(parser.moveToResult(reader));
+		reader.beginObject();
+		assertTrue(parser.moveToMember(reader, "bugs"));
+		reader.beginArray();
+		assertFalse(reader.hasNext());
+	}
+
+	@Test
+	public void testMoveToResultWithoutResult() throws Exception {
+		JsonStreamReader reader = getReader("{\"id\":\"1\",\"result\":null}");
+		assertFalse(new AbstractJsonParser(null) {}.moveToResult(reader));
+	}
+
+	@Test
+	public void testMoveToResultWithError() throws Exception {
+		JsonStreamReader reader = getReader("{\"result\":null,\"error\":{\"code\":\"100\",\"message\":\"Invalid Bug Alias\"},\"id\":\"1\"}");
+		try {
+			new AbstractJsonParser(null) {}.moveToResult(reader);
+			fail("Error member was ignored");
+		} catch (JSONException e) {
+			assertTrue(e.getMessage().contains("Invalid Bug Alias"));
+		}
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		final boolean closed[] = new boolean[1];
+		JsonStreamReader reader = new JsonStreamReader(new StringReader("[]") {
+			@Override
+			public void close() {
+				closed[0] = true;
+				super.close();
+			}
+		});
+		reader.close();
+		assertTrue(closed[0]);
+	}
+
+	protected static JsonStreamReader getReader(String json) {
+		return new JsonStreamReader(new StringReader(json));
+	}
+}
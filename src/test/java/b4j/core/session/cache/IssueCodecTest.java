@@ -0,0 +1,201 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.core.session.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import rs.baselib.util.RsDate;
+import b4j.core.Comment;
+import b4j.core.DefaultComment;
+import b4j.core.DefaultIssue;
+import b4j.core.DefaultLink;
+import b4j.core.Issue;
+import b4j.core.IssueLink;
+import b4j.util.BugzillaUtils;
+
+/**
+ * Tests the {@link IssueCodec}.
+ * @author ralph
+ *
+ */
+public class IssueCodecTest {
+
+	private TimeZone defaultTimeZone;
+
+	@Before
+	public void saveTimeZone() {
+		defaultTimeZone = TimeZone.getDefault();
+		// Dates must not depend on the default time zone
+		TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+	}
+
+	@After
+	public void restoreTimeZone() {
+		TimeZone.setDefault(defaultTimeZone);
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		DefaultIssue issue = createIssue("4711", "john.doe");
+		RsDate created = issue.getCreationTimestamp();
+		List<String> childIds = new ArrayList<String>();
+		DefaultIssue rc = new IssueCodec().read(getInput(write(new IssueCodec(), issue)), childIds);
+
+		assertEquals("4711", rc.getId());
+		assertNull(rc.getParentId());
+		assertEquals("Summary of 4711", rc.getSummary());
+		assertEquals("Description", rc.getDescription());
+		assertDate(created, rc.getCreationTimestamp());
+		assertEquals("UTC", rc.getCreationTimestamp().getTimeZone().getID());
+		assertDate(issue.getUpdateTimestamp(), rc.getUpdateTimestamp());
+		assertEquals("Europe/Berlin", rc.getUpdateTimestamp().getTimeZone().getID());
+		assertEquals("NEW", rc.getStatus().getName());
+		assertTrue(rc.getStatus().isOpen());
+		assertEquals("john.doe", rc.getReporter().getName());
+		assertEquals("John Doe", rc.getReporter().getRealName());
+		assertNull(rc.getAssignee());
+
+		assertEquals(1, rc.getComments().size());
+		Comment comment = rc.getComments().iterator().next();
+		assertEquals("4711", comment.getIssueId());
+		assertEquals("First comment", comment.getTheText());
+		assertDate(created, comment.getCreationTimestamp());
+		assertSame(rc.getReporter(), comment.getAuthor());
+
+		assertEquals(1, rc.getLinkCount());
+		IssueLink link = rc.getLinks().iterator().next();
+		assertEquals(IssueLink.Type.DEPENDS_ON, link.getLinkType());
+		assertEquals("4712", link.getIssueId());
+		assertEquals(Arrays.asList("4713"), childIds);
+
+		assertEquals("text", rc.get("custom_text"));
+		assertEquals(Long.valueOf(42), rc.get("custom_long"));
+		assertDate((RsDate)issue.get("custom_date"), (RsDate)rc.get("custom_date"));
+		assertEquals(Arrays.asList("a", null, Integer.valueOf(1)), rc.get("custom_list"));
+		// Names of lazily resolved objects are not stored
+		assertNull(rc.get("status_name"));
+	}
+
+	@Test
+	public void testPlainDate() throws Exception {
+		DefaultIssue issue = createIssue("1", "john.doe");
+		issue.set("custom_date", new Date(1000L));
+		DefaultIssue rc = new IssueCodec().read(getInput(write(new IssueCodec(), issue)), null);
+		RsDate date = (RsDate)rc.get("custom_date");
+		assertEquals(1000L, date.getTimeInMillis());
+		assertEquals("UTC", date.getTimeZone().getID());
+	}
+
+	@Test
+	public void testSharedObjects() throws Exception {
+		IssueCodec codec = new IssueCodec();
+		DefaultIssue issue1 = codec.read(getInput(write(codec, createIssue("1", "john.doe"))), null);
+		DefaultIssue issue2 = codec.read(getInput(write(codec, createIssue("2", "john.doe"))), null);
+		assertSame(issue1.getReporter(), issue2.getReporter());
+		assertSame(issue1.getStatus(), issue2.getStatus());
+	}
+
+	@Test
+	public void testPoolSize() throws Exception {
+		IssueCodec codec = new IssueCodec(3);
+		for (int i=0; i<10; i++) {
+			codec.read(getInput(write(codec, createIssue(Integer.toString(i), "user"+i))), null);
+			assertTrue(codec.getPoolSize() <= 3);
+		}
+		// Recently used objects are still shared
+		DefaultIssue issue1 = codec.read(getInput(write(codec, createIssue("1", "john.doe"))), null);
+		DefaultIssue issue2 = codec.read(getInput(write(codec, createIssue("2", "john.doe"))), null);
+		assertSame(issue1.getReporter(), issue2.getReporter());
+	}
+
+	@Test
+	public void testUnsupportedFormat() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new DataOutputStream(out).writeInt(IssueCodec.FORMAT_VERSION+1);
+		try {
+			new IssueCodec().read(getInput(out.toByteArray()), null);
+			fail("Unknown format accepted");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+	private static void assertDate(RsDate expected, RsDate actual) {
+		assertEquals(expected.getTimeInMillis(), actual.getTimeInMillis());
+		assertEquals(expected.getTimeZone().getID(), actual.getTimeZone().getID());
+	}
+
+	private static DefaultIssue createIssue(String id, String user) throws Exception {
+		DefaultIssue rc = new DefaultIssue();
+		rc.setId(id);
+		rc.setSummary("Summary of "+id);
+		rc.setDescription("Description");
+		// Parsed Bugzilla dates are UTC, Jira dates use the server's time zone
+		RsDate created = BugzillaUtils.parseDate("2013-03-05T14:22:01Z");
+		rc.setCreationTimestamp(created);
+		rc.setUpdateTimestamp(new RsDate(TimeZone.getTimeZone("Europe/Berlin"), created.getTimeInMillis()+1000L));
+		rc.setStatus(new CachedStatus("NEW", CachedStatus.OPEN));
+		rc.setReporter(new CachedUser(null, user, "John Doe"));
+		DefaultComment comment = new DefaultComment(id);
+		comment.setAuthor(new CachedUser(null, user, "John Doe"));
+		comment.setCreationTimestamp(created);
+		comment.setTheText("First comment");
+		rc.addComments(comment);
+		rc.addLinks(new DefaultLink(IssueLink.Type.DEPENDS_ON, "Depends on", true, "Depends on other issue", "4712"));
+		DefaultIssue child = new DefaultIssue();
+		child.setId("4713");
+		rc.addChildren(child);
+		rc.set("status_name", "NEW");
+		rc.set("custom_text", "text");
+		rc.set("custom_long", Long.valueOf(42));
+		rc.set("custom_date", new RsDate(TimeZone.getTimeZone("Asia/Kolkata"), 123456789L));
+		rc.set("custom_list", Arrays.asList("a", null, Integer.valueOf(1)));
+		return rc;
+	}
+
+	private static byte[] write(IssueCodec codec, Issue issue) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(out);
+		codec.write(issue, data);
+		data.flush();
+		return out.toByteArray();
+	}
+
+	private static DataInputStream getInput(byte bytes[]) {
+		return new DataInputStream(new ByteArrayInputStream(bytes));
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.report;
+
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import b4j.core.DefaultIssue;
+import b4j.core.Issue;
+import rs.baselib.util.RsDate;
+
+/**
+ * Tests the release lookup of {@link ChangeLogReport}.
+ * @author ralph
+ *
+ */
+public class ChangeLogReportTest {
+
+	/**
+	 * Compares the release lookup with the linear lookup of previous versions.
+	 * Releases at the same time and bugs closed exactly at a release time are included.
+	 */
+	@Test
+	public void testGetRelease() {
+		Random random = new Random(42);
+		for (int run=0; run<50; run++) {
+			List<Release> releases = new ArrayList<Release>();
+			int count = random.nextInt(30);
+			for (int i=0; i<count; i++) {
+				long time = (random.nextInt(40) - 5) * 1000L;
+				releases.add(new DefaultRelease("Release "+random.nextInt(10), new Date(time)));
+			}
+			ChangeLogReport report = new ChangeLogReport();
+			report.setReleases(releases.iterator());
+
+			List<Release> sorted = new ArrayList<Release>(releases);
+			Collections.sort(sorted, new ChangeLogReport.ReleaseComparator());
+			for (long closeDate = -8000L; closeDate <= 40000L; closeDate += 500L) {
+				DefaultIssue issue = new DefaultIssue();
+				issue.setUpdateTimestamp(new RsDate(closeDate));
+				assertSame("Wrong release for "+closeDate+" in run "+run, getLegacyRelease(sorted, issue), report.getRelease(issue));
+			}
+		}
+	}
+
+	/**
+	 * The lookup as implemented up to V3.0.1.
+	 * @param releases - the releases sorted by {@link ChangeLogReport.ReleaseComparator}
+	 * @param bug - the bug
+	 * @return the release
+	 */
+	private static Release getLegacyRelease(List<Release> releases, Issue bug) {
+		long closeDate = bug.getUpdateTimestamp().getTimeInMillis();
+		Iterator<Release> ri = releases.iterator();
+		Release lastRelease = null;
+		long lastTimestamp = 0;
+		while (ri.hasNext()) {
+			Release r = ri.next();
+			long t = r.getReleaseTime().getTime();
+			if ((closeDate > t) && (closeDate < lastTimestamp)) {
+				return lastRelease;
+			}
+			lastTimestamp = t;
+			lastRelease = r;
+		}
+		if (closeDate < lastTimestamp) {
+			return lastRelease;
+		}
+		return null;
+	}
+}
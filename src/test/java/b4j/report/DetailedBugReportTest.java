@@ -0,0 +1,188 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.report;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import rs.baselib.util.CommonUtils;
+import rs.baselib.util.RsDate;
+import templating.Templating;
+import b4j.core.Comment;
+import b4j.core.DefaultComment;
+import b4j.core.DefaultIssue;
+import b4j.core.Issue;
+import b4j.core.Project;
+import b4j.core.session.bugzilla.BugzillaComponent;
+import b4j.core.session.bugzilla.BugzillaPriority;
+import b4j.core.session.bugzilla.BugzillaProject;
+import b4j.core.session.bugzilla.BugzillaSeverity;
+import b4j.core.session.bugzilla.BugzillaStatus;
+import b4j.core.session.cache.CachedUser;
+import b4j.report.DetailedBugReport.CompiledTemplate;
+
+/**
+ * Tests the compiled bug template of {@link DetailedBugReport}.
+ * @author ralph
+ *
+ */
+public class DetailedBugReportTest {
+
+	private static final String TEMPLATES[] = new String[] {
+		"###ID###: ###SUMMARY###",
+		"\n  <bug id=\"###ID###\">\n    <summary>###SUMMARY###</summary>\n    <alias>###ALIAS###</alias>\n  </bug>\n\n",
+		"###ALIAS######ASSIGNEDTO###   ###ID###  ###QACONTACT###",
+		"  ###ALIAS###  \t###ID###\n###OPSYS### ",
+		"Product ###PRODUCT### / ###PROJECT### (###COMPONENT###, ###VERSION###)\n###CLASSIFICATION###",
+		"###CRDATE### ###MTIME### ###STATUS### ###RESOLUTION### ###SEVERITY### ###PRIORITY### ###REPORTER###",
+		"###FILELOCATION###\n\n###DESCRIPTIONS###\n",
+		"Unknown ###UNKNOWN### marker ###ID###",
+		"Unknown ###UNKNOWN###ID### marker",
+		"### ###ID#### ###",
+		"Open ###ID",
+		"",
+		"   ",
+		"No markers",
+	};
+
+	@Test
+	public void testTemplates() {
+		Issue bugs[] = new Issue[] { createBug(), createEmptyBug(), createBlankBug() };
+		for (String template : TEMPLATES) {
+			CompiledTemplate compiled = new CompiledTemplate(template);
+			for (Issue bug : bugs) {
+				StringWriter out = new StringWriter();
+				compiled.write(bug, out);
+				assertEquals("Template \""+template+"\" for bug "+bug.getId(), getLegacyBugString(template, bug), out.toString());
+			}
+		}
+	}
+
+	@Test
+	public void testMissingProject() {
+		DefaultIssue bug = new DefaultIssue();
+		bug.setId("1");
+		StringWriter out = new StringWriter();
+		new CompiledTemplate("###ID### ###PRODUCT###/###PROJECT### ").write(bug, out);
+		assertEquals("1 /", out.toString());
+	}
+
+	private static DefaultIssue createBug() {
+		DefaultIssue rc = new DefaultIssue();
+		rc.setId("4711");
+		rc.setSummary("  Summary with spaces\t");
+		rc.set(Issue.ALIAS, "alias");
+		rc.set(Issue.OP_SYS, "Linux");
+		rc.set(Issue.BUG_FILE_LOCATION, "http://localhost/");
+		rc.setProject(new BugzillaProject("b4j"));
+		rc.addComponents(new BugzillaComponent("core"));
+		rc.setCreationTimestamp(new RsDate(1000000L));
+		rc.setUpdateTimestamp(new RsDate(2000000L));
+		rc.setStatus(new BugzillaStatus("NEW"));
+		rc.setSeverity(new BugzillaSeverity("major"));
+		rc.setPriority(new BugzillaPriority("P1"));
+		CachedUser user = new CachedUser(null, "john.doe", "John Doe");
+		rc.setReporter(user);
+		rc.setAssignee(user);
+		rc.addComments(
+				createComment(rc, user, "\n  First line\nSecond line\n\n  Indented line  \n"),
+				createComment(rc, user, "Single line"),
+				createComment(rc, user, ""));
+		return rc;
+	}
+
+	/**
+	 * A bug without any values.
+	 */
+	private static DefaultIssue createEmptyBug() {
+		DefaultIssue rc = new DefaultIssue();
+		rc.setId("1");
+		rc.setProject(new BugzillaProject("b4j"));
+		return rc;
+	}
+
+	/**
+	 * A bug with whitespace values only.
+	 */
+	private static DefaultIssue createBlankBug() {
+		DefaultIssue rc = new DefaultIssue();
+		rc.setId(" ");
+		rc.setSummary("\n");
+		rc.set(Issue.ALIAS, "");
+		rc.set(Issue.OP_SYS, " \t ");
+		rc.setProject(new BugzillaProject("  "));
+		return rc;
+	}
+
+	private static Comment createComment(Issue bug, CachedUser author, String text) {
+		DefaultComment rc = new DefaultComment(bug.getId());
+		rc.setAuthor(author);
+		rc.setCreationTimestamp(new RsDate(3000000L));
+		rc.setTheText(text);
+		return rc;
+	}
+
+	/**
+	 * The replacement as implemented up to V3.0.1.
+	 * A missing project renders as empty text instead of failing.
+	 * @param template - the template
+	 * @param bug - the bug
+	 * @return template with all variables replaced
+	 */
+	private static String getLegacyBugString(String template, Issue bug) {
+		Project project = bug.getProject();
+		Map<String,Object> markers = new HashMap<String, Object>();
+		markers.put("ID", bug.getId());
+		markers.put("ALIAS", bug.get(Issue.ALIAS));
+		markers.put("ASSIGNEDTO", bug.getAssignee());
+		markers.put("CLASSIFICATION", bug.getClassification());
+		markers.put("COMPONENT", bug.getComponents());
+		markers.put("CRDATE", bug.getCreationTimestamp());
+		markers.put("MTIME", bug.getUpdateTimestamp());
+		markers.put("FILELOCATION", bug.get(Issue.BUG_FILE_LOCATION));
+		markers.put("PRIORITY", bug.getPriority());
+		markers.put("OPSYS", bug.get(Issue.OP_SYS));
+		markers.put("SEVERITY", bug.getSeverity());
+		markers.put("PRODUCT", project != null ? project.getName() : null);
+		markers.put("PROJECT", project != null ? project.getName() : null);
+		markers.put("QACONTACT", bug.get(Issue.QA_CONTACT));
+		markers.put("REPORTER", bug.getReporter());
+		markers.put("RESOLUTION", bug.getResolution());
+		markers.put("SUMMARY", bug.getSummary());
+		markers.put("STATUS", bug.getStatus());
+		markers.put("VERSION", bug.getFixVersions());
+		StringBuilder s = new StringBuilder();
+		for (Comment c : bug.getComments()) {
+			String t = CommonUtils.join("\n   ", c.getTheText().split("\\n"));
+			s.append("\n\n");
+			s.append(c.getAuthor());
+			s.append(" (");
+			s.append(c.getCreationTimestamp());
+			s.append("):\n   ");
+			s.append(t.trim());
+		}
+		markers.put("DESCRIPTIONS", s.toString().trim());
+		template = Templating.replace(template, markers);
+		return template.trim();
+	}
+}
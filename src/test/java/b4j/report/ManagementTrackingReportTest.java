@@ -0,0 +1,176 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.report;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.configuration.XMLConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import rs.baselib.util.RsDate;
+import b4j.core.DefaultIssue;
+import b4j.core.Issue;
+import b4j.core.Severity;
+import b4j.core.session.bugzilla.BugzillaSeverity;
+import b4j.core.session.bugzilla.BugzillaStatus;
+
+/**
+ * Tests the thread-safe aggregation of {@link ManagementTrackingReport}.
+ * @author ralph
+ *
+ */
+public class ManagementTrackingReportTest {
+
+	private static final int THREAD_COUNT = 4;
+
+	private List<File> files;
+
+	@Before
+	public void createFiles() {
+		files = new ArrayList<File>();
+	}
+
+	@After
+	public void deleteFiles() {
+		for (File file : files) file.delete();
+	}
+
+	/**
+	 * Merged per-thread aggregates must produce the same CSV as a single thread.
+	 */
+	@Test
+	public void testMergedAggregates() throws Exception {
+		List<Issue> issues = createIssues(2000);
+
+		ManagementTrackingReport single = createReport();
+		single.prepareReport();
+		for (Issue issue : issues) single.registerBug(issue);
+		single.closeReport();
+
+		final ManagementTrackingReport parallel = createReport();
+		parallel.prepareReport();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i=0; i<THREAD_COUNT; i++) {
+			final List<Issue> slice = new ArrayList<Issue>();
+			for (int j=i; j<issues.size(); j+=THREAD_COUNT) slice.add(issues.get(j));
+			Thread t = new Thread() {
+				@Override
+				public void run() {
+					for (Issue issue : slice) parallel.registerBug(issue);
+				}
+			};
+			threads.add(t);
+			t.start();
+		}
+		for (Thread t : threads) t.join();
+		parallel.closeReport();
+
+		assertEquals(issues.size(), parallel.getTotalCount());
+		assertEquals(single.getOpenCount(), parallel.getOpenCount());
+		assertEquals(single.getClosedCount(), parallel.getClosedCount());
+		String expected = read(single.getOutputFile());
+		assertTrue(expected.length() > 0);
+		assertEquals(expected, read(parallel.getOutputFile()));
+	}
+
+	@Test
+	public void testPrepareReport() throws Exception {
+		final int calls[] = new int[1];
+		ManagementTrackingReport report = new ManagementTrackingReport() {
+			@Override
+			public void prepareReport() {
+				calls[0]++;
+				super.prepareReport();
+			}
+		};
+		assertEquals(0, calls[0]);
+		// Report can be used without preparing it
+		DefaultIssue issue = new DefaultIssue();
+		issue.setSeverity(new BugzillaSeverity("major"));
+		issue.setCreationTimestamp(new RsDate(0L));
+		report.registerBug(issue);
+		assertEquals(1, report.getTotalCount());
+	}
+
+	private ManagementTrackingReport createReport() throws Exception {
+		File file = File.createTempFile("b4j-test-", ".csv");
+		files.add(file);
+		XMLConfiguration config = new XMLConfiguration();
+		config.load(new StringReader(
+				"<report>" +
+				"<outputFile>"+file.getPath()+"</outputFile>" +
+				"<severityGroup name=\"URGENT\"><severity>blocker</severity><severity>critical</severity></severityGroup>" +
+				"<severityGroup name=\"MINORS\"><severity>minor</severity><severity>trivial</severity></severityGroup>" +
+				"</report>"));
+		ManagementTrackingReport rc = new ManagementTrackingReport();
+		rc.configure(config);
+		return rc;
+	}
+
+	/**
+	 * Creates issues around year boundaries with shared and individual severity objects.
+	 */
+	private static List<Issue> createIssues(int count) {
+		Random random = new Random(42);
+		String severities[] = new String[] { "blocker", "critical", "major", "normal", "minor", "trivial", "enhancement", "unknown" };
+		Severity shared[] = new Severity[severities.length];
+		for (int i=0; i<severities.length; i++) shared[i] = new BugzillaSeverity(severities[i]);
+		String statuses[] = new String[] { "NEW", "ASSIGNED", "RESOLVED", "CLOSED" };
+		long start = new GregorianCalendar(2012, Calendar.DECEMBER, 1).getTimeInMillis();
+		List<Issue> rc = new ArrayList<Issue>();
+		for (int i=0; i<count; i++) {
+			DefaultIssue issue = new DefaultIssue();
+			issue.setId(Integer.toString(i));
+			int sev = random.nextInt(severities.length);
+			issue.setSeverity(random.nextBoolean() ? shared[sev] : new BugzillaSeverity(severities[sev]));
+			issue.setStatus(new BugzillaStatus(statuses[random.nextInt(statuses.length)]));
+			long created = start + (long)random.nextInt(400) * 24L*3600L*1000L + random.nextInt(24*3600*1000);
+			issue.setCreationTimestamp(new RsDate(created));
+			issue.setUpdateTimestamp(new RsDate(created + random.nextInt(30*24*3600) * 1000L));
+			rc.add(issue);
+		}
+		return rc;
+	}
+
+	private static String read(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			StringBuilder rc = new StringBuilder();
+			byte buf[] = new byte[4096];
+			int len;
+			while ((len = in.read(buf)) >= 0) rc.append(new String(buf, 0, len, "UTF-8"));
+			return rc.toString();
+		} finally {
+			in.close();
+		}
+	}
+}
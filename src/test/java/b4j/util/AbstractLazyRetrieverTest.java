@@ -0,0 +1,213 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import b4j.core.Comment;
+import b4j.core.DefaultComment;
+import b4j.core.User;
+import b4j.core.session.bugzilla.BugzillaUser;
+
+/**
+ * Tests the coalescing of concurrent lazy loads in {@link AbstractLazyRetriever}.
+ * @author ralph
+ *
+ */
+public class AbstractLazyRetrieverTest {
+
+	private static final int THREADS = 16;
+	private static final int KEYS = 200;
+
+	@Test
+	public void testConcurrentUsers() throws Exception {
+		final CountingRetriever retriever = new CountingRetriever();
+		List<Throwable> errors = run(new Worker() {
+			@Override
+			public void run(String key) {
+				retriever.registerUser(key);
+				User user = retriever.getUser(key);
+				assertNotNull("User not loaded: "+key, user);
+				assertEquals(key, user.getName());
+			}
+		});
+		assertEquals("Errors: "+errors, 0, errors.size());
+		assertLoaded(retriever, retriever.getUserNames());
+	}
+
+	@Test
+	public void testConcurrentComments() throws Exception {
+		final CountingRetriever retriever = new CountingRetriever();
+		List<Throwable> errors = run(new Worker() {
+			@Override
+			public void run(String key) {
+				retriever.registerComment(key);
+				Collection<Comment> comments = retriever.getComments(key);
+				assertNotNull("Comments not loaded: "+key, comments);
+				assertEquals(1, comments.size());
+				assertEquals(key, comments.iterator().next().getIssueId());
+			}
+		});
+		assertEquals("Errors: "+errors, 0, errors.size());
+		assertLoaded(retriever, retriever.getCommentIssues());
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+		final CountingRetriever retriever = new CountingRetriever();
+		retriever.failures.set(1);
+		retriever.registerUser("john.doe");
+		try {
+			retriever.getUser("john.doe");
+			fail("Failure was not propagated");
+		} catch (RuntimeException e) {
+			assertEquals("Cannot load users", e.getMessage());
+		}
+		// The key was re-queued and is loaded by the next attempt
+		assertNotNull(retriever.getUser("john.doe"));
+		assertEquals(2, retriever.loads.get());
+	}
+
+	/**
+	 * Asserts that all keys were requested exactly once and that no load was in vain.
+	 * @param retriever - the retriever
+	 * @param queue - the queue that must be empty
+	 */
+	private static void assertLoaded(CountingRetriever retriever, Collection<String> queue) {
+		assertEquals(KEYS, retriever.requests.size());
+		for (int i=0; i<KEYS; i++) {
+			AtomicInteger count = retriever.requests.get(key(i));
+			assertNotNull("Registration lost: "+key(i), count);
+			assertEquals("Duplicate request: "+key(i), 1, count.get());
+		}
+		assertEquals(0, retriever.emptyLoads.get());
+		assertTrue(retriever.loads.get() <= KEYS);
+		assertTrue(queue.isEmpty());
+	}
+
+	/**
+	 * Runs the worker concurrently in all threads, each thread working on all keys in a different order.
+	 * @param worker - the worker
+	 * @return the errors that occurred
+	 * @throws InterruptedException when interrupted
+	 */
+	private static List<Throwable> run(final Worker worker) throws InterruptedException {
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		final CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t=0; t<THREADS; t++) {
+			final int offset = t * KEYS / THREADS;
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						for (int i=0; i<KEYS; i++) {
+							worker.run(key((i+offset) % KEYS));
+						}
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) thread.join();
+		return errors;
+	}
+
+	private static String key(int i) {
+		return "key"+i;
+	}
+
+	private static interface Worker {
+		public void run(String key);
+	}
+
+	/**
+	 * Loads users and comments with a delay and counts the requests.
+	 */
+	private static class CountingRetriever extends NoopLazyRetriever {
+
+		private ConcurrentMap<String,AtomicInteger> requests = new ConcurrentHashMap<String,AtomicInteger>();
+		private AtomicInteger loads = new AtomicInteger(0);
+		private AtomicInteger emptyLoads = new AtomicInteger(0);
+		private AtomicInteger failures = new AtomicInteger(0);
+
+		/**
+		 * Simulates a remote request for the keys.
+		 * @param keys - the keys requested
+		 * @throws Exception when a failure was requested
+		 */
+		private void request(Collection<String> keys) throws Exception {
+			loads.incrementAndGet();
+			if (keys.isEmpty()) emptyLoads.incrementAndGet();
+			Thread.sleep(1);
+			if (failures.getAndDecrement() > 0) throw new Exception("Remote call failed");
+			for (String key : keys) {
+				AtomicInteger count = requests.putIfAbsent(key, new AtomicInteger(1));
+				if (count != null) count.incrementAndGet();
+			}
+		}
+
+		@Override
+		protected void loadUsers() throws Exception {
+			List<String> names = drain(getUserNames());
+			try {
+				request(names);
+			} catch (Exception e) {
+				for (String name : names) registerUser(name);
+				throw e;
+			}
+			for (String name : names) {
+				BugzillaUser user = new BugzillaUser();
+				user.setName(name);
+				registerUser(user);
+			}
+		}
+
+		@Override
+		protected void loadComments() throws Exception {
+			List<String> issues = drain(getCommentIssues());
+			request(issues);
+			for (String issueId : issues) {
+				Set<Comment> comments = new HashSet<Comment>();
+				comments.add(new DefaultComment(issueId));
+				registerComments(issueId, comments);
+			}
+		}
+	}
+}
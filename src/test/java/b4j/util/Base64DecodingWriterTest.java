@@ -0,0 +1,143 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link Base64DecodingWriter}.
+ * @author ralph
+ *
+ */
+public class Base64DecodingWriterTest {
+
+	private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+	@Test
+	public void testPadding() throws IOException {
+		// Test vectors from RFC 4648
+		assertEquals("", decodeString(""));
+		assertEquals("f", decodeString("Zg=="));
+		assertEquals("fo", decodeString("Zm8="));
+		assertEquals("foo", decodeString("Zm9v"));
+		assertEquals("foob", decodeString("Zm9vYg=="));
+		assertEquals("fooba", decodeString("Zm9vYmE="));
+		assertEquals("foobar", decodeString("Zm9vYmFy"));
+		// Padding may be missing
+		assertEquals("f", decodeString("Zg"));
+		assertEquals("fo", decodeString("Zm8"));
+	}
+
+	@Test
+	public void testChunkBoundaries() throws IOException {
+		byte data[] = new byte[256];
+		for (int i=0; i<data.length; i++) data[i] = (byte)i;
+		String encoded = encode(data);
+		for (int chunk=1; chunk<=9; chunk++) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			Base64DecodingWriter writer = new Base64DecodingWriter(out);
+			char chars[] = encoded.toCharArray();
+			for (int off=0; off<chars.length; off+=chunk) {
+				writer.write(chars, off, Math.min(chunk, chars.length-off));
+			}
+			writer.close();
+			assertArrayEquals("Chunk size "+chunk, data, out.toByteArray());
+		}
+	}
+
+	@Test
+	public void testWhitespace() throws IOException {
+		assertEquals("foobar", decodeString(" Zm9v\r\nYm\tFy\n"));
+	}
+
+	@Test
+	public void testTruncated() throws IOException {
+		try {
+			decodeString("Zm9vY");
+			fail("Truncated data accepted");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("Truncated"));
+		}
+	}
+
+	@Test
+	public void testInvalidCharacter() throws IOException {
+		try {
+			decodeString("Zm9v*mFy");
+			fail("Invalid character accepted");
+		} catch (IOException e) {
+			// Expected
+		}
+		try {
+			decodeString("Zm9v\u00e9mFy");
+			fail("Invalid character accepted");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testClosesStream() throws IOException {
+		final boolean closed[] = new boolean[1];
+		Base64DecodingWriter writer = new Base64DecodingWriter(new ByteArrayOutputStream() {
+			@Override
+			public void close() throws IOException {
+				closed[0] = true;
+			}
+		});
+		writer.write("Zg==");
+		writer.close();
+		assertTrue(closed[0]);
+		try {
+			writer.write("Zg==");
+			fail("Writing into closed writer accepted");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+	protected static String decodeString(String s) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Base64DecodingWriter writer = new Base64DecodingWriter(out);
+		writer.write(s);
+		writer.close();
+		return new String(out.toByteArray(), "UTF-8");
+	}
+
+	protected static String encode(byte data[]) {
+		StringBuilder rc = new StringBuilder();
+		for (int i=0; i<data.length; i+=3) {
+			int n = Math.min(3, data.length-i);
+			int bits = (data[i] & 0xff) << 16;
+			if (n > 1) bits |= (data[i+1] & 0xff) << 8;
+			if (n > 2) bits |= data[i+2] & 0xff;
+			for (int j=0; j<4; j++) {
+				rc.append(j <= n ? ALPHABET.charAt((bits >> (18-6*j)) & 0x3f) : '=');
+			}
+		}
+		return rc.toString();
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the date parsing of {@link BugzillaUtils}.
+ * <p>The benchmark is not part of the unit tests. Remove the {@link Ignore} annotation
+ * to run it manually.</p>
+ * @author ralph
+ *
+ */
+@Ignore("Benchmark")
+public class BugzillaUtilsBenchmark {
+
+	private static Logger log = LoggerFactory.getLogger(BugzillaUtilsBenchmark.class);
+
+	private TimeZone defaultTimeZone;
+
+	@Before
+	public void saveTimeZone() {
+		defaultTimeZone = TimeZone.getDefault();
+	}
+
+	@After
+	public void restoreTimeZone() {
+		TimeZone.setDefault(defaultTimeZone);
+	}
+
+	@Test
+	public void testParseDatePerformance() throws Exception {
+		TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+		int iterations = 100000;
+		for (String s : new String[] { "2013-03-05T14:22:01Z", "2013-03-05 14:22:01 +0100", "2013-03-05 14:22:01" }) {
+			// Warm up
+			for (int i=0; i<iterations; i++) {
+				BugzillaUtils.parseDateByFormats(s);
+				BugzillaUtils.parseDate(s);
+			}
+			long startTime = System.nanoTime();
+			for (int i=0; i<iterations; i++) BugzillaUtils.parseDateByFormats(s);
+			long formatTime = System.nanoTime() - startTime;
+			startTime = System.nanoTime();
+			for (int i=0; i<iterations; i++) BugzillaUtils.parseDate(s);
+			long scanTime = System.nanoTime() - startTime;
+			log.info("parseDate(\""+s+"\"): "+(scanTime/iterations)+" ns/call (formats: "+(formatTime/iterations)+" ns/call)");
+		}
+	}
+}
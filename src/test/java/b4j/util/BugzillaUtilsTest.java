@@ -0,0 +1,97 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import rs.baselib.util.RsDate;
+
+/**
+ * Tests the date parsing of {@link BugzillaUtils}.
+ * @author ralph
+ *
+ */
+public class BugzillaUtilsTest {
+
+	private static final String TIME_ZONES[] = new String[] { "UTC", "Europe/Berlin", "America/New_York", "Asia/Kolkata", "Australia/Lord_Howe" };
+	private static final String DATES[] = new String[] {
+		"2013-03-05T14:22:01Z", "2000-02-29T23:59:59Z", "1970-01-01T00:00:00Z",
+		"2013-03-05 14:22:01 +0100", "2013-03-05 14:22:01 -0530", "2099-12-31 23:59:59 +2359",
+		"2013-03-05 14:22:01 UTC", "2013-03-05 14:22:01 GMT", "2013-03-05 14:22:01 CET", "2013-03-05 14:22:01 +01:00",
+		"2013-03-05 14:22:01", "2013-03-05 14:22", "2013-03-05",
+		"2013-03-31 02:30:00", "2013-10-27 02:30:00", "2013-03-10 02:30",
+		"2012-02-29 00:00:00", "2013-02-29 10:00:00", "2013-13-05 14:22:01", "2013-03-05 24:00:00", "2013-03-05 14:22:60",
+		"1500-01-01", "1582-10-10 10:00", "2013-03-05 14:22:01.123", "2013-03-05 14:22 +0100",
+		"2013-03-05T14:22:01", "2013-03-05T14:22:01+0100", "2013-03-05 14:22:01 ", "2013-3-5", "99999-01-01"
+	};
+
+	private TimeZone defaultTimeZone;
+
+	@Before
+	public void saveTimeZone() {
+		defaultTimeZone = TimeZone.getDefault();
+	}
+
+	@After
+	public void restoreTimeZone() {
+		TimeZone.setDefault(defaultTimeZone);
+	}
+
+	@Test
+	public void testParseDate() {
+		List<String> dates = new ArrayList<String>();
+		for (String s : DATES) dates.add(s);
+		Random random = new Random(1);
+		for (int i=0; i<1000; i++) {
+			dates.add(String.format("%04d-%02d-%02dT%02d:%02d:%02dZ", 1600+random.nextInt(600), 1+random.nextInt(12), 1+random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60)));
+			dates.add(String.format("%04d-%02d-%02d %02d:%02d:%02d %s%02d%02d", 1600+random.nextInt(600), 1+random.nextInt(12), 1+random.nextInt(31), random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextBoolean() ? "+" : "-", random.nextInt(15), random.nextInt(60)));
+			dates.add(String.format("%04d-%02d-%02d %02d:%02d:%02d", 1900+random.nextInt(200), 1+random.nextInt(12), 1+random.nextInt(31), random.nextInt(24), random.nextInt(60), random.nextInt(60)));
+		}
+		for (String timeZone : TIME_ZONES) {
+			TimeZone.setDefault(TimeZone.getTimeZone(timeZone));
+			for (String s : dates) {
+				assertEquals("Different result for "+s+" in "+timeZone, parse(s, false), parse(s, true));
+			}
+		}
+	}
+
+	/**
+	 * Parses the date and returns a comparable result.
+	 * @param s the string to parse
+	 * @param scan whether to use {@link BugzillaUtils#parseDate(String)}
+	 * @return the time and time zone or the exception
+	 */
+	private String parse(String s, boolean scan) {
+		try {
+			RsDate rc = scan ? BugzillaUtils.parseDate(s) : BugzillaUtils.parseDateByFormats(s);
+			return rc.getTimeInMillis()+" "+rc.getTimeZone().getID();
+		} catch (ParseException e) {
+			return "ParseException";
+		}
+	}
+}
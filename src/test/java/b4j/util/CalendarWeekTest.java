@@ -0,0 +1,132 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link CalendarWeek} against {@link Calendar}.
+ * @author ralph
+ *
+ */
+public class CalendarWeekTest {
+
+	private static final Locale LOCALES[] = new Locale[] {
+		Locale.US, Locale.GERMANY, Locale.FRANCE, Locale.UK, new Locale("ar", "SA"), Locale.JAPAN
+	};
+
+	private static final String TIME_ZONES[] = new String[] {
+		"UTC", "Europe/Berlin", "America/Los_Angeles", "Asia/Kolkata", "Pacific/Kiritimati", "Pacific/Pago_Pago"
+	};
+
+	@Test
+	public void testLocales() {
+		for (Locale locale : LOCALES) {
+			for (String id : TIME_ZONES) {
+				Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(id), locale);
+				assertYearBoundaries(new CalendarWeek(cal), cal, locale+" "+id);
+			}
+		}
+	}
+
+	@Test
+	public void testWeekRules() {
+		for (int firstDayOfWeek=Calendar.SUNDAY; firstDayOfWeek<=Calendar.SATURDAY; firstDayOfWeek++) {
+			for (int minimalDays=1; minimalDays<=7; minimalDays++) {
+				for (String id : TIME_ZONES) {
+					TimeZone timeZone = TimeZone.getTimeZone(id);
+					Calendar cal = new GregorianCalendar(timeZone);
+					cal.setFirstDayOfWeek(firstDayOfWeek);
+					cal.setMinimalDaysInFirstWeek(minimalDays);
+					CalendarWeek week = new CalendarWeek(timeZone, firstDayOfWeek, minimalDays);
+					assertYearBoundaries(week, cal, firstDayOfWeek+"/"+minimalDays+" "+id);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRandomTimes() {
+		Random random = new Random(42);
+		for (String id : TIME_ZONES) {
+			Calendar cal = Calendar.getInstance(TimeZone.getTimeZone(id), Locale.GERMANY);
+			CalendarWeek week = new CalendarWeek(cal);
+			for (int i=0; i<10000; i++) {
+				// Between 1900 and 2100, including times before epoch
+				long millis = (long)((random.nextDouble() * 200 - 70) * 365.25 * 24 * 3600 * 1000);
+				assertWeek(week, cal, millis, id);
+			}
+		}
+	}
+
+	@Test
+	public void testEpochDay() {
+		Calendar cal = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+		for (int year=1900; year<=2100; year++) {
+			for (int month=1; month<=12; month++) {
+				cal.clear();
+				cal.set(year, month-1, 1);
+				long epochDay = cal.getTimeInMillis() / (24L*3600L*1000L);
+				assertEquals(year+"-"+month, epochDay, CalendarWeek.getEpochDay(year, month, 1));
+				assertEquals(year+"-"+month, year, CalendarWeek.getYear(epochDay));
+				assertEquals(year+"-"+month, cal.get(Calendar.DAY_OF_WEEK), CalendarWeek.getDayOfWeek(epochDay));
+			}
+		}
+	}
+
+	/**
+	 * Checks all hours from mid of December to mid of January.
+	 */
+	private static void assertYearBoundaries(CalendarWeek week, Calendar cal, String message) {
+		Calendar start = (Calendar)cal.clone();
+		for (int year=1995; year<=2030; year++) {
+			start.clear();
+			start.set(year, Calendar.DECEMBER, 20);
+			long millis = start.getTimeInMillis();
+			for (int hour=0; hour<24*25; hour += 5) {
+				assertWeek(week, cal, millis + hour*3600000L, message);
+			}
+		}
+	}
+
+	private static void assertWeek(CalendarWeek week, Calendar cal, long millis, String message) {
+		cal.setTimeInMillis(millis);
+		assertEquals(message+" at "+millis, getWeekId(cal), week.getWeekId(millis));
+	}
+
+	/**
+	 * Returns the week ID as computed by the calendar.
+	 */
+	private static int getWeekId(Calendar cal) {
+		int year = cal.get(Calendar.YEAR);
+		int week = cal.get(Calendar.WEEK_OF_YEAR);
+		int month = cal.get(Calendar.MONTH);
+		// The week belongs to the year it was counted for
+		if ((month == Calendar.DECEMBER) && (week == 1)) year++;
+		else if ((month == Calendar.JANUARY) && (week > 50)) year--;
+		return year*100 + week;
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link LongList}.
+ * @author ralph
+ *
+ */
+public class LongListTest {
+
+	@Test
+	public void testGrow() {
+		LongList list = new LongList(0);
+		assertTrue(list.isEmpty());
+		for (long i=0; i<1000; i++) list.add(i*3);
+		assertEquals(1000, list.size());
+		for (int i=0; i<1000; i++) assertEquals(i*3L, list.get(i));
+		assertEquals(1000, list.toArray().length);
+	}
+
+	@Test
+	public void testToArray() {
+		LongList list = new LongList();
+		list.add(Long.MAX_VALUE);
+		list.add(-1L);
+		long values[] = list.toArray();
+		assertArrayEquals(new long[] { Long.MAX_VALUE, -1L }, values);
+		values[0] = 0;
+		assertEquals(Long.MAX_VALUE, list.get(0));
+	}
+
+	@Test
+	public void testBounds() {
+		LongList list = new LongList();
+		list.add(1);
+		try {
+			list.get(1);
+			fail("Index was not checked");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+		try {
+			list.get(-1);
+			fail("Index was not checked");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testAsStrings() {
+		LongList list = new LongList();
+		List<String> strings = list.asStrings();
+		assertEquals(0, strings.size());
+		list.add(17);
+		list.add(4711);
+		// The view reflects later additions
+		assertEquals(2, strings.size());
+		assertEquals("17", strings.get(0));
+		assertEquals("4711", strings.get(1));
+		try {
+			strings.add("1");
+			fail("View is not read-only");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+/**
+ * A retriever that loads nothing.
+ * <p>Tests register the objects required in advance or override the load methods
+ * they are interested in.</p>
+ * @author ralph
+ *
+ */
+public class NoopLazyRetriever extends AbstractLazyRetriever {
+
+	/**
+	 * Constructor.
+	 */
+	public NoopLazyRetriever() {
+	}
+
+	@Override
+	protected void loadClassifications() throws Exception {
+	}
+
+	@Override
+	protected void loadProjects() throws Exception {
+	}
+
+	@Override
+	protected void loadComponents() throws Exception {
+	}
+
+	@Override
+	protected void loadUsers() throws Exception {
+	}
+
+	@Override
+	protected void loadComments() throws Exception {
+	}
+
+	@Override
+	protected void loadAttachments() throws Exception {
+	}
+
+	@Override
+	protected void loadPriorities() throws Exception {
+	}
+
+	@Override
+	protected void loadSeverities() throws Exception {
+	}
+
+	@Override
+	protected void loadStatus() throws Exception {
+	}
+
+	@Override
+	protected void loadResolutions() throws Exception {
+	}
+
+	@Override
+	protected void loadIssueTypes() throws Exception {
+	}
+
+	@Override
+	protected void loadVersions() throws Exception {
+	}
+}
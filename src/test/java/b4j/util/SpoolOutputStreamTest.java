@@ -0,0 +1,124 @@
+/*
+ * This file is part of Bugzilla for Java.
+ *
+ *  Bugzilla for Java is free software: you can redistribute it 
+ *  and/or modify it under the terms of version 3 of the GNU 
+ *  Lesser General Public  License as published by the Free Software 
+ *  Foundation.
+ *  
+ *  Bugzilla for Java is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public 
+ *  License along with Bugzilla for Java.  If not, see 
+ *  <http://www.gnu.org/licenses/lgpl-3.0.html>.
+ */
+package b4j.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link SpoolOutputStream}.
+ * @author ralph
+ *
+ */
+public class SpoolOutputStreamTest {
+
+	@Test
+	public void testMemory() throws IOException {
+		SpoolOutputStream out = new SpoolOutputStream(100);
+		byte data[] = getData(100);
+		out.write(data, 0, 60);
+		out.write(data, 60, 40);
+		assertFalse(out.isSpooled());
+		assertNull(out.getFile());
+		assertEquals(100, out.getSize());
+		assertArrayEquals(data, read(out.getInputStream()));
+	}
+
+	@Test
+	public void testThreshold() throws IOException {
+		SpoolOutputStream out = new SpoolOutputStream(100);
+		byte data[] = getData(101);
+		out.write(data, 0, 100);
+		assertFalse(out.isSpooled());
+		// Next byte exceeds the threshold
+		out.write(data[100]);
+		assertTrue(out.isSpooled());
+		File file = out.getFile();
+		assertTrue(file.exists());
+		assertEquals(101, out.getSize());
+		InputStream in = out.getInputStream();
+		assertTrue(file.exists());
+		// File is deleted when stream is closed
+		assertArrayEquals(data, read(in));
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void testLargeWrite() throws IOException {
+		SpoolOutputStream out = new SpoolOutputStream(10);
+		out.write(1);
+		byte data[] = getData(1000);
+		out.write(data, 0, data.length);
+		assertTrue(out.isSpooled());
+		byte result[] = read(out.getInputStream());
+		assertEquals(1001, result.length);
+		assertEquals(1, result[0]);
+		for (int i=0; i<data.length; i++) assertEquals(data[i], result[i+1]);
+	}
+
+	@Test
+	public void testDiscard() throws IOException {
+		SpoolOutputStream out = new SpoolOutputStream(10);
+		out.write(getData(20), 0, 20);
+		File file = out.getFile();
+		assertTrue(file.exists());
+		out.discard();
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void testClosed() throws IOException {
+		SpoolOutputStream out = new SpoolOutputStream(10);
+		out.close();
+		try {
+			out.write(1);
+			fail("Writing into closed stream accepted");
+		} catch (IOException e) {
+			// Expected
+		}
+	}
+
+	protected static byte[] getData(int size) {
+		byte rc[] = new byte[size];
+		for (int i=0; i<size; i++) rc[i] = (byte)(i*7);
+		return rc;
+	}
+
+	protected static byte[] read(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream rc = new ByteArrayOutputStream();
+			byte buf[] = new byte[64];
+			int len;
+			while ((len = in.read(buf)) >= 0) rc.write(buf, 0, len);
+			return rc.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+}